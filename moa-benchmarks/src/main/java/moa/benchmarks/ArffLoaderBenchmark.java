@@ -0,0 +1,78 @@
+/*
+ *    ArffLoaderBenchmark.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import com.yahoo.labs.samoa.instances.ArffLoader;
+import com.yahoo.labs.samoa.instances.Instance;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parse throughput (instances per second) of ArffLoader on ARFF text held in
+ * memory, so that disk speed does not enter the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArffLoaderBenchmark {
+
+    public static final int NUM_INSTANCES = 20000;
+
+    @Param({"generators.RandomRBFGenerator -a 20", "generators.AgrawalGenerator"})
+    public String stream;
+
+    protected String arff;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(BenchmarkData.header(this.stream).toString()).append('\n');
+        for (Instance inst : BenchmarkData.generate(this.stream, NUM_INSTANCES)) {
+            sb.append(inst.toString()).append('\n');
+        }
+        this.arff = sb.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_INSTANCES)
+    public void parse(Blackhole bh) {
+        ArffLoader loader = new ArffLoader(new StringReader(this.arff), 0, -1);
+        Instance inst;
+        while ((inst = loader.readInstance()) != null) {
+            bh.consume(inst);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *    AttributeClassObserverBenchmark.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.FIMTDDNumericAttributeClassObserver;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.classifiers.core.splitcriteria.VarianceReductionSplitCriterion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert and split-evaluation cost of the attribute class observers used by
+ * the Hoeffding tree family. Classification observers see a two-class
+ * problem; the regression observers (names ending in "Regression" or
+ * starting with "FIMTDD") see a numeric target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AttributeClassObserverBenchmark {
+
+    public static final int NUM_VALUES = 10000;
+
+    public static final int NUM_CLASSES = 2;
+
+    @Param({"GaussianNumericAttributeClassObserver",
+        "BinaryTreeNumericAttributeClassObserver",
+        "GreenwaldKhannaNumericAttributeClassObserver",
+        "VFMLNumericAttributeClassObserver",
+        "NominalAttributeClassObserver",
+        "BinaryTreeNumericAttributeClassObserverRegression",
+        "FIMTDDNumericAttributeClassObserver"})
+    public String observer;
+
+    protected boolean regression;
+
+    protected double[] values;
+
+    protected int[] classes;
+
+    protected double[] targets;
+
+    protected double[] preSplitDist;
+
+    protected SplitCriterion criterion;
+
+    protected AttributeClassObserver empty;
+
+    protected AttributeClassObserver filled;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        this.regression = this.observer.endsWith("Regression")
+                || this.observer.startsWith("FIMTDD");
+        boolean nominal = this.observer.startsWith("Nominal");
+        Random random = new Random(1);
+        this.values = new double[NUM_VALUES];
+        this.classes = new int[NUM_VALUES];
+        this.targets = new double[NUM_VALUES];
+        double count = 0.0, sum = 0.0, sumOfSquares = 0.0;
+        double[] classCounts = new double[NUM_CLASSES];
+        for (int i = 0; i < NUM_VALUES; i++) {
+            this.values[i] = nominal ? random.nextInt(10) : random.nextGaussian();
+            this.classes[i] = this.values[i] + 0.5 * random.nextGaussian() > 0.0 ? 1 : 0;
+            this.targets[i] = 3.0 * this.values[i] + random.nextGaussian();
+            classCounts[this.classes[i]]++;
+            count++;
+            sum += this.targets[i];
+            sumOfSquares += this.targets[i] * this.targets[i];
+        }
+        if (this.regression) {
+            this.preSplitDist = new double[]{count, sum, sumOfSquares};
+            this.criterion = new VarianceReductionSplitCriterion();
+        } else {
+            this.preSplitDist = classCounts;
+            this.criterion = new InfoGainSplitCriterion();
+        }
+        this.filled = newObserver();
+        observeAll(this.filled);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        this.empty = newObserver();
+    }
+
+    protected AttributeClassObserver newObserver() {
+        return BenchmarkData.create(
+                "moa.classifiers.core.attributeclassobservers." + this.observer,
+                AttributeClassObserver.class);
+    }
+
+    protected void observeAll(AttributeClassObserver obs) {
+        if (obs instanceof FIMTDDNumericAttributeClassObserver) {
+            // FIMTDD takes the numeric target through its own overload
+            FIMTDDNumericAttributeClassObserver fimtdd = (FIMTDDNumericAttributeClassObserver) obs;
+            for (int i = 0; i < NUM_VALUES; i++) {
+                fimtdd.observeAttributeClass(this.values[i], this.targets[i], 1.0);
+            }
+        } else if (this.regression) {
+            for (int i = 0; i < NUM_VALUES; i++) {
+                obs.observeAttributeTarget(this.values[i], this.targets[i]);
+            }
+        } else {
+            for (int i = 0; i < NUM_VALUES; i++) {
+                obs.observeAttributeClass(this.values[i], this.classes[i], 1.0);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public AttributeClassObserver insert() {
+        observeAll(this.empty);
+        return this.empty;
+    }
+
+    @Benchmark
+    public AttributeSplitSuggestion bestSplit() {
+        return this.filled.getBestEvaluatedSplitSuggestion(this.criterion,
+                this.preSplitDist, 0, false);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *    BenchmarkData.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+import moa.streams.ExampleStream;
+
+/**
+ * Helpers shared by the benchmarks to materialize MOA objects from CLI
+ * strings and to pre-generate the instances they work on, so that stream
+ * generation is not part of the measured time.
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates and prepares an object from a CLI string, as the MOA command
+     * line does.
+     *
+     * @param cliString the CLI string, e.g. "trees.HoeffdingTree -g 100"
+     * @param requiredType the type the object must have
+     * @return the prepared object
+     */
+    public static <T> T create(String cliString, Class<T> requiredType) {
+        try {
+            Object obj = ClassOption.cliStringToObject(cliString, requiredType, null);
+            if (obj instanceof OptionHandler) {
+                ((OptionHandler) obj).prepareForUse();
+            }
+            return requiredType.cast(obj);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot create " + cliString, e);
+        }
+    }
+
+    /**
+     * Reads the first instances of a stream into memory.
+     *
+     * @param streamCLIString the CLI string of the stream
+     * @param numInstances the number of instances to read
+     * @return the instances, in stream order
+     */
+    public static Instance[] generate(String streamCLIString, int numInstances) {
+        ExampleStream stream = create(streamCLIString, ExampleStream.class);
+        Instance[] instances = new Instance[numInstances];
+        for (int i = 0; i < numInstances && stream.hasMoreInstances(); i++) {
+            instances[i] = (Instance) stream.nextInstance().getData();
+        }
+        return instances;
+    }
+
+    /**
+     * Gets the header of a stream.
+     *
+     * @param streamCLIString the CLI string of the stream
+     * @return the header of the stream
+     */
+    public static InstancesHeader header(String streamCLIString) {
+        return create(streamCLIString, ExampleStream.class).getHeader();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *    ChangeDetectorBenchmark.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import moa.classifiers.core.driftdetection.ChangeDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average cost of one call to ChangeDetector.input, on a stream of 0/1
+ * errors whose error rate drifts abruptly every 10000 inputs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangeDetectorBenchmark {
+
+    public static final int NUM_INPUTS = 100000;
+
+    @Param({"ADWINChangeDetector", "CusumDM", "DDM", "EDDM", "EWMAChartDM",
+        "GeometricMovingAverageDM", "HDDM_A_Test", "HDDM_W_Test", "PageHinkleyDM",
+        "RDDM", "SEEDChangeDetector", "SeqDrift1ChangeDetector",
+        "SeqDrift2ChangeDetector", "STEPD"})
+    public String detector;
+
+    protected double[] inputs;
+
+    protected ChangeDetector changeDetector;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        Random random = new Random(1);
+        this.inputs = new double[NUM_INPUTS];
+        for (int i = 0; i < NUM_INPUTS; i++) {
+            double errorRate = (i / 10000) % 2 == 0 ? 0.2 : 0.5;
+            this.inputs[i] = random.nextDouble() < errorRate ? 1.0 : 0.0;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        this.changeDetector = BenchmarkData.create(
+                "moa.classifiers.core.driftdetection." + this.detector, ChangeDetector.class);
+        this.changeDetector.resetLearning();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_INPUTS)
+    public int input() {
+        int changes = 0;
+        for (double value : this.inputs) {
+            this.changeDetector.input(value);
+            if (this.changeDetector.getChange()) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *    ClassifierBenchmark.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import java.util.concurrent.TimeUnit;
+
+import moa.classifiers.Classifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Train and predict throughput (instances per second) of classifiers and
+ * regressors. Each train invocation starts from a freshly reset learner so
+ * that iterations are comparable; predictions are made with a learner
+ * trained on the same number of instances. Unless a stream is given with
+ * -p stream=..., regressors are run on a numeric-target stream and
+ * classifiers on a nominal-class one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    public static final int NUM_INSTANCES = 10000;
+
+    public static final String CLASSIFICATION_STREAM = "generators.RandomRBFGenerator -a 20";
+
+    public static final String REGRESSION_STREAM = "generators.HyperplaneGeneratorReg";
+
+    @Param({"trees.HoeffdingTree", "trees.HoeffdingTreeReg", "trees.EFDTReg",
+        "meta.AdaptiveRandomForest", "meta.LeveragingBag"})
+    public String learner;
+
+    @Param({""})
+    public String stream;
+
+    protected InstancesHeader header;
+
+    protected Instance[] trainInstances;
+
+    protected Instance[] testInstances;
+
+    protected Classifier trained;
+
+    protected Classifier fresh;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        if (this.stream.isEmpty()) {
+            this.stream = this.learner.endsWith("Reg") ? REGRESSION_STREAM : CLASSIFICATION_STREAM;
+        }
+        this.header = BenchmarkData.header(this.stream);
+        Instance[] data = BenchmarkData.generate(this.stream, 2 * NUM_INSTANCES);
+        this.trainInstances = new Instance[NUM_INSTANCES];
+        this.testInstances = new Instance[NUM_INSTANCES];
+        System.arraycopy(data, 0, this.trainInstances, 0, NUM_INSTANCES);
+        System.arraycopy(data, NUM_INSTANCES, this.testInstances, 0, NUM_INSTANCES);
+        this.trained = newLearner();
+        for (Instance inst : this.trainInstances) {
+            this.trained.trainOnInstance(inst);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        this.fresh = newLearner();
+    }
+
+    protected Classifier newLearner() {
+        Classifier classifier = BenchmarkData.create(this.learner, Classifier.class);
+        classifier.setModelContext(this.header);
+        classifier.resetLearning();
+        return classifier;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_INSTANCES)
+    public Classifier train() {
+        for (Instance inst : this.trainInstances) {
+            this.fresh.trainOnInstance(inst);
+        }
+        return this.fresh;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_INSTANCES)
+    public void predict(Blackhole bh) {
+        for (Instance inst : this.testInstances) {
+            bh.consume(this.trained.getVotesForInstance(inst));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *    RunBenchmarks.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the MOA benchmarks with the GC profiler attached, so every result
+ * also reports the allocation rate (gc.alloc.rate.norm is bytes allocated
+ * per operation). Results are written as CSV to the file given as first
+ * argument (default moa-benchmarks.csv); an optional second argument is a
+ * regular expression selecting the benchmarks to run.
+ *
+ * <p>The plain JMH launcher is available too:
+ * <code>java -jar target/benchmarks.jar -prof gc</code></p>
+ */
+public class RunBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        String output = args.length > 0 ? args[0] : "moa-benchmarks.csv";
+        String include = args.length > 1 ? args[1] : RunBenchmarks.class.getPackage().getName() + ".*";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV)
+                .result(output)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -67,6 +67,20 @@ public abstract class AbstractMOAObject implements MOAObject {
         }
     }
 
+    /**
+     * Produces a copy of an object, using its fast copy when it has one and
+     * serialization otherwise.
+     *
+     * @param obj object to copy, may be null
+     * @return a copy of the object
+     */
+    public static MOAObject fastCopy(MOAObject obj) {
+        if (obj == null) {
+            return null;
+        }
+        return obj instanceof FastCopyable ? obj.copy() : copy(obj);
+    }
+
     /**
      * Gets the memory size of an object.
      *
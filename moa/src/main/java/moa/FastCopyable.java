@@ -0,0 +1,36 @@
+/*
+ *    FastCopyable.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa;
+
+/**
+ * Interface implemented by MOA objects whose <code>copy</code> builds the
+ * deep copy field by field instead of going through a serialization round
+ * trip. Containers such as <code>AutoExpandVector</code> copy their elements
+ * one by one when all of them are fast copyable, and serialize themselves
+ * otherwise.
+ *
+ * <p>Implementations only take the fast path for the exact classes whose
+ * fields they know how to copy: a subclass that adds state and does not
+ * extend the fast copy falls back to <code>AbstractMOAObject.copy</code>.
+ * Immutable state, such as split tests, may be shared between copies.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public interface FastCopyable extends MOAObject {
+
+}
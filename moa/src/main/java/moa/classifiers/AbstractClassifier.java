@@ -20,6 +20,7 @@
 
 package moa.classifiers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -168,15 +169,46 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
 
     @Override
     public void trainOnInstance(Instance inst) {
+        if (isTrainingInstance(inst)) {
+            this.trainingWeightSeenByModel += inst.weight();
+            trainOnInstanceImpl(inst);
+        }
+    }
+
+    /**
+     * Gets whether an instance is used for training: it must have a positive
+     * weight and, unless this is a semi-supervised learner, a class value.
+     *
+     * @param inst the instance
+     * @return true if trainOnInstance trains on the instance
+     */
+    protected boolean isTrainingInstance(Instance inst) {
         boolean isTraining = (inst.weight() > 0.0);
         if (this instanceof SemiSupervisedLearner == false &&
                 inst.classIsMissing() == true){
             isTraining = false;
         }
-        if (isTraining) {
-            this.trainingWeightSeenByModel += inst.weight();
-            trainOnInstanceImpl(inst);
+        return isTraining;
+    }
+
+    /**
+     * Selects the instances of a batch used for training and adds their
+     * weights to the training weight seen by the model. Used by classifiers
+     * that train on a whole batch at once instead of calling
+     * trainOnInstanceImpl for every instance.
+     *
+     * @param batch the instances of the batch
+     * @return the training instances, in the order of the batch
+     */
+    protected Instance[] selectTrainingInstances(Instance[] batch) {
+        List<Instance> selected = new ArrayList<Instance>(batch.length);
+        for (Instance inst : batch) {
+            if (isTrainingInstance(inst)) {
+                this.trainingWeightSeenByModel += inst.weight();
+                selected.add(inst);
+            }
         }
+        return selected.toArray(new Instance[selected.size()]);
     }
 
     @Override
@@ -76,6 +76,35 @@ public interface Classifier extends Learner<Example<Instance>> {
      * test instance in each class
      */
     public double[] getVotesForInstance(Instance inst);
+
+    /**
+     * Predicts the class memberships for a batch of instances. The votes of
+     * every instance are the same as those returned by getVotesForInstance.
+     * Classifiers can override this method to predict a batch faster than
+     * one instance at a time.
+     *
+     * @param batch the instances to be classified
+     * @param votes the array where the votes of every instance are stored,
+     * with the same indices as the instances
+     */
+    public default void getVotesForInstances(Instance[] batch, double[][] votes) {
+        for (int i = 0; i < batch.length; i++) {
+            votes[i] = getVotesForInstance(batch[i]);
+        }
+    }
+
+    /**
+     * Trains this learner incrementally using a batch of instances, in the
+     * order of the batch. The resulting model is the same as the one obtained
+     * by calling trainOnInstance for every instance.
+     *
+     * @param batch the instances to be used for training
+     */
+    public default void trainOnInstances(Instance[] batch) {
+        for (Instance inst : batch) {
+            trainOnInstance(inst);
+        }
+    }
     
     /**
      * Sets the reference to the header of the data stream. The header of the
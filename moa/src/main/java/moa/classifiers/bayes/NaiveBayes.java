@@ -84,6 +84,47 @@ public class NaiveBayes extends AbstractClassifier  implements MultiClassClassif
                 this.attributeObservers);
     }
 
+    @Override
+    public void getVotesForInstances(Instance[] batch, double[][] votes) {
+        if (getClass() != NaiveBayes.class) {
+            super.getVotesForInstances(batch, votes);
+            return;
+        }
+        int numClasses = this.observedClassDistribution.numValues();
+        double observedClassSum = this.observedClassDistribution.sumOfValues();
+        int maxAttributes = 0;
+        for (int i = 0; i < batch.length; i++) {
+            votes[i] = new double[numClasses];
+            for (int classIndex = 0; classIndex < numClasses; classIndex++) {
+                votes[i][classIndex] = this.observedClassDistribution.getValue(classIndex)
+                        / observedClassSum;
+            }
+            maxAttributes = Math.max(maxAttributes, batch[i].numAttributes() - 1);
+        }
+        // one attribute at a time for the whole batch, multiplying the votes
+        // of every instance in the same order as doNaiveBayesPrediction
+        for (int attIndex = 0; attIndex < maxAttributes; attIndex++) {
+            AttributeClassObserver obs = this.attributeObservers.get(attIndex);
+            if (obs == null) {
+                continue;
+            }
+            for (int i = 0; i < batch.length; i++) {
+                Instance inst = batch[i];
+                if (attIndex >= inst.numAttributes() - 1) {
+                    continue;
+                }
+                int instAttIndex = modelAttIndexToInstanceAttIndex(attIndex, inst);
+                if (inst.isMissing(instAttIndex)) {
+                    continue;
+                }
+                double value = inst.value(instAttIndex);
+                for (int classIndex = 0; classIndex < numClasses; classIndex++) {
+                    votes[i][classIndex] *= obs.probabilityOfAttributeValueGivenClass(value, classIndex);
+                }
+            }
+        }
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return null;
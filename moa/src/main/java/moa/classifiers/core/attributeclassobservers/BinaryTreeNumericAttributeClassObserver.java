@@ -21,6 +21,7 @@
 package moa.classifiers.core.attributeclassobservers;
 
 import java.io.Serializable;
+import moa.FastCopyable;
 import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
@@ -38,7 +39,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandler
-        implements NumericAttributeClassObserver {
+        implements NumericAttributeClassObserver, FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -61,6 +62,17 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
             this.classCountsLeft.addToValue(label, weight);
         }
 
+        /**
+         * Copies a node and its subtree into the observer of this node.
+         */
+        public Node(Node toCopy) {
+            this.cut_point = toCopy.cut_point;
+            this.classCountsLeft = toCopy.classCountsLeft.copy();
+            this.classCountsRight = toCopy.classCountsRight.copy();
+            this.left = toCopy.left == null ? null : new Node(toCopy.left);
+            this.right = toCopy.right == null ? null : new Node(toCopy.right);
+        }
+
         public void insertValue(double val, int label, double weight) {
             if (val == this.cut_point) {
                 this.classCountsLeft.addToValue(label, weight);
@@ -84,6 +96,16 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
 
     public Node root = null;
 
+    @Override
+    public BinaryTreeNumericAttributeClassObserver copy() {
+        if (getClass() != BinaryTreeNumericAttributeClassObserver.class) {
+            return (BinaryTreeNumericAttributeClassObserver) super.copy();
+        }
+        BinaryTreeNumericAttributeClassObserver copy = new BinaryTreeNumericAttributeClassObserver();
+        copy.root = this.root == null ? null : copy.new Node(this.root);
+        return copy;
+    }
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
         if (Double.isNaN(attVal)) { //Instance.isMissingValue(attVal)
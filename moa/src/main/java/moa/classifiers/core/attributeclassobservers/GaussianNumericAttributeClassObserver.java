@@ -19,6 +19,7 @@
  */
 package moa.classifiers.core.attributeclassobservers;
 
+import moa.FastCopyable;
 import moa.core.ObjectRepository;
 import moa.tasks.TaskMonitor;
 import moa.core.Utils;
@@ -44,7 +45,7 @@ import com.github.javacliparser.IntOption;
  * @version $Revision: 7 $
  */
 public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
-        implements NumericAttributeClassObserver {
+        implements NumericAttributeClassObserver, FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -57,6 +58,20 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
     public IntOption numBinsOption = new IntOption("numBins", 'n',
             "The number of bins.", 10, 1, Integer.MAX_VALUE);
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public GaussianNumericAttributeClassObserver copy() {
+        if (getClass() != GaussianNumericAttributeClassObserver.class) {
+            return (GaussianNumericAttributeClassObserver) super.copy();
+        }
+        GaussianNumericAttributeClassObserver copy = new GaussianNumericAttributeClassObserver();
+        copy.numBinsOption.setValue(this.numBinsOption.getValue());
+        copy.minValueObservedPerClass = this.minValueObservedPerClass.copy();
+        copy.maxValueObservedPerClass = this.maxValueObservedPerClass.copy();
+        copy.attValDistPerClass = (AutoExpandVector<GaussianEstimator>) this.attValDistPerClass.copy();
+        return copy;
+    }
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
         if (Utils.isMissingValue(attVal)) {
@@ -86,6 +101,15 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
         return obs != null ? obs.probabilityDensity(attVal) : 0.0;
     }
 
+    /**
+     * Gets the estimator of the attribute values observed for a class, or
+     * null if the class has not been observed. The estimator must not be
+     * modified.
+     */
+    public GaussianEstimator getEstimatorForClass(int classVal) {
+        return this.attValDistPerClass.get(classVal);
+    }
+
     @Override
     public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
             SplitCriterion criterion, double[] preSplitDist, int attIndex,
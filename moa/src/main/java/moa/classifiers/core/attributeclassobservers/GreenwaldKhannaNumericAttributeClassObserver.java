@@ -24,6 +24,8 @@ import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.Utils;
 
+import java.util.Arrays;
+
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
 import moa.core.GreenwaldKhannaQuantileSummary;
@@ -70,28 +72,101 @@ public class GreenwaldKhannaNumericAttributeClassObserver extends AbstractOption
         return 0.0;
     }
 
+    /**
+     * Evaluates the tuples of the summaries of every class as cut points.
+     * The class counts below all the cut points are computed in one merge
+     * pass over each summary, and the cut points are then evaluated in the
+     * order of the classes, so that ties are broken as when each cut point
+     * is evaluated with getClassDistsResultingFromBinarySplit.
+     */
     @Override
     public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
             SplitCriterion criterion, double[] preSplitDist, int attIndex,
             boolean binaryOnly) {
+        double[] cutpoints = getCutpoints();
+        if (cutpoints.length == 0) {
+            return null;
+        }
+        long[][] countsBelow = getClassCountsBelow(cutpoints);
+        int numClasses = countsBelow.length;
+        double[][] postSplitDists = new double[2][numClasses];
         AttributeSplitSuggestion bestSuggestion = null;
+        for (int c = 0; c < cutpoints.length; c++) {
+            double cutpoint = cutpoints[c];
+            for (int i = 0; i < numClasses; i++) {
+                GreenwaldKhannaQuantileSummary estimator = this.attValDistPerClass.get(i);
+                long totalCount = estimator == null ? 0 : estimator.getTotalCount();
+                postSplitDists[0][i] = countsBelow[i][c];
+                postSplitDists[1][i] = totalCount - countsBelow[i][c];
+            }
+            double merit = criterion.getMeritOfSplit(preSplitDist,
+                    postSplitDists);
+            if ((bestSuggestion == null)
+                    || (merit > bestSuggestion.merit)) {
+                bestSuggestion = new AttributeSplitSuggestion(
+                        new NumericAttributeBinaryTest(attIndex,
+                        cutpoint, true), new double[][]{postSplitDists[0].clone(),
+                        postSplitDists[1].clone()}, merit);
+            }
+        }
+        return bestSuggestion;
+    }
+
+    /**
+     * Gets the tuples of the summaries of every class, class after class.
+     */
+    protected double[] getCutpoints() {
+        int numCutpoints = 0;
+        for (GreenwaldKhannaQuantileSummary qs : this.attValDistPerClass) {
+            if (qs != null) {
+                numCutpoints += qs.getNumTuples();
+            }
+        }
+        double[] cutpoints = new double[numCutpoints];
+        int c = 0;
         for (GreenwaldKhannaQuantileSummary qs : this.attValDistPerClass) {
             if (qs != null) {
-                double[] cutpoints = qs.getSuggestedCutpoints();
-                for (double cutpoint : cutpoints) {
-                    double[][] postSplitDists = getClassDistsResultingFromBinarySplit(cutpoint);
-                    double merit = criterion.getMeritOfSplit(preSplitDist,
-                            postSplitDists);
-                    if ((bestSuggestion == null)
-                            || (merit > bestSuggestion.merit)) {
-                        bestSuggestion = new AttributeSplitSuggestion(
-                                new NumericAttributeBinaryTest(attIndex,
-                                cutpoint, true), postSplitDists, merit);
-                    }
+                for (int i = 0; i < qs.getNumTuples(); i++) {
+                    cutpoints[c++] = qs.getValue(i);
                 }
             }
         }
-        return bestSuggestion;
+        return cutpoints;
+    }
+
+    /**
+     * Gets the count of every class below cut points, with a single pass
+     * over the summary of each class. The counts have an entry for each
+     * class up to the last one observed.
+     *
+     * @param cutpoints the cut points, in any order
+     * @return the counts below the cut points, by class then cut point
+     */
+    protected long[][] getClassCountsBelow(double[] cutpoints) {
+        double[] sortedCutpoints = cutpoints.clone();
+        Arrays.sort(sortedCutpoints);
+        long[] sortedCounts = new long[sortedCutpoints.length];
+        int numClasses = 0;
+        for (int i = 0; i < this.attValDistPerClass.size(); i++) {
+            if (this.attValDistPerClass.get(i) != null) {
+                numClasses = i + 1;
+            }
+        }
+        int[] sortedIndices = new int[cutpoints.length];
+        for (int c = 0; c < cutpoints.length; c++) {
+            sortedIndices[c] = Arrays.binarySearch(sortedCutpoints, cutpoints[c]);
+        }
+        long[][] countsBelow = new long[numClasses][cutpoints.length];
+        for (int i = 0; i < numClasses; i++) {
+            GreenwaldKhannaQuantileSummary estimator = this.attValDistPerClass.get(i);
+            if (estimator != null) {
+                estimator.getCountsBelow(sortedCutpoints, sortedCounts);
+                for (int c = 0; c < cutpoints.length; c++) {
+                    countsBelow[i][c] = sortedCounts[sortedIndices[c]];
+                }
+            }
+        }
+        return countsBelow;
     }
 
     // assume all values equal to splitValue go to lhs
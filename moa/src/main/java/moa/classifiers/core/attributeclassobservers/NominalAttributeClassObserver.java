@@ -19,6 +19,7 @@
  */
 package moa.classifiers.core.attributeclassobservers;
 
+import moa.FastCopyable;
 import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.conditionaltests.NominalAttributeBinaryTest;
 import moa.classifiers.core.conditionaltests.NominalAttributeMultiwayTest;
@@ -40,7 +41,7 @@ import moa.options.AbstractOptionHandler;
  * @version $Revision: 7 $
  */
 public class NominalAttributeClassObserver extends AbstractOptionHandler implements
-        DiscreteAttributeClassObserver {
+        DiscreteAttributeClassObserver, FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -50,6 +51,19 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
 
     public AutoExpandVector<DoubleVector> attValDistPerClass = new AutoExpandVector<DoubleVector>();
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public NominalAttributeClassObserver copy() {
+        if (getClass() != NominalAttributeClassObserver.class) {
+            return (NominalAttributeClassObserver) super.copy();
+        }
+        NominalAttributeClassObserver copy = new NominalAttributeClassObserver();
+        copy.totalWeightObserved = this.totalWeightObserved;
+        copy.missingWeightObserved = this.missingWeightObserved;
+        copy.attValDistPerClass = (AutoExpandVector<DoubleVector>) this.attValDistPerClass.copy();
+        return copy;
+    }
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
         if (Utils.isMissingValue(attVal)) {
@@ -74,6 +88,14 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
                 / (obs.sumOfValues() + obs.numValues()) : 0.0;
     }
 
+    /**
+     * Gets the weights of the attribute values observed for a class, or null
+     * if the class has not been observed. The vector must not be modified.
+     */
+    public DoubleVector getValueDistributionForClass(int classVal) {
+        return this.attValDistPerClass.get(classVal);
+    }
+
     public double totalWeightOfClassObservations() {
         return this.totalWeightObserved;
     }
@@ -19,6 +19,7 @@
  */
 package moa.classifiers.core.attributeclassobservers;
 
+import moa.FastCopyable;
 import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.ObjectRepository;
@@ -34,10 +35,18 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class NullAttributeClassObserver extends AbstractOptionHandler implements
-        AttributeClassObserver {
+        AttributeClassObserver, FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
+    @Override
+    public NullAttributeClassObserver copy() {
+        if (getClass() != NullAttributeClassObserver.class) {
+            return (NullAttributeClassObserver) super.copy();
+        }
+        return new NullAttributeClassObserver();
+    }
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
     }
@@ -73,4 +73,8 @@ public class NominalAttributeMultiwayTest extends InstanceConditionalTest {
     public int[] getAttsTestDependsOn() {
         return new int[]{this.attIndex};
     }
+
+    public int getAttIndex() {
+        return this.attIndex;
+    }
 }
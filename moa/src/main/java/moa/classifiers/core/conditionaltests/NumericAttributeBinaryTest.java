@@ -100,4 +100,12 @@ public class NumericAttributeBinaryTest extends InstanceConditionalBinaryTest {
     public double getSplitValue() {
         return this.attValue;
     }
+
+    public int getAttIndex() {
+        return this.attIndex;
+    }
+
+    public boolean getEqualsPassesTest() {
+        return this.equalsPassesTest;
+    }
 }
@@ -0,0 +1,459 @@
+/*
+ *    AdwinBank.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.driftdetection;
+
+import java.util.Arrays;
+
+import moa.AbstractMOAObject;
+import moa.FastCopyable;
+
+/**
+ * Bank of independent ADWIN change detectors stored in primitive arrays.
+ *
+ * <p>The exponential histogram of every detector is a sequence of rows,
+ * row <code>i</code> holding up to <code>MAXBUCKETS + 1</code> buckets of
+ * <code>2^i</code> items. Instead of a linked list of rows, the bucket totals
+ * and variances of all the detectors are kept in two contiguous arrays, one
+ * block of rows per detector, and the scalar state of the detectors in one
+ * array per field. Updating a detector does not allocate, except when one of
+ * them needs more rows than the bank has room for.</p>
+ *
+ * <p>The detectors follow exactly the same computations as the linked list
+ * implementation of ADWIN, so they detect the same changes and give the same
+ * estimations. <code>ADWIN</code> itself is a bank of one detector.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class AdwinBank extends AbstractMOAObject implements FastCopyable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAXBUCKETS = 5;
+
+    protected static final int BUCKETS_PER_ROW = MAXBUCKETS + 1;
+
+    protected static final int MIN_WINDOW_LENGTH_TO_CHECK = 10;
+
+    protected static final int MIN_SUB_WINDOW_LENGTH = 5;
+
+    protected static final int INITIAL_ROWS = 8;
+
+    protected int size;
+
+    protected int rowCapacity;
+
+    /** Bucket totals, indexed by <code>(detector * rowCapacity + row) * BUCKETS_PER_ROW + bucket</code>. */
+    protected double[] bucketTotal;
+
+    /** Bucket variances, indexed as <code>bucketTotal</code>. */
+    protected double[] bucketVariance;
+
+    /** Number of buckets in each row, indexed by <code>detector * rowCapacity + row</code>. */
+    protected int[] rowSize;
+
+    protected int[] lastBucketRow;
+
+    protected double[] total;
+
+    protected double[] variance;
+
+    protected int[] width;
+
+    protected int[] bucketNumber;
+
+    protected int[] bucketNumberMax;
+
+    protected double[] delta;
+
+    protected int[] time;
+
+    protected int[] clock;
+
+    protected double[] widthSum;
+
+    protected int[] detect;
+
+    protected int[] detectTwice;
+
+    protected int[] numberDetections;
+
+    protected boolean[] bucketDeleted;
+
+    /**
+     * Creates a bank of detectors with the given confidence value.
+     *
+     * @param size the number of detectors
+     * @param delta the confidence value of the detectors
+     */
+    public AdwinBank(int size, double delta) {
+        this.size = size;
+        this.rowCapacity = INITIAL_ROWS;
+        this.bucketTotal = new double[size * this.rowCapacity * BUCKETS_PER_ROW];
+        this.bucketVariance = new double[size * this.rowCapacity * BUCKETS_PER_ROW];
+        this.rowSize = new int[size * this.rowCapacity];
+        this.lastBucketRow = new int[size];
+        this.total = new double[size];
+        this.variance = new double[size];
+        this.width = new int[size];
+        this.bucketNumber = new int[size];
+        this.bucketNumberMax = new int[size];
+        this.delta = new double[size];
+        this.time = new int[size];
+        this.clock = new int[size];
+        this.widthSum = new double[size];
+        this.detect = new int[size];
+        this.detectTwice = new int[size];
+        this.numberDetections = new int[size];
+        this.bucketDeleted = new boolean[size];
+        Arrays.fill(this.delta, delta);
+        Arrays.fill(this.clock, 32);
+    }
+
+    protected AdwinBank() {
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Restarts a detector with an empty window, keeping its confidence value
+     * and clock.
+     */
+    public void reset(int detector) {
+        int firstRow = detector * this.rowCapacity;
+        Arrays.fill(this.rowSize, firstRow, firstRow + this.rowCapacity, 0);
+        Arrays.fill(this.bucketTotal, firstRow * BUCKETS_PER_ROW,
+                (firstRow + this.rowCapacity) * BUCKETS_PER_ROW, 0.0);
+        Arrays.fill(this.bucketVariance, firstRow * BUCKETS_PER_ROW,
+                (firstRow + this.rowCapacity) * BUCKETS_PER_ROW, 0.0);
+        this.lastBucketRow[detector] = 0;
+        this.total[detector] = 0;
+        this.variance[detector] = 0;
+        this.width[detector] = 0;
+        this.bucketNumber[detector] = 0;
+        this.bucketNumberMax[detector] = 0;
+        this.time[detector] = 0;
+        this.widthSum[detector] = 0;
+        this.detect[detector] = 0;
+        this.detectTwice[detector] = 0;
+        this.numberDetections[detector] = 0;
+        this.bucketDeleted[detector] = false;
+    }
+
+    /**
+     * Adds a value to every detector of the bank.
+     *
+     * @param values the value for each detector
+     * @param changes set to true for the detectors that detected a change,
+     * can be null
+     * @return the number of detectors that detected a change
+     */
+    public int setInputs(double[] values, boolean[] changes) {
+        int numChanges = 0;
+        for (int d = 0; d < this.size; d++) {
+            boolean change = setInput(d, values[d], this.delta[d]);
+            if (changes != null) {
+                changes[d] = change;
+            }
+            if (change) {
+                numChanges++;
+            }
+        }
+        return numChanges;
+    }
+
+    public boolean setInput(int detector, double value) {
+        return setInput(detector, value, this.delta[detector]);
+    }
+
+    public boolean setInput(int detector, double value, double delta) {
+        boolean blnChange = false;
+        int d = detector;
+        this.time[d]++;
+
+        //1,2)Increment window in one element
+        insertElement(d, value);
+        this.bucketDeleted[d] = false;
+        //3)Reduce  window
+        if (this.time[d] % this.clock[d] == 0 && this.width[d] > MIN_WINDOW_LENGTH_TO_CHECK) {
+            boolean blnReduceWidth = true;
+            while (blnReduceWidth) {
+                blnReduceWidth = false;
+                // the terms of the bound that only depend on the window
+                int n = this.width[d];
+                double dd = Math.log(2 * Math.log(n) / delta);
+                double v = this.variance[d] / n;
+
+                int n0 = 0;
+                int n1 = n;
+                double u0 = 0;
+                double u1 = this.total[d];
+                int firstRow = d * this.rowCapacity;
+                boolean blnExit = false;
+                for (int i = this.lastBucketRow[d]; i >= 0 && !blnExit; i--) {
+                    int rowBase = (firstRow + i) * BUCKETS_PER_ROW;
+                    int rowLength = this.rowSize[firstRow + i];
+                    int n2 = 1 << i;
+                    for (int k = 0; k <= rowLength - 1; k++) {
+                        double u2 = this.bucketTotal[rowBase + k];
+                        n0 += n2;
+                        n1 -= n2;
+                        u0 += u2;
+                        u1 -= u2;
+
+                        if (i == 0 && k == rowLength - 1) {
+                            blnExit = true;
+                            break;
+                        }
+                        double absvalue = (double) (u0 / n0) - (u1 / n1);
+                        if (n1 > MIN_SUB_WINDOW_LENGTH + 1 && n0 > MIN_SUB_WINDOW_LENGTH + 1) {
+                            double m = ((double) 1 / ((n0 - MIN_SUB_WINDOW_LENGTH + 1)))
+                                    + ((double) 1 / ((n1 - MIN_SUB_WINDOW_LENGTH + 1)));
+                            double epsilon = Math.sqrt(2 * m * v * dd) + (double) 2 / 3 * dd * m;
+                            if (Math.abs(absvalue) > epsilon) {
+                                this.bucketDeleted[d] = true;
+                                this.detect[d] = this.time[d];
+                                if (this.detectTwice[d] == 0) {
+                                    this.detectTwice[d] = this.time[d];
+                                }
+                                blnReduceWidth = true;
+                                blnChange = true;
+                                if (this.width[d] > 0) {
+                                    //Reduce width of the window
+                                    n0 -= deleteElement(d);
+                                    blnExit = true;
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        this.widthSum[d] += this.width[d];
+        if (blnChange) {
+            this.numberDetections[d]++;
+        }
+        return blnChange;
+    }
+
+    protected void insertElement(int d, double value) {
+        this.width[d]++;
+        insertBucket(d, 0, value, 0);
+        this.bucketNumber[d]++;
+        if (this.bucketNumber[d] > this.bucketNumberMax[d]) {
+            this.bucketNumberMax[d] = this.bucketNumber[d];
+        }
+        double incVariance = 0;
+        int w = this.width[d];
+        if (w > 1) {
+            double total = this.total[d];
+            incVariance = (w - 1) * (value - total / (w - 1)) * (value - total / (w - 1)) / w;
+        }
+        this.variance[d] += incVariance;
+        this.total[d] += value;
+        compressBuckets(d);
+    }
+
+    protected void insertBucket(int d, int row, double value, double variance) {
+        int r = d * this.rowCapacity + row;
+        int k = this.rowSize[r];
+        this.rowSize[r]++;
+        this.bucketTotal[r * BUCKETS_PER_ROW + k] = value;
+        this.bucketVariance[r * BUCKETS_PER_ROW + k] = variance;
+    }
+
+    /**
+     * Deletes the first <code>numberItemsDeleted</code> buckets of a row.
+     */
+    protected void compressBucketsRow(int d, int row, int numberItemsDeleted) {
+        int r = d * this.rowCapacity + row;
+        int rowBase = r * BUCKETS_PER_ROW;
+        for (int k = numberItemsDeleted; k <= MAXBUCKETS; k++) {
+            this.bucketTotal[rowBase + k - numberItemsDeleted] = this.bucketTotal[rowBase + k];
+            this.bucketVariance[rowBase + k - numberItemsDeleted] = this.bucketVariance[rowBase + k];
+        }
+        for (int k = 1; k <= numberItemsDeleted; k++) {
+            this.bucketTotal[rowBase + MAXBUCKETS - k + 1] = 0;
+            this.bucketVariance[rowBase + MAXBUCKETS - k + 1] = 0;
+        }
+        this.rowSize[r] -= numberItemsDeleted;
+    }
+
+    public void compressBuckets(int d) {
+        //Traverse the rows of buckets in increasing order
+        int firstRow = d * this.rowCapacity;
+        for (int i = 0; i <= this.lastBucketRow[d]; i++) {
+            //If the row is full, merge buckets
+            if (this.rowSize[firstRow + i] != MAXBUCKETS + 1) {
+                break;
+            }
+            if (i == this.lastBucketRow[d]) {
+                if (i + 1 == this.rowCapacity) {
+                    growRows();
+                    firstRow = d * this.rowCapacity;
+                }
+                this.lastBucketRow[d]++;
+            }
+            int rowBase = (firstRow + i) * BUCKETS_PER_ROW;
+            int n1 = 1 << i;
+            int n2 = 1 << i;
+            double u1 = this.bucketTotal[rowBase] / n1;
+            double u2 = this.bucketTotal[rowBase + 1] / n2;
+            double incVariance = n1 * n2 * (u1 - u2) * (u1 - u2) / (n1 + n2);
+
+            insertBucket(d, i + 1, this.bucketTotal[rowBase] + this.bucketTotal[rowBase + 1],
+                    this.bucketVariance[rowBase] + this.bucketVariance[rowBase + 1] + incVariance);
+            this.bucketNumber[d]++;
+            compressBucketsRow(d, i, 2);
+            if (this.rowSize[firstRow + i + 1] <= MAXBUCKETS) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest bucket of a detector.
+     *
+     * @return the number of items in the removed bucket
+     */
+    public int deleteElement(int d) {
+        int row = this.lastBucketRow[d];
+        int rowBase = (d * this.rowCapacity + row) * BUCKETS_PER_ROW;
+        int n1 = 1 << row;
+        this.width[d] -= n1;
+        this.total[d] -= this.bucketTotal[rowBase];
+        double u1 = this.bucketTotal[rowBase] / n1;
+        int w = this.width[d];
+        double total = this.total[d];
+        double incVariance = this.bucketVariance[rowBase] + n1 * w * (u1 - total / w) * (u1 - total / w) / (n1 + w);
+        this.variance[d] -= incVariance;
+
+        //Delete Bucket
+        compressBucketsRow(d, row, 1);
+        this.bucketNumber[d]--;
+        if (this.rowSize[d * this.rowCapacity + row] == 0) {
+            this.lastBucketRow[d]--;
+        }
+        return n1;
+    }
+
+    /**
+     * Doubles the number of rows available to each detector.
+     */
+    protected void growRows() {
+        int newCapacity = 2 * this.rowCapacity;
+        double[] newTotal = new double[this.size * newCapacity * BUCKETS_PER_ROW];
+        double[] newVariance = new double[this.size * newCapacity * BUCKETS_PER_ROW];
+        int[] newRowSize = new int[this.size * newCapacity];
+        for (int d = 0; d < this.size; d++) {
+            System.arraycopy(this.bucketTotal, d * this.rowCapacity * BUCKETS_PER_ROW,
+                    newTotal, d * newCapacity * BUCKETS_PER_ROW, this.rowCapacity * BUCKETS_PER_ROW);
+            System.arraycopy(this.bucketVariance, d * this.rowCapacity * BUCKETS_PER_ROW,
+                    newVariance, d * newCapacity * BUCKETS_PER_ROW, this.rowCapacity * BUCKETS_PER_ROW);
+            System.arraycopy(this.rowSize, d * this.rowCapacity,
+                    newRowSize, d * newCapacity, this.rowCapacity);
+        }
+        this.bucketTotal = newTotal;
+        this.bucketVariance = newVariance;
+        this.rowSize = newRowSize;
+        this.rowCapacity = newCapacity;
+    }
+
+    public boolean getChange(int d) {
+        return this.bucketDeleted[d];
+    }
+
+    public void resetChange(int d) {
+        this.bucketDeleted[d] = false;
+    }
+
+    public int getBucketsUsed(int d) {
+        return this.bucketNumberMax[d];
+    }
+
+    public int getWidth(int d) {
+        return this.width[d];
+    }
+
+    public void setClock(int d, int intClock) {
+        this.clock[d] = intClock;
+    }
+
+    public int getClock(int d) {
+        return this.clock[d];
+    }
+
+    public boolean getDetect(int d) {
+        return this.detect[d] == this.time[d];
+    }
+
+    public int getNumberDetections(int d) {
+        return this.numberDetections[d];
+    }
+
+    public double getTotal(int d) {
+        return this.total[d];
+    }
+
+    public double getEstimation(int d) {
+        return this.total[d] / this.width[d];
+    }
+
+    public double getVariance(int d) {
+        return this.variance[d] / this.width[d];
+    }
+
+    public double getWidthT(int d) {
+        return this.widthSum[d];
+    }
+
+    @Override
+    public AdwinBank copy() {
+        if (getClass() != AdwinBank.class) {
+            return (AdwinBank) super.copy();
+        }
+        AdwinBank copy = new AdwinBank();
+        copy.size = this.size;
+        copy.rowCapacity = this.rowCapacity;
+        copy.bucketTotal = this.bucketTotal.clone();
+        copy.bucketVariance = this.bucketVariance.clone();
+        copy.rowSize = this.rowSize.clone();
+        copy.lastBucketRow = this.lastBucketRow.clone();
+        copy.total = this.total.clone();
+        copy.variance = this.variance.clone();
+        copy.width = this.width.clone();
+        copy.bucketNumber = this.bucketNumber.clone();
+        copy.bucketNumberMax = this.bucketNumberMax.clone();
+        copy.delta = this.delta.clone();
+        copy.time = this.time.clone();
+        copy.clock = this.clock.clone();
+        copy.widthSum = this.widthSum.clone();
+        copy.detect = this.detect.clone();
+        copy.detectTwice = this.detectTwice.clone();
+        copy.numberDetections = this.numberDetections.clone();
+        copy.bucketDeleted = this.bucketDeleted.clone();
+        return copy;
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+}
@@ -507,10 +507,6 @@ public class Cramer extends AbstractOptionHandler implements StatisticalTest {
             System.arraycopy(y.get(i).toArray(), 0, values, 0, values.length);
             daten[i + RVAL.m] = values;
         }
-        return this.compute(RVAL, daten, replicates, sim, justStatistic, kernel, maxM, k);
-    }
-
-    private CramerTest compute(CramerTest RVAL, double[][] daten, int replicates, String sim, boolean justStatistic, int kernel, double maxM, int k) {
         // lookup<-matrix(rep(0,(RVAL$m+RVAL$n)^2),ncol=(RVAL$m+RVAL$n))
         double[][] lookup = new double[RVAL.m + RVAL.n][RVAL.m + RVAL.n];
         // for (i in 2:(RVAL$m+RVAL$n)) for (j in 1:(i-1)) { lookup[i,j]<-sum((daten[i,]-daten[j,])^2); lookup[j,i]<-lookup[i,j]; }
@@ -520,6 +516,14 @@ public class Cramer extends AbstractOptionHandler implements StatisticalTest {
                 lookup[j][i] = lookup[i][j];
             }
         }
+        return this.compute(RVAL, lookup, replicates, sim, justStatistic, kernel, maxM, k);
+    }
+
+    /**
+     * Performs the test from the squared distances between the instances of
+     * both samples, which are replaced by their kernel values.
+     */
+    private CramerTest compute(CramerTest RVAL, double[][] lookup, int replicates, String sim, boolean justStatistic, int kernel, double maxM, int k) {
         // lookup<-eval(call(kernel,lookup))
         this.kernel(kernel, lookup);
         if (justStatistic) {
@@ -603,32 +607,24 @@ public class Cramer extends AbstractOptionHandler implements StatisticalTest {
     }
 
     public CramerTest cramerTest(List<Instance> x, List<Instance> y, double confLevel, int replicates, String sim, boolean justStatistic, int kernel, double maxM, int k) {
+        return this.cramerTest(new Sample(x), new Sample(y), confLevel, replicates, sim, justStatistic, kernel, maxM, k);
+    }
+
+    public CramerTest cramerTest(Sample x, Sample y) {
+        return this.cramerTest(x, y, this.confidenceLevelOption.getValue(), this.replicatesOption.getValue(), "ordinary", false, this.kernelOption.getChosenIndex(), this.maxMOption.getValue(), this.kOption.getValue());
+    }
+
+    public CramerTest cramerTest(Sample x, Sample y, double confLevel, int replicates, String sim, boolean justStatistic, int kernel, double maxM, int k) {
         CramerTest RVAL = new CramerTest(0, 0, 0, 0, 0, 0, 0, confLevel, replicates, null, null, null);
         // if ((is.matrix(x))&&(is.matrix(y))) if (ncol(x)==ncol(y)) RVAL$d<-ncol(x)
-        RVAL.d = x.get(0).numAttributes();
+        RVAL.d = x.getInstances().get(0).numAttributes();
         // RVAL$m<-nrow(x)
         RVAL.m = x.size();
         // RVAL$n<-nrow(y)
         RVAL.n = y.size();
-        // daten<-matrix(c(t(x),t(y)),ncol=ncol(x),byrow=TRUE)
-        double[][] daten = new double[RVAL.m + RVAL.n][];
-        for (int i = 0; i < RVAL.m; i++) {
-            Instance inst = x.get(i);
-            double[] values = new double[inst.numAttributes() - 1];
-            for (int j = 0; j < values.length; j++) {
-                values[j] = inst.value(j);
-            }
-            daten[i] = values;
-        }
-        for (int i = 0; i < RVAL.n; i++) {
-            Instance inst = y.get(i);
-            double[] values = new double[inst.numAttributes() - 1];
-            for (int j = 0; j < values.length; j++) {
-                values[j] = inst.value(j);
-            }
-            daten[i + RVAL.m] = values;
-        }
-        return this.compute(RVAL, daten, replicates, sim, justStatistic, kernel, maxM, k);
+        // lookup[i,j]<-sum((daten[i,]-daten[j,])^2), reusing the distances inside each sample
+        double[][] lookup = Sample.pairwiseDistances(x, y);
+        return this.compute(RVAL, lookup, replicates, sim, justStatistic, kernel, maxM, k);
     }
 
     private void reverse(double[] array) {
@@ -725,6 +721,11 @@ public class Cramer extends AbstractOptionHandler implements StatisticalTest {
         return this.cramerTest(x, y).confLevel;
     }
 
+    @Override
+    public double test(Sample x, Sample y) {
+        return this.cramerTest(x, y).confLevel;
+    }
+
     @Override
     protected void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -21,7 +21,6 @@ package moa.classifiers.core.statisticaltests;
 
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
-import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
@@ -45,11 +44,8 @@ public class KNN extends AbstractOptionHandler implements StatisticalTest {
             "K value of the K nearest neighbours algorithm.", 5, 1,
             Integer.MAX_VALUE);
 
-    private double[] compute(double[][] set, int d, int n1, int n2) throws InterruptedException {
+    private double[] compute(int[] counts, int n1, int n2) {
         double n = n1 + n2;
-        Arrays.fill(set[d], 0, n1, 1.0);
-        Arrays.fill(set[d], n1, n1 + n2, 2.0);
-        int[] counts = this.knn(set, n1 + n2, d, this.kValueOption.getValue());
         double Tk = 0;
         for (int i = 0; i < counts.length; i++) {
             Tk += counts[i];
@@ -66,30 +62,17 @@ public class KNN extends AbstractOptionHandler implements StatisticalTest {
         return new double[]{Tk, Z, P};
     }
 
-    private double[] attributeToDoubleArray(List<Instance> list, int attIndex) {
-        double[] ret = new double[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            ret[i] = list.get(i).value(attIndex);
-        }
-        return ret;
+    public double[] mtsknn(List<Instance> x, List<Instance> y) throws InterruptedException {
+        return this.mtsknn(new Sample(x), new Sample(y));
     }
 
-    public double[] mtsknn(List<Instance> x, List<Instance> y) throws InterruptedException {
-        if (x.get(0).numAttributes() != y.get(0).numAttributes()) {
+    public double[] mtsknn(Sample x, Sample y) throws InterruptedException {
+        if (x.numAttributes() != y.numAttributes()) {
             System.out.println("The dimensions of two samples must match!!!");
             return null;
         }
-        int d = x.get(0).numAttributes() - 1;
-        int n1 = x.size();
-        int n2 = y.size();
-        double[][] set = new double[d + 1][n1 + n2];
-        for (int i = 0; i < d; i++) {
-            double[] t1 = this.attributeToDoubleArray(x, i);
-            double[] t2 = this.attributeToDoubleArray(y, i);
-            System.arraycopy(t1, 0, set[i], 0, t1.length);
-            System.arraycopy(t2, 0, set[i], t1.length, t2.length);
-        }
-        return this.compute(set, d, n1, n2);
+        int[] counts = this.knn(x, y, this.kValueOption.getValue());
+        return this.compute(counts, x.size(), y.size());
     }
 
     private double pnorm(double x, double mu, double sigma, boolean lower_tail,
@@ -148,52 +131,51 @@ public class KNN extends AbstractOptionHandler implements StatisticalTest {
         }
     }
 
-    // Calculando as distancias entre dois pontos para todos os atributos
-    private double dist(double[][] points, int v1, int v2, int d) {
-        double sum = 0;
-        for (int i = 0; i != d; ++i) {
-            // Do not use Math.pow! It is 8x slower than computing directly
-            sum += (points[i][v1] - points[i][v2])
-                    * (points[i][v1] - points[i][v2]);
+    // Distancia entre duas instancias das duas amostras juntas
+    private double dist(Sample x, Sample y, double[][] cross, int v1, int v2) {
+        int n1 = x.size();
+        if (v1 < n1) {
+            return v2 < n1 ? x.distance(v1, v2) : cross[v1][v2 - n1];
         }
-        return sum;
+        return v2 < n1 ? cross[v2][v1 - n1] : y.distance(v1 - n1, v2 - n1);
     }
 
     /**
      * Computes, for each instance, the number of the k nearest neighbors that
      * are from the same sample.
      *
-     * @param points Instances of both samples put together, with the last
-     * column having 1 for the first sample and 2 for the second sample.
-     * @param n Number of instances.
-     * @param d Number of attributes + 1 column.
+     * @param x First sample.
+     * @param y Second sample.
      * @param k K nearest neighbors.
      * @return the number of the closest neighbors that are from the same
-     * sample.
+     * sample, for the instances of x followed by the instances of y.
      * @throws InterruptedException
      */
-    private int[] knn(double[][] points, int n, int d, int k) throws InterruptedException {
+    private int[] knn(Sample x, Sample y, int k) throws InterruptedException {
+        int n1 = x.size();
+        int n = n1 + y.size();
+        double[][] cross = Sample.crossDistances(x, y);
         int[] counts = new int[n];
         int[] closest = new int[n * k];
+        HigherComparator comparator = new HigherComparator();
         // Percorrendo todos os atributos
         for (int i = 0; i != n; ++i) {
             if (Thread.interrupted()) {
                 // We've been interrupted: no more crunching.
                 throw new InterruptedException();
             }
-            PriorityQueue<DIPair> q = new PriorityQueue(k,
-                    new HigherComparator());
+            PriorityQueue<DIPair> q = new PriorityQueue(k, comparator);
             // Percorrendo os valores do atributo
             for (int j = 0; j != n; ++j) {
                 if (i != j) {
-                    DIPair dis = new DIPair(this.dist(points, i, j, d), j);
+                    double e = this.dist(x, y, cross, i, j);
                     if (q.size() == k) {
-                        if (dis.getE() < q.peek().getE()) {
-                            q.add(dis);
+                        if (e < q.peek().getE()) {
+                            q.add(new DIPair(e, j));
                             q.poll();
                         }
                     } else {
-                        q.add(dis);
+                        q.add(new DIPair(e, j));
                     }
                 }
             }
@@ -213,7 +195,7 @@ public class KNN extends AbstractOptionHandler implements StatisticalTest {
             for (int j = 0; j != k; ++j) {
                 // Verificando se as instancias mais proximas sao da mesma
                 // amostra
-                if (points[d][closest[i * k + j]] == points[d][i]) {
+                if ((closest[i * k + j] < n1) == (i < n1)) {
                     counts[i] += 1;
                 }
             }
@@ -398,6 +380,15 @@ public class KNN extends AbstractOptionHandler implements StatisticalTest {
         }
     }
 
+    @Override
+    public double test(Sample x, Sample y) {
+        try {
+            return this.mtsknn(x, y)[2];
+        } catch (InterruptedException ie) {
+            return 0.0;
+        }
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub		
@@ -0,0 +1,180 @@
+/*
+ *    Sample.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.statisticaltests;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sample of instances in primitive form for multivariate statistical tests.
+ *
+ * <p>The values of the input attributes (all the attributes except the last
+ * one, as in the tests) are copied once into a matrix, and the squared
+ * euclidean distances between the instances of the sample are computed the
+ * first time they are needed and kept. A sample that is compared with many
+ * others, such as the buffer of a stored concept in RCD, only pays for the
+ * distances to the instances of the other sample.</p>
+ *
+ * <p>A sample is immutable, and can be shared between tests running in
+ * different threads.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class Sample implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final List<Instance> instances;
+
+    protected final double[][] values;
+
+    /**
+     * Lower triangle of the distance matrix, built on first use. Once built
+     * it is read without locking.
+     */
+    protected transient volatile double[] distances;
+
+    /**
+     * Creates a sample from a snapshot of a list of instances.
+     *
+     * @param instances the instances of the sample
+     */
+    public Sample(List<Instance> instances) {
+        this.instances = Arrays.asList(instances.toArray(new Instance[instances.size()]));
+        this.values = new double[this.instances.size()][];
+        for (int i = 0; i < this.values.length; i++) {
+            Instance inst = this.instances.get(i);
+            double[] row = new double[inst.numAttributes() - 1];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = inst.value(j);
+            }
+            this.values[i] = row;
+        }
+    }
+
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * Gets the number of input attributes of the instances.
+     */
+    public int numAttributes() {
+        return this.values.length == 0 ? 0 : this.values[0].length;
+    }
+
+    public List<Instance> getInstances() {
+        return this.instances;
+    }
+
+    public double[] getValues(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * Gets the squared euclidean distance between two instances of this
+     * sample.
+     */
+    public double distance(int i, int j) {
+        if (i == j) {
+            return 0.0;
+        }
+        return triangleDistance(distances(), i, j);
+    }
+
+    protected static double triangleDistance(double[] triangle, int i, int j) {
+        return i > j ? triangle[i * (i - 1) / 2 + j] : triangle[j * (j - 1) / 2 + i];
+    }
+
+    protected double[] distances() {
+        double[] triangle = this.distances;
+        if (triangle == null) {
+            synchronized (this) {
+                triangle = this.distances;
+                if (triangle == null) {
+                    int n = this.values.length;
+                    triangle = new double[n * (n - 1) / 2];
+                    int p = 0;
+                    for (int i = 1; i < n; i++) {
+                        for (int j = 0; j < i; j++) {
+                            triangle[p++] = distance(this.values[i], this.values[j]);
+                        }
+                    }
+                    this.distances = triangle;
+                }
+            }
+        }
+        return triangle;
+    }
+
+    /**
+     * Computes the squared euclidean distances between the instances of two
+     * samples.
+     *
+     * @return the matrix of distances, with a row per instance of
+     * <code>x</code> and a column per instance of <code>y</code>
+     */
+    public static double[][] crossDistances(Sample x, Sample y) {
+        double[][] cross = new double[x.size()][y.size()];
+        for (int i = 0; i < cross.length; i++) {
+            double[] row = x.values[i];
+            for (int j = 0; j < cross[i].length; j++) {
+                cross[i][j] = distance(row, y.values[j]);
+            }
+        }
+        return cross;
+    }
+
+    /**
+     * Computes the squared euclidean distances between all the instances of
+     * two samples put together, the instances of <code>x</code> first.
+     */
+    public static double[][] pairwiseDistances(Sample x, Sample y) {
+        int m = x.size();
+        int n = m + y.size();
+        double[][] cross = crossDistances(x, y);
+        double[] xTriangle = x.distances();
+        double[] yTriangle = y.distances();
+        double[][] lookup = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                double distance;
+                if (i < m) {
+                    distance = triangleDistance(xTriangle, i, j);
+                } else if (j < m) {
+                    distance = cross[j][i - m];
+                } else {
+                    distance = triangleDistance(yTriangle, i - m, j - m);
+                }
+                lookup[i][j] = distance;
+                lookup[j][i] = distance;
+            }
+        }
+        return lookup;
+    }
+
+    protected static double distance(double[] a, double[] b) {
+        double sum = 0;
+        for (int k = 0; k < a.length; k++) {
+            sum += (a[k] - b[k]) * (a[k] - b[k]);
+        }
+        return sum;
+    }
+}
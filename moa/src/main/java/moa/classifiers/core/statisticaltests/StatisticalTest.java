@@ -38,6 +38,18 @@ public interface StatisticalTest extends OptionHandler, Callable<Double> {
      * @return p-value
      */
     public double test(List<Instance> x, List<Instance> y);
+    /**
+     * This method performs a test on samples in primitive form and returns
+     * the corresponding p-value. Samples keep the distances between their
+     * instances, so a sample compared many times is only converted once.
+     * This method may be called from several threads at the same time.
+     * @param x sample of instances
+     * @param y sample of instances
+     * @return p-value
+     */
+    public default double test(Sample x, Sample y) {
+        return this.test(x.getInstances(), y.getInstances());
+    }
     /**
      * This method sets the instances for later use in concurrent scenarios. 
      * The test is performed by using the call() method.
@@ -21,8 +21,8 @@ import java.io.StringReader;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.lazy.neighboursearch.KDTree;
-import moa.classifiers.lazy.neighboursearch.LinearNNSearch;
 import moa.classifiers.lazy.neighboursearch.NearestNeighbourSearch;
+import moa.classifiers.lazy.neighboursearch.SlidingWindowNNSearch;
 import moa.core.Measurement;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -63,13 +63,12 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier {
         return "kNN: special.";
     }
 
-    protected Instances window; 
+    protected SlidingWindowNNSearch window; 
 
 	@Override
 	public void setModelContext(InstancesHeader context) {
 		try {
-			this.window = new Instances(context,0); //new StringReader(context.toString())
-			this.window.setClassIndex(context.classIndex());
+			this.window = new SlidingWindowNNSearch(context); //new StringReader(context.toString())
 		} catch(Exception e) {
 			System.err.println("Error: no Model Context available.");
 			e.printStackTrace();
@@ -87,10 +86,10 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier {
 		if (inst.classValue() > C)
 			C = (int)inst.classValue();
 		if (this.window == null) {
-			this.window = new Instances(inst.dataset());
+			this.window = new SlidingWindowNNSearch(inst.dataset());
 		}
 		if (this.limitOption.getValue() <= this.window.numInstances()) {
-			this.window.delete(0);
+			this.window.removeFirst();
 		}
 		this.window.add(inst);
     }
@@ -101,10 +100,10 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier {
 		try {
 			NearestNeighbourSearch search;
 			if (this.nearestNeighbourSearchOption.getChosenIndex()== 0) {
-				search = new LinearNNSearch(this.window);  
+				search = this.window;
 			} else {
 				search = new KDTree();
-				search.setInstances(this.window);
+				search.setInstances(this.window.getInstances());
 			}	
 			if (this.window.numInstances()>0) {	
 				Instances neighbours = search.kNearestNeighbours(inst,Math.min(kOption.getValue(),this.window.numInstances()));
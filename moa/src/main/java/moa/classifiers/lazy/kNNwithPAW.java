@@ -20,7 +20,7 @@ package moa.classifiers.lazy;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.core.driftdetection.ADWIN;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.Instances;
+import moa.classifiers.lazy.neighboursearch.SlidingWindowNNSearch;
 
 /**
  * k Nearest Neighbor ADAPTIVE with PAW.<p>
@@ -58,12 +58,21 @@ public class kNNwithPAW extends kNN implements MultiClassClassifier {
             C = (int) inst.classValue();
         }
         if (this.window == null) {
-            this.window = new Instances(inst.dataset());
+            this.window = new SlidingWindowNNSearch(inst.dataset());
         }
 
-        for (int i = 0; i < this.window.size(); i++) {
-            if (this.classifierRandom.nextDouble() > this.prob) {
-                this.window.delete(i);
+        // the instance after a removed one is kept without drawing, as when
+        // the window was shifted on each removal
+        boolean removed = false;
+        for (int i = this.window.firstSlot(); i < this.window.endSlot(); i++) {
+            if (!this.window.contains(i)) {
+                continue;
+            }
+            if (removed) {
+                removed = false;
+            } else if (this.classifierRandom.nextDouble() > this.prob) {
+                this.window.remove(i);
+                removed = true;
             }
         }
         this.window.add(inst);
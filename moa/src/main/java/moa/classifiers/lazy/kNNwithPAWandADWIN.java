@@ -17,12 +17,10 @@
  */
 package moa.classifiers.lazy;
 
-import java.util.ArrayList;
-
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.core.driftdetection.ADWIN;
+import moa.classifiers.lazy.neighboursearch.SlidingWindowNNSearch;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * k Nearest Neighbor ADAPTIVE with ADWIN+PAW.<p>
@@ -43,8 +41,6 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
 
     protected int marker = 0;
 
-    protected ArrayList<Integer> timeStamp;
-
     @Override
     public String getPurposeString() {
         return "kNNwithPAWandADWIN: kNN with Probabilistic Approximate Window and ADWIN";
@@ -69,29 +65,39 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
         }
         // ADWIN
         if (this.window == null) {
-            this.window = new Instances(inst.dataset());
+            this.window = new SlidingWindowNNSearch(inst.dataset());
         }
 
-        if (this.timeStamp == null) {
-            this.timeStamp = new ArrayList<Integer>(10);
-        }
-        for (int i = 0; i < this.window.size(); i++) {
-            if (this.classifierRandom.nextDouble() > this.prob) {
-                this.window.delete(i);
-                this.timeStamp.remove(i);
+        // the instance after a removed one is kept without testing it, as
+        // when the window was shifted on each removal
+        boolean removed = false;
+        for (int i = this.window.firstSlot(); i < this.window.endSlot(); i++) {
+            if (!this.window.contains(i)) {
+                continue;
+            }
+            if (removed) {
+                removed = false;
+            } else if (this.classifierRandom.nextDouble() > this.prob) {
+                this.window.remove(i);
+                removed = true;
             }
         }
-        this.window.add(inst);
-        this.timeStamp.add(this.time);
+        long index = this.window.add(inst);
         this.time++;
         boolean correctlyClassifies = this.correctlyClassifies(inst);
         if (this.adwin.setInput(correctlyClassifies ? 0 : 1)) {
             //Change
             int size = (int) this.adwin.getWidth();
-            for (int i = 0; i < this.window.size(); i++) {
-                if (this.timeStamp.get(i) < this.time - size) {
-                    this.window.delete(i);
-                    this.timeStamp.remove(i);
+            removed = false;
+            for (int i = this.window.firstSlot(); i < this.window.endSlot(); i++) {
+                if (!this.window.contains(i)) {
+                    continue;
+                }
+                if (removed) {
+                    removed = false;
+                } else if (this.window.index(i) <= index - size) {
+                    this.window.remove(i);
+                    removed = true;
                 }
             }
         }
@@ -0,0 +1,574 @@
+/*
+ *    SlidingWindowNNSearch.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.lazy.neighboursearch;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Brute force nearest neighbour search over a sliding window of instances,
+ * for the kNN classifiers that keep the last instances of a stream.<p>
+ *
+ * Instances are kept in slots, in the order they were added. Removing an
+ * instance only empties its slot, the slots are compacted when instances are
+ * added, so that instances can be removed anywhere in the window in constant
+ * amortised time. Slots do not change while no instance is added.<p>
+ *
+ * The distance is the Euclidean distance over attributes normalized with the
+ * ranges of the instances of the window, as computed by EuclideanDistance.
+ * The ranges are updated when instances are added, and only computed again
+ * when an instance on their bounds is removed. The distances to the last
+ * target are cached for every slot, so that searching again the neighbours of
+ * the same target after some instances have been added or removed only
+ * computes the distances to the new instances, as long as the ranges have not
+ * changed.
+ */
+public class SlidingWindowNNSearch
+  extends NearestNeighbourSearch {
+
+  private static final long serialVersionUID = 1L;
+
+  /** the instances of the slots, null for removed ones. */
+  protected Instance[] m_Window;
+
+  /** the attribute values of the instances, by slot. */
+  protected double[] m_Values;
+
+  /** the number of instances added before the instance of each slot. */
+  protected long[] m_Indices;
+
+  /** the first slot that can be used. */
+  protected int m_First;
+
+  /** the slot after the last used one. */
+  protected int m_End;
+
+  /** the number of instances in the window. */
+  protected int m_NumInstances;
+
+  /** the number of instances added. */
+  protected long m_NumAdded;
+
+  /** the number of attributes. */
+  protected int m_NumAttributes;
+
+  /** the class index. */
+  protected int m_ClassIndex;
+
+  /** whether the attributes are nominal. */
+  protected boolean[] m_Nominal;
+
+  /** the minimum, maximum and width of the attributes, like NormalizableDistance. */
+  protected double[][] m_Ranges;
+
+  /** whether the ranges have to be computed again. */
+  protected boolean m_RangesInvalid;
+
+  /** incremented every time the ranges change. */
+  protected long m_RangesVersion;
+
+  /** the squared distances to the last target, by slot. */
+  protected double[] m_CachedDistances;
+
+  /** the slot after the last one with a cached distance. */
+  protected int m_CachedEnd;
+
+  /** the attribute values of the last target. */
+  protected double[] m_CachedTarget;
+
+  /** the version of the ranges used for the cached distances. */
+  protected long m_CachedRangesVersion;
+
+  /** the distances of the last neighbours found. */
+  protected double[] m_Distances;
+
+  /**
+   * Constructor.
+   *
+   * @param header 	the header of the instances
+   */
+  public SlidingWindowNNSearch(Instances header) {
+    super(new Instances(header, 0));
+    m_Instances.setClassIndex(header.classIndex());
+    m_NumAttributes = header.numAttributes();
+    m_ClassIndex = header.classIndex();
+    m_Nominal = new boolean[m_NumAttributes];
+    for (int j = 0; j < m_NumAttributes; j++)
+      m_Nominal[j] = header.attribute(j).isNominal();
+    m_Ranges = new double[m_NumAttributes][3];
+    initializeRangesEmpty();
+    m_Window = new Instance[16];
+    m_Values = new double[m_Window.length * m_NumAttributes];
+    m_Indices = new long[m_Window.length];
+    m_CachedDistances = new double[m_Window.length];
+    m_CachedTarget = new double[m_NumAttributes];
+  }
+
+  /**
+   * Returns a string describing this nearest neighbour search algorithm.
+   *
+   * @return 		a description of the algorithm for displaying in the
+   * 			explorer/experimenter gui
+   */
+  public String globalInfo() {
+    return
+        "Class implementing the brute force search algorithm for nearest "
+      + "neighbour search over a sliding window of instances.";
+  }
+
+  /**
+   * Only the normalized Euclidean distance is supported.
+   *
+   * @param df 		the distance function
+   * @throws Exception 	always
+   */
+  public void setDistanceFunction(DistanceFunction df) throws Exception {
+    throw new Exception("Only the normalized Euclidean distance is supported.");
+  }
+
+  /**
+   * Adds a copy of an instance at the end of the window, as
+   * Instances.add does.
+   *
+   * @param ins 	the instance to add
+   * @return 		the number of instances added before it
+   */
+  public long add(Instance ins) {
+    if (m_End == m_Window.length || m_End - m_First - m_NumInstances > Math.max(m_NumInstances, 16)) {
+      compact();
+    }
+    int slot = m_End++;
+    m_Window[slot] = ins.copy();
+    m_Indices[slot] = m_NumAdded;
+    int offset = slot * m_NumAttributes;
+    boolean changed = false;
+    for (int j = 0; j < m_NumAttributes; j++) {
+      double value = ins.value(j);
+      m_Values[offset + j] = value;
+      if (!m_RangesInvalid && !ins.isMissing(j))
+        changed |= updateRanges(j, value);
+    }
+    if (changed)
+      m_RangesVersion++;
+    m_NumInstances++;
+    return m_NumAdded++;
+  }
+
+  /**
+   * Moves the instances to the first slots, or to larger arrays if less
+   * than half of the slots would be free.
+   */
+  protected void compact() {
+    int capacity = m_Window.length;
+    if (2 * m_NumInstances >= capacity)
+      capacity *= 2;
+    Instance[] window = capacity == m_Window.length ? m_Window : new Instance[capacity];
+    double[] values = capacity == m_Window.length ? m_Values : new double[capacity * m_NumAttributes];
+    long[] indices = capacity == m_Window.length ? m_Indices : new long[capacity];
+    double[] cachedDistances = capacity == m_Window.length ? m_CachedDistances : new double[capacity];
+    int cachedEnd = 0;
+    int slot = 0;
+    for (int i = m_First; i < m_End; i++) {
+      if (m_Window[i] != null) {
+        window[slot] = m_Window[i];
+        System.arraycopy(m_Values, i * m_NumAttributes, values, slot * m_NumAttributes, m_NumAttributes);
+        indices[slot] = m_Indices[i];
+        cachedDistances[slot] = m_CachedDistances[i];
+        slot++;
+        if (i < m_CachedEnd)
+          cachedEnd = slot;
+      }
+    }
+    for (int i = slot; i < m_End; i++)
+      window[i] = null;
+    m_Window = window;
+    m_Values = values;
+    m_Indices = indices;
+    m_CachedDistances = cachedDistances;
+    m_CachedEnd = cachedEnd;
+    m_First = 0;
+    m_End = slot;
+  }
+
+  /**
+   * Removes the instance of a slot.
+   *
+   * @param slot 	the slot
+   */
+  public void remove(int slot) {
+    if (m_Window[slot] == null)
+      throw new IllegalArgumentException("No instance in slot " + slot);
+    m_Window[slot] = null;
+    m_NumInstances--;
+    int offset = slot * m_NumAttributes;
+    for (int j = 0; !m_RangesInvalid && j < m_NumAttributes; j++) {
+      double value = m_Values[offset + j];
+      if (!isMissingValue(value)
+          && (value == m_Ranges[j][NormalizableDistance.R_MIN] || value == m_Ranges[j][NormalizableDistance.R_MAX]))
+        m_RangesInvalid = true;
+    }
+    while (m_First < m_End && m_Window[m_First] == null)
+      m_First++;
+  }
+
+  /**
+   * Removes the first instance of the window.
+   */
+  public void removeFirst() {
+    remove(m_First);
+  }
+
+  /**
+   * Returns the first slot of the window.
+   *
+   * @return 		the first slot
+   */
+  public int firstSlot() {
+    return m_First;
+  }
+
+  /**
+   * Returns the slot after the last one of the window.
+   *
+   * @return 		the slot after the last one
+   */
+  public int endSlot() {
+    return m_End;
+  }
+
+  /**
+   * Tests if a slot has an instance.
+   *
+   * @param slot 	the slot
+   * @return 		true if the instance of the slot has not been removed
+   */
+  public boolean contains(int slot) {
+    return m_Window[slot] != null;
+  }
+
+  /**
+   * Returns the instance of a slot.
+   *
+   * @param slot 	the slot
+   * @return 		the instance, or null if it has been removed
+   */
+  public Instance instance(int slot) {
+    return m_Window[slot];
+  }
+
+  /**
+   * Returns the number of instances added before the instance of a slot.
+   *
+   * @param slot 	the slot
+   * @return 		the index of the instance
+   */
+  public long index(int slot) {
+    return m_Indices[slot];
+  }
+
+  /**
+   * Returns the number of instances in the window.
+   *
+   * @return 		the number of instances
+   */
+  public int numInstances() {
+    return m_NumInstances;
+  }
+
+  /**
+   * Returns the instances of the window.
+   *
+   * @return 		copies of the instances, in the order they were added
+   */
+  public Instances getInstances() {
+    Instances insts = new Instances(m_Instances, m_NumInstances);
+    for (int i = m_First; i < m_End; i++) {
+      if (m_Window[i] != null)
+        insts.add(m_Window[i]);
+    }
+    return insts;
+  }
+
+  /**
+   * Adds an instance at the end of the window.
+   *
+   * @param ins 	the instance to add
+   */
+  public void update(Instance ins) {
+    add(ins);
+  }
+
+  /**
+   * Returns the nearest instance in the window to the target.
+   *
+   * @param target 	the instance to find the nearest neighbour for
+   * @return 		the nearest neighbor
+   * @throws Exception 	if the window is empty
+   */
+  public Instance nearestNeighbour(Instance target) throws Exception {
+    return (kNearestNeighbours(target, 1)).instance(0);
+  }
+
+  /**
+   * Returns k nearest instances in the window to the target, and the
+   * instances as far as the k-th one, like LinearNNSearch.
+   *
+   * @param target 	the instance to find the nearest neighbours for
+   * @param kNN 	the number of nearest neighbours to find
+   * @return 		copies of the nearest neighbours
+   * @throws Exception 	if the neighbours could not be found
+   */
+  public Instances kNearestNeighbours(Instance target, int kNN) throws Exception {
+    computeDistances(target);
+
+    MyHeap heap = new MyHeap(kNN);
+    int firstkNN = 0;
+    for (int i = m_First; i < m_End; i++) {
+      if (m_Window[i] == null)
+        continue;
+      double distance = m_CachedDistances[i];
+      if (firstkNN < kNN) {
+        heap.put(i, distance);
+        firstkNN++;
+      }
+      else {
+        MyHeapElement temp = heap.peek();
+        if (distance < temp.distance) {
+          heap.putBySubstitute(i, distance);
+        }
+        else if (distance == temp.distance) {
+          heap.putKthNearest(i, distance);
+        }
+      }
+    }
+
+    Instances neighbours = new Instances(m_Instances, (heap.size()+heap.noOfKthNearest()));
+    m_Distances = new double[heap.size()+heap.noOfKthNearest()];
+    int[] indices = new int[heap.size()+heap.noOfKthNearest()];
+    int i = 1; MyHeapElement h;
+    while (heap.noOfKthNearest() > 0) {
+      h = heap.getKthNearest();
+      indices[indices.length-i] = h.index;
+      m_Distances[indices.length-i] = Math.sqrt(h.distance);
+      i++;
+    }
+    while (heap.size() > 0) {
+      h = heap.get();
+      indices[indices.length-i] = h.index;
+      m_Distances[indices.length-i] = Math.sqrt(h.distance);
+      i++;
+    }
+
+    for (int k = 0; k < indices.length; k++) {
+      neighbours.add(m_Window[indices[k]]);
+    }
+
+    return neighbours;
+  }
+
+  /**
+   * Returns the distances of the last neighbours found.
+   *
+   * @return 		the distances
+   * @throws Exception 	if no neighbours have been searched yet
+   */
+  public double[] getDistances() throws Exception {
+    if (m_Distances == null)
+      throw new Exception("No distances available. Please call either "+
+                          "kNearestNeighbours or nearestNeighbours first.");
+    return m_Distances;
+  }
+
+  /**
+   * Computes the squared distances from the target to the instances of the
+   * window that are not cached yet.
+   *
+   * @param target 	the target
+   */
+  protected void computeDistances(Instance target) {
+    if (m_RangesInvalid)
+      initializeRanges();
+    boolean sameTarget = m_CachedRangesVersion == m_RangesVersion;
+    for (int j = 0; j < m_NumAttributes; j++) {
+      double value = target.value(j);
+      if (j != m_ClassIndex
+          && Double.doubleToLongBits(value) != Double.doubleToLongBits(m_CachedTarget[j])) {
+        sameTarget = false;
+        m_CachedTarget[j] = value;
+      }
+    }
+    int first = sameTarget ? Math.max(m_First, m_CachedEnd) : m_First;
+    for (int i = first; i < m_End; i++) {
+      if (m_Window[i] != null)
+        m_CachedDistances[i] = distance(i);
+    }
+    m_CachedEnd = m_End;
+    m_CachedRangesVersion = m_RangesVersion;
+  }
+
+  /**
+   * Computes the squared distance from the cached target to an instance,
+   * like EuclideanDistance.
+   *
+   * @param slot 	the slot of the instance
+   * @return 		the squared distance
+   */
+  protected double distance(int slot) {
+    double distance = 0;
+    int offset = slot * m_NumAttributes;
+    for (int j = 0; j < m_NumAttributes; j++) {
+      if (j == m_ClassIndex)
+        continue;
+      double diff = difference(j, m_CachedTarget[j], m_Values[offset + j]);
+      distance += diff * diff;
+    }
+    return distance;
+  }
+
+  /**
+   * Computes the difference between two attribute values, like
+   * NormalizableDistance.
+   *
+   * @param index 	the attribute index
+   * @param val1 	the first value
+   * @param val2 	the second value
+   * @return 		the difference
+   */
+  protected double difference(int index, double val1, double val2) {
+    if (m_Nominal[index]) {
+      if (isMissingValue(val1) ||
+          isMissingValue(val2) ||
+          ((int) val1 != (int) val2)) {
+        return 1;
+      }
+      else {
+        return 0;
+      }
+    }
+    if (isMissingValue(val1) ||
+        isMissingValue(val2)) {
+      if (isMissingValue(val1) &&
+          isMissingValue(val2)) {
+        return 1;
+      }
+      double diff;
+      if (isMissingValue(val2)) {
+        diff = norm(val1, index);
+      }
+      else {
+        diff = norm(val2, index);
+      }
+      if (diff < 0.5) {
+        diff = 1.0 - diff;
+      }
+      return diff;
+    }
+    return norm(val1, index) - norm(val2, index);
+  }
+
+  /**
+   * Normalizes a value of a numeric attribute.
+   *
+   * @param x 		the value to be normalized
+   * @param i 		the attribute's index
+   * @return 		the normalized value
+   */
+  protected double norm(double x, int i) {
+    double[] range = m_Ranges[i];
+    if (Double.isNaN(range[NormalizableDistance.R_MIN])
+        || (range[NormalizableDistance.R_MAX] == range[NormalizableDistance.R_MIN]))
+      return 0;
+    else
+      return (x - range[NormalizableDistance.R_MIN]) / (range[NormalizableDistance.R_WIDTH]);
+  }
+
+  /**
+   * Sets the ranges of the attributes as if there were no instances.
+   */
+  protected void initializeRangesEmpty() {
+    for (int j = 0; j < m_NumAttributes; j++) {
+      m_Ranges[j][NormalizableDistance.R_MIN] = Double.POSITIVE_INFINITY;
+      m_Ranges[j][NormalizableDistance.R_MAX] = -Double.POSITIVE_INFINITY;
+      m_Ranges[j][NormalizableDistance.R_WIDTH] = Double.POSITIVE_INFINITY;
+    }
+  }
+
+  /**
+   * Computes again the ranges of the attributes over the instances of the
+   * window.
+   */
+  protected void initializeRanges() {
+    double[][] oldRanges = m_Ranges;
+    m_Ranges = new double[m_NumAttributes][3];
+    initializeRangesEmpty();
+    for (int i = m_First; i < m_End; i++) {
+      if (m_Window[i] == null)
+        continue;
+      int offset = i * m_NumAttributes;
+      for (int j = 0; j < m_NumAttributes; j++) {
+        double value = m_Values[offset + j];
+        if (!isMissingValue(value))
+          updateRanges(j, value);
+      }
+    }
+    for (int j = 0; j < m_NumAttributes; j++) {
+      for (int r = 0; r < 3; r++) {
+        if (Double.doubleToLongBits(oldRanges[j][r]) != Double.doubleToLongBits(m_Ranges[j][r])) {
+          m_RangesVersion++;
+          j = m_NumAttributes;
+          break;
+        }
+      }
+    }
+    m_RangesInvalid = false;
+  }
+
+  /**
+   * Updates the range of an attribute with a value that is not missing,
+   * like NormalizableDistance.
+   *
+   * @param j 		the attribute's index
+   * @param value 	the value
+   * @return 		true if the range has changed
+   */
+  protected boolean updateRanges(int j, double value) {
+    double[] range = m_Ranges[j];
+    boolean changed = false;
+    if (value < range[NormalizableDistance.R_MIN]) {
+      range[NormalizableDistance.R_MIN] = value;
+      range[NormalizableDistance.R_WIDTH] = range[NormalizableDistance.R_MAX] - range[NormalizableDistance.R_MIN];
+      changed = true;
+    }
+    if (value > range[NormalizableDistance.R_MAX]) {
+      range[NormalizableDistance.R_MAX] = value;
+      range[NormalizableDistance.R_WIDTH] = range[NormalizableDistance.R_MAX] - range[NormalizableDistance.R_MIN];
+      changed = true;
+    }
+    return changed;
+  }
+
+  /**
+   * Tests if a value codes "missing".
+   *
+   * @param val 	the value to be tested
+   * @return 		true if val codes "missing"
+   */
+  protected static boolean isMissingValue(double val) {
+    return Double.isNaN(val);
+  }
+}
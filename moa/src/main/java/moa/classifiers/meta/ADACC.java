@@ -260,6 +260,11 @@ public class ADACC extends DACC implements MultiClassClassifier {
     }
 
   
+    @Override
+    public boolean retainsInstances() {
+        return true;
+    }
+
     @Override
     public void getModelDescription(StringBuilder out, int indent) {
         // TODO Auto-generated method stub
@@ -136,6 +136,11 @@ public class AccuracyUpdatedEnsemble extends AbstractClassifier implements Multi
 		return false;
 	}
 
+	@Override
+	public boolean retainsInstances() {
+		return true;
+	}
+
 	/**
 	 * Predicts a class for an example.
 	 */
@@ -35,8 +35,12 @@ import com.github.javacliparser.MultiChoiceOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import moa.classifiers.trees.ARFHoeffdingTree;
+import moa.classifiers.trees.CompiledForest;
+import moa.classifiers.trees.CompiledTree;
 import moa.evaluation.BasicClassificationPerformanceEvaluator;
 
 import java.util.concurrent.ExecutorService;
@@ -215,6 +219,144 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         return combinedVote.getArrayRef();
     }
 
+    @Override
+    public void getVotesForInstances(final Instance[] batch, double[][] votes) {
+        if (getClass() != AdaptiveRandomForest.class) {
+            super.getVotesForInstances(batch, votes);
+            return;
+        }
+        if (batch.length == 0) {
+            return;
+        }
+        if(this.ensemble == null) 
+            initEnsemble(batch[0].copy());
+        // Every tree votes for the whole batch, in parallel if there are several threads
+        final double[][][] treeVotes = new double[this.ensemble.length][batch.length][];
+        Collection<Callable<Integer>> voters = new ArrayList<Callable<Integer>>();
+        for (int i = 0 ; i < this.ensemble.length ; ++i) {
+            final ARFBaseLearner learner = this.ensemble[i];
+            final double[][] learnerVotes = treeVotes[i];
+            voters.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    learner.classifier.getVotesForInstances(batch, learnerVotes);
+                    return 0;
+                }
+            });
+        }
+        invokeAll(voters);
+        // The votes of every instance are combined as in getVotesForInstance
+        for (int j = 0 ; j < batch.length ; ++j) {
+            DoubleVector combinedVote = new DoubleVector();
+            for(int i = 0 ; i < this.ensemble.length ; ++i) {
+                DoubleVector vote = new DoubleVector(treeVotes[i][j]);
+                if (vote.sumOfValues() > 0.0) {
+                    vote.normalize();
+                    double acc = this.ensemble[i].evaluator.getPerformanceMeasurements()[1].getValue();
+                    if(! this.disableWeightedVote.isSet() && acc > 0.0) {                        
+                        for(int v = 0 ; v < vote.numValues() ; ++v) {
+                            vote.setValue(v, vote.getValue(v) * acc);
+                        }
+                    }
+                    combinedVote.addValues(vote);
+                }
+            }
+            votes[j] = combinedVote.getArrayRef();
+        }
+    }
+
+    @Override
+    public void trainOnInstances(Instance[] batch) {
+        if (getClass() != AdaptiveRandomForest.class) {
+            super.trainOnInstances(batch);
+            return;
+        }
+        final Instance[] training = selectTrainingInstances(batch);
+        // Draw the Poisson weights in the same order as trainOnInstanceImpl
+        final long[] seen = new long[training.length];
+        final int[][] k = new int[training.length][];
+        for (int j = 0 ; j < training.length ; ++j) {
+            seen[j] = ++this.instancesSeen;
+            if(this.ensemble == null) 
+                initEnsemble(training[j]);
+            k[j] = new int[this.ensemble.length];
+            for (int i = 0 ; i < this.ensemble.length ; ++i) {
+                k[j][i] = MiscUtils.poisson(this.lambdaOption.getValue(), this.classifierRandom);
+            }
+        }
+        if (training.length == 0) {
+            return;
+        }
+        // The trees are independent, so every one processes the whole batch
+        Collection<Callable<Integer>> trainers = new ArrayList<Callable<Integer>>();
+        for (int i = 0 ; i < this.ensemble.length ; ++i) {
+            final ARFBaseLearner learner = this.ensemble[i];
+            final int index = i;
+            trainers.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    for (int j = 0 ; j < training.length ; ++j) {
+                        DoubleVector vote = new DoubleVector(learner.getVotesForInstance(training[j]));
+                        learner.evaluator.addResult(new InstanceExample(training[j]), vote.getArrayRef());
+                        if (k[j][index] > 0) {
+                            learner.trainOnInstance(training[j], k[j][index], seen[j]);
+                        }
+                    }
+                    return 0;
+                }
+            });
+        }
+        invokeAll(trainers);
+    }
+
+    /**
+     * Runs tasks on the training threads, or in the current thread if there
+     * is a single one.
+     */
+    private void invokeAll(Collection<Callable<Integer>> tasks) {
+        if(this.executor == null) {
+            for (Callable<Integer> task : tasks) {
+                try {
+                    task.call();
+                } catch (RuntimeException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            return;
+        }
+        try {
+            for (Future<Integer> future : this.executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            throw new RuntimeException("Could not call invokeAll() on training threads.");
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Compiles the trees of the ensemble for fast prediction. The compiled
+     * forest gives the same votes as this ensemble at the time of compilation.
+     *
+     * @return the compiled forest
+     */
+    public CompiledForest compile() {
+        if (this.ensemble == null) {
+            return new CompiledForest(new CompiledTree[0], new double[0]);
+        }
+        CompiledTree[] trees = new CompiledTree[this.ensemble.length];
+        double[] weights = new double[this.ensemble.length];
+        for (int i = 0; i < this.ensemble.length; ++i) {
+            trees[i] = CompiledTree.compile(this.ensemble[i].classifier);
+            double acc = this.ensemble[i].evaluator.getPerformanceMeasurements()[1].getValue();
+            weights[i] = (!this.disableWeightedVote.isSet() && acc > 0.0) ? acc : 1.0;
+        }
+        return new CompiledForest(trees, weights);
+    }
+
     @Override
     public boolean isRandomizable() {
         return true;
@@ -357,6 +499,10 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         }
 
         public void reset() {
+            reset(instancesSeen);
+        }
+
+        public void reset(long instancesSeen) {
             if(this.useBkgLearner && this.bkgLearner != null) {
                 this.classifier = this.bkgLearner.classifier;
                 
@@ -420,7 +566,7 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
                 if(this.driftDetectionMethod.getChange()) {
                     this.lastDriftOn = instancesSeen;
                     this.numberOfDriftsDetected++;
-                    this.reset();
+                    this.reset(instancesSeen);
                 }
             }
         }
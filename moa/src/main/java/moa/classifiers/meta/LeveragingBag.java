@@ -25,7 +25,7 @@ import com.github.javacliparser.FlagOption;
 import moa.classifiers.MultiClassClassifier;
 import moa.options.ClassOption;
 import com.github.javacliparser.MultiChoiceOption;
-import moa.classifiers.core.driftdetection.ADWIN;
+import moa.classifiers.core.driftdetection.AdwinBank;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -83,7 +83,13 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
 
     protected Classifier[] ensemble;
 
-    protected ADWIN[] ADError;
+    protected AdwinBank ADError;
+
+    protected double[] ADErrorInput;
+
+    protected double[] ADErrorEstimation;
+
+    protected boolean[] ADErrorChange;
 
     protected int numberOfChangesDetected;
 
@@ -99,10 +105,10 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
         for (int i = 0; i < this.ensemble.length; i++) {
             this.ensemble[i] = baseLearner.copy();
         }
-        this.ADError = new ADWIN[this.ensemble.length];
-        for (int i = 0; i < this.ensemble.length; i++) {
-            this.ADError[i] = new ADWIN((double) this.deltaAdwinOption.getValue());
-        }
+        this.ADError = new AdwinBank(this.ensemble.length, this.deltaAdwinOption.getValue());
+        this.ADErrorInput = new double[this.ensemble.length];
+        this.ADErrorEstimation = new double[this.ensemble.length];
+        this.ADErrorChange = new boolean[this.ensemble.length];
         this.numberOfChangesDetected = 0;
         if (this.outputCodesOption.isSet()) {
             this.initMatrixCodes = true;
@@ -155,7 +161,7 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
                     k = MiscUtils.poisson(w, this.classifierRandom);
                     break;
                 case 1: //LeveragingBagME
-                    double error = this.ADError[i].getEstimation();
+                    double error = this.ADError.getEstimation(i);
                     k = !this.ensemble[i].correctlyClassifies(weightedInst) ? 1.0 : (this.classifierRandom.nextDouble() < (error / (1.0 - error)) ? 1.0 : 0.0);
                     break;
                 case 2: //LeveragingBagHalf
@@ -180,9 +186,14 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
                 this.ensemble[i].trainOnInstance(weightedInst);
             }
             boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(weightedInst);
-            double ErrEstim = this.ADError[i].getEstimation();
-            if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
-                if (this.ADError[i].getEstimation() > ErrEstim) {
+            this.ADErrorEstimation[i] = this.ADError.getEstimation(i);
+            this.ADErrorInput[i] = correctlyClassifies ? 0 : 1;
+        }
+        //Update the error detectors of all the classifiers at once
+        if (this.ADError.setInputs(this.ADErrorInput, this.ADErrorChange) > 0) {
+            for (int i = 0; i < this.ensemble.length; i++) {
+                if (this.ADErrorChange[i]
+                        && this.ADError.getEstimation(i) > this.ADErrorEstimation[i]) {
                     Change = true;
                 }
             }
@@ -192,15 +203,15 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
             double max = 0.0;
             int imax = -1;
             for (int i = 0; i < this.ensemble.length; i++) {
-                if (max < this.ADError[i].getEstimation()) {
-                    max = this.ADError[i].getEstimation();
+                if (max < this.ADError.getEstimation(i)) {
+                    max = this.ADError.getEstimation(i);
                     imax = i;
                 }
             }
             if (imax != -1) {
                 this.ensemble[imax].resetLearning();
                 //this.ensemble[imax].trainOnInstance(inst);
-                this.ADError[imax] = new ADWIN((double) this.deltaAdwinOption.getValue());
+                this.ADError.reset(imax);
             }
         }
     }
@@ -221,6 +232,15 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
         return combinedVote.getArrayRef();
     }
 
+    @Override
+    public void getVotesForInstances(Instance[] batch, double[][] votes) {
+        if (this.outputCodesOption.isSet()) {
+            super.getVotesForInstances(batch, votes);
+            return;
+        }
+        OzaBag.getCombinedVotesForInstances(this.ensemble, batch, votes);
+    }
+
     public double[] getVotesForInstanceBinary(Instance inst) {
         double combinedVote[] = new double[(int) inst.numClasses()];
         Instance weightedInst = (Instance) inst.copy();
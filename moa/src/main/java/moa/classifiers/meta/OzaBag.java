@@ -19,6 +19,9 @@
  */
 package moa.classifiers.meta;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -102,6 +105,75 @@ public class OzaBag extends AbstractClassifier implements MultiClassClassifier {
         return combinedVote.getArrayRef();
     }
 
+    @Override
+    public void trainOnInstances(Instance[] batch) {
+        if (getClass() != OzaBag.class) {
+            super.trainOnInstances(batch);
+            return;
+        }
+        Instance[] training = selectTrainingInstances(batch);
+        // draw the Poisson weights in the same order as trainOnInstanceImpl
+        int[][] k = new int[training.length][this.ensemble.length];
+        for (int j = 0; j < training.length; j++) {
+            for (int i = 0; i < this.ensemble.length; i++) {
+                k[j][i] = MiscUtils.poisson(1.0, this.classifierRandom);
+            }
+        }
+        // the members are independent, so every one trains on its whole batch
+        List<Instance> memberBatch = new ArrayList<Instance>(training.length);
+        for (int i = 0; i < this.ensemble.length; i++) {
+            memberBatch.clear();
+            for (int j = 0; j < training.length; j++) {
+                if (k[j][i] > 0) {
+                    Instance weightedInst = (Instance) training[j].copy();
+                    weightedInst.setWeight(training[j].weight() * k[j][i]);
+                    memberBatch.add(weightedInst);
+                }
+            }
+            this.ensemble[i].trainOnInstances(memberBatch.toArray(new Instance[memberBatch.size()]));
+        }
+    }
+
+    @Override
+    public void getVotesForInstances(Instance[] batch, double[][] votes) {
+        if (getClass() != OzaBag.class) {
+            super.getVotesForInstances(batch, votes);
+            return;
+        }
+        getCombinedVotesForInstances(this.ensemble, batch, votes);
+    }
+
+    /**
+     * Combines the normalized votes of the members of an ensemble for a
+     * batch of instances, as getVotesForInstance does for one instance. Every
+     * member predicts the whole batch at once.
+     *
+     * @param ensemble the members of the ensemble
+     * @param batch the instances to be classified
+     * @param votes the array where the combined votes are stored
+     */
+    public static void getCombinedVotesForInstances(Classifier[] ensemble,
+            Instance[] batch, double[][] votes) {
+        DoubleVector[] combinedVotes = new DoubleVector[batch.length];
+        for (int j = 0; j < batch.length; j++) {
+            combinedVotes[j] = new DoubleVector();
+        }
+        double[][] memberVotes = new double[batch.length][];
+        for (int i = 0; i < ensemble.length; i++) {
+            ensemble[i].getVotesForInstances(batch, memberVotes);
+            for (int j = 0; j < batch.length; j++) {
+                DoubleVector vote = new DoubleVector(memberVotes[j]);
+                if (vote.sumOfValues() > 0.0) {
+                    vote.normalize();
+                    combinedVotes[j].addValues(vote);
+                }
+            }
+        }
+        for (int j = 0; j < batch.length; j++) {
+            votes[j] = combinedVotes[j].getArrayRef();
+        }
+    }
+
     @Override
     public boolean isRandomizable() {
         return true;
@@ -127,6 +127,11 @@ public class PairedLearners extends AbstractClassifier implements MultiClassClas
         return false;
     }
 
+    @Override
+    public boolean retainsInstances() {
+        return true;
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         List<Measurement> measurementList = new LinkedList();
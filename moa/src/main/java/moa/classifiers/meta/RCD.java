@@ -27,12 +27,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import moa.classifiers.Classifier;
+import moa.classifiers.core.statisticaltests.Sample;
 import moa.classifiers.core.statisticaltests.StatisticalTest;
 import moa.classifiers.drift.SingleClassifierDrift;
 import moa.core.MiscUtils;
@@ -45,6 +50,10 @@ import moa.options.ClassOption;
  * are performed in parallel and classifiers are stored based on their accuracy
  * and stored time.
  *
+ * Tests run on a thread pool owned by the classifier, and the samples are kept
+ * in primitive form (see Sample) until their buffer changes, so a stored sample
+ * is not converted again each time it is compared.
+ *
  * 1) Parameterized number of classifiers to store. 2) Classifiers are stored
  * removing the older ones if the set is full. 3) Classifier with higher
  * significance value is selected.
@@ -105,6 +114,27 @@ public class RCD extends SingleClassifierDrift {
             'm', "The thread pool size, indicating how many simultaneous tests are allowed.", 4, 1,
             Integer.MAX_VALUE);
 
+    /**
+     * Buffer of instances that keeps its sample in primitive form until the
+     * buffer is modified.
+     */
+    protected static class SampleBuffer extends ArrayList<Instance> {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient Sample sample;
+
+        private transient int sampleModCount;
+
+        public Sample getSample() {
+            if (this.sample == null || this.sampleModCount != this.modCount) {
+                this.sample = new Sample(this);
+                this.sampleModCount = this.modCount;
+            }
+            return this.sample;
+        }
+    }
+
     public IntOption quantityClassifiersTestOption = new IntOption("quantityClassifiersTest",
             'q', "Quantity of identified classifiers to check.", 1, 1,
             Integer.MAX_VALUE);
@@ -123,9 +153,18 @@ public class RCD extends SingleClassifierDrift {
 
     protected int index;
 
+    protected StatisticalTest statisticalTest;
+
+    private transient ExecutorService executor;
+
     @Override
     public void resetLearningImpl() {
         super.resetLearningImpl();
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+        this.statisticalTest = (StatisticalTest) getPreparedClassOption(this.statisticalTestOption);
         this.classifiers = new ArrayList();
         this.bufferSize = bufferSizeOption.getValue();
         this.currentChunk = null;
@@ -154,7 +193,7 @@ public class RCD extends SingleClassifierDrift {
                 switch (this.previousState) {
                     case DDM_INCONTROL_LEVEL:
                         this.newclassifier.resetLearning();
-                        this.currentChunk2 = new ArrayList();
+                        this.currentChunk2 = new SampleBuffer();
                         break;
                 }
                 this.newclassifier.trainOnInstance(inst);
@@ -197,7 +236,7 @@ public class RCD extends SingleClassifierDrift {
                         this.currentChunk2 = null;
                         break;
                     default:
-                        this.currentChunk = new ArrayList();
+                        this.currentChunk = new SampleBuffer();
                         this.classifiers.add(new ClassifierKS(
                                 this.classifier, this.currentChunk));
                         break;
@@ -216,10 +255,15 @@ public class RCD extends SingleClassifierDrift {
         instances.add(instance);
     }
 
+    @Override
+    public boolean retainsInstances() {
+        return true;
+    }
+
     @Override
     public double[] getVotesForInstance(Instance inst) {
         if (this.testChunk == null) {
-            this.testChunk = new ArrayList();
+            this.testChunk = new SampleBuffer();
         }
         this.addInstance(this.testChunk, inst);
         if (this.index++ == testFrequencyOption.getValue()) {
@@ -243,17 +287,22 @@ public class RCD extends SingleClassifierDrift {
      */
     private ClassifierKS getPreviousClassifier(Classifier classifier,
             List<Instance> instances) {
-        ExecutorService threadPool = Executors.newFixedThreadPool(this.threadSizeOption.getValue());
+        ExecutorService threadPool = this.getExecutor();
+        final StatisticalTest st = this.statisticalTest;
+        final Sample sample = sampleOf(instances);
         int SIZE = this.classifiers.size();
         Map<Integer, Future<Double>> futures = new HashMap<>();
         for (int i = 0; i < SIZE; i++) {
             ClassifierKS cs = this.classifiers.get(i);
             if (cs != null) {
                 if (cs.getClassifier() != classifier) {
-                    StatisticalTest st = (StatisticalTest) getPreparedClassOption(this.statisticalTestOption);
-                    StatisticalTest temp = (StatisticalTest) st.copy();
-                    temp.set(instances, cs.getInstances());
-                    futures.put(i, threadPool.submit(temp));
+                    final Sample other = sampleOf(cs.getInstances());
+                    futures.put(i, threadPool.submit(new Callable<Double>() {
+                        @Override
+                        public Double call() throws Exception {
+                            return st.test(sample, other);
+                        }
+                    }));
                 }
             } else {
                 break;
@@ -278,8 +327,40 @@ public class RCD extends SingleClassifierDrift {
             System.out.println("Processing interrupted.");
         } catch (ExecutionException e) {
             throw new RuntimeException("Error computing statistical test.", e);
+        } finally {
+            // stop the tests whose result is no longer needed
+            for (Future<Double> f : futures.values()) {
+                f.cancel(true);
+            }
         }
-        threadPool.shutdownNow();
         return cks;
     }
+
+    private static Sample sampleOf(List<Instance> instances) {
+        return instances instanceof SampleBuffer
+                ? ((SampleBuffer) instances).getSample() : new Sample(instances);
+    }
+
+    /**
+     * Gets the pool that runs the statistical tests. It has at most
+     * threadSize threads, which stop after being idle for a minute.
+     */
+    private ExecutorService getExecutor() {
+        if (this.executor == null) {
+            int threads = this.threadSizeOption.getValue();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "RCD");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+        }
+        return this.executor;
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ *    SnapshotClassifier.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.meta;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.AbstractClassifier;
+import moa.classifiers.Classifier;
+import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.trees.CompiledModel;
+import moa.core.Measurement;
+import moa.core.StringUtils;
+import moa.options.ClassOption;
+
+/**
+ * Classifier that predicts with snapshots of a model trained by another
+ * thread.
+ *
+ * <p>One thread trains the base learner, and every given number of training
+ * instances publishes a read-only snapshot of it. Any number of threads can
+ * predict at the same time with the latest snapshot, without waiting for the
+ * training thread. Hoeffding trees, VFDT, EFDT and adaptive random forests
+ * are compiled into snapshots that can be read by many threads at once; other
+ * learners are copied, and the threads predicting with the same copy take
+ * turns.</p>
+ *
+ * <p>Parameters:</p> <ul>
+ * <li>-l : Classifier to train</li>
+ * <li>-f : Number of training instances between snapshots</li> </ul>
+ *
+ * @version $Revision: 1 $
+ */
+public class SnapshotClassifier extends AbstractClassifier implements MultiClassClassifier {
+
+    @Override
+    public String getPurposeString() {
+        return "Predicts with snapshots of a model trained by another thread.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption baseLearnerOption = new ClassOption("baseLearner", 'l',
+            "Classifier to train.", Classifier.class, "trees.HoeffdingTree");
+
+    public IntOption snapshotFrequencyOption = new IntOption("snapshotFrequency", 'f',
+            "Number of training instances between snapshots, the maximum staleness of predictions.",
+            1000, 1, Integer.MAX_VALUE);
+
+    protected Classifier baseLearner;
+
+    protected long trainingInstances;
+
+    protected long numSnapshots;
+
+    /** The latest snapshot, replaced by the training thread. */
+    protected volatile Snapshot snapshot;
+
+    /**
+     * Read-only model used for prediction.
+     */
+    protected static class Snapshot implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final CompiledModel compiledModel;
+
+        protected final Classifier model;
+
+        /** Number of training instances seen by the model. */
+        protected final long trainingInstances;
+
+        public Snapshot(Classifier learner, long trainingInstances) {
+            if (CompiledModel.canCompile(learner)) {
+                this.compiledModel = CompiledModel.compile(learner);
+                this.model = null;
+            } else {
+                this.compiledModel = null;
+                this.model = learner.copy();
+            }
+            this.trainingInstances = trainingInstances;
+        }
+
+        public double[] getVotesForInstance(Instance inst) {
+            if (this.compiledModel != null) {
+                return this.compiledModel.getVotesForInstance(inst);
+            }
+            synchronized (this.model) {
+                return this.model.getVotesForInstance(inst);
+            }
+        }
+    }
+
+    @Override
+    public void resetLearningImpl() {
+        this.baseLearner = (Classifier) getPreparedClassOption(this.baseLearnerOption);
+        this.baseLearner.resetLearning();
+        this.trainingInstances = 0;
+        this.numSnapshots = 0;
+        publishSnapshot();
+    }
+
+    @Override
+    public void trainOnInstanceImpl(Instance inst) {
+        this.baseLearner.trainOnInstance(inst);
+        this.trainingInstances++;
+        if (this.trainingInstances % this.snapshotFrequencyOption.getValue() == 0) {
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * Publishes a snapshot of the current base learner. Called by the training
+     * thread.
+     */
+    public void publishSnapshot() {
+        this.snapshot = new Snapshot(this.baseLearner, this.trainingInstances);
+        this.numSnapshots++;
+    }
+
+    /**
+     * Gets the number of training instances seen by the model of the latest
+     * snapshot.
+     */
+    public long getSnapshotTrainingInstances() {
+        return this.snapshot.trainingInstances;
+    }
+
+    @Override
+    public double[] getVotesForInstance(Instance inst) {
+        return this.snapshot.getVotesForInstance(inst);
+    }
+
+    @Override
+    public void getVotesForInstances(Instance[] batch, double[][] votes) {
+        // the whole batch is predicted with the same snapshot
+        Snapshot current = this.snapshot;
+        for (int i = 0; i < batch.length; i++) {
+            votes[i] = current.getVotesForInstance(batch[i]);
+        }
+    }
+
+    @Override
+    public boolean isRandomizable() {
+        return false;
+    }
+
+    @Override
+    public Classifier[] getSubClassifiers() {
+        return new Classifier[]{this.baseLearner};
+    }
+
+    @Override
+    protected Measurement[] getModelMeasurementsImpl() {
+        List<Measurement> measurementList = new LinkedList<Measurement>();
+        measurementList.add(new Measurement("snapshots published", this.numSnapshots));
+        measurementList.add(new Measurement("snapshot staleness (instances)",
+                this.trainingInstances - this.snapshot.trainingInstances));
+        return measurementList.toArray(new Measurement[measurementList.size()]);
+    }
+
+    @Override
+    public void getModelDescription(StringBuilder out, int indent) {
+        Snapshot current = this.snapshot;
+        StringUtils.appendIndented(out, indent, "Snapshots published = ");
+        out.append(this.numSnapshots);
+        StringUtils.appendNewlineIndented(out, indent, "Latest snapshot taken after ");
+        out.append(current.trainingInstances);
+        out.append(" of ");
+        out.append(this.trainingInstances);
+        out.append(" training instances");
+        StringUtils.appendNewlineIndented(out, indent, "Base learner:");
+        StringUtils.appendNewline(out);
+        ((AbstractClassifier) this.baseLearner).getModelDescription(out, indent + 1);
+    }
+}
@@ -20,10 +20,17 @@
  */
 package moa.classifiers.meta;
 
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.core.Measurement;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import moa.options.WEKAClassOption;
 import weka.classifiers.Classifier;
 import weka.classifiers.UpdateableClassifier;
@@ -34,6 +41,12 @@ import com.yahoo.labs.samoa.instances.SamoaToWekaInstanceConverter;
 /**
  * Class for using a classifier from WEKA.
  *
+ * <p>Classifiers that are not updateable are built on windows of instances.
+ * With the background build option, every window is handed to a background
+ * thread, and the previous model keeps answering the predictions until the
+ * new one is swapped in. The overlapping builds option tells what to do with
+ * a window that is ready while the previous one is still being built.</p>
+ *
  * @author Albert Bifet (abifet at cs dot waikato dot ac dot nz)
  * @author FracPete (fracpete at waikato dot ac dot nz)
  * @version $Revision$
@@ -64,16 +77,44 @@ public class WEKAClassifier
             "How many instances between samples of the learning performance.",
             0, 0, Integer.MAX_VALUE);
 
-    protected Classifier classifier;
+    public FlagOption backgroundBuildOption = new FlagOption("backgroundBuild", 'b',
+            "Build the classifier in a background thread, predicting with the previous one until the new one is ready.");
+
+    public MultiChoiceOption overlappingBuildsOption = new MultiChoiceOption(
+            "overlappingBuilds", 'o', "What to do with a window that is ready while the previous one is being built.",
+            new String[]{"Wait", "Skip", "Latest"},
+            new String[]{"Wait for the running build before starting the new one",
+                "Discard the new window",
+                "Build the latest window once the running build is over"}, 0);
+
+    protected static final int OVERLAP_WAIT = 0;
+
+    protected static final int OVERLAP_SKIP = 1;
+
+    protected static final int OVERLAP_LATEST = 2;
+
+    protected volatile Classifier classifier;
 
     protected int numberInstances;
 
     protected weka.core.Instances instancesBuffer;
 
-    protected boolean isClassificationEnabled;
+    protected volatile boolean isClassificationEnabled;
 
     protected boolean isBufferStoring;
 
+    /** Untrained copy of the classifier, from which the background builds start. */
+    protected Classifier classifierTemplate;
+
+    /** Thread of the background builds, replaced when the learner is reset. */
+    protected transient ThreadPoolExecutor buildExecutor;
+
+    /** Whether a background build is running, guarded by this. */
+    protected transient boolean isBuilding;
+
+    /** Window to build once the running build is over, guarded by this. */
+    protected transient weka.core.Instances pendingBuffer;
+
     @Override
     public void resetLearningImpl() {
 
@@ -81,9 +122,21 @@ public class WEKAClassifier
             //System.out.println(baseLearnerOption.getValue());
             String[] options = weka.core.Utils.splitOptions(baseLearnerOption.getValueAsCLIString());
             createWekaClassifier(options);
+            this.classifierTemplate = this.backgroundBuildOption.isSet()
+                    ? weka.classifiers.AbstractClassifier.makeCopy(this.classifier) : null;
         } catch (Exception e) {
             System.err.println("Creating a new classifier: " + e.getMessage());
         }
+        synchronized (this) {
+            // the builds still running end without swapping their model in
+            if (this.buildExecutor != null) {
+                this.buildExecutor.shutdown();
+                this.buildExecutor = null;
+            }
+            this.isBuilding = false;
+            this.pendingBuffer = null;
+            notifyAll();
+        }
         numberInstances = 0;
         isClassificationEnabled = false;
         this.isBufferStoring = true;
@@ -112,8 +165,7 @@ public class WEKAClassifier
             } else {
                 if (numberInstances == widthInitOption.getValue()) {
                     //Build first time Classifier
-                    buildClassifier();
-                    isClassificationEnabled = true;
+                    buildAndEnableClassifier();
                     //Continue to store instances
                     if (sampleFrequencyOption.getValue() != 0) {
                         isBufferStoring = true;
@@ -140,8 +192,7 @@ public class WEKAClassifier
                     }
                     if (numInstances == widthOption.getValue()) {
                         //Build Classifier
-                        buildClassifier();
-                        isClassificationEnabled = true;
+                        buildAndEnableClassifier();
                         this.instancesBuffer = new weka.core.Instances(inst.dataset());
                     }
                 }
@@ -151,7 +202,22 @@ public class WEKAClassifier
         }
     }
 
+    protected void buildAndEnableClassifier() {
+        buildClassifier();
+        if (this.backgroundBuildOption.isSet() == false) {
+            isClassificationEnabled = true;
+        }
+    }
+
     public void buildClassifier() {
+        if (this.backgroundBuildOption.isSet() && this.classifierTemplate != null) {
+            if ((classifier instanceof UpdateableClassifier) == false) {
+                isBufferStoring = false;
+                // the buffer may still be added to during the build
+                buildInBackground(new weka.core.Instances(instancesBuffer));
+            }
+            return;
+        }
         try {
             if ((classifier instanceof UpdateableClassifier) == false) {
                 Classifier auxclassifier = weka.classifiers.AbstractClassifier.makeCopy(classifier);
@@ -164,6 +230,104 @@ public class WEKAClassifier
         }
     }
 
+    /**
+     * Hands a window to the background thread, following the overlapping
+     * builds option if a build is already running.
+     *
+     * @param buffer the instances to build the classifier on
+     */
+    protected synchronized void buildInBackground(weka.core.Instances buffer) {
+        if (this.isBuilding) {
+            switch (this.overlappingBuildsOption.getChosenIndex()) {
+                case OVERLAP_SKIP:
+                    return;
+                case OVERLAP_LATEST:
+                    this.pendingBuffer = buffer;
+                    return;
+                default:
+                    waitForBuild();
+            }
+        }
+        if (this.buildExecutor == null) {
+            this.buildExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "WEKAClassifier");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            this.buildExecutor.allowCoreThreadTimeOut(true);
+        }
+        this.isBuilding = true;
+        this.buildExecutor.execute(new BackgroundBuild(this.buildExecutor,
+                this.classifierTemplate, buffer));
+    }
+
+    /**
+     * Waits until the background builds are over, and their models swapped
+     * in. Returns at once if there are none.
+     */
+    public synchronized void waitForBuild() {
+        try {
+            while (this.isBuilding) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Builds windows on the background thread until there is none pending.
+     */
+    protected class BackgroundBuild implements Runnable {
+
+        protected final ThreadPoolExecutor executor;
+
+        protected final Classifier template;
+
+        protected weka.core.Instances buffer;
+
+        public BackgroundBuild(ThreadPoolExecutor executor, Classifier template,
+                weka.core.Instances buffer) {
+            this.executor = executor;
+            this.template = template;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void run() {
+            while (this.buffer != null) {
+                Classifier built = null;
+                try {
+                    built = weka.classifiers.AbstractClassifier.makeCopy(this.template);
+                    built.buildClassifier(this.buffer);
+                } catch (Exception e) {
+                    System.err.println("Building WEKA Classifier: " + e.getMessage());
+                    built = null;
+                }
+                synchronized (WEKAClassifier.this) {
+                    if (this.executor != buildExecutor) {
+                        // the learner was reset
+                        return;
+                    }
+                    if (built != null) {
+                        classifier = built;
+                        isClassificationEnabled = true;
+                    }
+                    this.buffer = pendingBuffer;
+                    pendingBuffer = null;
+                    if (this.buffer == null) {
+                        isBuilding = false;
+                        WEKAClassifier.this.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public double[] getVotesForInstance(Instance samoaInstance) {
         weka.core.Instance inst = this.instanceConverter.wekaInstance(samoaInstance);
@@ -77,6 +77,19 @@ public class ARFHoeffdingTree extends HoeffdingTree {
             this.lambda = lambda;
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == RandomLearningNode.class;
+        }
+
+        @Override
+        protected void copyMutableFields() {
+            super.copyMutableFields();
+            if (this.listAttributes != null) {
+                this.listAttributes = this.listAttributes.clone();
+            }
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {            
             this.observedClassDistribution.addToValue((int) inst.classValue(),
@@ -163,6 +176,11 @@ public class ARFHoeffdingTree extends HoeffdingTree {
             super(initialClassObservations, subspaceSize, lambda);
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == LearningNodeNB.class;
+        }
+
         @Override
         public double[] getClassVotes(Instance inst, HoeffdingTree ht) {
             if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
@@ -191,6 +209,11 @@ public class ARFHoeffdingTree extends HoeffdingTree {
             super(initialClassObservations, subspaceSize, lambda);
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == LearningNodeNBAdaptive.class;
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
             int trueClass = (int) inst.classValue();
@@ -236,4 +259,9 @@ public class ARFHoeffdingTree extends HoeffdingTree {
     public boolean isRandomizable() {
         return true;
     }
+
+    @Override
+    protected boolean hasFastTreeCopy() {
+        return getClass() == ARFHoeffdingTree.class;
+    }
 }
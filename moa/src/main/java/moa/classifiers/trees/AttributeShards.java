@@ -0,0 +1,238 @@
+/*
+ *    AttributeShards.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.AutoExpandVector;
+
+/**
+ * Splits the attribute observers of the leaves of a Hoeffding tree into
+ * shards of consecutive attributes, which are updated and evaluated by
+ * several threads.
+ *
+ * <p>Every observer sees the instances in the same order as in a single
+ * thread, and the split suggestions are returned in the order of the
+ * attributes, so the tree grown is the same. When deferring, the
+ * observations of every leaf are kept until its observers are needed, which
+ * is when the leaf attempts to split or when <code>flush</code> is called,
+ * and are then made by all the shards for the whole list of instances.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class AttributeShards {
+
+    /** Minimum number of observations for the work to be split among threads. */
+    protected static final int MIN_OBSERVATIONS = 256;
+
+    protected int numShards;
+
+    protected ThreadPoolExecutor executor;
+
+    protected boolean deferring;
+
+    /** Deferred observations of every leaf. */
+    protected Map<Object, PendingObservations> pending = new IdentityHashMap<Object, PendingObservations>();
+
+    protected static class PendingObservations {
+
+        protected AutoExpandVector<AttributeClassObserver> observers;
+
+        protected List<Instance> instances = new ArrayList<Instance>();
+    }
+
+    /**
+     * Creates the shards.
+     *
+     * @param numShards the number of shards, one per thread
+     */
+    public AttributeShards(int numShards) {
+        this.numShards = numShards;
+        // the calling thread evaluates the first shard, idle threads are ended
+        this.executor = new ThreadPoolExecutor(numShards - 1, numShards - 1,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "AttributeShards");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public int getNumShards() {
+        return this.numShards;
+    }
+
+    /**
+     * Sets whether observations are deferred until the observers of the leaf
+     * are needed. All the deferred observations are made when deferring is
+     * turned off.
+     */
+    public void setDeferring(boolean deferring) {
+        if (!deferring) {
+            flushAll();
+        }
+        this.deferring = deferring;
+    }
+
+    /**
+     * Observes the attributes of an instance that reaches a leaf. Every
+     * observer of the instance's attributes must exist.
+     *
+     * @param leaf the leaf
+     * @param observers the attribute observers of the leaf
+     * @param inst the instance
+     */
+    public void observe(Object leaf, AutoExpandVector<AttributeClassObserver> observers, Instance inst) {
+        if (!this.deferring) {
+            List<Instance> instances = new ArrayList<Instance>(1);
+            instances.add(inst);
+            observe(observers, instances);
+            return;
+        }
+        PendingObservations leafPending = this.pending.get(leaf);
+        if (leafPending == null) {
+            leafPending = new PendingObservations();
+            this.pending.put(leaf, leafPending);
+        }
+        leafPending.observers = observers;
+        leafPending.instances.add(inst);
+    }
+
+    /**
+     * Makes the deferred observations of a leaf.
+     */
+    public void flush(Object leaf) {
+        PendingObservations leafPending = this.pending.remove(leaf);
+        if (leafPending != null) {
+            observe(leafPending.observers, leafPending.instances);
+        }
+    }
+
+    /**
+     * Makes the deferred observations of all the leaves.
+     */
+    public void flushAll() {
+        for (PendingObservations leafPending : this.pending.values()) {
+            observe(leafPending.observers, leafPending.instances);
+        }
+        this.pending.clear();
+    }
+
+    protected void observe(final AutoExpandVector<AttributeClassObserver> observers,
+            final List<Instance> instances) {
+        runShards(observers.size(), instances.size(), new Shard() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    AttributeClassObserver obs = observers.get(i);
+                    for (Instance inst : instances) {
+                        int instAttIndex = inst.classIndex() > i ? i : i + 1;
+                        obs.observeAttributeClass(inst.value(instAttIndex),
+                                (int) inst.classValue(), inst.weight());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the best split suggestion of every attribute observer.
+     *
+     * @param observers the attribute observers of a leaf
+     * @param criterion the split criterion
+     * @param preSplitDist the class distribution of the leaf
+     * @param binaryOnly whether only binary splits are suggested
+     * @return the suggestions, with the indices of the attributes, and null
+     * for the missing observers and the attributes without suggestion
+     */
+    public AttributeSplitSuggestion[] getBestSplitSuggestions(
+            final AutoExpandVector<AttributeClassObserver> observers,
+            final SplitCriterion criterion, final double[] preSplitDist,
+            final boolean binaryOnly) {
+        final AttributeSplitSuggestion[] suggestions = new AttributeSplitSuggestion[observers.size()];
+        runShards(observers.size(), MIN_OBSERVATIONS, new Shard() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    AttributeClassObserver obs = observers.get(i);
+                    if (obs != null) {
+                        suggestions[i] = obs.getBestEvaluatedSplitSuggestion(criterion,
+                                preSplitDist, i, binaryOnly);
+                    }
+                }
+            }
+        });
+        return suggestions;
+    }
+
+    protected interface Shard {
+
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs a shard for every range of attributes, or a single one if there is
+     * little work.
+     */
+    protected void runShards(int numAttributes, int numInstances, final Shard shard) {
+        int shards = Math.min(this.numShards, numAttributes);
+        if (shards < 2 || (long) numAttributes * numInstances < MIN_OBSERVATIONS) {
+            shard.run(0, numAttributes);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<Future<?>>(shards - 1);
+        for (int s = 1; s < shards; s++) {
+            final int from = (int) ((long) numAttributes * s / shards);
+            final int to = (int) ((long) numAttributes * (s + 1) / shards);
+            futures.add(this.executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    shard.run(from, to);
+                }
+            }));
+        }
+        shard.run(0, numAttributes / shards);
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the attribute shards.", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Attribute shard failed.", ex.getCause());
+        }
+    }
+}
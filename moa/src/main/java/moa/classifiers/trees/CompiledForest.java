@@ -0,0 +1,107 @@
+/*
+ *    CompiledForest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.util.Arrays;
+
+import moa.core.StringUtils;
+
+/**
+ * Ensemble of compiled trees that combines normalized and weighted votes, as
+ * <code>AdaptiveRandomForest</code> does.
+ *
+ * <p>The weight of every tree is fixed when the forest is compiled: the
+ * accuracy of the tree at that time, or 1 when the votes are not weighted.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class CompiledForest extends CompiledModel {
+
+    private static final long serialVersionUID = 1L;
+
+    protected CompiledTree[] trees;
+
+    protected double[] weights;
+
+    protected int numClasses;
+
+    /** Votes of one tree, per scoring thread. */
+    protected transient ThreadLocal<double[]> treeVotes;
+
+    /**
+     * Creates a forest.
+     *
+     * @param trees the compiled trees
+     * @param weights the weights of the normalized votes of the trees
+     */
+    public CompiledForest(CompiledTree[] trees, double[] weights) {
+        this.trees = trees;
+        this.weights = weights;
+        for (CompiledTree tree : trees) {
+            this.numClasses = Math.max(this.numClasses, tree.getNumClasses());
+        }
+    }
+
+    @Override
+    public int getNumClasses() {
+        return this.numClasses;
+    }
+
+    public int getNumTrees() {
+        return this.trees.length;
+    }
+
+    @Override
+    public int getVotes(Instance inst, double[] votes) {
+        if (this.treeVotes == null) {
+            this.treeVotes = new ThreadLocal<double[]>();
+        }
+        double[] vote = this.treeVotes.get();
+        if (vote == null) {
+            vote = new double[this.numClasses];
+            this.treeVotes.set(vote);
+        }
+        Arrays.fill(votes, 0.0);
+        int numVotes = 0;
+        for (int t = 0; t < this.trees.length; t++) {
+            int treeNumVotes = this.trees[t].getVotes(inst, vote);
+            double sum = 0.0;
+            double absoluteSum = 0.0;
+            for (int i = 0; i < treeNumVotes; i++) {
+                sum += vote[i];
+                absoluteSum += (vote[i] > 0.0) ? vote[i] : -vote[i];
+            }
+            if (sum > 0.0) {
+                // same operations as DoubleVector.normalize and the weighting in AdaptiveRandomForest
+                double scale = 1.0 / absoluteSum;
+                double weight = this.weights[t];
+                for (int i = 0; i < treeNumVotes; i++) {
+                    votes[i] += (vote[i] * scale) * weight;
+                }
+                numVotes = Math.max(numVotes, treeNumVotes);
+            }
+        }
+        return numVotes;
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        StringUtils.appendIndented(sb, indent, "Compiled forest of " + this.trees.length + " trees");
+    }
+}
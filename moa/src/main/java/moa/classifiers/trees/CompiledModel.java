@@ -0,0 +1,128 @@
+/*
+ *    CompiledModel.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.util.Arrays;
+
+import moa.AbstractMOAObject;
+import moa.classifiers.Classifier;
+import moa.classifiers.meta.AdaptiveRandomForest;
+
+/**
+ * Read-only snapshot of a trained tree model, compiled for fast prediction.
+ *
+ * <p>A compiled model gives the same votes as the model it was compiled from
+ * at the time of compilation, but it cannot learn. Its votes are written into
+ * arrays supplied by the caller, so that scoring does not allocate, and it can
+ * be used by many threads at the same time.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public abstract class CompiledModel extends AbstractMOAObject {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Compiles a trained classifier. Hoeffding trees, VFDT, EFDT and their
+     * regularized versions, and adaptive random forests of Hoeffding trees
+     * can be compiled.
+     *
+     * @param classifier the classifier to compile
+     * @return the compiled model
+     * @throws IllegalArgumentException if the classifier cannot be compiled
+     */
+    public static CompiledModel compile(Classifier classifier) {
+        if (classifier instanceof AdaptiveRandomForest) {
+            return ((AdaptiveRandomForest) classifier).compile();
+        }
+        return CompiledTree.compile(classifier);
+    }
+
+    /**
+     * Gets whether a classifier can be compiled.
+     *
+     * @param classifier the classifier
+     * @return true if compile accepts the classifier
+     */
+    public static boolean canCompile(Classifier classifier) {
+        return classifier instanceof AdaptiveRandomForest
+                || CompiledTree.canCompile(classifier);
+    }
+
+    /**
+     * Gets the maximum number of votes given for an instance, which is the
+     * minimum length of the arrays passed to <code>getVotes</code>.
+     */
+    public abstract int getNumClasses();
+
+    /**
+     * Writes the votes for an instance in the first positions of an array
+     * and clears the rest of it.
+     *
+     * @param inst the instance to predict
+     * @param votes the array for the votes, of at least
+     * <code>getNumClasses()</code> positions
+     * @return the number of votes, which is the length of the array of votes
+     * returned by the original model
+     */
+    public abstract int getVotes(Instance inst, double[] votes);
+
+    /**
+     * Gets the votes for an instance in a new array, as
+     * <code>Classifier.getVotesForInstance</code> does.
+     */
+    public double[] getVotesForInstance(Instance inst) {
+        double[] votes = new double[getNumClasses()];
+        return Arrays.copyOf(votes, getVotes(inst, votes));
+    }
+
+    /**
+     * Scores a batch of instances.
+     *
+     * @param instances the instances to predict
+     * @param from index of the first instance to predict
+     * @param to index after the last instance to predict
+     * @param votes arrays for the votes of the instances, with the same
+     * indices as the instances
+     * @param predictions array for the predicted classes, with the same
+     * indices as the instances
+     */
+    public void score(Instance[] instances, int from, int to,
+            double[][] votes, int[] predictions) {
+        for (int i = from; i < to; i++) {
+            predictions[i] = maxIndex(votes[i], getVotes(instances[i], votes[i]));
+        }
+    }
+
+    /**
+     * Gets the index of the first maximum of the first values of an array,
+     * as <code>Utils.maxIndex</code> does on the whole array.
+     */
+    public static int maxIndex(double[] values, int length) {
+        int maxIndex = 0;
+        double maximum = 0.0;
+        for (int i = 0; i < length; i++) {
+            if ((i == 0) || (values[i] > maximum)) {
+                maxIndex = i;
+                maximum = values[i];
+            }
+        }
+        return maxIndex;
+    }
+}
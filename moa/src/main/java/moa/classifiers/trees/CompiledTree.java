@@ -0,0 +1,701 @@
+/*
+ *    CompiledTree.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
+import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
+import moa.classifiers.core.conditionaltests.NominalAttributeBinaryTest;
+import moa.classifiers.core.conditionaltests.NominalAttributeMultiwayTest;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.core.AutoExpandVector;
+import moa.core.DoubleVector;
+import moa.core.GaussianEstimator;
+import moa.core.StringUtils;
+
+/**
+ * Hoeffding tree compiled into flat arrays for fast prediction.
+ *
+ * <p>The nodes of the tree are numbered in breadth-first order and stored in
+ * parallel arrays: the type of the node, the attribute and value of the split
+ * test, the offset of the children in a shared array of child numbers, and the
+ * offset of the votes of the node in a shared array of votes. Walking the tree
+ * needs no virtual calls for the usual split tests, and leaves that predict
+ * with the majority class copy their votes from the shared array.</p>
+ *
+ * <p>Leaves that predict with Naive Bayes keep the estimators of their
+ * attribute observers: mean and scale of the gaussian estimators, and the
+ * probability of every value of nominal attributes. Whether a leaf uses Naive
+ * Bayes, which depends on the weight seen by the leaf and, for adaptive leaves,
+ * on the accuracy of both predictors, is decided when the tree is compiled.
+ * Split tests and attribute observers of other types are copied and called as
+ * in the original tree.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class CompiledTree extends CompiledModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Leaf, or split node reached by an instance it cannot send down. */
+    protected static final byte LEAF = 0;
+
+    protected static final byte NAIVE_BAYES_LEAF = 1;
+
+    protected static final byte NUMERIC_LESS_THAN = 2;
+
+    protected static final byte NUMERIC_LESS_OR_EQUAL = 3;
+
+    protected static final byte NOMINAL_BINARY = 4;
+
+    protected static final byte NOMINAL_MULTIWAY = 5;
+
+    protected static final byte OTHER_TEST = 6;
+
+    protected static final byte GAUSSIAN_OBSERVER = 0;
+
+    protected static final byte NOMINAL_OBSERVER = 1;
+
+    protected static final byte OTHER_OBSERVER = 2;
+
+    protected static final double GAUSSIAN_ZERO = 0.0;
+
+    protected static final double GAUSSIAN_DENSITY = 1.0;
+
+    protected static final double GAUSSIAN_POINT = 2.0;
+
+    protected int numClasses;
+
+    protected byte[] nodeType;
+
+    /** Attribute of the split test, or index in <code>tests</code>. */
+    protected int[] nodeAttribute;
+
+    protected double[] nodeSplitValue;
+
+    protected int[] nodeFirstChild;
+
+    protected int[] nodeNumChildren;
+
+    /** Children of the split nodes, -1 for the children not grown. */
+    protected int[] children;
+
+    protected InstanceConditionalTest[] tests;
+
+    protected int[] nodeFirstVote;
+
+    protected int[] nodeNumVotes;
+
+    /**
+     * Class distribution of every node, or prior probabilities of the classes
+     * for Naive Bayes leaves.
+     */
+    protected double[] votes;
+
+    protected int[] nodeFirstObserver;
+
+    protected int[] nodeNumObservers;
+
+    protected int[] observerAttribute;
+
+    protected byte[] observerType;
+
+    /**
+     * Offset of the estimators in <code>estimators</code>, or index in
+     * <code>observers</code>.
+     */
+    protected int[] observerOffset;
+
+    /**
+     * Per class: mode, mean, scale and denominator of the exponent for
+     * gaussian observers; offset of the class in the same array for nominal
+     * observers, followed by the number of values, the probability of unseen
+     * values and the probability of every value.
+     */
+    protected double[] estimators;
+
+    protected AttributeClassObserver[] observers;
+
+    /**
+     * Gets whether a tree can be compiled.
+     *
+     * @param tree the tree
+     * @return true if compile accepts the tree
+     */
+    public static boolean canCompile(Classifier tree) {
+        Class<?> treeClass = tree.getClass();
+        return treeClass == HoeffdingTree.class || treeClass == ARFHoeffdingTree.class
+                || treeClass == HoeffdingTreeReg.class || treeClass == VFDT.class
+                || treeClass == EFDT.class || treeClass == EFDTReg.class;
+    }
+
+    /**
+     * Compiles a tree. The tree must be a <code>HoeffdingTree</code>,
+     * <code>ARFHoeffdingTree</code>, <code>HoeffdingTreeReg</code>,
+     * <code>VFDT</code>, <code>EFDT</code> or <code>EFDTReg</code>, the
+     * subclasses of these trees can change the way they predict.
+     *
+     * @param tree the tree to compile
+     * @return the compiled tree
+     * @throws IllegalArgumentException if the tree cannot be compiled
+     */
+    public static CompiledTree compile(Classifier tree) {
+        Class<?> treeClass = tree.getClass();
+        NodeReader reader;
+        Object root;
+        if (treeClass == HoeffdingTree.class || treeClass == ARFHoeffdingTree.class) {
+            reader = new HoeffdingTreeNodeReader((HoeffdingTree) tree);
+            root = ((HoeffdingTree) tree).treeRoot;
+        } else if (treeClass == HoeffdingTreeReg.class) {
+            reader = new HoeffdingTreeRegNodeReader((HoeffdingTreeReg) tree);
+            root = ((HoeffdingTreeReg) tree).treeRoot;
+        } else if (treeClass == VFDT.class || treeClass == EFDT.class
+                || treeClass == EFDTReg.class) {
+            reader = new VFDTNodeReader((VFDT) tree);
+            root = ((VFDT) tree).treeRoot;
+        } else {
+            throw new IllegalArgumentException("Cannot compile "
+                    + treeClass.getName());
+        }
+        CompiledTree compiled = new CompiledTree();
+        compiled.build(root, reader);
+        return compiled;
+    }
+
+    @Override
+    public int getNumClasses() {
+        return this.numClasses;
+    }
+
+    /**
+     * Gets the number of nodes of the tree.
+     */
+    public int getNumNodes() {
+        return this.nodeType.length;
+    }
+
+    @Override
+    public double[] getVotesForInstance(Instance inst) {
+        if (this.nodeType.length == 0) {
+            return new double[inst.dataset().numClasses()];
+        }
+        return super.getVotesForInstance(inst);
+    }
+
+    @Override
+    public int getVotes(Instance inst, double[] votes) {
+        if (this.nodeType.length == 0) {
+            Arrays.fill(votes, 0.0);
+            return 0;
+        }
+        int node = 0;
+        while (true) {
+            int att = this.nodeAttribute[node];
+            int branch;
+            switch (this.nodeType[node]) {
+                case LEAF:
+                    return copyVotes(node, votes);
+                case NAIVE_BAYES_LEAF:
+                    return naiveBayesVotes(node, inst, votes);
+                case NUMERIC_LESS_THAN:
+                    branch = inst.isMissing(att) ? -1
+                            : (inst.valueInputAttribute(att) < this.nodeSplitValue[node] ? 0 : 1);
+                    break;
+                case NUMERIC_LESS_OR_EQUAL:
+                    branch = inst.isMissing(att) ? -1
+                            : (inst.valueInputAttribute(att) <= this.nodeSplitValue[node] ? 0 : 1);
+                    break;
+                case NOMINAL_BINARY:
+                    att = att < inst.classIndex() ? att : att + 1;
+                    branch = inst.isMissing(att) ? -1
+                            : ((int) inst.value(att) == (int) this.nodeSplitValue[node] ? 0 : 1);
+                    break;
+                case NOMINAL_MULTIWAY:
+                    branch = inst.isMissing(att) ? -1 : (int) inst.value(att);
+                    break;
+                default:
+                    branch = this.tests[att].branchForInstance(inst);
+                    break;
+            }
+            int child = (branch >= 0 && branch < this.nodeNumChildren[node])
+                    ? this.children[this.nodeFirstChild[node] + branch] : -1;
+            if (child < 0) {
+                // the split node predicts for the instances it cannot send down
+                return copyVotes(node, votes);
+            }
+            node = child;
+        }
+    }
+
+    protected int copyVotes(int node, double[] votes) {
+        int numVotes = this.nodeNumVotes[node];
+        System.arraycopy(this.votes, this.nodeFirstVote[node], votes, 0, numVotes);
+        Arrays.fill(votes, numVotes, votes.length, 0.0);
+        return numVotes;
+    }
+
+    /**
+     * Computes the votes of a Naive Bayes leaf in the same order of operations
+     * as <code>NaiveBayes.doNaiveBayesPrediction</code>.
+     */
+    protected int naiveBayesVotes(int node, Instance inst, double[] votes) {
+        int numVotes = copyVotes(node, votes);
+        int numInputAttributes = inst.numAttributes() - 1;
+        int end = this.nodeFirstObserver[node] + this.nodeNumObservers[node];
+        for (int obs = this.nodeFirstObserver[node]; obs < end; obs++) {
+            int att = this.observerAttribute[obs];
+            if (att >= numInputAttributes) {
+                break;
+            }
+            int instAtt = inst.classIndex() > att ? att : att + 1;
+            if (inst.isMissing(instAtt)) {
+                continue;
+            }
+            double value = inst.value(instAtt);
+            int offset = this.observerOffset[obs];
+            switch (this.observerType[obs]) {
+                case GAUSSIAN_OBSERVER:
+                    for (int c = 0; c < numVotes; c++, offset += 4) {
+                        double mode = this.estimators[offset];
+                        double mean = this.estimators[offset + 1];
+                        double p;
+                        if (mode == GAUSSIAN_DENSITY) {
+                            double diff = value - mean;
+                            p = this.estimators[offset + 2]
+                                    * Math.exp(-(diff * diff / this.estimators[offset + 3]));
+                        } else if (mode == GAUSSIAN_POINT) {
+                            p = value == mean ? 1.0 : 0.0;
+                        } else {
+                            p = 0.0;
+                        }
+                        votes[c] *= p;
+                    }
+                    break;
+                case NOMINAL_OBSERVER:
+                    int index = (int) value;
+                    for (int c = 0; c < numVotes; c++) {
+                        int classOffset = (int) this.estimators[offset + c];
+                        int numValues = (int) this.estimators[classOffset];
+                        votes[c] *= (index >= 0 && index < numValues)
+                                ? this.estimators[classOffset + 2 + index]
+                                : this.estimators[classOffset + 1];
+                    }
+                    break;
+                default:
+                    AttributeClassObserver observer = this.observers[offset];
+                    for (int c = 0; c < numVotes; c++) {
+                        votes[c] *= observer.probabilityOfAttributeValueGivenClass(value, c);
+                    }
+                    break;
+            }
+        }
+        return numVotes;
+    }
+
+    protected void build(Object root, NodeReader reader) {
+        List<Object> nodes = new ArrayList<Object>();
+        if (root != null) {
+            nodes.add(root);
+        }
+        // the list grows while it is walked, giving the breadth-first order
+        List<Integer> childList = new ArrayList<Integer>();
+        int[] firstChild = new int[0];
+        int[] numChildren = new int[0];
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i == firstChild.length) {
+                firstChild = Arrays.copyOf(firstChild, Math.max(16, 2 * i));
+                numChildren = Arrays.copyOf(numChildren, firstChild.length);
+            }
+            Object node = nodes.get(i);
+            firstChild[i] = childList.size();
+            if (reader.isSplitNode(node)) {
+                List<?> nodeChildren = reader.getChildren(node);
+                numChildren[i] = nodeChildren.size();
+                for (Object child : nodeChildren) {
+                    if (child == null) {
+                        childList.add(-1);
+                    } else {
+                        childList.add(nodes.size());
+                        nodes.add(child);
+                    }
+                }
+            }
+        }
+
+        int numNodes = nodes.size();
+        this.nodeType = new byte[numNodes];
+        this.nodeAttribute = new int[numNodes];
+        this.nodeSplitValue = new double[numNodes];
+        this.nodeFirstChild = Arrays.copyOf(firstChild, numNodes);
+        this.nodeNumChildren = Arrays.copyOf(numChildren, numNodes);
+        this.children = new int[childList.size()];
+        for (int i = 0; i < this.children.length; i++) {
+            this.children[i] = childList.get(i);
+        }
+        this.nodeFirstVote = new int[numNodes];
+        this.nodeNumVotes = new int[numNodes];
+        this.nodeFirstObserver = new int[numNodes];
+        this.nodeNumObservers = new int[numNodes];
+        List<InstanceConditionalTest> otherTests = new ArrayList<InstanceConditionalTest>();
+        List<AttributeClassObserver> otherObservers = new ArrayList<AttributeClassObserver>();
+        DoubleList voteList = new DoubleList();
+        DoubleList estimatorList = new DoubleList();
+        List<int[]> observerList = new ArrayList<int[]>();
+        this.numClasses = 0;
+        for (int i = 0; i < numNodes; i++) {
+            Object node = nodes.get(i);
+            DoubleVector distribution = reader.getClassDistribution(node);
+            int numVotes = distribution.numValues();
+            this.nodeFirstVote[i] = voteList.size();
+            this.nodeNumVotes[i] = numVotes;
+            this.numClasses = Math.max(this.numClasses, numVotes);
+            this.nodeFirstObserver[i] = observerList.size();
+            if (reader.isSplitNode(node)) {
+                for (int c = 0; c < numVotes; c++) {
+                    voteList.add(distribution.getValue(c));
+                }
+                buildSplitTest(i, reader.getSplitTest(node), otherTests);
+                continue;
+            }
+            AutoExpandVector<AttributeClassObserver> nodeObservers =
+                    reader.getNaiveBayesObservers(node);
+            if (nodeObservers == null) {
+                this.nodeType[i] = LEAF;
+                for (int c = 0; c < numVotes; c++) {
+                    voteList.add(distribution.getValue(c));
+                }
+                continue;
+            }
+            this.nodeType[i] = NAIVE_BAYES_LEAF;
+            double observedClassSum = distribution.sumOfValues();
+            for (int c = 0; c < numVotes; c++) {
+                voteList.add(distribution.getValue(c) / observedClassSum);
+            }
+            for (int att = 0; att < nodeObservers.size(); att++) {
+                AttributeClassObserver observer = nodeObservers.get(att);
+                if (observer != null) {
+                    observerList.add(buildObserver(att, observer, numVotes,
+                            estimatorList, otherObservers));
+                }
+            }
+            this.nodeNumObservers[i] = observerList.size() - this.nodeFirstObserver[i];
+        }
+        this.votes = voteList.toArray();
+        this.estimators = estimatorList.toArray();
+        this.tests = otherTests.toArray(new InstanceConditionalTest[otherTests.size()]);
+        this.observers = otherObservers.toArray(new AttributeClassObserver[otherObservers.size()]);
+        this.observerAttribute = new int[observerList.size()];
+        this.observerType = new byte[observerList.size()];
+        this.observerOffset = new int[observerList.size()];
+        for (int i = 0; i < observerList.size(); i++) {
+            int[] observer = observerList.get(i);
+            this.observerAttribute[i] = observer[0];
+            this.observerType[i] = (byte) observer[1];
+            this.observerOffset[i] = observer[2];
+        }
+    }
+
+    protected void buildSplitTest(int node, InstanceConditionalTest test,
+            List<InstanceConditionalTest> otherTests) {
+        Class<?> testClass = test.getClass();
+        if (testClass == NumericAttributeBinaryTest.class) {
+            NumericAttributeBinaryTest numericTest = (NumericAttributeBinaryTest) test;
+            this.nodeType[node] = numericTest.getEqualsPassesTest()
+                    ? NUMERIC_LESS_OR_EQUAL : NUMERIC_LESS_THAN;
+            this.nodeAttribute[node] = numericTest.getAttIndex();
+            this.nodeSplitValue[node] = numericTest.getSplitValue();
+        } else if (testClass == NominalAttributeBinaryTest.class) {
+            NominalAttributeBinaryTest nominalTest = (NominalAttributeBinaryTest) test;
+            this.nodeType[node] = NOMINAL_BINARY;
+            this.nodeAttribute[node] = nominalTest.getAttIndex();
+            this.nodeSplitValue[node] = nominalTest.getAttValue();
+        } else if (testClass == NominalAttributeMultiwayTest.class) {
+            this.nodeType[node] = NOMINAL_MULTIWAY;
+            this.nodeAttribute[node] = ((NominalAttributeMultiwayTest) test).getAttIndex();
+        } else {
+            this.nodeType[node] = OTHER_TEST;
+            this.nodeAttribute[node] = otherTests.size();
+            otherTests.add((InstanceConditionalTest) test.copy());
+        }
+    }
+
+    /**
+     * Stores the estimators of an attribute observer of a Naive Bayes leaf.
+     *
+     * @return the attribute, the type and the offset of the observer
+     */
+    protected static int[] buildObserver(int att, AttributeClassObserver observer,
+            int numVotes, DoubleList estimatorList,
+            List<AttributeClassObserver> otherObservers) {
+        Class<?> observerClass = observer.getClass();
+        int offset = estimatorList.size();
+        if (observerClass == GaussianNumericAttributeClassObserver.class) {
+            GaussianNumericAttributeClassObserver gaussianObserver =
+                    (GaussianNumericAttributeClassObserver) observer;
+            for (int c = 0; c < numVotes; c++) {
+                GaussianEstimator estimator = gaussianObserver.getEstimatorForClass(c);
+                double mode = GAUSSIAN_ZERO;
+                double mean = 0.0;
+                double scale = 0.0;
+                double denominator = 0.0;
+                // same tests and expressions as GaussianEstimator.probabilityDensity
+                if (estimator != null && estimator.getTotalWeightObserved() > 0.0) {
+                    double stdDev = estimator.getStdDev();
+                    mean = estimator.getMean();
+                    if (stdDev > 0.0) {
+                        mode = GAUSSIAN_DENSITY;
+                        scale = 1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev);
+                        denominator = 2.0 * stdDev * stdDev;
+                    } else {
+                        mode = GAUSSIAN_POINT;
+                    }
+                }
+                estimatorList.add(mode);
+                estimatorList.add(mean);
+                estimatorList.add(scale);
+                estimatorList.add(denominator);
+            }
+            return new int[]{att, GAUSSIAN_OBSERVER, offset};
+        }
+        if (observerClass == NominalAttributeClassObserver.class) {
+            NominalAttributeClassObserver nominalObserver =
+                    (NominalAttributeClassObserver) observer;
+            for (int c = 0; c < numVotes; c++) {
+                estimatorList.add(0.0);
+            }
+            for (int c = 0; c < numVotes; c++) {
+                estimatorList.set(offset + c, estimatorList.size());
+                DoubleVector valueDistribution = nominalObserver.getValueDistributionForClass(c);
+                if (valueDistribution == null) {
+                    estimatorList.add(0.0);
+                    estimatorList.add(0.0);
+                    continue;
+                }
+                // same expression as NominalAttributeClassObserver.probabilityOfAttributeValueGivenClass
+                int numValues = valueDistribution.numValues();
+                double denominator = valueDistribution.sumOfValues() + numValues;
+                estimatorList.add(numValues);
+                estimatorList.add(1.0 / denominator);
+                for (int v = 0; v < numValues; v++) {
+                    estimatorList.add((valueDistribution.getValue(v) + 1.0) / denominator);
+                }
+            }
+            return new int[]{att, NOMINAL_OBSERVER, offset};
+        }
+        otherObservers.add((AttributeClassObserver) observer.copy());
+        return new int[]{att, OTHER_OBSERVER, otherObservers.size() - 1};
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        StringUtils.appendIndented(sb, indent, "Compiled tree with " + getNumNodes() + " nodes");
+    }
+
+    /**
+     * Growable array of doubles used while compiling.
+     */
+    protected static class DoubleList {
+
+        protected double[] values = new double[64];
+
+        protected int size;
+
+        public void add(double value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, 2 * this.size);
+            }
+            this.values[this.size++] = value;
+        }
+
+        public void set(int index, double value) {
+            this.values[index] = value;
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        public double[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+
+    /**
+     * Reads the nodes of one of the families of Hoeffding trees, which have
+     * their own node classes.
+     */
+    protected static abstract class NodeReader {
+
+        public abstract boolean isSplitNode(Object node);
+
+        public abstract InstanceConditionalTest getSplitTest(Object node);
+
+        public abstract List<?> getChildren(Object node);
+
+        public abstract DoubleVector getClassDistribution(Object node);
+
+        /**
+         * Gets the attribute observers of a leaf that predicts with Naive
+         * Bayes, or null if the leaf predicts with its class distribution.
+         */
+        public abstract AutoExpandVector<AttributeClassObserver> getNaiveBayesObservers(Object node);
+    }
+
+    protected static class HoeffdingTreeNodeReader extends NodeReader {
+
+        protected final HoeffdingTree tree;
+
+        public HoeffdingTreeNodeReader(HoeffdingTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public boolean isSplitNode(Object node) {
+            return node instanceof HoeffdingTree.SplitNode;
+        }
+
+        @Override
+        public InstanceConditionalTest getSplitTest(Object node) {
+            return ((HoeffdingTree.SplitNode) node).splitTest;
+        }
+
+        @Override
+        public List<?> getChildren(Object node) {
+            return ((HoeffdingTree.SplitNode) node).children;
+        }
+
+        @Override
+        public DoubleVector getClassDistribution(Object node) {
+            return ((HoeffdingTree.Node) node).observedClassDistribution;
+        }
+
+        @Override
+        public AutoExpandVector<AttributeClassObserver> getNaiveBayesObservers(Object node) {
+            boolean naiveBayes;
+            if (node instanceof ARFHoeffdingTree.LearningNodeNBAdaptive) {
+                ARFHoeffdingTree.LearningNodeNBAdaptive leaf = (ARFHoeffdingTree.LearningNodeNBAdaptive) node;
+                naiveBayes = !(leaf.mcCorrectWeight > leaf.nbCorrectWeight);
+            } else if (node instanceof HoeffdingTree.LearningNodeNBAdaptive) {
+                HoeffdingTree.LearningNodeNBAdaptive leaf = (HoeffdingTree.LearningNodeNBAdaptive) node;
+                naiveBayes = !(leaf.mcCorrectWeight > leaf.nbCorrectWeight);
+            } else if (node instanceof ARFHoeffdingTree.LearningNodeNB
+                    || node instanceof HoeffdingTree.LearningNodeNB) {
+                naiveBayes = ((HoeffdingTree.ActiveLearningNode) node).getWeightSeen()
+                        >= this.tree.nbThresholdOption.getValue();
+            } else {
+                naiveBayes = false;
+            }
+            return naiveBayes ? ((HoeffdingTree.Node) node).attributeObservers : null;
+        }
+    }
+
+    protected static class HoeffdingTreeRegNodeReader extends NodeReader {
+
+        protected final HoeffdingTreeReg tree;
+
+        public HoeffdingTreeRegNodeReader(HoeffdingTreeReg tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public boolean isSplitNode(Object node) {
+            return node instanceof HoeffdingTreeReg.SplitNodeReg;
+        }
+
+        @Override
+        public InstanceConditionalTest getSplitTest(Object node) {
+            return ((HoeffdingTreeReg.SplitNodeReg) node).splitTest;
+        }
+
+        @Override
+        public List<?> getChildren(Object node) {
+            return ((HoeffdingTreeReg.SplitNodeReg) node).children;
+        }
+
+        @Override
+        public DoubleVector getClassDistribution(Object node) {
+            return ((HoeffdingTreeReg.NodeReg) node).observedClassDistribution;
+        }
+
+        @Override
+        public AutoExpandVector<AttributeClassObserver> getNaiveBayesObservers(Object node) {
+            boolean naiveBayes;
+            if (node instanceof HoeffdingTreeReg.LearningNodeNBAdaptiveReg) {
+                HoeffdingTreeReg.LearningNodeNBAdaptiveReg leaf = (HoeffdingTreeReg.LearningNodeNBAdaptiveReg) node;
+                naiveBayes = !(leaf.mcCorrectWeight > leaf.nbCorrectWeight);
+            } else if (node instanceof HoeffdingTreeReg.LearningNodeNBReg) {
+                naiveBayes = ((HoeffdingTreeReg.LearningNodeNBReg) node).getWeightSeen()
+                        >= this.tree.nbThresholdOption.getValue();
+            } else {
+                naiveBayes = false;
+            }
+            return naiveBayes ? ((HoeffdingTreeReg.ActiveLearningNodeReg) node).attributeObservers : null;
+        }
+    }
+
+    protected static class VFDTNodeReader extends NodeReader {
+
+        protected final VFDT tree;
+
+        public VFDTNodeReader(VFDT tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public boolean isSplitNode(Object node) {
+            return node instanceof VFDT.SplitNode;
+        }
+
+        @Override
+        public InstanceConditionalTest getSplitTest(Object node) {
+            return ((VFDT.SplitNode) node).splitTest;
+        }
+
+        @Override
+        public List<?> getChildren(Object node) {
+            return ((VFDT.SplitNode) node).children;
+        }
+
+        @Override
+        public DoubleVector getClassDistribution(Object node) {
+            return ((VFDT.Node) node).observedClassDistribution;
+        }
+
+        @Override
+        public AutoExpandVector<AttributeClassObserver> getNaiveBayesObservers(Object node) {
+            boolean naiveBayes;
+            if (node instanceof VFDT.LearningNodeNBAdaptive) {
+                VFDT.LearningNodeNBAdaptive leaf = (VFDT.LearningNodeNBAdaptive) node;
+                naiveBayes = !(leaf.mcCorrectWeight > leaf.nbCorrectWeight);
+            } else if (node instanceof VFDT.LearningNodeNB) {
+                naiveBayes = ((VFDT.LearningNodeNB) node).getWeightSeen()
+                        >= this.tree.nbThresholdOption.getValue();
+            } else {
+                naiveBayes = false;
+            }
+            return naiveBayes ? ((VFDT.ActiveLearningNode) node).attributeObservers : null;
+        }
+    }
+}
@@ -12,12 +12,14 @@
 
 package moa.classifiers.trees;
 
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.conditionaltests.NominalAttributeBinaryTest;
 import moa.classifiers.core.conditionaltests.NominalAttributeMultiwayTest;
@@ -25,6 +27,7 @@ import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
+import moa.core.SizeOf;
 
 import java.util.*;
 
@@ -44,6 +47,12 @@ public class EFDTReg extends VFDT{
             "The number of instances an internal node should observe between re-evaluation attempts.",
             2000, 0, Integer.MAX_VALUE);
 
+    public FlagOption boundMemoryOption = new FlagOption("boundMemory", 'M',
+            "Keep the tree within maxByteSize, dropping the poor attribute observers of split nodes before deactivating leaves.");
+
+    public FlagOption scheduleReEvaluationOption = new FlagOption("scheduleReEvaluation", 'S',
+            "Re-evaluate a split node when its best alternative split may replace it, instead of every reevaluationPeriod instances.");
+
 
     public interface EFDTNode {
 
@@ -71,6 +80,12 @@ public class EFDTReg extends VFDT{
 
         protected AutoExpandVector<AttributeClassObserver> attributeObservers;
 
+        /** Node time of the last re-evaluation. */
+        protected int lastReEvaluationTime;
+
+        /** Instances expected before the split can be replaced, when re-evaluations are scheduled. */
+        protected int reEvaluationDelay;
+
         public EFDTSplitNode(InstanceConditionalTest splitTest,
                              int indicesFeaturesSelected[],
                              double meritsFeaturesSelected[],
@@ -96,6 +111,60 @@ public class EFDTReg extends VFDT{
             this.isRoot = isRoot;
         }
 
+        @Override
+        public int calcByteSize() {
+            int byteSize = super.calcByteSize();
+            if (this.attributeObservers != null) {
+                byteSize += (int) SizeOf.fullSizeOf(this.attributeObservers);
+            }
+            return byteSize;
+        }
+
+        /**
+         * Replaces by null observers the observers of the attributes whose
+         * average merit is below the one of the current split by more than the
+         * Hoeffding bound, which are not expected to replace the split.
+         */
+        public void compactAttributeObservers(EFDTReg ht) {
+            if (this.attributeObservers == null || this.splitTest == null || getNumSplitAttempts() == 0) {
+                return;
+            }
+            int currentSplit = this.splitTest.getAttsTestDependsOn()[0];
+            Double currentSum = getInfogainSum().get(currentSplit);
+            if (currentSum == null) {
+                return;
+            }
+            SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(ht.splitCriterionOption);
+            double hoeffdingBound = computeHoeffdingBound(splitCriterion.getRangeOfMerit(getClassDistributionAtTimeOfCreation()),
+                    ht.splitConfidenceOption.getValue(), this.observedClassDistribution.sumOfValues());
+            double currentAverageMerit = currentSum / getNumSplitAttempts();
+            for (int i = 0; i < this.attributeObservers.size(); i++) {
+                AttributeClassObserver obs = this.attributeObservers.get(i);
+                Double sum = getInfogainSum().get(i);
+                if (i != currentSplit && obs != null && !(obs instanceof NullAttributeClassObserver)
+                        && sum != null && currentAverageMerit - sum / getNumSplitAttempts() > hoeffdingBound) {
+                    this.attributeObservers.set(i, new NullAttributeClassObserver());
+                }
+            }
+        }
+
+        /**
+         * Schedules the next re-evaluation when the Hoeffding bound, which
+         * shrinks with the square root of the weight seen, is expected to fall
+         * below the merit gap between the best and the current split. The
+         * delay is at most the weight seen by the node.
+         */
+        protected void scheduleReEvaluation(double deltaG, double hoeffdingBound, double tieThreshold) {
+            double weightSeen = this.observedClassDistribution.sumOfValues();
+            double boundRatio = deltaG > 0.0 ? hoeffdingBound / deltaG : Double.POSITIVE_INFINITY;
+            if (deltaG > tieThreshold / 2) {
+                boundRatio = Math.min(boundRatio, hoeffdingBound / tieThreshold);
+            }
+            double delay = weightSeen * (boundRatio * boundRatio - 1.0);
+            this.lastReEvaluationTime = this.nodeTime;
+            this.reEvaluationDelay = (int) Math.max(0.0, Math.min(delay, weightSeen));
+        }
+
         public void killSubtree(VFDT ht) {
             for (Node child : this.children) {
                 if (child != null) {
@@ -103,6 +172,7 @@ public class EFDTReg extends VFDT{
                     //Recursive delete of SplitNodes
                     if (child instanceof SplitNode) {
                         ((EFDTSplitNode) child).killSubtree(ht);
+                        ht.decisionNodeCount--;
                     }
                     else if (child instanceof ActiveLearningNode) {
                         child = null;
@@ -164,7 +234,14 @@ public class EFDTReg extends VFDT{
             }
 
             // check if a better split is available. if so, chop the tree at this point, copying likelihood. predictors for children are from parent likelihood.
-            if(ht.numInstances % ht.reEvalPeriodOption.getValue() == 0){
+            boolean reEvaluate;
+            if (ht.scheduleReEvaluationOption.isSet()) {
+                reEvaluate = this.nodeTime - this.lastReEvaluationTime
+                        >= Math.max(ht.reEvalPeriodOption.getValue(), this.reEvaluationDelay);
+            } else {
+                reEvaluate = ht.numInstances % ht.reEvalPeriodOption.getValue() == 0;
+            }
+            if(reEvaluate){
                 this.reEvaluateBestSplit(this, parent, parentBranch);
             }
 
@@ -267,6 +344,10 @@ public class EFDTReg extends VFDT{
             // compute the average deltaG
             double deltaG = bestSuggestionAverageMerit - currentAverageMerit;
 
+            if (EFDTReg.this.scheduleReEvaluationOption.isSet()) {
+                node.scheduleReEvaluation(deltaG, hoeffdingBound, tieThreshold);
+            }
+
             if (deltaG > hoeffdingBound
                     || (hoeffdingBound < tieThreshold && deltaG > tieThreshold / 2)) {
 
@@ -277,10 +358,12 @@ public class EFDTReg extends VFDT{
                 // if null split wins
                 if(splitDecision.splitTest == null){
 
-                    node.killSubtree(EFDTReg.this);
                     EFDTLearningNode replacement = (EFDTLearningNode) newLearningNode(lambdaOption.getValue());
                     replacement.setInfogainSum(node.getInfogainSum()); // transfer infogain history, split to replacement leaf
                     if(node.getParent() != null){
+                        node.killSubtree(EFDTReg.this);
+                        EFDTReg.this.decisionNodeCount--;
+                        EFDTReg.this.activeLeafNodeCount++;
                         node.getParent().setChild(parentIndex, replacement);
                     } else {
                         assert(node.getParent().isRoot());
@@ -329,8 +412,7 @@ public class EFDTReg extends VFDT{
                             ((EFDTSplitNode)newSplit).setChild(i, newChild);
                         }
 
-                        EFDTReg.this.activeLeafNodeCount--;
-                        EFDTReg.this.decisionNodeCount++;
+                        // the subtree's leaves and split nodes are no longer counted
                         EFDTReg.this.activeLeafNodeCount += splitDecision.numSplits();
 
                     }
@@ -592,6 +674,134 @@ public class EFDTReg extends VFDT{
 
     }
 
+    public class EFDTInactiveLearningNode extends InactiveLearningNode implements EFDTNode{
+
+        private static final long serialVersionUID = 1L;
+
+        private boolean isRoot;
+
+        private EFDTSplitNode parent = null;
+
+        public EFDTInactiveLearningNode(double[] initialClassObservations) {
+            super(initialClassObservations);
+        }
+
+        @Override
+        public boolean isRoot() {
+            return isRoot;
+        }
+
+        @Override
+        public void setRoot(boolean isRoot) {
+            this.isRoot = isRoot;
+        }
+
+        @Override
+        public void learnFromInstance(Instance inst, EFDTReg ht, EFDTSplitNode parent, int parentBranch) {
+            learnFromInstance(inst, ht);
+        }
+
+        @Override
+        public void setParent(EFDTSplitNode parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public EFDTSplitNode getParent() {
+            return this.parent;
+        }
+    }
+
+    @Override
+    protected void deactivateLearningNode(ActiveLearningNode toDeactivate,
+                                          SplitNode parent, int parentBranch) {
+        Node newLeaf = new EFDTInactiveLearningNode(toDeactivate.getObservedClassDistribution());
+        transferLeafHistory(toDeactivate, newLeaf);
+        if (parent == null) {
+            ((EFDTNode) newLeaf).setRoot(true);
+            this.treeRoot = newLeaf;
+        } else {
+            parent.setChild(parentBranch, newLeaf);
+        }
+        this.activeLeafNodeCount--;
+        this.inactiveLeafNodeCount++;
+    }
+
+    @Override
+    protected void activateLearningNode(InactiveLearningNode toActivate,
+                                        SplitNode parent, int parentBranch) {
+        Node newLeaf = newLearningNode(toActivate.getObservedClassDistribution(), lambdaOption.getValue());
+        transferLeafHistory(toActivate, newLeaf);
+        if (parent == null) {
+            ((EFDTNode) newLeaf).setRoot(true);
+            this.treeRoot = newLeaf;
+        } else {
+            parent.setChild(parentBranch, newLeaf);
+        }
+        this.activeLeafNodeCount++;
+        this.inactiveLeafNodeCount--;
+    }
+
+    /**
+     * Transfers the infogain history and the nominal attributes used on the
+     * path to a leaf that replaces another one.
+     */
+    protected void transferLeafHistory(Node from, Node to) {
+        to.setInfogainSum(from.getInfogainSum());
+        to.addToSplitAttempts(from.getNumSplitAttempts());
+        to.usedNominalAttributes = from.usedNominalAttributes;
+    }
+
+    /**
+     * Estimates the size of the leaves with calcByteSize, as the nodes refer
+     * to the tree. If the tree is over maxByteSize, the poor attribute
+     * observers of the split nodes are dropped before deactivating leaves.
+     */
+    @Override
+    public void estimateModelByteSizes() {
+        FoundNode[] learningNodes = findLearningNodes();
+        long totalActiveSize = 0;
+        long totalInactiveSize = 0;
+        for (FoundNode foundNode : learningNodes) {
+            if (foundNode.node instanceof ActiveLearningNode) {
+                totalActiveSize += foundNode.node.calcByteSize();
+            } else {
+                totalInactiveSize += foundNode.node.calcByteSize();
+            }
+        }
+        if (totalActiveSize > 0) {
+            this.activeLeafByteSizeEstimate = (double) totalActiveSize
+                    / this.activeLeafNodeCount;
+        }
+        if (totalInactiveSize > 0) {
+            this.inactiveLeafByteSizeEstimate = (double) totalInactiveSize
+                    / this.inactiveLeafNodeCount;
+        }
+        int actualModelSize = this.measureByteSize();
+        if (actualModelSize > this.maxByteSizeOption.getValue()) {
+            compactSplitNodeObservers(this.treeRoot);
+            actualModelSize = this.measureByteSize();
+        }
+        double estimatedModelSize = (this.activeLeafNodeCount
+                * this.activeLeafByteSizeEstimate + this.inactiveLeafNodeCount
+                * this.inactiveLeafByteSizeEstimate);
+        this.byteSizeEstimateOverheadFraction = actualModelSize
+                / estimatedModelSize;
+        if (actualModelSize > this.maxByteSizeOption.getValue()) {
+            enforceTrackerLimit();
+        }
+    }
+
+    protected void compactSplitNodeObservers(Node node) {
+        if (node instanceof EFDTSplitNode) {
+            EFDTSplitNode splitNode = (EFDTSplitNode) node;
+            splitNode.compactAttributeObservers(this);
+            for (Node child : splitNode.children) {
+                compactSplitNodeObservers(child);
+            }
+        }
+    }
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
 
@@ -612,6 +822,11 @@ public class EFDTReg extends VFDT{
 
         ((EFDTNode) this.treeRoot).learnFromInstance(inst, this, null, -1);
 
+        if (this.boundMemoryOption.isSet() && this.trainingWeightSeenByModel
+                % this.memoryEstimatePeriodOption.getValue() == 0) {
+            estimateModelByteSizes();
+        }
+
         numInstances++;
     }
 
@@ -29,7 +29,9 @@ import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import moa.AbstractMOAObject;
+import moa.FastCopyable;
 import moa.classifiers.AbstractClassifier;
+import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.bayes.NaiveBayes;
 import moa.classifiers.core.AttributeSplitSuggestion;
@@ -179,6 +181,10 @@ public class HoeffdingTree extends AbstractClassifier
     public FlagOption doNotUseParentStatisticsOption = new FlagOption("doNotUseParentStatistics",
             'x', "Do not take into account the statistics from the parent of a node during split.");
 
+    public IntOption numAttributeShardsOption = new IntOption("numAttributeShards", 'a',
+            "Number of threads sharing the attribute observers of every leaf (1 = no parallelism).",
+            1, 1, Integer.MAX_VALUE);
+
     public static class FoundNode {
 
         public Node node;
@@ -335,7 +341,7 @@ public class HoeffdingTree extends AbstractClassifier
         return topK;
     }
 
-    public static class Node extends AbstractMOAObject {
+    public static class Node extends AbstractMOAObject implements FastCopyable, Cloneable {
 
         private static final long serialVersionUID = 1L;
 
@@ -361,6 +367,50 @@ public class HoeffdingTree extends AbstractClassifier
             this.nodeID = Node.NODE_GEN++;
         }
 
+        /**
+         * Copies this node and its subtree. Nodes of the classes for which
+         * hasFastCopy holds are cloned and then get copies of their mutable
+         * fields; any other node is copied through serialization.
+         *
+         * @return a copy of this node and its subtree
+         */
+        @Override
+        public Node copy() {
+            if (!hasFastCopy()) {
+                return (Node) super.copy();
+            }
+            try {
+                Node copy = (Node) clone();
+                copy.copyMutableFields();
+                return copy;
+            } catch (CloneNotSupportedException e) {
+                throw new RuntimeException("Node copy failed.", e);
+            }
+        }
+
+        /**
+         * Gets whether copy can clone this node. Subclasses that add mutable
+         * fields must copy them in copyMutableFields before returning true
+         * for their own class.
+         *
+         * @return true if the fields of this class are all handled by copyMutableFields
+         */
+        protected boolean hasFastCopy() {
+            return getClass() == Node.class;
+        }
+
+        /**
+         * Replaces the mutable fields of a freshly cloned node, still shared
+         * with the original, by copies.
+         */
+        @SuppressWarnings("unchecked")
+        protected void copyMutableFields() {
+            if (this.observedClassDistribution != null) {
+                this.observedClassDistribution = this.observedClassDistribution.copy();
+            }
+            this.attributeObservers = (AutoExpandVector<AttributeClassObserver>) AbstractMOAObject.fastCopy(this.attributeObservers);
+        }
+
         public int calcByteSize() {
             return (int) (SizeOf.sizeOf(this) + SizeOf.fullSizeOf(this.observedClassDistribution));
         }
@@ -453,6 +503,19 @@ public class HoeffdingTree extends AbstractClassifier
             return splitTest;
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == SplitNode.class;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void copyMutableFields() {
+            super.copyMutableFields();
+            // the split test never changes once the node is created, so it is shared
+            this.children = (AutoExpandVector<Node>) AbstractMOAObject.fastCopy(this.children);
+        }
+
         public SplitNode(double[] classObservations) {
             super(classObservations);
         }
@@ -650,6 +713,11 @@ public class HoeffdingTree extends AbstractClassifier
             super(initialClassObservations);
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == InactiveLearningNode.class;
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
             this.observedClassDistribution.addToValue((int) inst.classValue(),
@@ -674,6 +742,11 @@ public class HoeffdingTree extends AbstractClassifier
             this.isInitialized = false;
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == ActiveLearningNode.class;
+        }
+
         @Override
         public int calcByteSize() {
             return super.calcByteSize()
@@ -688,6 +761,12 @@ public class HoeffdingTree extends AbstractClassifier
             }
             this.observedClassDistribution.addToValue((int) inst.classValue(),
                     inst.weight());
+            if (ht.attributeShards != null
+                    && this.attributeObservers.size() >= inst.numAttributes() - 1) {
+                // every observer exists, the shards observe the attributes
+                ht.attributeShards.observe(this, this.attributeObservers, inst);
+                return;
+            }
             for (int i = 0; i < inst.numAttributes() - 1; i++) {
                 int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
                 AttributeClassObserver obs = this.attributeObservers.get(i);
@@ -722,6 +801,15 @@ public class HoeffdingTree extends AbstractClassifier
                         preSplitDist,
                         new double[][]{preSplitDist})));
             }
+            if (ht.attributeShards != null) {
+                for (AttributeSplitSuggestion bestSuggestion : ht.attributeShards.getBestSplitSuggestions(
+                        this.attributeObservers, criterion, preSplitDist, ht.binarySplitsOption.isSet())) {
+                    if (bestSuggestion != null) {
+                        bestSuggestions.add(bestSuggestion);
+                    }
+                }
+                return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
+            }
             for (int i = 0; i < this.attributeObservers.size(); i++) {
                 AttributeClassObserver obs = this.attributeObservers.get(i);
                 if (obs != null) {
@@ -758,6 +846,12 @@ public class HoeffdingTree extends AbstractClassifier
 
     protected boolean growthAllowed;
 
+    /** Shards of the attribute observers, null if the leaves are updated by a single thread. */
+    protected transient AttributeShards attributeShards;
+
+    /** Registry of the learning leaves, null until memory management needs it. */
+    protected transient LeafRegistry leafRegistry;
+
     public int calcByteSize() {
         int size = (int) SizeOf.sizeOf(this);
         if (this.treeRoot != null) {
@@ -771,6 +865,95 @@ public class HoeffdingTree extends AbstractClassifier
         return calcByteSize();
     }
 
+    /**
+     * Copies this tree. The nodes are copied with Node.copy and only the
+     * rest of the learner goes through serialization. This tree is not
+     * modified, so it can be copied while other threads use it.
+     *
+     * @return a copy of this tree
+     */
+    @Override
+    public Classifier copy() {
+        if (this.treeRoot == null || !hasFastTreeCopy()) {
+            return super.copy();
+        }
+        HoeffdingTree copy;
+        try {
+            copy = (HoeffdingTree) SerializeUtils.copyObjectWithout(this, this.treeRoot);
+        } catch (Exception e) {
+            throw new RuntimeException("Object copy failed.", e);
+        }
+        copy.treeRoot = this.treeRoot.copy();
+        return copy;
+    }
+
+    /**
+     * Gets whether copy can copy the nodes separately from the learner,
+     * which requires that no other field of the learner refers to a node.
+     *
+     * @return true if the nodes are only reachable from treeRoot
+     */
+    protected boolean hasFastTreeCopy() {
+        return getClass() == HoeffdingTree.class;
+    }
+
+    /**
+     * Gets whether the attribute observers of the leaves can be sharded among
+     * several threads, which requires that the leaves observe every attribute
+     * of every instance as ActiveLearningNode does.
+     *
+     * @return true if numAttributeShards is used
+     */
+    protected boolean supportsAttributeShards() {
+        return getClass() == HoeffdingTree.class;
+    }
+
+    /**
+     * Gets whether the learning leaves can be kept in a registry for memory
+     * management, which requires that the tree only changes through the
+     * methods of this class.
+     *
+     * @return true if enforceTrackerLimit uses a LeafRegistry
+     */
+    protected boolean usesLeafRegistry() {
+        return getClass() == HoeffdingTree.class || getClass() == ARFHoeffdingTree.class;
+    }
+
+    /**
+     * Gets the registry of the learning leaves, registering the leaves of the
+     * current tree the first time.
+     */
+    protected LeafRegistry getLeafRegistry() {
+        if (this.leafRegistry == null) {
+            this.leafRegistry = new LeafRegistry();
+            registerLeaves(this.treeRoot, null, -1);
+        }
+        return this.leafRegistry;
+    }
+
+    protected void registerLeaves(Node node, Node parent, int parentBranch) {
+        if (node instanceof LearningNode) {
+            this.leafRegistry.addLeaf(node, parent, parentBranch, node instanceof ActiveLearningNode);
+        } else if (node instanceof SplitNode) {
+            SplitNode splitNode = (SplitNode) node;
+            this.leafRegistry.addSplit(splitNode, parent, parentBranch);
+            for (int i = 0; i < splitNode.numChildren(); i++) {
+                registerLeaves(splitNode.getChild(i), splitNode, i);
+            }
+        }
+    }
+
+    /**
+     * Creates the shards of the attribute observers if several are requested.
+     */
+    protected void initAttributeShards() {
+        int numShards = this.numAttributeShardsOption.getValue();
+        if (numShards > 1 && supportsAttributeShards()
+                && (this.attributeShards == null || this.attributeShards.getNumShards() != numShards)) {
+            this.attributeShards = new AttributeShards(numShards);
+        }
+    }
+
     @Override
     public void resetLearningImpl() {
         this.treeRoot = null;
@@ -781,17 +964,43 @@ public class HoeffdingTree extends AbstractClassifier
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
         this.growthAllowed = true;
+        this.attributeShards = null;
+        this.leafRegistry = null;
         if (this.leafpredictionOption.getChosenIndex() > 0) {
             this.removePoorAttsOption = null;
         }
     }
 
+    /**
+     * Trains on a batch of instances. With several attribute shards, the
+     * observations of every leaf are deferred until it attempts to split, so
+     * that the shards observe many instances at a time.
+     */
+    @Override
+    public void trainOnInstances(Instance[] batch) {
+        initAttributeShards();
+        if (this.attributeShards == null) {
+            super.trainOnInstances(batch);
+            return;
+        }
+        this.attributeShards.setDeferring(true);
+        try {
+            super.trainOnInstances(batch);
+        } finally {
+            this.attributeShards.setDeferring(false);
+        }
+    }
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
+        initAttributeShards();
         // if(this.trainingWeightSeenByModel % 500 == 0) System.out.println(inst);
         if (this.treeRoot == null) {
             this.treeRoot = newLearningNode();
             this.activeLeafNodeCount = 1;
+            if (this.leafRegistry != null) {
+                this.leafRegistry.addLeaf(this.treeRoot, null, -1, true);
+            }
         }
 
 //        int gtRel[] = inst.dataset().getIndicesRelevants();
@@ -819,6 +1028,9 @@ public class HoeffdingTree extends AbstractClassifier
             leafNode = newLearningNode();
             foundNode.parent.setChild(foundNode.parentBranch, leafNode);
             this.activeLeafNodeCount++;
+            if (this.leafRegistry != null) {
+                this.leafRegistry.addLeaf(leafNode, foundNode.parent, foundNode.parentBranch, true);
+            }
         }
 //        if(Utils.maxIndex(leafNode.getClassVotes(inst, this)) == inst.classValue()){
 //            weightedHits += w;
@@ -828,12 +1040,18 @@ public class HoeffdingTree extends AbstractClassifier
         if (leafNode instanceof LearningNode) {
             LearningNode learningNode = (LearningNode) leafNode;
             learningNode.learnFromInstance(inst, this);
+            if (this.leafRegistry != null) {
+                this.leafRegistry.learned(learningNode);
+            }
             if (this.growthAllowed
                     && (learningNode instanceof ActiveLearningNode)) {
                 ActiveLearningNode activeLearningNode = (ActiveLearningNode) learningNode;
                 double weightSeen = activeLearningNode.getWeightSeen();
                 if (weightSeen
                         - activeLearningNode.getWeightSeenAtLastSplitEvaluation() >= this.gracePeriodOption.getValue()) {
+                    if (this.attributeShards != null) {
+                        this.attributeShards.flush(activeLearningNode);
+                    }
                     attemptToSplit(activeLearningNode, foundNode.parent,
                             foundNode.parentBranch);
                     activeLearningNode.setWeightSeenAtLastSplitEvaluation(weightSeen);
@@ -869,6 +1087,33 @@ public class HoeffdingTree extends AbstractClassifier
         }
     }
 
+    @Override
+    public void getVotesForInstances(Instance[] batch, double[][] votes) {
+        if (getClass() != HoeffdingTree.class && getClass() != ARFHoeffdingTree.class) {
+            super.getVotesForInstances(batch, votes);
+            return;
+        }
+        // same nodes as filterInstanceToLeaf, without creating FoundNode objects
+        for (int i = 0; i < batch.length; i++) {
+            Instance inst = batch[i];
+            if (this.treeRoot == null) {
+                votes[i] = new double[inst.dataset().numClasses()];
+                continue;
+            }
+            Node node = this.treeRoot;
+            while (node instanceof SplitNode) {
+                SplitNode splitNode = (SplitNode) node;
+                int childIndex = splitNode.instanceChildIndex(inst);
+                Node child = childIndex >= 0 ? splitNode.getChild(childIndex) : null;
+                if (child == null) {
+                    break;
+                }
+                node = child;
+            }
+            votes[i] = node.getClassVotes(inst, this);
+        }
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         Measurement m[] =  new Measurement[]{
@@ -1049,6 +1294,12 @@ public class HoeffdingTree extends AbstractClassifier
                     } else {
                         parent.setChild(parentIndex, newSplit);
                     }
+                    if (this.leafRegistry != null) {
+                        this.leafRegistry.split(node, newSplit);
+                        for (int i = 0; i < newSplit.numChildren(); i++) {
+                            this.leafRegistry.addLeaf(newSplit.getChild(i), newSplit, i, true);
+                        }
+                    }
                 }
                 // manage memory
                 enforceTrackerLimit();
@@ -1065,6 +1316,10 @@ public class HoeffdingTree extends AbstractClassifier
                 this.growthAllowed = false;
                 return;
             }
+            if (usesLeafRegistry()) {
+                enforceTrackerLimitWithRegistry();
+                return;
+            }
             FoundNode[] learningNodes = findLearningNodes();
             Arrays.sort(learningNodes, new Comparator<FoundNode>() {
 
@@ -1103,15 +1358,55 @@ public class HoeffdingTree extends AbstractClassifier
         }
     }
 
+    /**
+     * Keeps active the leaves with the highest promise, as many as fit in
+     * memory, taking the leaves from the registry instead of the tree.
+     */
+    protected void enforceTrackerLimitWithRegistry() {
+        LeafRegistry registry = getLeafRegistry();
+        int numLeaves = registry.getNumLeaves();
+        int maxActive = 0;
+        while (maxActive < numLeaves) {
+            maxActive++;
+            if ((maxActive * this.activeLeafByteSizeEstimate + (numLeaves - maxActive)
+                    * this.inactiveLeafByteSizeEstimate)
+                    * this.byteSizeEstimateOverheadFraction > this.maxByteSizeOption.getValue()) {
+                maxActive--;
+                break;
+            }
+        }
+        for (LeafRegistry.Leaf leaf : registry.selectActiveLeaves(maxActive)) {
+            if (leaf.node instanceof ActiveLearningNode) {
+                deactivateLearningNode((ActiveLearningNode) leaf.node,
+                        (SplitNode) leaf.parent, leaf.parentBranch);
+            } else {
+                activateLearningNode((InactiveLearningNode) leaf.node,
+                        (SplitNode) leaf.parent, leaf.parentBranch);
+            }
+        }
+    }
+
     public void estimateModelByteSizes() {
-        FoundNode[] learningNodes = findLearningNodes();
+        if (this.attributeShards != null) {
+            this.attributeShards.flushAll();
+        }
         long totalActiveSize = 0;
         long totalInactiveSize = 0;
-        for (FoundNode foundNode : learningNodes) {
-            if (foundNode.node instanceof ActiveLearningNode) {
-                totalActiveSize += SizeOf.fullSizeOf(foundNode.node);
-            } else {
-                totalInactiveSize += SizeOf.fullSizeOf(foundNode.node);
+        if (this.leafRegistry != null) {
+            for (LeafRegistry.Leaf leaf : this.leafRegistry.getLeaves()) {
+                if (leaf.node instanceof ActiveLearningNode) {
+                    totalActiveSize += SizeOf.fullSizeOf(leaf.node);
+                } else {
+                    totalInactiveSize += SizeOf.fullSizeOf(leaf.node);
+                }
+            }
+        } else {
+            for (FoundNode foundNode : findLearningNodes()) {
+                if (foundNode.node instanceof ActiveLearningNode) {
+                    totalActiveSize += SizeOf.fullSizeOf(foundNode.node);
+                } else {
+                    totalInactiveSize += SizeOf.fullSizeOf(foundNode.node);
+                }
             }
         }
         if (totalActiveSize > 0) {
@@ -1134,6 +1429,15 @@ public class HoeffdingTree extends AbstractClassifier
     }
 
     public void deactivateAllLeaves() {
+        if (this.leafRegistry != null) {
+            for (LeafRegistry.Leaf leaf : this.leafRegistry.getLeaves()) {
+                if (leaf.node instanceof ActiveLearningNode) {
+                    deactivateLearningNode((ActiveLearningNode) leaf.node,
+                            (SplitNode) leaf.parent, leaf.parentBranch);
+                }
+            }
+            return;
+        }
         FoundNode[] learningNodes = findLearningNodes();
         for (int i = 0; i < learningNodes.length; i++) {
             if (learningNodes[i].node instanceof ActiveLearningNode) {
@@ -1155,6 +1459,9 @@ public class HoeffdingTree extends AbstractClassifier
         }
         this.activeLeafNodeCount--;
         this.inactiveLeafNodeCount++;
+        if (this.leafRegistry != null) {
+            this.leafRegistry.replace(toDeactivate, newLeaf, false);
+        }
     }
 
     protected void activateLearningNode(InactiveLearningNode toActivate,
@@ -1167,6 +1474,9 @@ public class HoeffdingTree extends AbstractClassifier
         }
         this.activeLeafNodeCount++;
         this.inactiveLeafNodeCount--;
+        if (this.leafRegistry != null) {
+            this.leafRegistry.replace(toActivate, newLeaf, true);
+        }
     }
 
     protected FoundNode[] findLearningNodes() {
@@ -1215,6 +1525,11 @@ public class HoeffdingTree extends AbstractClassifier
             super(initialClassObservations);
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == LearningNodeNB.class;
+        }
+
         @Override
         public double[] getClassVotes(Instance inst, HoeffdingTree ht) {
             if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
@@ -1246,8 +1561,17 @@ public class HoeffdingTree extends AbstractClassifier
             super(initialClassObservations);
         }
 
+        @Override
+        protected boolean hasFastCopy() {
+            return getClass() == LearningNodeNBAdaptive.class;
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
+            if (ht.attributeShards != null) {
+                // the prediction needs the deferred observations
+                ht.attributeShards.flush(this);
+            }
             int trueClass = (int) inst.classValue();
             if (this.observedClassDistribution.maxIndex() == trueClass) {
                 this.mcCorrectWeight += inst.weight();
@@ -290,6 +290,12 @@ public class HoeffdingTreeReg extends HoeffdingTree {
             }
             this.observedClassDistribution.addToValue((int) inst.classValue(),
                     inst.weight());
+            if (ht.attributeShards != null
+                    && this.attributeObservers.size() >= inst.numAttributes() - 1) {
+                // every observer exists, the shards observe the attributes
+                ht.attributeShards.observe(this, this.attributeObservers, inst);
+                return;
+            }
             for (int i = 0; i < inst.numAttributes() - 1; i++) {
                 int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
                 AttributeClassObserver obs = this.attributeObservers.get(i);
@@ -325,10 +331,16 @@ public class HoeffdingTreeReg extends HoeffdingTree {
                         preSplitDist,
                         new double[][]{preSplitDist})));
             }
+            AttributeSplitSuggestion[] shardSuggestions = null;
+            if (ht.attributeShards != null) {
+                shardSuggestions = ht.attributeShards.getBestSplitSuggestions(
+                        this.attributeObservers, criterion, preSplitDist, ht.binarySplitsOption.isSet());
+            }
             for (int i = 0; i < this.attributeObservers.size(); i++) {
                 AttributeClassObserver obs = this.attributeObservers.get(i);
                 if (obs != null) {
-                    AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
+                    AttributeSplitSuggestion bestSuggestion = shardSuggestions != null ? shardSuggestions[i]
+                            : obs.getBestEvaluatedSplitSuggestion(criterion,
                             preSplitDist, i, ht.binarySplitsOption.isSet());
                     if(bestSuggestion != null &&
                             bestSuggestion.splitTest != null && bestSuggestion.splitTest.getAttsTestDependsOn() != null) {
@@ -409,6 +421,8 @@ public class HoeffdingTreeReg extends HoeffdingTree {
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
         this.growthAllowed = true;
+        this.attributeShards = null;
+        this.leafRegistry = null;
         if (this.leafpredictionOption.getChosenIndex()>0) {
             this.removePoorAttsOption = null;
         }
@@ -416,9 +430,13 @@ public class HoeffdingTreeReg extends HoeffdingTree {
 
     @Override
     public void trainOnInstanceImpl(Instance inst) {
+        initAttributeShards();
         if (this.treeRoot == null) {
             this.treeRoot = newLearningNodeReg();
             this.activeLeafNodeCount = 1;
+            if (this.leafRegistry != null) {
+                this.leafRegistry.addLeaf(this.treeRoot, null, -1, true);
+            }
         }
         FoundNodeReg foundNode = ((NodeReg) treeRoot).filterInstanceToLeaf(inst, null, -1);
         NodeReg leafNode = foundNode.node;
@@ -426,16 +444,25 @@ public class HoeffdingTreeReg extends HoeffdingTree {
             leafNode = newLearningNodeReg();
             foundNode.parent.setChild(foundNode.parentBranch, leafNode);
             this.activeLeafNodeCount++;
+            if (this.leafRegistry != null) {
+                this.leafRegistry.addLeaf(leafNode, foundNode.parent, foundNode.parentBranch, true);
+            }
         }
         if (leafNode instanceof LearningNodeReg) {
             LearningNodeReg learningNode = (LearningNodeReg) leafNode;
             learningNode.learnFromInstance(inst, this);
+            if (this.leafRegistry != null) {
+                this.leafRegistry.learned(learningNode);
+            }
             if (this.growthAllowed
                     && (learningNode instanceof ActiveLearningNodeReg)) {
                 ActiveLearningNodeReg activeLearningNode = (ActiveLearningNodeReg) learningNode;
                 double weightSeen = activeLearningNode.getWeightSeen();
                 if (weightSeen
                         - activeLearningNode.getWeightSeenAtLastSplitEvaluation() >= this.gracePeriodOption.getValue()) {
+                    if (this.attributeShards != null) {
+                        this.attributeShards.flush(activeLearningNode);
+                    }
                     attemptToSplit(activeLearningNode, foundNode.parent,
                             foundNode.parentBranch);
                     activeLearningNode.setWeightSeenAtLastSplitEvaluation(weightSeen);
@@ -643,6 +670,12 @@ public class HoeffdingTreeReg extends HoeffdingTree {
                     } else {
                         parent.setChild(parentIndex, newSplit);
                     }
+                    if (this.leafRegistry != null) {
+                        this.leafRegistry.split(node, newSplit);
+                        for (int i = 0; i < newSplit.numChildren(); i++) {
+                            this.leafRegistry.addLeaf(newSplit.getChild(i), newSplit, i, true);
+                        }
+                    }
                 }
                 // manage memory
                 enforceTrackerLimit();
@@ -680,6 +713,10 @@ public class HoeffdingTreeReg extends HoeffdingTree {
                 this.growthAllowed = false;
                 return;
             }
+            if (usesLeafRegistry()) {
+                enforceTrackerLimitWithRegistry();
+                return;
+            }
             FoundNodeReg[] learningNodes = findLearningNodesReg();
             Arrays.sort(learningNodes, new Comparator<FoundNodeReg>() {
 
@@ -718,15 +755,75 @@ public class HoeffdingTreeReg extends HoeffdingTree {
         }
     }
 
+    @Override
+    protected boolean supportsAttributeShards() {
+        return getClass() == HoeffdingTreeReg.class;
+    }
+
+    @Override
+    protected boolean usesLeafRegistry() {
+        return getClass() == HoeffdingTreeReg.class;
+    }
+
+    @Override
+    protected void registerLeaves(Node node, Node parent, int parentBranch) {
+        if (node instanceof LearningNodeReg) {
+            this.leafRegistry.addLeaf(node, parent, parentBranch, node instanceof ActiveLearningNodeReg);
+        } else if (node instanceof SplitNodeReg) {
+            SplitNodeReg splitNode = (SplitNodeReg) node;
+            this.leafRegistry.addSplit(splitNode, parent, parentBranch);
+            for (int i = 0; i < splitNode.numChildren(); i++) {
+                registerLeaves(splitNode.getChild(i), splitNode, i);
+            }
+        }
+    }
+
+    @Override
+    protected void enforceTrackerLimitWithRegistry() {
+        LeafRegistry registry = getLeafRegistry();
+        int numLeaves = registry.getNumLeaves();
+        int maxActive = 0;
+        while (maxActive < numLeaves) {
+            maxActive++;
+            if ((maxActive * this.activeLeafByteSizeEstimate + (numLeaves - maxActive)
+                    * this.inactiveLeafByteSizeEstimate)
+                    * this.byteSizeEstimateOverheadFraction > this.maxByteSizeOption.getValue()) {
+                maxActive--;
+                break;
+            }
+        }
+        for (LeafRegistry.Leaf leaf : registry.selectActiveLeaves(maxActive)) {
+            if (leaf.node instanceof ActiveLearningNodeReg) {
+                deactivateLearningNode((ActiveLearningNodeReg) leaf.node,
+                        (SplitNodeReg) leaf.parent, leaf.parentBranch);
+            } else {
+                activateLearningNode((InactiveLearningNodeReg) leaf.node,
+                        (SplitNodeReg) leaf.parent, leaf.parentBranch);
+            }
+        }
+    }
+
     public void estimateModelByteSizes() {
-        FoundNodeReg[] learningNodes = findLearningNodesReg();
+        if (this.attributeShards != null) {
+            this.attributeShards.flushAll();
+        }
         long totalActiveSize = 0;
         long totalInactiveSize = 0;
-        for (FoundNodeReg foundNode : learningNodes) {
-            if (foundNode.node instanceof ActiveLearningNodeReg) {
-                totalActiveSize += SizeOf.fullSizeOf(foundNode.node);
-            } else {
-                totalInactiveSize += SizeOf.fullSizeOf(foundNode.node);
+        if (this.leafRegistry != null) {
+            for (LeafRegistry.Leaf leaf : this.leafRegistry.getLeaves()) {
+                if (leaf.node instanceof ActiveLearningNodeReg) {
+                    totalActiveSize += SizeOf.fullSizeOf(leaf.node);
+                } else {
+                    totalInactiveSize += SizeOf.fullSizeOf(leaf.node);
+                }
+            }
+        } else {
+            for (FoundNodeReg foundNode : findLearningNodesReg()) {
+                if (foundNode.node instanceof ActiveLearningNodeReg) {
+                    totalActiveSize += SizeOf.fullSizeOf(foundNode.node);
+                } else {
+                    totalInactiveSize += SizeOf.fullSizeOf(foundNode.node);
+                }
             }
         }
         if (totalActiveSize > 0) {
@@ -749,6 +846,15 @@ public class HoeffdingTreeReg extends HoeffdingTree {
     }
 
     public void deactivateAllLeaves() {
+        if (this.leafRegistry != null) {
+            for (LeafRegistry.Leaf leaf : this.leafRegistry.getLeaves()) {
+                if (leaf.node instanceof ActiveLearningNodeReg) {
+                    deactivateLearningNode((ActiveLearningNodeReg) leaf.node,
+                            (SplitNodeReg) leaf.parent, leaf.parentBranch);
+                }
+            }
+            return;
+        }
         FoundNodeReg[] learningNodes = findLearningNodesReg();
         for (int i = 0; i < learningNodes.length; i++) {
             if (learningNodes[i].node instanceof ActiveLearningNodeReg) {
@@ -769,6 +875,9 @@ public class HoeffdingTreeReg extends HoeffdingTree {
         }
         this.activeLeafNodeCount--;
         this.inactiveLeafNodeCount++;
+        if (this.leafRegistry != null) {
+            this.leafRegistry.replace(toDeactivate, newLeaf, false);
+        }
     }
 
     protected void activateLearningNode(InactiveLearningNodeReg toActivate,
@@ -781,6 +890,9 @@ public class HoeffdingTreeReg extends HoeffdingTree {
         }
         this.activeLeafNodeCount++;
         this.inactiveLeafNodeCount--;
+        if (this.leafRegistry != null) {
+            this.leafRegistry.replace(toActivate, newLeaf, true);
+        }
     }
 
     protected FoundNodeReg[] findLearningNodesReg() {
@@ -847,6 +959,10 @@ public class HoeffdingTreeReg extends HoeffdingTree {
             if (this.observedClassDistribution.maxIndex() == trueClass) {
                 this.mcCorrectWeight += inst.weight();
             }
+            if (ht.attributeShards != null) {
+                // the prediction needs the deferred observations
+                ht.attributeShards.flush(this);
+            }
             if (Utils.maxIndex(NaiveBayes.doNaiveBayesPrediction(inst,
                     this.observedClassDistribution, this.attributeObservers)) == trueClass) {
                 this.nbCorrectWeight += inst.weight();
@@ -0,0 +1,257 @@
+/*
+ *    LeafRegistry.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import moa.classifiers.trees.HoeffdingTree.Node;
+
+/**
+ * Registry of the learning leaves of a Hoeffding tree, kept up to date as
+ * the tree grows, for memory management without walking the whole tree.
+ *
+ * <p>The active and the inactive leaves are kept in two sets ordered by
+ * promise. Leaves that learn are marked, and only their promise is updated
+ * before the next selection of the leaves to keep active. Leaves with the
+ * same promise are ordered as they are found in the tree, using the branches
+ * followed from the root, so that the selection is the same as sorting all
+ * the leaves found in the tree by promise.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class LeafRegistry {
+
+    /**
+     * A learning leaf and its position in the tree.
+     */
+    public static class Leaf {
+
+        public Node node;
+
+        public Node parent;
+
+        public int parentBranch;
+
+        /** Branches followed from the root to reach the leaf. */
+        protected int[] path;
+
+        protected double promise;
+
+        protected boolean active;
+
+        protected boolean learned;
+
+        public boolean isActive() {
+            return this.active;
+        }
+    }
+
+    /** Orders leaves by promise, then as they are found in the tree. */
+    protected static final Comparator<Leaf> PROMISE_ORDER = new Comparator<Leaf>() {
+
+        @Override
+        public int compare(Leaf leaf1, Leaf leaf2) {
+            int result = Double.compare(leaf1.promise, leaf2.promise);
+            if (result != 0) {
+                return result;
+            }
+            int[] path1 = leaf1.path;
+            int[] path2 = leaf2.path;
+            int length = Math.min(path1.length, path2.length);
+            for (int i = 0; i < length; i++) {
+                if (path1[i] != path2[i]) {
+                    return path1[i] < path2[i] ? -1 : 1;
+                }
+            }
+            return path1.length - path2.length;
+        }
+    };
+
+    protected Map<Node, Leaf> leaves = new IdentityHashMap<Node, Leaf>();
+
+    protected Map<Node, int[]> splitPaths = new IdentityHashMap<Node, int[]>();
+
+    protected TreeSet<Leaf> activeLeaves = new TreeSet<Leaf>(PROMISE_ORDER);
+
+    protected TreeSet<Leaf> inactiveLeaves = new TreeSet<Leaf>(PROMISE_ORDER);
+
+    /** Leaves that learned since their promise was last computed. */
+    protected List<Leaf> learnedLeaves = new ArrayList<Leaf>();
+
+    /**
+     * Gets the path of the child of a node.
+     *
+     * @param path the branches followed from the root to reach the node
+     * @param branch the branch of the child
+     * @return the branches followed from the root to reach the child
+     */
+    public static int[] childPath(int[] path, int branch) {
+        int[] result = new int[path.length + 1];
+        System.arraycopy(path, 0, result, 0, path.length);
+        result[path.length] = branch;
+        return result;
+    }
+
+    /**
+     * Adds a leaf.
+     *
+     * @param node the leaf
+     * @param parent the split node of the leaf, null for the root
+     * @param parentBranch the branch of the leaf in its parent
+     * @param active whether the leaf is an active learning node
+     */
+    public void addLeaf(Node node, Node parent, int parentBranch, boolean active) {
+        Leaf leaf = new Leaf();
+        leaf.node = node;
+        leaf.parent = parent;
+        leaf.parentBranch = parentBranch;
+        leaf.path = parent == null ? new int[0] : childPath(this.splitPaths.get(parent), parentBranch);
+        leaf.promise = node.calculatePromise();
+        leaf.active = active;
+        this.leaves.put(node, leaf);
+        (active ? this.activeLeaves : this.inactiveLeaves).add(leaf);
+    }
+
+    /**
+     * Replaces a leaf that has split by its split node. The children of the
+     * split node are added afterwards.
+     *
+     * @param node the leaf
+     * @param split the split node
+     */
+    public void split(Node node, Node split) {
+        Leaf leaf = this.leaves.remove(node);
+        (leaf.active ? this.activeLeaves : this.inactiveLeaves).remove(leaf);
+        this.splitPaths.put(split, leaf.path);
+    }
+
+    /**
+     * Adds a split node found when registering the leaves of an existing
+     * tree.
+     */
+    public void addSplit(Node split, Node parent, int parentBranch) {
+        this.splitPaths.put(split, parent == null ? new int[0]
+                : childPath(this.splitPaths.get(parent), parentBranch));
+    }
+
+    /**
+     * Replaces a leaf by another one at the same position, when it is
+     * activated or deactivated.
+     *
+     * @param node the leaf
+     * @param replacement the new leaf
+     * @param active whether the new leaf is an active learning node
+     */
+    public void replace(Node node, Node replacement, boolean active) {
+        Leaf leaf = this.leaves.remove(node);
+        leaf.node = replacement;
+        this.leaves.put(replacement, leaf);
+        if (leaf.active != active) {
+            moveLeaf(leaf);
+        }
+    }
+
+    /**
+     * Marks a leaf that learned from an instance, whose promise must be
+     * recomputed.
+     */
+    public void learned(Node node) {
+        Leaf leaf = this.leaves.get(node);
+        if (leaf != null && !leaf.learned) {
+            leaf.learned = true;
+            this.learnedLeaves.add(leaf);
+        }
+    }
+
+    public int getNumLeaves() {
+        return this.leaves.size();
+    }
+
+    /**
+     * Gets all the leaves, in no particular order.
+     */
+    public List<Leaf> getLeaves() {
+        return new ArrayList<Leaf>(this.leaves.values());
+    }
+
+    /**
+     * Selects the leaves to keep active: the ones with the highest promise.
+     * Updates the promise of the leaves that learned, and changes as few
+     * leaves as possible.
+     *
+     * @param maxActive the number of leaves to keep active
+     * @return the leaves to activate or deactivate, which are already
+     * registered with their new state and must be replaced in the tree
+     */
+    public List<Leaf> selectActiveLeaves(int maxActive) {
+        for (Leaf leaf : this.learnedLeaves) {
+            if (this.leaves.get(leaf.node) == leaf) {
+                TreeSet<Leaf> set = leaf.active ? this.activeLeaves : this.inactiveLeaves;
+                set.remove(leaf);
+                leaf.promise = leaf.node.calculatePromise();
+                set.add(leaf);
+            }
+            leaf.learned = false;
+        }
+        this.learnedLeaves.clear();
+        Map<Leaf, Boolean> initialStates = new LinkedHashMap<Leaf, Boolean>();
+        while (this.activeLeaves.size() > maxActive) {
+            moveLeaf(this.activeLeaves.first(), initialStates);
+        }
+        while (this.activeLeaves.size() < maxActive && !this.inactiveLeaves.isEmpty()) {
+            moveLeaf(this.inactiveLeaves.last(), initialStates);
+        }
+        while (!this.activeLeaves.isEmpty() && !this.inactiveLeaves.isEmpty()
+                && PROMISE_ORDER.compare(this.inactiveLeaves.last(), this.activeLeaves.first()) > 0) {
+            Leaf toDeactivate = this.activeLeaves.first();
+            moveLeaf(this.inactiveLeaves.last(), initialStates);
+            moveLeaf(toDeactivate, initialStates);
+        }
+        List<Leaf> changed = new ArrayList<Leaf>();
+        for (Map.Entry<Leaf, Boolean> entry : initialStates.entrySet()) {
+            if (entry.getKey().active != entry.getValue()) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    protected void moveLeaf(Leaf leaf, Map<Leaf, Boolean> initialStates) {
+        if (!initialStates.containsKey(leaf)) {
+            initialStates.put(leaf, leaf.active);
+        }
+        moveLeaf(leaf);
+    }
+
+    protected void moveLeaf(Leaf leaf) {
+        if (leaf.active) {
+            this.activeLeaves.remove(leaf);
+            this.inactiveLeaves.add(leaf);
+        } else {
+            this.inactiveLeaves.remove(leaf);
+            this.activeLeaves.add(leaf);
+        }
+        leaf.active = !leaf.active;
+    }
+}
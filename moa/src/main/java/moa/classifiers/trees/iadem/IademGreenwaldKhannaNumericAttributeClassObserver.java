@@ -106,7 +106,7 @@ public class IademGreenwaldKhannaNumericAttributeClassObserver extends Greenwald
         int numberOfCutPoints = 0;
         for (GreenwaldKhannaQuantileSummary qs : this.attValDistPerClass) {
             if (qs != null) {
-                numberOfCutPoints += qs.getSuggestedCutpoints().length;
+                numberOfCutPoints += qs.getNumTuples();
             }
         }
         return numberOfCutPoints;
@@ -126,16 +126,27 @@ public class IademGreenwaldKhannaNumericAttributeClassObserver extends Greenwald
         return lhsDist;
     }
 
+    /**
+     * Gets the class distribution on the left of a cut point from the counts
+     * computed by getClassCountsBelow for all the cut points at once.
+     */
+    protected long[] getLeftClassDist(long[][] countsBelow, int cutIndex, int numClasses) {
+        long[] lhsDist = new long[numClasses];
+        for (int i = 0; i < Math.min(numClasses, countsBelow.length); i++) {
+            lhsDist[i] = countsBelow[i][cutIndex];
+        }
+        return lhsDist;
+    }
+
     @Override
     public double getCut(int cutIndex) {
         int currentCut = cutIndex;
         for (GreenwaldKhannaQuantileSummary qs : this.attValDistPerClass) {
             if (qs != null) {
-                double[] cuts = qs.getSuggestedCutpoints();
-                if (currentCut < cuts.length) {
-                    return cuts[currentCut];
+                if (currentCut < qs.getNumTuples()) {
+                    return qs.getValue(currentCut);
                 }
-                currentCut -= cuts.length;
+                currentCut -= qs.getNumTuples();
             }
         }
         return Double.NaN;
@@ -146,10 +157,11 @@ public class IademGreenwaldKhannaNumericAttributeClassObserver extends Greenwald
             double[][][] cut_value_classDist_upper, 
             double[][] counts_cut_value,
             boolean withIntervalEstimates) {
-        ArrayList<Double> cuts = cutPointSuggestion(-1);
+        double[] cuts = getCutpoints();
+        long[][] countsBelow = getClassCountsBelow(cuts);
         long [] totalDist = getClassDist();
-        for (int i = 0; i < cuts.size(); i++) {
-            long [] lDist = getLeftClassDist(cuts.get(i)),
+        for (int i = 0; i < cuts.length; i++) {
+            long [] lDist = getLeftClassDist(countsBelow, i, totalDist.length),
                     rDist = new long[lDist.length];
             long totalIzq = sum(lDist);
             long total = sum(totalDist);
@@ -193,13 +205,8 @@ public class IademGreenwaldKhannaNumericAttributeClassObserver extends Greenwald
     @Override
     public ArrayList<Double> cutPointSuggestion(int numCortes) {
         ArrayList<Double> cuts = new ArrayList<Double>();
-        for (GreenwaldKhannaQuantileSummary qs : this.attValDistPerClass) {
-            if (qs != null) {
-                double[] newCuts = qs.getSuggestedCutpoints();
-                for (double valor : newCuts) {
-                    cuts.add(valor);
-                }
-            }
+        for (double valor : getCutpoints()) {
+            cuts.add(valor);
         }
         return cuts;
     }
@@ -245,10 +252,11 @@ public class IademGreenwaldKhannaNumericAttributeClassObserver extends Greenwald
 
     @Override
     public void computeClassDist(double[][][] cutClassDist) {
-        ArrayList<Double> cuts = cutPointSuggestion(-1);
+        double[] cuts = getCutpoints();
+        long[][] countsBelow = getClassCountsBelow(cuts);
         long [] totalDist = getClassDist();
-        for (int i = 0; i < cuts.size(); i++) {
-            long [] lDist = getLeftClassDist(cuts.get(i)),
+        for (int i = 0; i < cuts.length; i++) {
+            long [] lDist = getLeftClassDist(countsBelow, i, totalDist.length),
                     rDist = new long[lDist.length];
             for (int j = 0; j < totalDist.length; j++) {
                 rDist[j] = totalDist[j] - lDist[j];
@@ -32,8 +32,8 @@ public class IademGreenwaldKhannaQuantileSummary extends GreenwaldKhannaQuantile
 
     public int maxNumberOfObservation(int i) { 
         int index = i - 1;
-        if (index >= 0 && index < this.summary.length && this.summary[index] != null) {
-            return (int) (this.summary[index].g + this.summary[index].delta - 1);
+        if (index >= 0 && index < this.numTuples) {
+            return (int) (this.g[index] + this.delta[index] - 1);
         }
         return 0;
     }
@@ -1,5 +1,12 @@
 package moa.clusterers.streamkm;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  *
@@ -7,6 +14,11 @@ package moa.clusterers.streamkm;
 Christian Sohler, Kamil Swierkot
 
 Modified by Richard Hugh Moulton (24 Jul 2017)
+
+With background reduction, the merge-reduce of a full first bucket runs in a
+background thread while the next points fill the first bucket. At most one
+bucket is being reduced, and the coreset waits for it, so the results are
+the same as with inline reduction.
  */
 public class BucketManager  {
 
@@ -32,12 +44,26 @@ public class BucketManager  {
 	protected Bucket[] buckets;
 	protected MTRandom clustererRandom;
 	protected TreeCoreset treeCoreset;
+
+	//thread of the background reductions, null if they run inline
+	protected ThreadPoolExecutor reduceExecutor;
+	protected Future<?> pendingReduction;
+	//copy of the full first bucket that is being reduced
+	protected Point[] reducedBucket;
 	
 	
 	/**
 	initializes a bucketmanager for n points with bucketsize maxsize and dimension d
 	**/
 	public BucketManager(int n,int d,int maxsize, MTRandom random){
+		this(n, d, maxsize, random, false);
+	}
+
+	/**
+	initializes a bucketmanager for n points with bucketsize maxsize and dimension d,
+	reducing the full buckets in a background thread if backgroundReduction is set
+	**/
+	public BucketManager(int n,int d,int maxsize, MTRandom random, boolean backgroundReduction){
 		this.clustererRandom = random;
 		this.numberOfBuckets = (int) Math.ceil(Math.log((double)n/(double)maxsize) / Math.log(2) )+2;
 		this.maxBucketsize = maxsize;
@@ -46,6 +72,19 @@ public class BucketManager  {
 			this.buckets[i] = new Bucket(d,maxsize);
 		}
 		this.treeCoreset = new TreeCoreset();
+		if(backgroundReduction){
+			this.reducedBucket = new Point[maxsize];
+			this.reduceExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "StreamKM");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			this.reduceExecutor.allowCoreThreadTimeOut(true);
+		}
 		//printf("Created manager with %d buckets of dimension %d \n",this.numberOfBuckets,d);
 	}
 
@@ -55,66 +94,113 @@ public class BucketManager  {
 	void insertPoint(Point p){
 		
 		//check if there is enough space in the first bucket
-		int cursize = this.buckets[0].cursize;	
-		if(cursize >= this.maxBucketsize) {
+		if(this.buckets[0].cursize >= this.maxBucketsize) {
 			//printf("Bucket 0 full \n");
-			//start spillover process
-			int curbucket  = 0;
-			int nextbucket = 1;
-
-			//check if the next bucket is empty
-			if(this.buckets[nextbucket].cursize == 0){
-				//copy the bucket	
-				int i;
-				for(i=0; i<this.maxBucketsize; i++){
-					this.buckets[nextbucket].points[i] = this.buckets[curbucket].points[i].clone();
-					//copyPointWithoutInit: we should not copy coordinates? 
-				}
-				//bucket is now full
-				this.buckets[nextbucket].cursize = this.maxBucketsize;
-				//first bucket is now empty
-				this.buckets[curbucket].cursize = 0;
-				cursize = 0;
+			if(this.reduceExecutor == null){
+				reduceFirstBucket(this.buckets[0].points, p.dimension);
 			} else {
-				//printf("Bucket %d full \n",nextbucket);
-				//copy bucket to spillover and continue
-				int i;
-				for(i=0;i<this.maxBucketsize;i++){
-					this.buckets[nextbucket].spillover[i] = this.buckets[curbucket].points[i].clone();
-					//copyPointWithoutInit: we should not copy coordinates? 
-				}
-				this.buckets[0].cursize=0;
-				cursize = 0;
-				curbucket++;
-				nextbucket++;
-				/*
-				as long as the next bucket is full output the coreset to the spillover of the next bucket
-				*/
-				while(this.buckets[nextbucket].cursize == this.maxBucketsize){
-					//printf("Bucket %d full \n",nextbucket);
-					this.treeCoreset.unionTreeCoreset(this.maxBucketsize,this.maxBucketsize,
-						this.maxBucketsize,p.dimension, 
-						this.buckets[curbucket].points,this.buckets[curbucket].spillover,
-						this.buckets[nextbucket].spillover, this.clustererRandom);
-					//bucket now empty
-					this.buckets[curbucket].cursize = 0;
-					curbucket++;
-					nextbucket++;
-				}
-				this.treeCoreset.unionTreeCoreset(this.maxBucketsize,this.maxBucketsize,
-						this.maxBucketsize,p.dimension, 
-						this.buckets[curbucket].points,this.buckets[curbucket].spillover,
-						this.buckets[nextbucket].points, this.clustererRandom);
-				this.buckets[curbucket].cursize = 0;
-				this.buckets[nextbucket].cursize = this.maxBucketsize;
+				//the previous reduction must be over before the next one
+				waitForReduction();
+				//the first bucket refills while its copy is reduced
+				System.arraycopy(this.buckets[0].points, 0, this.reducedBucket, 0, this.maxBucketsize);
+				final int d = p.dimension;
+				this.pendingReduction = this.reduceExecutor.submit(new Runnable() {
+					@Override
+					public void run() {
+						reduceFirstBucket(reducedBucket, d);
+					}
+				});
 			}
+			//first bucket is now empty
+			this.buckets[0].cursize = 0;
 		}
 		//insert point into the first bucket
-		this.buckets[0].points[cursize] = p.clone();
+		this.buckets[0].points[this.buckets[0].cursize] = p.clone();
 		//copyPointWithoutInit: we should not copy coordinates? 
 		this.buckets[0].cursize++;
 	}
 
+	/**
+	spills the points of the full first bucket over into the next buckets, computing
+	the coresets of the full buckets on the way. Does not change the first bucket.
+	**/
+	protected void reduceFirstBucket(Point[] firstBucket, int d){
+		//start spillover process
+		int curbucket  = 0;
+		int nextbucket = 1;
+
+		//check if the next bucket is empty
+		if(this.buckets[nextbucket].cursize == 0){
+			//copy the bucket	
+			int i;
+			for(i=0; i<this.maxBucketsize; i++){
+				this.buckets[nextbucket].points[i] = firstBucket[i].clone();
+				//copyPointWithoutInit: we should not copy coordinates? 
+			}
+			//bucket is now full
+			this.buckets[nextbucket].cursize = this.maxBucketsize;
+		} else {
+			//printf("Bucket %d full \n",nextbucket);
+			//copy bucket to spillover and continue
+			int i;
+			for(i=0;i<this.maxBucketsize;i++){
+				this.buckets[nextbucket].spillover[i] = firstBucket[i].clone();
+				//copyPointWithoutInit: we should not copy coordinates? 
+			}
+			curbucket++;
+			nextbucket++;
+			/*
+			as long as the next bucket is full output the coreset to the spillover of the next bucket
+			*/
+			while(this.buckets[nextbucket].cursize == this.maxBucketsize){
+				//printf("Bucket %d full \n",nextbucket);
+				this.treeCoreset.unionTreeCoreset(this.maxBucketsize,this.maxBucketsize,
+					this.maxBucketsize,d, 
+					this.buckets[curbucket].points,this.buckets[curbucket].spillover,
+					this.buckets[nextbucket].spillover, this.clustererRandom);
+				//bucket now empty
+				this.buckets[curbucket].cursize = 0;
+				curbucket++;
+				nextbucket++;
+			}
+			this.treeCoreset.unionTreeCoreset(this.maxBucketsize,this.maxBucketsize,
+					this.maxBucketsize,d, 
+					this.buckets[curbucket].points,this.buckets[curbucket].spillover,
+					this.buckets[nextbucket].points, this.clustererRandom);
+			this.buckets[curbucket].cursize = 0;
+			this.buckets[nextbucket].cursize = this.maxBucketsize;
+		}
+	}
+
+	/**
+	waits until the background reduction, if any, is over
+	**/
+	void waitForReduction(){
+		if(this.pendingReduction == null){
+			return;
+		}
+		try {
+			this.pendingReduction.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			this.pendingReduction = null;
+		}
+	}
+
+	/**
+	ends the thread of the background reductions
+	**/
+	void shutdown(){
+		if(this.reduceExecutor != null){
+			waitForReduction();
+			this.reduceExecutor.shutdown();
+		}
+	}
+
 	/**
 	It may happen that the manager is not full (since n is not always a power of 2). In this case we extract the coreset
 	from the manager by computing a coreset of all nonempty buckets
@@ -128,6 +214,7 @@ public class BucketManager  {
 	this operation should only be called after the streaming process is finished
 	**/
 	Point[] getCoresetFromManager(int d){
+		waitForReduction();
 		Point[] coreset = new Point[d];
 		int i = 0;
 		//if(this.buckets[this.numberOfBuckets-1].cursize == this.maxBucketsize){
@@ -1,5 +1,12 @@
 package moa.clusterers.streamkm;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import moa.cluster.Clustering;
@@ -37,6 +44,12 @@ public class StreamKM extends AbstractClusterer {
 	public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
 			"Seed for random behaviour of the classifier.", 1);	
 
+	public FlagOption backgroundReductionOption = new FlagOption("backgroundReduction",
+			'b', "Reduce the full buckets of the coreset in a background thread.");
+
+	public FlagOption parallelRestartsOption = new FlagOption("parallelRestarts",
+			'p', "Run the k-means++ restarts of the clustering in parallel, each with its own random seed.");
+
 	protected MTRandom clustererRandom;
 	protected Point[] centresStreamingCoreset;
 
@@ -53,8 +66,14 @@ public class StreamKM extends AbstractClusterer {
 
 	private final static double THRESHOLD = 1.000;
 
+	private final static int NUM_RESTARTS = 5;
+
 	@Override
 	public void resetLearningImpl() {
+		if (this.manager != null) {
+			this.manager.shutdown();
+			this.manager = null;
+		}
 		this.initialized = false;
 		this.coresetsize = sizeCoresetOption.getValue();
 		this.numberOfCentres = numClustersOption.getValue();
@@ -70,7 +89,8 @@ public class StreamKM extends AbstractClusterer {
 
 		if (this.initialized == false) {
 			this.dimension =  inst.numAttributes();
-			manager = new BucketManager(this.length, this.dimension, this.coresetsize, this.clustererRandom);
+			manager = new BucketManager(this.length, this.dimension, this.coresetsize, this.clustererRandom,
+					this.backgroundReductionOption.isSet());
 			this.initialized = true;
 		}
 
@@ -80,32 +100,7 @@ public class StreamKM extends AbstractClusterer {
 		if (this.numberInstances % lengthOption.getValue() == 0) {
 
 			Point[] streamingCoreset = manager.getCoresetFromManager(dimension);
-
-			//compute 5 clusterings of the coreset with kMeans++ and take the best
-			CoresetCostTriple triple;
-			double minCost = 0.0;
-			double curCost = 0.0;
-
-			triple = lloydPlusPlus(numberOfCentres, coresetsize, dimension, streamingCoreset);
-			minCost = triple.getCoresetCost();
-			for (int j = 0 ; j < this.numberOfCentres ; j++)
-			{
-				centresStreamingCoreset[j] = triple.getCoresetCentres()[j].clone();
-			}
-			curCost = minCost;
-
-			for(int i = 1; i < 5; i++){
-				triple = lloydPlusPlus(numberOfCentres, coresetsize, dimension, streamingCoreset);
-				curCost = triple.getCoresetCost();
-
-				if(curCost < minCost) {
-					minCost = curCost;
-					for (int j = 0 ; j < this.numberOfCentres ; j++)
-					{
-						centresStreamingCoreset[j] = triple.getCoresetCentres()[j].clone();
-					}
-				}
-			}
+			clusterCoreset(streamingCoreset);
 		}
 	}
 
@@ -139,32 +134,7 @@ public class StreamKM extends AbstractClusterer {
 		if (!evaluateOption.isSet())
 		{
 			Point[] streamingCoreset = manager.getCoresetFromManager(dimension);
-
-			//compute 5 clusterings of the coreset with kMeans++ and take the best
-			CoresetCostTriple triple;
-			double minCost = 0.0;
-			double curCost = 0.0;
-
-			triple = lloydPlusPlus(numberOfCentres, coresetsize, dimension, streamingCoreset);
-			minCost = triple.getCoresetCost();
-			for (int j = 0 ; j < this.numberOfCentres ; j++)
-			{
-				centresStreamingCoreset[j] = triple.getCoresetCentres()[j].clone();
-			}
-			curCost = minCost;
-
-			for(int i = 1; i < 5; i++){
-				triple = lloydPlusPlus(numberOfCentres, coresetsize, dimension, streamingCoreset);
-				curCost = triple.getCoresetCost();
-
-				if(curCost < minCost) {
-					minCost = curCost;
-					for (int j = 0 ; j < this.numberOfCentres ; j++)
-					{
-						centresStreamingCoreset[j] = triple.getCoresetCentres()[j].clone();
-					}
-				}
-			}
+			CoresetCostTriple triple = clusterCoreset(streamingCoreset);
 
 			for ( int i = 0; i < centresStreamingCoreset.length; i++ ) {
 				if(centresStreamingCoreset[i] != null){
@@ -177,13 +147,70 @@ public class StreamKM extends AbstractClusterer {
 	}
 
 
+	/**
+	computes 5 clusterings of the coreset with kMeans++ and keeps the centres of the
+	best one in centresStreamingCoreset. Returns the last clustering computed.
+	**/
+	protected CoresetCostTriple clusterCoreset(final Point[] streamingCoreset){
+		CoresetCostTriple[] triples = new CoresetCostTriple[NUM_RESTARTS];
+		if (this.parallelRestartsOption.isSet()) {
+			//the seeds are drawn in order, so that the result does not depend on the threads
+			List<Callable<CoresetCostTriple>> restarts = new ArrayList<Callable<CoresetCostTriple>>();
+			for (int i = 0; i < NUM_RESTARTS; i++) {
+				final MTRandom random = new MTRandom(this.clustererRandom.nextInt());
+				restarts.add(new Callable<CoresetCostTriple>() {
+					@Override
+					public CoresetCostTriple call() {
+						return lloydPlusPlus(numberOfCentres, coresetsize, dimension, streamingCoreset, random);
+					}
+				});
+			}
+			try {
+				List<Future<CoresetCostTriple>> results = ForkJoinPool.commonPool().invokeAll(restarts);
+				for (int i = 0; i < NUM_RESTARTS; i++) {
+					triples[i] = results.get(i).get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		} else {
+			for (int i = 0; i < NUM_RESTARTS; i++) {
+				triples[i] = lloydPlusPlus(numberOfCentres, coresetsize, dimension, streamingCoreset);
+			}
+		}
+
+		//take the first clustering of minimum cost
+		int best = 0;
+		for (int i = 1; i < NUM_RESTARTS; i++) {
+			if (triples[i].getCoresetCost() < triples[best].getCoresetCost()) {
+				best = i;
+			}
+		}
+		for (int j = 0 ; j < this.numberOfCentres ; j++)
+		{
+			centresStreamingCoreset[j] = triples[best].getCoresetCentres()[j].clone();
+		}
+		return triples[NUM_RESTARTS - 1];
+	}
+
 	public CoresetCostTriple lloydPlusPlus(int k, int n, int d, Point points[]){
+		return lloydPlusPlus(k, n, d, points, this.clustererRandom);
+	}
+
+	/**
+	computes a clustering of the points with kMeans++, drawing the initial centres with
+	the given random generator. Does not change the points.
+	**/
+	public CoresetCostTriple lloydPlusPlus(int k, int n, int d, Point points[], MTRandom random){
 		//printf("starting kMeans++\n");
 		CoresetCostTriple triple;
 		double[] radii = new double[k];
 
 		//choose random centres
-		Point[] centres = chooseRandomCentres(k, n, d, points);
+		Point[] centres = chooseRandomCentres(k, n, d, points, random);
 		double cost = targetFunctionValue(k, n, centres, points);
 		double newCost = cost;
 
@@ -261,10 +288,13 @@ public class StreamKM extends AbstractClusterer {
 		return triple; 
 	}
 
-	private Point[] chooseRandomCentres(int k, int n, int d, Point points[]){
+	private Point[] chooseRandomCentres(int k, int n, int d, Point points[], MTRandom clustererRandom){
 
 		//array to store the choosen centres
 		Point[] centres = new Point[k]; 
+		//cost of each point to its closest centre, kept apart from the points so that
+		//several clusterings of the same points can run at the same time
+		double[] curCost = new double[n];
 
 		//choose the first centre (each point has the same probability of being choosen)
 		int i = 0;
@@ -272,7 +302,7 @@ public class StreamKM extends AbstractClusterer {
 		int next = 0;
 		int j = 0;
 		do{ //only choose from the n-i points not already choosen
-			next = this.clustererRandom.nextInt(n-1); 
+			next = clustererRandom.nextInt(n-1); 
 
 			//check if the choosen point is not a dummy
 		} while( points[next].weight < 1);
@@ -284,8 +314,7 @@ public class StreamKM extends AbstractClusterer {
 
 		//set the current centre for all points to the choosen centre
 		for(i = 0; i < n; i++){
-			points[i].centreIndex = 0;
-			points[i].curCost = points[i].costOfPointToCenter(centres[0]);
+			curCost[i] = points[i].costOfPointToCenter(centres[0]);
 
 		}
 		//choose centre 1 to k-1 with the kMeans++ distribution
@@ -293,7 +322,7 @@ public class StreamKM extends AbstractClusterer {
 
 			double cost = 0.0;
 			for(j = 0; j < n; j++){
-				cost += points[j].curCost;
+				cost += curCost[j];
 			}
 
 			double random = 0;
@@ -301,12 +330,12 @@ public class StreamKM extends AbstractClusterer {
 			int pos = -1;
 
 			do{
-				random = this.clustererRandom.nextDouble();//genrand_real3();
+				random = clustererRandom.nextDouble();//genrand_real3();
 				sum = 0.0;
 				pos = -1;
 
 				for(j = 0; j < n; j++){
-					sum = sum + points[j].curCost;
+					sum = sum + curCost[j];
 					if(random <= sum/cost){
 						pos = j;
 						break;
@@ -319,9 +348,8 @@ public class StreamKM extends AbstractClusterer {
 			//check which points are closest to the new centre
 			for(j = 0; j < n; j++){
 				double newCost = points[j].costOfPointToCenter(centres[i]);
-				if(points[j].curCost > newCost){
-					points[j].curCost = newCost;
-					points[j].centreIndex = i;
+				if(curCost[j] > newCost){
+					curCost[j] = newCost;
 				}
 			}
 
@@ -21,24 +21,46 @@ package moa.core;
 
 import nz.ac.waikato.cms.locator.ClassCache;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 
 /**
  * Class for discovering classes via reflection in the java class path.
  *
+ * <p>The classes of MOA are looked up in the component index generated by
+ * ComponentIndexProcessor when building MOA, so that they do not need to be
+ * loaded to know their types. The classes missing from the index, such as
+ * the ones of other libraries, are loaded and checked.</p>
+ *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  */
 public class AutoClassDiscovery {
 
+    /** The resource of the component index. */
+    public static final String COMPONENT_INDEX = "moa/core/ComponentIndex.props";
+
+    /** The key of the component index listing all the indexed classes. */
+    public static final String INDEXED_CLASSES_KEY = "IndexedClasses";
+
     protected static final Map<String, String[]> cachedClassNames = new HashMap<String, String[]>();
 
     protected static ClassCache m_Cache;
 
+    /** The component index, null if not loaded yet, empty if missing. */
+    protected static Properties componentIndex;
+
+    protected static Set<String> indexedClassNames;
+
+    protected static final Map<String, Set<String>> indexedClassNamesOfType = new HashMap<String, Set<String>>();
+
     public static synchronized String[] findClassNames(String packageNameToSearch) {
         String[] cached = cachedClassNames.get(packageNameToSearch);
         if (cached == null) {
@@ -63,8 +85,22 @@ public class AutoClassDiscovery {
             Class<?> typeDesired) {
         ArrayList<Class<?>> classesFound = new ArrayList<Class<?>>();
         String[] classNames = findClassNames(packageNameToSearch);
+        Set<String> indexedClasses = Collections.emptySet();
+        Set<String> indexedClassesOfType = Collections.emptySet();
+        if (isIndexedType(typeDesired.getName())) {
+            indexedClasses = getIndexedClassNames();
+            indexedClassesOfType = getIndexedClassNames(typeDesired.getName());
+        }
         for (String className : classNames) {
-            if (isPublicConcreteClassOfType(className, typeDesired)) {
+            boolean isOfType;
+            if (isIndexedClass(className, indexedClasses)) {
+                isOfType = indexedClassesOfType.contains(className)
+                        || (className.equals(typeDesired.getName())
+                        && isPublicConcreteClassOfType(className, typeDesired));
+            } else {
+                isOfType = isPublicConcreteClassOfType(className, typeDesired);
+            }
+            if (isOfType) {
                 try {
                     classesFound.add(Class.forName(className));
                 } catch (Exception ignored) {
@@ -97,4 +133,92 @@ public class AutoClassDiscovery {
             return false;
         }
     }
+
+    /**
+     * Gets whether the component index lists the classes of a type. The
+     * types of java are left out, as most classes are of some of them.
+     *
+     * @param typeName the name of the type
+     * @return true if the index lists the classes of the type
+     */
+    public static boolean isIndexedType(String typeName) {
+        return !typeName.startsWith("java.") && !typeName.startsWith("javax.");
+    }
+
+    /**
+     * Gets whether a class is in the component index. The anonymous and
+     * local classes, which are never public, are left out of the index, and
+     * are in it if their top level class is.
+     *
+     * @param className the name of the class
+     * @param indexedClasses the names of all the classes in the index
+     * @return true if the class is in the index
+     */
+    protected static boolean isIndexedClass(String className, Set<String> indexedClasses) {
+        if (indexedClasses.contains(className)) {
+            return true;
+        }
+        int nested = className.indexOf('$');
+        if (nested < 0 || !indexedClasses.contains(className.substring(0, nested))) {
+            return false;
+        }
+        for (String name : className.substring(nested + 1).split("\\$")) {
+            if (!name.isEmpty() && Character.isDigit(name.charAt(0))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the names of all the classes in the component index.
+     *
+     * @return the names of the classes, empty if there is no index
+     */
+    public static synchronized Set<String> getIndexedClassNames() {
+        if (indexedClassNames == null) {
+            indexedClassNames = splitClassNames(getComponentIndex().getProperty(INDEXED_CLASSES_KEY));
+        }
+        return indexedClassNames;
+    }
+
+    /**
+     * Gets the names of the public concrete classes of a type with an empty
+     * constructor in the component index, apart from the type itself.
+     *
+     * @param typeName the name of the type
+     * @return the names of the classes
+     */
+    public static synchronized Set<String> getIndexedClassNames(String typeName) {
+        Set<String> classNames = indexedClassNamesOfType.get(typeName);
+        if (classNames == null) {
+            classNames = splitClassNames(getComponentIndex().getProperty(typeName));
+            indexedClassNamesOfType.put(typeName, classNames);
+        }
+        return classNames;
+    }
+
+    protected static synchronized Properties getComponentIndex() {
+        if (componentIndex == null) {
+            componentIndex = new Properties();
+            InputStream in = AutoClassDiscovery.class.getClassLoader().getResourceAsStream(COMPONENT_INDEX);
+            if (in != null) {
+                try {
+                    componentIndex.load(in);
+                    in.close();
+                } catch (Exception e) {
+                    System.err.println("Reading the component index: " + e.getMessage());
+                    componentIndex = new Properties();
+                }
+            }
+        }
+        return componentIndex;
+    }
+
+    protected static Set<String> splitClassNames(String classNames) {
+        if (classNames == null || classNames.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<String>(Arrays.asList(classNames.split(",")));
+    }
 }
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 import moa.AbstractMOAObject;
+import moa.FastCopyable;
 import moa.MOAObject;
 
 /**
@@ -31,7 +32,7 @@ import moa.MOAObject;
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class AutoExpandVector<T> extends ArrayList<T> implements MOAObject {
+public class AutoExpandVector<T> extends ArrayList<T> implements FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -115,9 +116,33 @@ public class AutoExpandVector<T> extends ArrayList<T> implements MOAObject {
         trimToSize();
     }
 
+    /**
+     * Copies this vector. When every element is null or fast copyable the
+     * elements are copied one by one, otherwise the whole vector is copied
+     * through serialization.
+     *
+     * @return a copy of this vector
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public MOAObject copy() {
-        return AbstractMOAObject.copy(this);
+        if (getClass() != AutoExpandVector.class) {
+            return AbstractMOAObject.copy(this);
+        }
+        for (T obj : this) {
+            if (obj != null && !(obj instanceof FastCopyable)) {
+                return AbstractMOAObject.copy(this);
+            }
+        }
+        AutoExpandVector<T> copy = new AutoExpandVector<T>(size());
+        for (T obj : this) {
+            copy.addUntrimmed(obj == null ? null : (T) ((FastCopyable) obj).copy());
+        }
+        return copy;
+    }
+
+    private void addUntrimmed(T obj) {
+        super.add(obj);
     }
 
     @Override
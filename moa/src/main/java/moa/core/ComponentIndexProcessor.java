@@ -0,0 +1,169 @@
+/*
+ *    ComponentIndexProcessor.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes the component index read by
+ * AutoClassDiscovery. It is run by the build over the sources of MOA, and
+ * lists every class it sees, and the public concrete classes with an empty
+ * constructor under each of their super classes and interfaces.
+ *
+ * @see AutoClassDiscovery
+ */
+@SupportedAnnotationTypes("*")
+public class ComponentIndexProcessor extends AbstractProcessor {
+
+    /** All the classes seen, by binary name. */
+    protected Set<String> indexedClassNames = new TreeSet<String>();
+
+    /** The public concrete classes, by the name of their super types. */
+    protected Map<String, Set<String>> classNamesOfType = new TreeMap<String, Set<String>>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                indexType((TypeElement) element);
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    protected void indexType(TypeElement type) {
+        String className = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+        this.indexedClassNames.add(className);
+        if (isPublicConcreteClass(type)) {
+            Set<String> superTypes = new TreeSet<String>();
+            addSuperTypes(type.asType(), superTypes);
+            for (String superType : superTypes) {
+                Set<String> classNames = this.classNamesOfType.get(superType);
+                if (classNames == null) {
+                    classNames = new TreeSet<String>();
+                    this.classNamesOfType.put(superType, classNames);
+                }
+                classNames.add(className);
+            }
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (member instanceof TypeElement) {
+                indexType((TypeElement) member);
+            }
+        }
+    }
+
+    /**
+     * Same test as AutoClassDiscovery.isPublicConcreteClassOfType, without
+     * the type.
+     */
+    protected boolean isPublicConcreteClass(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (type.getKind() != ElementKind.CLASS
+                || !modifiers.contains(Modifier.PUBLIC)
+                || modifiers.contains(Modifier.ABSTRACT)
+                || (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC))) {
+            return false;
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR
+                    && member.getModifiers().contains(Modifier.PUBLIC)
+                    && ((ExecutableElement) member).getParameters().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the names of the super classes and interfaces of a type, except
+     * the ones of java, for which AutoClassDiscovery does not use the index.
+     */
+    protected void addSuperTypes(TypeMirror type, Set<String> superTypes) {
+        for (TypeMirror superType : this.processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (superType.getKind() != TypeKind.DECLARED) {
+                continue;
+            }
+            TypeElement element = (TypeElement) ((DeclaredType) superType).asElement();
+            String name = this.processingEnv.getElementUtils().getBinaryName(element).toString();
+            if (!AutoClassDiscovery.isIndexedType(name)) {
+                addSuperTypes(superType, superTypes);
+            } else if (superTypes.add(name)) {
+                addSuperTypes(superType, superTypes);
+            }
+        }
+    }
+
+    /**
+     * Writes the index as properties, sorted so that the index does not
+     * change from one build to the next. Class names need no escaping.
+     */
+    protected void writeIndex() {
+        try (Writer out = this.processingEnv.getFiler().createResource(
+                StandardLocation.CLASS_OUTPUT, "", AutoClassDiscovery.COMPONENT_INDEX).openWriter()) {
+            out.write("# Generated by " + getClass().getName() + ", do not edit\n");
+            out.write(AutoClassDiscovery.INDEXED_CLASSES_KEY + "=" + join(this.indexedClassNames) + "\n");
+            for (Map.Entry<String, Set<String>> entry : this.classNamesOfType.entrySet()) {
+                out.write(entry.getKey() + "=" + join(entry.getValue()) + "\n");
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not write the component index: " + e.getMessage());
+        }
+    }
+
+    protected static String join(Set<String> names) {
+        StringBuilder joined = new StringBuilder();
+        for (String name : names) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(name);
+        }
+        return joined.toString();
+    }
+}
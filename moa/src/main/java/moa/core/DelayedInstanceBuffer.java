@@ -0,0 +1,240 @@
+/*
+ *    DelayedInstanceBuffer.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Buffer of the instances of a stream that wait for their labels, in stream
+ * order. Only the attribute values, label included, and the weight of the
+ * instances are stored, in preallocated rows of doubles used as a ring, on
+ * the heap or in a memory mapped file. Instances are created again when
+ * they are read from the buffer. The buffer grows if it is full.
+ *
+ * <p>A row has a value for every attribute, so a sparse instance takes as
+ * much room as a dense one, and it is read back as a DenseInstance. On
+ * streams with many attributes and few non-zero values, the buffer can
+ * take much more memory than the instances it was given.</p>
+ *
+ * <p>Every instance added gets an index, the number of instances added
+ * before it, that can be used to read it as long as it is not removed.</p>
+ */
+public class DelayedInstanceBuffer implements Closeable {
+
+    /** Maximum number of doubles in a segment of the rows. */
+    protected static final int MAX_SEGMENT_SIZE = 1 << 27;
+
+    protected InstancesHeader header;
+
+    /** Number of doubles of a row: the attribute values, then the weight. */
+    protected int rowLength;
+
+    protected int rowsPerSegment;
+
+    protected List<DoubleBuffer> segments = new ArrayList<DoubleBuffer>();
+
+    /** The memory mapped file, or null if the rows are on the heap. */
+    protected RandomAccessFile file;
+
+    protected int capacity;
+
+    /** Row of the first instance. */
+    protected int head;
+
+    protected int size;
+
+    /** Index of the first instance. */
+    protected long firstIndex;
+
+    /**
+     * Creates a buffer on the heap.
+     *
+     * @param header the header of the instances
+     * @param capacity the number of instances to allocate room for
+     */
+    public DelayedInstanceBuffer(InstancesHeader header, int capacity) {
+        this.header = header;
+        this.rowLength = header.numAttributes() + 1;
+        this.rowsPerSegment = Math.max(1, Math.min(capacity, MAX_SEGMENT_SIZE / this.rowLength));
+        addSegments(Math.max(1, capacity));
+    }
+
+    /**
+     * Creates a buffer in a memory mapped file, which is overwritten.
+     *
+     * @param header the header of the instances
+     * @param capacity the number of instances to allocate room for
+     * @param file the file to map
+     * @throws IOException if the file cannot be mapped
+     */
+    public DelayedInstanceBuffer(InstancesHeader header, int capacity, File file) throws IOException {
+        this.header = header;
+        this.rowLength = header.numAttributes() + 1;
+        this.rowsPerSegment = Math.max(1, Math.min(capacity, MAX_SEGMENT_SIZE / this.rowLength));
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        addSegments(Math.max(1, capacity));
+    }
+
+    protected void addSegments(int newCapacity) {
+        while (this.capacity < newCapacity) {
+            int segmentSize = this.rowsPerSegment * this.rowLength;
+            if (this.file == null) {
+                this.segments.add(DoubleBuffer.wrap(new double[segmentSize]));
+            } else {
+                long position = (long) this.segments.size() * segmentSize * 8;
+                try {
+                    this.segments.add(this.file.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                            position, (long) segmentSize * 8).asDoubleBuffer());
+                } catch (IOException e) {
+                    throw new RuntimeException("Unable to map the instance buffer file", e);
+                }
+            }
+            this.capacity += this.rowsPerSegment;
+        }
+    }
+
+    /**
+     * Doubles the capacity, moving the instances that wrapped around the
+     * end of the ring after the instances at its end.
+     */
+    protected void grow() {
+        int oldCapacity = this.capacity;
+        addSegments(2 * oldCapacity);
+        int wrapped = this.head + this.size - oldCapacity;
+        for (int row = 0; row < wrapped; row++) {
+            for (int i = 0; i < this.rowLength; i++) {
+                set(oldCapacity + row, i, get(row, i));
+            }
+        }
+    }
+
+    protected double get(int row, int i) {
+        return this.segments.get(row / this.rowsPerSegment).get(
+                (row % this.rowsPerSegment) * this.rowLength + i);
+    }
+
+    protected void set(int row, int i, double value) {
+        this.segments.get(row / this.rowsPerSegment).put(
+                (row % this.rowsPerSegment) * this.rowLength + i, value);
+    }
+
+    protected int rowOf(long index) {
+        if (index < this.firstIndex || index >= this.firstIndex + this.size) {
+            throw new IndexOutOfBoundsException("Instance " + index + " is not in the buffer");
+        }
+        return (int) ((this.head + (index - this.firstIndex)) % this.capacity);
+    }
+
+    /**
+     * Adds an instance at the end of the buffer.
+     *
+     * @param instance the instance, which is not kept
+     * @return the index of the instance
+     */
+    public long add(Instance instance) {
+        if (this.size == this.capacity) {
+            grow();
+        }
+        int row = (this.head + this.size) % this.capacity;
+        int numAttributes = this.rowLength - 1;
+        for (int i = 0; i < numAttributes; i++) {
+            set(row, i, instance.value(i));
+        }
+        set(row, numAttributes, instance.weight());
+        this.size++;
+        return this.firstIndex + this.size - 1;
+    }
+
+    /**
+     * Creates again an instance of the buffer.
+     *
+     * @param index the index of the instance
+     * @return a new example with the instance
+     */
+    public Example<Instance> get(long index) {
+        int row = rowOf(index);
+        int numAttributes = this.rowLength - 1;
+        double[] values = new double[numAttributes];
+        for (int i = 0; i < numAttributes; i++) {
+            values[i] = get(row, i);
+        }
+        Instance instance = new DenseInstance(get(row, numAttributes), values);
+        instance.setDataset(this.header);
+        return new InstanceExample(instance);
+    }
+
+    /**
+     * Removes the first instance of the buffer.
+     *
+     * @return a new example with the instance
+     */
+    public Example<Instance> removeFirst() {
+        Example<Instance> first = get(this.firstIndex);
+        removeBefore(this.firstIndex + 1);
+        return first;
+    }
+
+    /**
+     * Removes the instances added before an index.
+     *
+     * @param index the index of the first instance to keep
+     */
+    public void removeBefore(long index) {
+        int removed = (int) Math.min(this.size, Math.max(0, index - this.firstIndex));
+        this.head = (this.head + removed) % this.capacity;
+        this.size -= removed;
+        this.firstIndex += removed;
+    }
+
+    /**
+     * @return the index of the first instance, or of the next instance
+     * added if the buffer is empty
+     */
+    public long firstIndex() {
+        return this.firstIndex;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.segments.clear();
+        if (this.file != null) {
+            this.file.close();
+            this.file = null;
+        }
+    }
+}
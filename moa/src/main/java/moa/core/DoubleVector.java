@@ -20,6 +20,7 @@
 package moa.core;
 
 import moa.AbstractMOAObject;
+import moa.FastCopyable;
 
 /**
  * Vector of double numbers with some utilities.
@@ -27,7 +28,7 @@ import moa.AbstractMOAObject;
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class DoubleVector extends AbstractMOAObject {
+public class DoubleVector extends AbstractMOAObject implements FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -46,6 +47,14 @@ public class DoubleVector extends AbstractMOAObject {
         this(toCopy.getArrayRef());
     }
 
+    @Override
+    public DoubleVector copy() {
+        if (getClass() != DoubleVector.class) {
+            return (DoubleVector) super.copy();
+        }
+        return new DoubleVector(this.array);
+    }
+
     public int numValues() {
         return this.array.length;
     }
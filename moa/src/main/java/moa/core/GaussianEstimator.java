@@ -20,6 +20,7 @@
 package moa.core;
 
 import moa.AbstractMOAObject;
+import moa.FastCopyable;
 
 /**
  * Gaussian incremental estimator that uses incremental method that is more resistant to floating point imprecision.
@@ -28,7 +29,7 @@ import moa.AbstractMOAObject;
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class GaussianEstimator extends AbstractMOAObject {
+public class GaussianEstimator extends AbstractMOAObject implements FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -40,6 +41,18 @@ public class GaussianEstimator extends AbstractMOAObject {
 
     public static final double NORMAL_CONSTANT = Math.sqrt(2 * Math.PI);
 
+    @Override
+    public GaussianEstimator copy() {
+        if (getClass() != GaussianEstimator.class) {
+            return (GaussianEstimator) super.copy();
+        }
+        GaussianEstimator copy = new GaussianEstimator();
+        copy.weightSum = this.weightSum;
+        copy.mean = this.mean;
+        copy.varianceSum = this.varianceSum;
+        return copy;
+    }
+
     public void addObservation(double value, double weight) {
         if (Double.isInfinite(value) || Double.isNaN(value)) {
             return;
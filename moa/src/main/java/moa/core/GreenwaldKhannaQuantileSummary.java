@@ -19,7 +19,6 @@
  */
 package moa.core;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 
 import moa.AbstractMOAObject;
@@ -27,53 +26,44 @@ import moa.AbstractMOAObject;
 /**
  * Class for representing summaries of Greenwald and Khanna quantiles.
  *
+ * <p>The tuples of the summary are kept in parallel primitive arrays, allocated
+ * once for the maximum number of tuples, so that inserting a value allocates
+ * nothing.</p>
+ *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
 public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
 
-    private static final long serialVersionUID = 1L;
-
-    protected static class Tuple implements Serializable {
-
-        private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
-        public double v;
+    /** Values of the tuples, in increasing order. */
+    protected double[] values;
 
-        public long g;
+    /** Number of observations between a tuple and the previous one. */
+    protected long[] g;
 
-        public long delta;
-
-        public Tuple(double v, long g, long delta) {
-            this.v = v;
-            this.g = g;
-            this.delta = delta;
-        }
-
-        public Tuple(double v) {
-            this(v, 1, 0);
-        }
-    }
-
-    protected Tuple[] summary;
+    /** Uncertainty on the rank of the tuples. */
+    protected long[] delta;
 
     protected int numTuples = 0;
 
     protected long numObservations = 0;
 
     public GreenwaldKhannaQuantileSummary(int maxTuples) {
-        this.summary = new Tuple[maxTuples];
+        this.values = new double[maxTuples];
+        this.g = new long[maxTuples];
+        this.delta = new long[maxTuples];
     }
 
     public void insert(double val) {
         int i = findIndexOfTupleGreaterThan(val);
-        Tuple nextT = this.summary[i];
-        if (nextT == null) {
-            insertTuple(new Tuple(val, 1, 0), i);
+        if (i == this.numTuples) {
+            insertTuple(val, 1, 0, i);
         } else {
-            insertTuple(new Tuple(val, 1, nextT.g + nextT.delta - 1), i);
+            insertTuple(val, 1, this.g[i] + this.delta[i] - 1, i);
         }
-        if (this.numTuples == this.summary.length) {
+        if (this.numTuples == this.values.length) {
             // use method 1
             deleteMergeableTupleMostFull();
             // if (mergeMethod == 1) {
@@ -92,29 +82,40 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
         this.numObservations++;
     }
 
-    protected void insertTuple(Tuple t, int index) {
-        System.arraycopy(this.summary, index, this.summary, index + 1,
-                this.numTuples - index);
-        this.summary[index] = t;
+    protected void insertTuple(double v, long g, long delta, int index) {
+        int numMoved = this.numTuples - index;
+        System.arraycopy(this.values, index, this.values, index + 1, numMoved);
+        System.arraycopy(this.g, index, this.g, index + 1, numMoved);
+        System.arraycopy(this.delta, index, this.delta, index + 1, numMoved);
+        this.values[index] = v;
+        this.g[index] = g;
+        this.delta[index] = delta;
         this.numTuples++;
     }
 
     protected void deleteTuple(int index) {
-        this.summary[index] = new Tuple(this.summary[index + 1].v,
-                this.summary[index].g + this.summary[index + 1].g,
-                this.summary[index + 1].delta);
-        System.arraycopy(this.summary, index + 2, this.summary, index + 1,
-                this.numTuples - index - 2);
-        this.summary[this.numTuples - 1] = null;
-        this.numTuples--;
+        this.values[index] = this.values[index + 1];
+        this.g[index] += this.g[index + 1];
+        this.delta[index] = this.delta[index + 1];
+        removeTuples(index + 1, 1);
+    }
+
+    /**
+     * Removes tuples, shifting the next ones down.
+     */
+    protected void removeTuples(int index, int numRemoved) {
+        int numMoved = this.numTuples - index - numRemoved;
+        System.arraycopy(this.values, index + numRemoved, this.values, index, numMoved);
+        System.arraycopy(this.g, index + numRemoved, this.g, index, numMoved);
+        System.arraycopy(this.delta, index + numRemoved, this.delta, index, numMoved);
+        this.numTuples -= numRemoved;
     }
 
     protected void deleteTupleMostFull() {
         long leastFullness = Long.MAX_VALUE;
         int leastFullIndex = 0;
         for (int i = 1; i < this.numTuples - 1; i++) {
-            long fullness = this.summary[i].g + this.summary[i + 1].g
-                    + this.summary[i + 1].delta;
+            long fullness = this.g[i] + this.g[i + 1] + this.delta[i + 1];
             if (fullness < leastFullness) {
                 leastFullness = fullness;
                 leastFullIndex = i;
@@ -129,9 +130,8 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
         long leastFullness = Long.MAX_VALUE;
         int leastFullIndex = 0;
         for (int i = 1; i < this.numTuples - 1; i++) {
-            long fullness = this.summary[i].g + this.summary[i + 1].g
-                    + this.summary[i + 1].delta;
-            if ((this.summary[i].delta >= this.summary[i + 1].delta)
+            long fullness = this.g[i] + this.g[i + 1] + this.delta[i + 1];
+            if ((this.delta[i] >= this.delta[i + 1])
                     && (fullness < leastFullness)) {
                 leastFullness = fullness;
                 leastFullIndex = i;
@@ -145,7 +145,7 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
     public long getWorstError() {
         long mostFullness = 0;
         for (int i = 1; i < this.numTuples - 1; i++) {
-            long fullness = this.summary[i].g + this.summary[i].delta;
+            long fullness = this.g[i] + this.delta[i];
             if (fullness > mostFullness) {
                 mostFullness = fullness;
             }
@@ -156,8 +156,8 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
     public long findMaxDelta() {
         long maxDelta = 0;
         for (int i = 0; i < this.numTuples; i++) {
-            if (this.summary[i].delta > maxDelta) {
-                maxDelta = this.summary[i].delta;
+            if (this.delta[i] > maxDelta) {
+                maxDelta = this.delta[i];
             }
         }
         return maxDelta;
@@ -166,35 +166,31 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
     public void compress(long maxDelta) {
         long[] bandBoundaries = computeBandBoundaries(maxDelta);
         for (int i = this.numTuples - 2; i >= 0; i--) {
-            if (this.summary[i].delta >= this.summary[i + 1].delta) {
+            if (this.delta[i] >= this.delta[i + 1]) {
                 int band = 0;
-                while (this.summary[i].delta < bandBoundaries[band]) {
+                while (this.delta[i] < bandBoundaries[band]) {
                     band++;
                 }
                 long belowBandThreshold = Long.MAX_VALUE;
                 if (band > 0) {
                     belowBandThreshold = bandBoundaries[band - 1];
                 }
-                long mergeG = this.summary[i + 1].g + this.summary[i].g;
+                long mergeG = this.g[i + 1] + this.g[i];
                 int childI = i - 1;
-                while (((mergeG + this.summary[i + 1].delta) < maxDelta)
+                while (((mergeG + this.delta[i + 1]) < maxDelta)
                         && (childI >= 0)
-                        && (this.summary[childI].delta >= belowBandThreshold)) {
-                    mergeG += this.summary[childI].g;
+                        && (this.delta[childI] >= belowBandThreshold)) {
+                    mergeG += this.g[childI];
                     childI--;
                 }
-                if (mergeG + this.summary[i + 1].delta < maxDelta) {
+                if (mergeG + this.delta[i + 1] < maxDelta) {
                     // merge
                     int numDeleted = i - childI;
-                    this.summary[childI + 1] = new Tuple(this.summary[i + 1].v,
-                            mergeG, this.summary[i + 1].delta);
+                    this.values[childI + 1] = this.values[i + 1];
+                    this.g[childI + 1] = mergeG;
+                    this.delta[childI + 1] = this.delta[i + 1];
                     // todo complete & test this multiple delete
-                    System.arraycopy(this.summary, i + 2, this.summary,
-                            childI + 2, this.numTuples - (i + 2));
-                    for (int j = this.numTuples - numDeleted; j < this.numTuples; j++) {
-                        this.summary[j] = null;
-                    }
-                    this.numTuples -= numDeleted;
+                    removeTuples(childI + 2, numDeleted);
                     i = childI + 1;
                 }
             }
@@ -205,12 +201,12 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
         long r = (long) Math.ceil(quant * this.numObservations);
         long currRank = 0;
         for (int i = 0; i < this.numTuples - 1; i++) {
-            currRank += this.summary[i].g;
-            if (currRank + this.summary[i + 1].g > r) {
-                return this.summary[i].v;
+            currRank += this.g[i];
+            if (currRank + this.g[i + 1] > r) {
+                return this.values[i];
             }
         }
-        return this.summary[this.numTuples - 1].v;
+        return this.values[this.numTuples - 1];
     }
 
     public long getTotalCount() {
@@ -224,19 +220,44 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
     public long getCountBelow(double cutpoint) {
         long rank = 0;
         for (int i = 0; i < this.numTuples; i++) {
-            if (this.summary[i].v > cutpoint) {
+            if (this.values[i] > cutpoint) {
                 break;
             }
-            rank += this.summary[i].g;
+            rank += this.g[i];
         }
         return rank;
     }
 
+    /**
+     * Gets the counts below several cut points in a single pass over the
+     * tuples, the same as calling getCountBelow for each of them.
+     *
+     * @param sortedCutpoints the cut points, in increasing order
+     * @param counts the array to write the count below each cut point to
+     */
+    public void getCountsBelow(double[] sortedCutpoints, long[] counts) {
+        long rank = 0;
+        int i = 0;
+        for (int c = 0; c < sortedCutpoints.length; c++) {
+            while (i < this.numTuples && this.values[i] <= sortedCutpoints[c]) {
+                rank += this.g[i];
+                i++;
+            }
+            counts[c] = rank;
+        }
+    }
+
+    public int getNumTuples() {
+        return this.numTuples;
+    }
+
+    public double getValue(int index) {
+        return this.values[index];
+    }
+
     public double[] getSuggestedCutpoints() {
         double[] cutpoints = new double[this.numTuples];
-        for (int i = 0; i < this.numTuples; i++) {
-            cutpoints[i] = this.summary[i].v;
-        }
+        System.arraycopy(this.values, 0, cutpoints, 0, this.numTuples);
         return cutpoints;
     }
 
@@ -244,7 +265,7 @@ public class GreenwaldKhannaQuantileSummary extends AbstractMOAObject {
         int high = this.numTuples, low = -1, probe;
         while (high - low > 1) {
             probe = (high + low) / 2;
-            if (this.summary[probe].v > val) {
+            if (this.values[probe] > val) {
                 high = probe;
             } else {
                 low = probe;
@@ -1,6 +1,8 @@
 package moa.core;
 
+import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
 
 public class InstanceExample implements Example<Instance> {
 
@@ -31,4 +33,38 @@ public class InstanceExample implements Example<Instance> {
 		return new InstanceExample(instance.copy());
 	}
 
+	/**
+	 * Gets the instance of an example that a stream can fill in place with
+	 * its next instance: a dense instance with the header of the stream.
+	 *
+	 * @param example the example to reuse, may be null
+	 * @param header the header of the stream
+	 * @return the instance to fill, or null if the example cannot be reused
+	 */
+	public static Instance reusableInstance(Example<Instance> example, InstancesHeader header) {
+		if (example == null || example.getClass() != InstanceExample.class) {
+			return null;
+		}
+		Instance inst = example.getData();
+		if (inst == null || inst.getClass() != DenseInstance.class || inst.dataset() != header
+				|| inst.numAttributes() != header.numAttributes()) {
+			return null;
+		}
+		return inst;
+	}
+
+	/**
+	 * Sets all the values and the weight of an instance in place.
+	 *
+	 * @param inst the instance to fill
+	 * @param weight the weight
+	 * @param values the values of all the attributes, including the class
+	 */
+	public static void setValues(Instance inst, double weight, double[] values) {
+		for (int i = 0; i < values.length; i++) {
+			inst.setValue(i, values[i]);
+		}
+		inst.setWeight(weight);
+	}
+
 } 
@@ -99,6 +99,41 @@ public class SerializeUtils {
         return copy;
     }
 
+    /**
+     * Copies an object by serialization, leaving out one of the objects it
+     * refers to. The references to the excluded object are null in the copy,
+     * the object being copied is not modified.
+     *
+     * @param obj the object to copy
+     * @param excluded the object to leave out of the copy
+     * @return the copy
+     */
+    public static Object copyObjectWithout(Serializable obj, final Object excluded)
+            throws Exception {
+        ByteArrayOutputStream baoStream = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(baoStream)) {
+
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object o) {
+                return o == excluded ? null : o;
+            }
+        };
+        out.writeObject(obj);
+        out.flush();
+        out.close();
+        byte[] byteArray = baoStream.toByteArray();
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+                new ByteArrayInputStream(byteArray)));
+        Object copy = in.readObject();
+        in.close();
+        return copy;
+    }
+
     public static int measureObjectByteSize(Serializable obj) throws Exception {
         ByteCountingOutputStream bcoStream = new ByteCountingOutputStream();
         ObjectOutputStream out = new ObjectOutputStream(
@@ -235,7 +235,7 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
         }
     }
 
-    private double getKappaMStatistic() {
+    public double getKappaMStatistic() {
         if (this.getTotalWeightObserved() > 0.0) {
             double p0 = getFractionCorrectlyClassified();
             double pc = this.weightMajorityClassifier.estimation();
@@ -114,6 +114,11 @@ public class CMM_GTAnalysis{
      */
     private int pointErrorByModel;    
     
+    /**
+     * number of threads over which the work on the points is split
+     */
+    private int numThreads = 1;
+
     /**
      * CMM debug mode
      */
@@ -294,8 +299,8 @@ public class CMM_GTAnalysis{
          * + average knn distance and average knn distance deviation of all points 
          */
         private void calculateKnn(){
-            for (int p0 : points) {
-                CMMPoint cmdp = cmmpoints.get(p0);
+            MeasureCollection.forEachPoint(points.size(), numThreads, i -> {
+                CMMPoint cmdp = cmmpoints.get(points.get(i));
                 if(!cmdp.isNoise()){
                     AutoExpandVector<Double> knnDist = new AutoExpandVector<Double>();
                     AutoExpandVector<Integer> knnPointIndex = new AutoExpandVector<Integer>();
@@ -305,17 +310,22 @@ public class CMM_GTAnalysis{
 
                     //TODO: What to do if we have less then k neighbours?
                     double avgKnn = 0;
-                    for (int i = 0; i < knnDist.size(); i++) {
-                        avgKnn+= knnDist.get(i);
+                    for (int k = 0; k < knnDist.size(); k++) {
+                        avgKnn+= knnDist.get(k);
                     }
                     if(knnDist.size()!=0)
                         avgKnn/=knnDist.size();
                     cmdp.knnInCluster = avgKnn;
                     cmdp.knnIndices = knnPointIndex;
                     cmdp.p.setMeasureValue("knnAvg", cmdp.knnInCluster);
-
-                    knnMeanAvg+=avgKnn;
-                    knnDevAvg+=Math.pow(avgKnn,2);
+                }
+            });
+            //sum up in the order of the points, to get the same result with any number of threads
+            for (int p0 : points) {
+                CMMPoint cmdp = cmmpoints.get(p0);
+                if(!cmdp.isNoise()){
+                    knnMeanAvg+=cmdp.knnInCluster;
+                    knnDevAvg+=Math.pow(cmdp.knnInCluster,2);
                 }
             }
             knnMeanAvg=knnMeanAvg/(double)points.size();
@@ -343,9 +353,13 @@ public class CMM_GTAnalysis{
                 AutoExpandVector<Double> kmax = new AutoExpandVector<Double>();
                 AutoExpandVector<Integer> kmaxIndexes = new AutoExpandVector<Integer>();
 
-                for(int p : points){
+                final double[] con = new double[points.size()];
+                MeasureCollection.forEachPoint(con.length, numThreads,
+                        i -> con[i] = getConnectionValue(cmmpoints.get(points.get(i)), otherCid));
+                for (int i = 0; i < con.length; i++) {
+                    int p = points.get(i);
                     CMMPoint cmdp = cmmpoints.get(p);
-                    double con_p_Cj = getConnectionValue(cmmpoints.get(p), otherCid);
+                    double con_p_Cj = con[i];
                     double connection = cmdp.connectivity * con_p_Cj;
                     if(initial){
                         cmdp.p.setMeasureValue("Connection to C"+otherCid, con_p_Cj);
@@ -457,6 +471,17 @@ public class CMM_GTAnalysis{
      * @param enableClassMerge allow class merging (should be set to true on default)
      */
     public CMM_GTAnalysis(Clustering trueClustering, ArrayList<DataPoint> points, boolean enableClassMerge){
+        this(trueClustering, points, enableClassMerge, 1);
+    }
+
+    /**
+     * @param trueClustering the ground truth clustering
+     * @param points data points
+     * @param enableClassMerge allow class merging (should be set to true on default)
+     * @param numThreads number of threads over which the work on the points is split
+     */
+    public CMM_GTAnalysis(Clustering trueClustering, ArrayList<DataPoint> points, boolean enableClassMerge, int numThreads){
+        this.numThreads = numThreads;
         if(debug)
             System.out.println("GT Analysis Debug Output");
 
@@ -623,13 +648,13 @@ public class CMM_GTAnalysis{
      * calculate initial connectivities
      */
     private void calculateGTPointQualities(){
-        for (int p = 0; p < numPoints; p++) {
+        MeasureCollection.forEachPoint(numPoints, numThreads, p -> {
             CMMPoint cmdp = cmmpoints.get(p);
             if(!cmdp.isNoise()){
                 cmdp.connectivity = getConnectionValue(cmdp, cmdp.workclass());
                 cmdp.p.setMeasureValue("Connectivity", cmdp.connectivity);
             }
-        }
+        });
     }
 
     
@@ -718,9 +743,9 @@ public class CMM_GTAnalysis{
         if(noise.isEmpty()) 
             return 1;
 
-        double connectivity = 0;
-        for(int p : noise){
-            CMMPoint npoint = cmmpoints.get(p);
+        final double[] maxConnections = new double[noise.size()];
+        MeasureCollection.forEachPoint(maxConnections.length, numThreads, i -> {
+            CMMPoint npoint = cmmpoints.get(noise.get(i));
             double maxConnection = 0;
 
             //TODO: some kind of pruning possible. what about weighting?
@@ -729,8 +754,12 @@ public class CMM_GTAnalysis{
                 if(connection > maxConnection)
                     maxConnection = connection;
             }
-            connectivity+=maxConnection;
+            maxConnections[i] = maxConnection;
             npoint.p.setMeasureValue("MaxConnection", maxConnection);
+        });
+        double connectivity = 0;
+        for (int i = 0; i < maxConnections.length; i++) {
+            connectivity+=maxConnections[i];
         }
 
         return 1-(connectivity / noise.size());
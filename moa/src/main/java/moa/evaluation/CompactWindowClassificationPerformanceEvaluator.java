@@ -0,0 +1,308 @@
+/*
+ *    CompactWindowClassificationPerformanceEvaluator.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.evaluation;
+
+import moa.core.Example;
+import moa.core.Utils;
+
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Classification evaluator that updates evaluation results using a sliding
+ * window, with memory and update cost independent of the number of classes.
+ *
+ * <p>Instead of one window of values per measure and per class (as in
+ * <code>WindowClassificationPerformanceEvaluator</code>), a single ring of
+ * (true class, predicted class, weight) tuples is kept together with the
+ * per-class totals of the window: weight per true class, weight per
+ * predicted class and correctly classified weight per class. Accuracy, the
+ * Kappa statistics, precision and recall are all derived from these totals,
+ * so adding a result costs O(1) and memory is O(width + numClasses). The
+ * majority class is kept with an upper bound of the weight of the other
+ * classes, so the classes are only scanned when the weight of the majority
+ * class falls to that bound. The estimators of the base class are not
+ * used.</p>
+ *
+ * <p>The measurements are the same as the ones of
+ * <code>WindowClassificationPerformanceEvaluator</code>, except that
+ * instances with zero weight are not added to the window of the no-change
+ * and majority-class baselines.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class CompactWindowClassificationPerformanceEvaluator extends BasicClassificationPerformanceEvaluator {
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption widthOption = new IntOption("width",
+            'w', "Size of Window", 1000, 1, Integer.MAX_VALUE);
+
+    protected int[] windowTrueClass;
+
+    protected int[] windowPredictedClass;
+
+    protected double[] windowWeight;
+
+    protected boolean[] windowNoChangeCorrect;
+
+    protected boolean[] windowMajorityCorrect;
+
+    protected int posWindow;
+
+    protected int lenWindow;
+
+    protected double sumCorrect;
+
+    protected double sumNoChangeCorrect;
+
+    protected double sumMajorityCorrect;
+
+    /** Weight of the instances in the window, per true class. */
+    protected double[] trueClassWeight;
+
+    /** Weight of the instances in the window, per predicted class. */
+    protected double[] predictedClassWeight;
+
+    /** Weight of the correctly classified instances in the window, per class. */
+    protected double[] correctWeight;
+
+    protected int[] trueClassCount;
+
+    protected int[] predictedClassCount;
+
+    protected int majorityClass;
+
+    /** Upper bound of the weight of the classes other than the majority class. */
+    protected double runnerUpWeight;
+
+    protected int lastSeenClass;
+
+    protected double totalWeightObserved;
+
+    @Override
+    public void reset(int numClasses) {
+        this.numClasses = numClasses;
+        int width = this.widthOption.getValue();
+        this.windowTrueClass = new int[width];
+        this.windowPredictedClass = new int[width];
+        this.windowWeight = new double[width];
+        this.windowNoChangeCorrect = new boolean[width];
+        this.windowMajorityCorrect = new boolean[width];
+        this.posWindow = 0;
+        this.lenWindow = 0;
+        this.sumCorrect = 0.0;
+        this.sumNoChangeCorrect = 0.0;
+        this.sumMajorityCorrect = 0.0;
+        this.trueClassWeight = new double[numClasses];
+        this.predictedClassWeight = new double[numClasses];
+        this.correctWeight = new double[numClasses];
+        this.trueClassCount = new int[numClasses];
+        this.predictedClassCount = new int[numClasses];
+        this.majorityClass = 0;
+        this.runnerUpWeight = 0.0;
+        this.lastSeenClass = 0;
+        this.totalWeightObserved = 0;
+    }
+
+    @Override
+    public void addResult(Example<Instance> example, double[] classVotes) {
+        Instance inst = example.getData();
+        double weight = inst.weight();
+        if (inst.classIsMissing() == false) {
+            int trueClass = (int) inst.classValue();
+            int predictedClass = Utils.maxIndex(classVotes);
+            if (weight > 0.0) {
+                if (this.totalWeightObserved == 0) {
+                    reset(inst.dataset().numClasses());
+                }
+                this.totalWeightObserved += weight;
+                if (this.lenWindow == this.windowWeight.length) {
+                    forget(this.posWindow);
+                } else {
+                    this.lenWindow++;
+                }
+                this.windowTrueClass[this.posWindow] = trueClass;
+                this.windowPredictedClass[this.posWindow] = predictedClass;
+                this.windowWeight[this.posWindow] = weight;
+                this.trueClassWeight[trueClass] += weight;
+                this.trueClassCount[trueClass]++;
+                if (predictedClass < this.numClasses) {
+                    this.predictedClassWeight[predictedClass] += weight;
+                    this.predictedClassCount[predictedClass]++;
+                }
+                if (predictedClass == trueClass) {
+                    this.correctWeight[trueClass] += weight;
+                    this.sumCorrect += weight;
+                }
+                if (trueClass != this.majorityClass) {
+                    double majorityWeight = this.trueClassWeight[this.majorityClass];
+                    if (this.trueClassWeight[trueClass] > majorityWeight
+                            || (this.trueClassWeight[trueClass] == majorityWeight
+                            && trueClass < this.majorityClass)) {
+                        this.majorityClass = trueClass;
+                        this.runnerUpWeight = majorityWeight;
+                    } else {
+                        this.runnerUpWeight = Math.max(this.runnerUpWeight,
+                                this.trueClassWeight[trueClass]);
+                    }
+                }
+                boolean noChangeCorrect = this.lastSeenClass == trueClass;
+                boolean majorityCorrect = this.majorityClass == trueClass;
+                this.windowNoChangeCorrect[this.posWindow] = noChangeCorrect;
+                this.windowMajorityCorrect[this.posWindow] = majorityCorrect;
+                if (noChangeCorrect) {
+                    this.sumNoChangeCorrect += weight;
+                }
+                if (majorityCorrect) {
+                    this.sumMajorityCorrect += weight;
+                }
+                this.posWindow++;
+                if (this.posWindow == this.windowWeight.length) {
+                    this.posWindow = 0;
+                }
+            }
+            this.lastSeenClass = trueClass;
+        }
+    }
+
+    /**
+     * Removes the tuple at a position of the window from the totals.
+     */
+    protected void forget(int pos) {
+        int trueClass = this.windowTrueClass[pos];
+        int predictedClass = this.windowPredictedClass[pos];
+        double weight = this.windowWeight[pos];
+        this.trueClassWeight[trueClass] -= weight;
+        this.trueClassCount[trueClass]--;
+        if (predictedClass < this.numClasses) {
+            this.predictedClassWeight[predictedClass] -= weight;
+            this.predictedClassCount[predictedClass]--;
+        }
+        if (predictedClass == trueClass) {
+            this.correctWeight[trueClass] -= weight;
+            this.sumCorrect -= weight;
+        }
+        if (this.windowNoChangeCorrect[pos]) {
+            this.sumNoChangeCorrect -= weight;
+        }
+        if (this.windowMajorityCorrect[pos]) {
+            this.sumMajorityCorrect -= weight;
+        }
+        if (trueClass == this.majorityClass
+                && !(this.trueClassWeight[trueClass] > this.runnerUpWeight)) {
+            updateMajorityClass();
+        }
+    }
+
+    /**
+     * Scans the classes for the majority class, the first one with the
+     * largest weight, and the weight of the runner-up.
+     */
+    protected void updateMajorityClass() {
+        int majority = 0;
+        double maxWeight = 0.0;
+        double runnerUp = 0.0;
+        for (int i = 0; i < this.numClasses; i++) {
+            if (this.trueClassWeight[i] > maxWeight) {
+                majority = i;
+                runnerUp = maxWeight;
+                maxWeight = this.trueClassWeight[i];
+            } else if (this.trueClassWeight[i] > runnerUp) {
+                runnerUp = this.trueClassWeight[i];
+            }
+        }
+        this.majorityClass = majority;
+        this.runnerUpWeight = runnerUp;
+    }
+
+    @Override
+    public double getTotalWeightObserved() {
+        return this.totalWeightObserved;
+    }
+
+    @Override
+    public double getFractionCorrectlyClassified() {
+        return this.sumCorrect / this.lenWindow;
+    }
+
+    @Override
+    public double getKappaStatistic() {
+        if (this.totalWeightObserved > 0.0) {
+            double p0 = getFractionCorrectlyClassified();
+            double pc = 0.0;
+            for (int i = 0; i < this.numClasses; i++) {
+                pc += (this.predictedClassWeight[i] / this.lenWindow)
+                        * (this.trueClassWeight[i] / this.lenWindow);
+            }
+            return (p0 - pc) / (1.0 - pc);
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public double getKappaTemporalStatistic() {
+        if (this.totalWeightObserved > 0.0) {
+            double p0 = getFractionCorrectlyClassified();
+            double pc = this.sumNoChangeCorrect / this.lenWindow;
+            return (p0 - pc) / (1.0 - pc);
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public double getKappaMStatistic() {
+        if (this.totalWeightObserved > 0.0) {
+            double p0 = getFractionCorrectlyClassified();
+            double pc = this.sumMajorityCorrect / this.lenWindow;
+            return (p0 - pc) / (1.0 - pc);
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public double getPrecisionStatistic() {
+        double total = 0;
+        for (int i = 0; i < this.numClasses; i++) {
+            total += getPrecisionStatistic(i);
+        }
+        return total / this.numClasses;
+    }
+
+    @Override
+    public double getPrecisionStatistic(int numClass) {
+        return this.correctWeight[numClass] / this.predictedClassCount[numClass];
+    }
+
+    @Override
+    public double getRecallStatistic() {
+        double total = 0;
+        for (int i = 0; i < this.numClasses; i++) {
+            total += getRecallStatistic(i);
+        }
+        return total / this.numClasses;
+    }
+
+    @Override
+    public double getRecallStatistic(int numClass) {
+        return this.correctWeight[numClass] / this.trueClassCount[numClass];
+    }
+}
@@ -22,6 +22,10 @@ package moa.evaluation;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
 import moa.AbstractMOAObject;
 import moa.cluster.Clustering;
 import moa.gui.visualization.DataPoint;
@@ -44,6 +48,12 @@ public abstract class MeasureCollection extends AbstractMOAObject{
     private HashMap<String, Integer> map;
 
     private int numMeasures = 0;
+
+    /** Number of threads over which the work on the points is split. */
+    private int numThreads = 1;
+
+    /** Pool shared by the measures, sized for the most threads asked for. */
+    private static ForkJoinPool pool;
     
     
 
@@ -225,6 +235,74 @@ public abstract class MeasureCollection extends AbstractMOAObject{
          return defaults;
      }
 
+     /**
+      * Gets whether a measure only makes sense when the measures are
+      * estimated on a sample of the points, like a confidence interval.
+      *
+      * @param index the index of the measure
+      * @return true if the measure is about the sample
+      */
+     public boolean isSampleMeasure(int index){
+         return false;
+     }
+
+     /**
+      * Sets the number of threads over which the measures that support it
+      * split their work on the points. The results do not depend on it.
+      *
+      * @param numThreads the number of threads, 1 to use the calling thread
+      */
+     public void setNumThreads(int numThreads){
+         this.numThreads = numThreads;
+     }
+
+     public int getNumThreads(){
+         return numThreads;
+     }
+
+     /**
+      * Runs a task for every point, splitting the points in chunks run by the
+      * pool shared by the measures if there is more than one thread. The
+      * task must only write to the entries of its own point.
+      *
+      * @param numPoints the number of points
+      * @param numThreads the number of threads
+      * @param task the task, given the index of a point
+      */
+     public static void forEachPoint(int numPoints, int numThreads, IntConsumer task){
+         if(numThreads <= 1 || numPoints < 2){
+             for (int p = 0; p < numPoints; p++) {
+                 task.accept(p);
+             }
+             return;
+         }
+         ForkJoinPool chunkPool = getPool(numThreads);
+         int numChunks = Math.min(numPoints, 4 * numThreads);
+         List<ForkJoinTask<?>> chunks = new ArrayList<ForkJoinTask<?>>(numChunks);
+         for (int c = 0; c < numChunks; c++) {
+             final int from = (int) ((long) numPoints * c / numChunks);
+             final int to = (int) ((long) numPoints * (c + 1) / numChunks);
+             chunks.add(chunkPool.submit(() -> {
+                 for (int p = from; p < to; p++) {
+                     task.accept(p);
+                 }
+             }));
+         }
+         for (ForkJoinTask<?> chunk : chunks) {
+             chunk.join();
+         }
+     }
+
+     private static synchronized ForkJoinPool getPool(int numThreads){
+         if(pool == null || pool.getParallelism() < numThreads){
+             if(pool != null){
+                 pool.shutdown();
+             }
+             pool = new ForkJoinPool(numThreads);
+         }
+         return pool;
+     }
+
      protected abstract void evaluateClustering(Clustering clustering, Clustering trueClustering, ArrayList<DataPoint> points) throws Exception;
 
      /*
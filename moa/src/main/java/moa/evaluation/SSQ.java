@@ -43,10 +43,10 @@ public class SSQ extends MeasureCollection{
   }
     
     public void evaluateClustering(Clustering clustering, Clustering trueClsutering, ArrayList<DataPoint> points) {
-        double sum = 0.0;
-        for (int p = 0; p < points.size(); p++) {
+        final double[] minDistances = new double[points.size()];
+        forEachPoint(points.size(), getNumThreads(), p -> {
             //don't include noise
-            if(points.get(p).classValue()==-1) continue;
+            if(points.get(p).classValue()==-1) return;
 
             double minDistance = Double.MAX_VALUE;
             for (int c = 0; c < clustering.size(); c++) {
@@ -58,8 +58,13 @@ public class SSQ extends MeasureCollection{
                 }
                 minDistance = Math.min(distance, minDistance);
             }
-            
-            sum+=minDistance;
+            minDistances[p] = minDistance;
+        });
+
+        double sum = 0.0;
+        for (int p = 0; p < points.size(); p++) {
+            if(points.get(p).classValue()==-1) continue;
+            sum+=minDistances[p];
         }
         
         addValue(0,sum);
@@ -22,107 +22,194 @@ package moa.evaluation;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.gui.visualization.DataPoint;
 
+/**
+ * Silhouette coefficient of the points that are in a found cluster.
+ *
+ * <p>With a sample size, the coefficient is estimated on a sample of the
+ * points, stratified by their class, and SilhCoeff-CI gives the half width
+ * of its 95% confidence interval.</p>
+ */
 public class SilhouetteCoefficient extends MeasureCollection{
     private double pointInclusionProbThreshold = 0.8;
 
+    /** Number of points sampled to estimate the coefficient, 0 for all. */
+    private int sampleSize = 0;
+
+    private Random sampleRandom = new Random(1);
+
     public SilhouetteCoefficient() {
         super();
     }
 
     @Override
     protected boolean[] getDefaultEnabled() {
-        boolean [] defaults = {false};
+        boolean [] defaults = {false, false};
         return defaults;
     }
 
     @Override
     public String[] getNames() {
-        String[] names = {"SilhCoeff"};
+        String[] names = {"SilhCoeff", "SilhCoeff-CI"};
         return names;
     }
 
+    @Override
+    public boolean isSampleMeasure(int index) {
+        return index == 1;
+    }
+
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
     public void evaluateClustering(Clustering clustering, Clustering trueClustering, ArrayList<DataPoint> points) {
         int numFCluster = clustering.size();
 
         double [][] pointInclusionProbFC = new double[points.size()][numFCluster];
+        List<Integer> inClusterPoints = new ArrayList<Integer>();
         for (int p = 0; p < points.size(); p++) {
             DataPoint point = points.get(p);
+            boolean inCluster = false;
             for (int fc = 0; fc < numFCluster; fc++) {
                 Cluster cl = clustering.get(fc);
                 pointInclusionProbFC[p][fc] = cl.getInclusionProbability(point);
+                inCluster |= pointInclusionProbFC[p][fc] > pointInclusionProbThreshold;
+            }
+            if(inCluster){
+                inClusterPoints.add(p);
             }
         }
 
         double silhCoeff = 0.0;
-        int totalCount = 0;
-        for (int p = 0; p < points.size(); p++) {
-            DataPoint point = points.get(p);
-            ArrayList<Integer> ownClusters = new ArrayList<Integer>();
-            for (int fc = 0; fc < numFCluster; fc++) {
-                if(pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
-                    ownClusters.add(fc);
+        double halfWidth = 0.0;
+        if(sampleSize <= 0 || sampleSize >= inClusterPoints.size()){
+            double[] silhP = silhouettes(inClusterPoints, points, pointInclusionProbFC);
+            for (int i = 0; i < silhP.length; i++) {
+                silhCoeff+=silhP[i];
+            }
+            if(silhP.length>0)
+                silhCoeff/=(double)silhP.length;
+        }
+        else{
+            //stratified sample, with a share of the sample proportional to the size of each class
+            Map<Double, List<Integer>> strata = new HashMap<Double, List<Integer>>();
+            for (int p : inClusterPoints) {
+                List<Integer> stratum = strata.get(points.get(p).classValue());
+                if(stratum == null){
+                    stratum = new ArrayList<Integer>();
+                    strata.put(points.get(p).classValue(), stratum);
                 }
+                stratum.add(p);
             }
-
-            if(ownClusters.size() > 0){
-                double[] distanceByClusters = new double[numFCluster];
-                int[] countsByClusters = new int[numFCluster];
-                    //calculate averageDistance of p to all cluster
-                for (int p1 = 0; p1 < points.size(); p1++) {
-                    DataPoint point1 = points.get(p1);
-                    if(p1!= p && point1.classValue() != -1){
-                        for (int fc = 0; fc < numFCluster; fc++) {
-                            if(pointInclusionProbFC[p1][fc] > pointInclusionProbThreshold){
-                                double distance = distance(point, point1);
-                                distanceByClusters[fc]+=distance;
-                                countsByClusters[fc]++;
-                            }
-                        }
-                    }
+            double variance = 0.0;
+            for (List<Integer> stratum : strata.values()) {
+                double share = stratum.size() / (double) inClusterPoints.size();
+                int size = Math.min(stratum.size(), Math.max(2, (int) Math.round(sampleSize * share)));
+                for (int i = 0; i < size; i++) {
+                    int j = i + sampleRandom.nextInt(stratum.size() - i);
+                    stratum.set(j, stratum.set(i, stratum.get(j)));
                 }
-
-                //find closest OWN cluster as clusters might overlap
-                double minAvgDistanceOwn = Double.MAX_VALUE;
-                int minOwnIndex = -1;
-                for (int fc : ownClusters) {
-                        double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
-                        if(normDist < minAvgDistanceOwn){// && pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
-                            minAvgDistanceOwn = normDist;
-                            minOwnIndex = fc;
-                        }
+                double[] silhP = silhouettes(stratum.subList(0, size), points, pointInclusionProbFC);
+                double mean = 0.0;
+                for (int i = 0; i < size; i++) {
+                    mean+=silhP[i];
+                }
+                mean/=size;
+                double sampleVariance = 0.0;
+                for (int i = 0; i < size; i++) {
+                    sampleVariance+=(silhP[i]-mean)*(silhP[i]-mean);
                 }
+                if(size > 1)
+                    sampleVariance/=size-1;
+                silhCoeff+=share*mean;
+                variance+=share*share*(1-size/(double)stratum.size())*sampleVariance/size;
+            }
+            halfWidth = 1.96*Math.sqrt(variance);
+        }
+        //normalize from -1, 1 to 0,1
+        silhCoeff = (silhCoeff+1)/2.0;
+        addValue(0,silhCoeff);
+        addValue(1,halfWidth/2.0);
+    }
+
+    /**
+     * Computes the silhouettes of some of the points, which must be in a
+     * found cluster, splitting the points over the threads.
+     */
+    private double[] silhouettes(final List<Integer> pointIndices, final ArrayList<DataPoint> points,
+            final double[][] pointInclusionProbFC) {
+        final double[] silhP = new double[pointIndices.size()];
+        forEachPoint(silhP.length, getNumThreads(),
+                i -> silhP[i] = silhouette(pointIndices.get(i), points, pointInclusionProbFC));
+        return silhP;
+    }
 
+    private double silhouette(int p, ArrayList<DataPoint> points, double[][] pointInclusionProbFC) {
+        int numFCluster = pointInclusionProbFC[p].length;
+        DataPoint point = points.get(p);
+        ArrayList<Integer> ownClusters = new ArrayList<Integer>();
+        for (int fc = 0; fc < numFCluster; fc++) {
+            if(pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
+                ownClusters.add(fc);
+            }
+        }
 
-                //find closest other (or other own) cluster
-                double minAvgDistanceOther = Double.MAX_VALUE;
+        double[] distanceByClusters = new double[numFCluster];
+        int[] countsByClusters = new int[numFCluster];
+            //calculate averageDistance of p to all cluster
+        for (int p1 = 0; p1 < points.size(); p1++) {
+            DataPoint point1 = points.get(p1);
+            if(p1!= p && point1.classValue() != -1){
                 for (int fc = 0; fc < numFCluster; fc++) {
-                    if(fc != minOwnIndex){
-                        double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
-                        if(normDist < minAvgDistanceOther){
-                            minAvgDistanceOther = normDist;
-                        }
+                    if(pointInclusionProbFC[p1][fc] > pointInclusionProbThreshold){
+                        double distance = distance(point, point1);
+                        distanceByClusters[fc]+=distance;
+                        countsByClusters[fc]++;
                     }
                 }
+            }
+        }
+
+        //find closest OWN cluster as clusters might overlap
+        double minAvgDistanceOwn = Double.MAX_VALUE;
+        int minOwnIndex = -1;
+        for (int fc : ownClusters) {
+                double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
+                if(normDist < minAvgDistanceOwn){// && pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
+                    minAvgDistanceOwn = normDist;
+                    minOwnIndex = fc;
+                }
+        }
 
-                double silhP = (minAvgDistanceOther-minAvgDistanceOwn)/Math.max(minAvgDistanceOther, minAvgDistanceOwn);
-                point.setMeasureValue("SC - own", minAvgDistanceOwn);
-                point.setMeasureValue("SC - other", minAvgDistanceOther);
-                point.setMeasureValue("SC", silhP);
 
-                silhCoeff+=silhP;
-                totalCount++;
-                //System.out.println(point.getTimestamp()+" Silh "+silhP+" / "+avgDistanceOwn+" "+minAvgDistanceOther+" (C"+minIndex+")");
+        //find closest other (or other own) cluster
+        double minAvgDistanceOther = Double.MAX_VALUE;
+        for (int fc = 0; fc < numFCluster; fc++) {
+            if(fc != minOwnIndex){
+                double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
+                if(normDist < minAvgDistanceOther){
+                    minAvgDistanceOther = normDist;
+                }
             }
         }
-        if(totalCount>0)
-            silhCoeff/=(double)totalCount;
-        //normalize from -1, 1 to 0,1
-        silhCoeff = (silhCoeff+1)/2.0;
-        addValue(0,silhCoeff);
+
+        double silhP = (minAvgDistanceOther-minAvgDistanceOwn)/Math.max(minAvgDistanceOther, minAvgDistanceOwn);
+        point.setMeasureValue("SC - own", minAvgDistanceOwn);
+        point.setMeasureValue("SC - other", minAvgDistanceOther);
+        point.setMeasureValue("SC", silhP);
+        //System.out.println(point.getTimestamp()+" Silh "+silhP+" / "+avgDistanceOwn+" "+minAvgDistanceOther+" (C"+minIndex+")");
+        return silhP;
     }
 
     private double distance(DataPoint inst1, DataPoint inst2){
@@ -19,10 +19,16 @@
  */
 package moa.evaluation.preview;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.util.ArrayList;
 import java.util.List;
 
 import moa.AbstractMOAObject;
+import moa.FastCopyable;
+import moa.MOAObject;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.StringUtils;
@@ -31,16 +37,38 @@ import moa.evaluation.LearningEvaluation;
 /**
  * Class that stores and keeps the history of evaluation measurements.
  *
+ * <p>The entries are stored in segments that are only appended to, so that
+ * <code>copy</code> returns a snapshot in constant time, which is what the
+ * evaluation tasks send as previews: the snapshot shares the segments and
+ * only sees the entries added before it was taken. An entry that is not
+ * inserted last, and any change made to a snapshot, first copies the
+ * segments.</p>
+ *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class LearningCurve extends AbstractMOAObject {
+public class LearningCurve extends AbstractMOAObject implements FastCopyable {
 
     private static final long serialVersionUID = 1L;
 
+    /** Serialized as a list of names and a list of entries, as it always was. */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("measurementNames", List.class),
+        new ObjectStreamField("measurementValues", List.class)
+    };
+
+    /** Number of entries in every segment. */
+    protected static final int SEGMENT_SIZE = 256;
+
     protected List<String> measurementNames = new ArrayList<String>();
 
-    protected List<double[]> measurementValues = new ArrayList<double[]>();
+    /** The segments of entries, shared with the snapshots. */
+    protected transient double[][][] segments = new double[1][][];
+
+    protected transient int numEntries;
+
+    /** Whether the segments may be shared with another curve. */
+    protected transient boolean sharedSegments;
 
     public LearningCurve(String orderingMeasurementName) {
         this.measurementNames.add(orderingMeasurementName);
@@ -55,10 +83,8 @@ public class LearningCurve extends AbstractMOAObject {
     		List<double[]> measurementValues) 
     {
     	this.measurementNames.clear();
-    	this.measurementValues.clear();
-    	
     	this.measurementNames.addAll(measurementNames);
-    	this.measurementValues.addAll(measurementValues);
+    	setEntries(measurementValues);
     }
 
     public void insertEntry(LearningEvaluation learningEvaluation) {
@@ -74,16 +100,106 @@ public class LearningCurve extends AbstractMOAObject {
                     measurement.getValue());
         }
         double orderVal = orderMeasurement.getValue();
+        if (this.numEntries == 0 || orderVal > getEntry(this.numEntries - 1)[0]) {
+            appendEntry(entryVals.getArrayRef());
+            return;
+        }
+        // the entries are ordered, insert before the first one not lower
         int index = 0;
-        while ((index < this.measurementValues.size())
-                && (orderVal > this.measurementValues.get(index)[0])) {
+        while ((index < this.numEntries)
+                && (orderVal > getEntry(index)[0])) {
             index++;
         }
-        this.measurementValues.add(index, entryVals.getArrayRef());
+        List<double[]> entries = getEntries();
+        entries.add(index, entryVals.getArrayRef());
+        setEntries(entries);
     }
 
     public int numEntries() {
-        return this.measurementValues.size();
+        return this.numEntries;
+    }
+
+    protected double[] getEntry(int entryIndex) {
+        if (entryIndex >= this.numEntries) {
+            throw new IndexOutOfBoundsException("Index: " + entryIndex
+                    + ", Size: " + this.numEntries);
+        }
+        return this.segments[entryIndex / SEGMENT_SIZE][entryIndex % SEGMENT_SIZE];
+    }
+
+    protected void appendEntry(double[] entry) {
+        if (this.sharedSegments) {
+            setEntries(getEntries());
+        }
+        int segmentIndex = this.numEntries / SEGMENT_SIZE;
+        if (segmentIndex == this.segments.length) {
+            // a new directory, the one of the snapshots is left as it is
+            double[][][] newSegments = new double[2 * this.segments.length][][];
+            System.arraycopy(this.segments, 0, newSegments, 0, this.segments.length);
+            this.segments = newSegments;
+        }
+        if (this.segments[segmentIndex] == null) {
+            this.segments[segmentIndex] = new double[SEGMENT_SIZE][];
+        }
+        // snapshots never read past their own number of entries
+        this.segments[segmentIndex][this.numEntries % SEGMENT_SIZE] = entry;
+        this.numEntries++;
+    }
+
+    /**
+     * Gets a new list of all the entries.
+     */
+    protected List<double[]> getEntries() {
+        List<double[]> entries = new ArrayList<double[]>(this.numEntries);
+        for (int i = 0; i < this.numEntries; i++) {
+            entries.add(getEntry(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Replaces all the entries, in new segments.
+     */
+    protected void setEntries(List<double[]> entries) {
+        this.segments = new double[Math.max(1, (entries.size() + SEGMENT_SIZE - 1) / SEGMENT_SIZE)][][];
+        this.numEntries = 0;
+        this.sharedSegments = false;
+        for (double[] entry : entries) {
+            appendEntry(entry);
+        }
+    }
+
+    /**
+     * Gets a snapshot of this curve, which shares the entries and is not
+     * changed by the entries inserted afterwards.
+     */
+    @Override
+    public MOAObject copy() {
+        if (getClass() != LearningCurve.class) {
+            return super.copy();
+        }
+        LearningCurve snapshot = new LearningCurve(getOrderingMeasurementName());
+        snapshot.measurementNames = new ArrayList<String>(this.measurementNames);
+        snapshot.segments = this.segments;
+        snapshot.numEntries = this.numEntries;
+        // an entry that is not appended last rewrites the segments, and a
+        // snapshot must not write past its entries into segments it shares
+        snapshot.sharedSegments = true;
+        return snapshot;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("measurementNames", this.measurementNames);
+        fields.put("measurementValues", getEntries());
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.measurementNames = (List<String>) fields.get("measurementNames", null);
+        setEntries((List<double[]>) fields.get("measurementValues", null));
     }
 
     protected int addMeasurementName(String name) {
@@ -111,7 +227,7 @@ public class LearningCurve extends AbstractMOAObject {
 
     public String entryToString(int entryIndex) {
         StringBuilder sb = new StringBuilder();
-        double[] vals = this.measurementValues.get(entryIndex);
+        double[] vals = getEntry(entryIndex);
         for (int i = 0; i < this.measurementNames.size(); i++) {
             if (i > 0) {
                 sb.append(',');
@@ -134,7 +250,7 @@ public class LearningCurve extends AbstractMOAObject {
     }
 
     public double getMeasurement(int entryIndex, int measurementIndex) {
-        return this.measurementValues.get(entryIndex)[measurementIndex];
+        return getEntry(entryIndex)[measurementIndex];
     }
 
     public String getMeasurementName(int measurementIndex) {
@@ -146,6 +262,6 @@ public class LearningCurve extends AbstractMOAObject {
     }
 
     public int getEntryMeasurementCount(int entryIdx) {
-        return this.measurementValues.get(entryIdx).length;
+        return getEntry(entryIdx).length;
     }
 }
@@ -22,6 +22,8 @@ package moa.evaluation.preview;
 import java.util.ArrayList;
 import java.util.List;
 
+import moa.FastCopyable;
+import moa.MOAObject;
 import moa.core.StringUtils;
 
 /**
@@ -30,7 +32,8 @@ import moa.core.StringUtils;
  * @author Tuan Pham Minh (tuan.pham@ovgu.de)
  * @version $Revision: 1 $
  */
-public class PreviewCollection<CollectionElementType extends Preview> extends Preview {
+public class PreviewCollection<CollectionElementType extends Preview> extends Preview
+		implements FastCopyable {
 
 	private static final long serialVersionUID = 1L;
 
@@ -176,6 +179,25 @@ public class PreviewCollection<CollectionElementType extends Preview> extends Pr
 		return subPreviews;
 	}
 
+	/**
+	 * Gets a snapshot of this collection, which shares the previews: they
+	 * are previews published by tasks, which are not changed afterwards.
+	 */
+	@Override
+	public MOAObject copy() {
+		if (getClass() != PreviewCollection.class) {
+			return super.copy();
+		}
+		PreviewCollection<CollectionElementType> snapshot = new PreviewCollection<CollectionElementType>(
+				this.orderingName, this.indexName, this.taskClass, this.variedParamName,
+				this.variedParamValues);
+		snapshot.subPreviews = new ArrayList<>(this.subPreviews);
+		snapshot.requiredMeasurementNames = new ArrayList<>(this.requiredMeasurementNames);
+		snapshot.measurementNames = new ArrayList<>(this.measurementNames);
+		snapshot.minEntryNum = this.minEntryNum;
+		return snapshot;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -128,8 +128,19 @@ public class BatchCmd implements ClusterEventListener{
 
 	public static void runBatch(ClusteringStream stream, AbstractClusterer clusterer,
 			boolean[] measureCollection, int amountInstances, String outputFile){
+		runBatch(stream, clusterer, measureCollection, amountInstances, outputFile, 1, 0);
+	}
+
+	/**
+	 * Runs the batch job, with the measures splitting their work on the
+	 * points over some threads, and the silhouette coefficient estimated on
+	 * a sample of the points if a sample size is given.
+	 */
+	public static void runBatch(ClusteringStream stream, AbstractClusterer clusterer,
+			boolean[] measureCollection, int amountInstances, String outputFile,
+			int numThreads, int sampleSize){
 		// create the measure collection 
-		MeasureCollection[] measures = getMeasures(getMeasureSelection(measureCollection));
+		MeasureCollection[] measures = getMeasures(getMeasureSelection(measureCollection), numThreads, sampleSize);
 		
 		// run the batch job
 		BatchCmd batch = new BatchCmd(clusterer, stream, measures, amountInstances);
@@ -215,15 +226,18 @@ public class BatchCmd implements ClusterEventListener{
 	}
 
 	@SuppressWarnings("unchecked")
-	private static MeasureCollection[] getMeasures(ArrayList<Class> measure_classes){
+	private static MeasureCollection[] getMeasures(ArrayList<Class> measure_classes, int numThreads, int sampleSize){
 		MeasureCollection[] measures = new MeasureCollection[measure_classes.size()];
 		for (int i = 0; i < measure_classes.size(); i++) {
 			try {
 				MeasureCollection m = (MeasureCollection)measure_classes.get(i).newInstance();
 				for(int j = 0 ; j < m.getNumMeasures() ; j++)
 				{
-					m.setEnabled(j, true);
+					m.setEnabled(j, sampleSize > 0 || !m.isSampleMeasure(j));
 				}
+				m.setNumThreads(numThreads);
+				if(m instanceof SilhouetteCoefficient)
+					((SilhouetteCoefficient)m).setSampleSize(sampleSize);
 				measures[i] = m;
 
 			} catch (Exception ex) {
@@ -110,6 +110,27 @@ public interface Learner<E extends Example> extends MOAObject, OptionHandler, AW
      */
     public Learner[] getSublearners();
 
+    /**
+     * Gets whether this learner keeps references to the examples it is
+     * given after <code>trainOnInstance</code> returns, for example to
+     * buffer them. Evaluation tasks may only reuse the examples of a stream
+     * for learners that do not retain them. Ensembles retain the examples if
+     * any of their learners does.
+     *
+     * @return true if this learner keeps references to its examples
+     */
+    public default boolean retainsInstances() {
+        Learner[] sublearners = getSublearners();
+        if (sublearners != null) {
+            for (Learner sublearner : sublearners) {
+                if (sublearner != null && sublearner.retainsInstances()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
      /**
      * Gets the model if this learner.
      *
@@ -0,0 +1,61 @@
+/*
+ *    CompactRecommenderData.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package moa.recommender.data;
+
+import moa.core.ObjectRepository;
+import moa.core.StringUtils;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Ratings kept in primitive arrays, with the same statistics and rating
+ * vectors as MemRecommenderData in less memory.
+ */
+public class CompactRecommenderData extends AbstractOptionHandler implements RecommenderData {
+
+    private static final long serialVersionUID = 1L;
+
+    moa.recommender.rc.data.impl.CompactRecommenderData drm;
+
+    @Override
+    public String getPurposeString() {
+        return "Ratings kept in primitive arrays.";
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+        drm = new moa.recommender.rc.data.impl.CompactRecommenderData();
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        StringUtils.appendIndented(sb, indent, "Ratings kept in primitive arrays");
+        if (drm != null) {
+            sb.append(": ").append(drm.getNumUsers()).append(" users, ");
+            sb.append(drm.getNumItems()).append(" items, ");
+            sb.append(drm.getNumRatings()).append(" ratings");
+        }
+    }
+
+    @Override
+    public moa.recommender.rc.data.RecommenderData getData() {
+        return drm;
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ *    CachedDataset.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package moa.recommender.dataset.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import moa.core.ObjectRepository;
+import moa.core.StringUtils;
+import moa.options.AbstractOptionHandler;
+import moa.options.ClassOption;
+import com.github.javacliparser.FileOption;
+import moa.recommender.dataset.Dataset;
+import moa.tasks.TaskMonitor;
+
+/**
+ * A dataset read from a binary cache of another dataset. The first time,
+ * the other dataset is read once and its ratings are written to the cache
+ * file, as the user ID, the item ID and the rating. The cache file is then
+ * memory mapped, so ratings are replayed without parsing them again. The
+ * cache file starts with the command line of the other dataset, and is
+ * written again when the dataset option differs from it. It has to be
+ * deleted to read the other dataset again when only its files change.
+ */
+public class CachedDataset extends AbstractOptionHandler implements Dataset {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Marks the start of the cache files. */
+    protected static final int MAGIC = 0x4D4F4152;
+
+    /** Bytes of a rating: the user ID, the item ID and the rating. */
+    protected static final int RATING_SIZE = 16;
+
+    /** Number of ratings of a mapped segment of the cache file. */
+    protected static final int RATINGS_PER_SEGMENT = 1 << 26;
+
+    public ClassOption datasetOption = new ClassOption("dataset", 'd',
+            "Dataset to cache.", Dataset.class, "moa.recommender.dataset.impl.MovielensDataset");
+
+    public FileOption cacheFileOption = new FileOption("cacheFile", 'c',
+            "Cache file, written from the dataset if it does not exist.", "ratings.bin", "bin", true);
+
+    protected transient List<ByteBuffer> segments;
+
+    protected long numRatings;
+
+    protected long current;
+
+    protected transient ByteBuffer segment;
+
+    protected int position;
+
+    @Override
+    public String getPurposeString() {
+        return "A dataset read from a binary cache of another dataset.";
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+        File cacheFile = this.cacheFileOption.getFile();
+        String source = this.datasetOption.getValueAsCLIString();
+        try {
+            monitor.setCurrentActivityDescription("Mapping the cache of the dataset...");
+            if (!cacheFile.exists() || !mapCache(cacheFile, source)) {
+                monitor.setCurrentActivityDescription("Writing the cache of the dataset...");
+                Dataset dataset = (Dataset) getPreparedClassOption(this.datasetOption);
+                writeCache(dataset, source, cacheFile);
+                if (!mapCache(cacheFile, source)) {
+                    throw new IOException(cacheFile + " was written for another dataset");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to use the cache file " + cacheFile, e);
+        }
+        reset();
+    }
+
+    /**
+     * Writes all the ratings of a dataset to a cache file. The ratings are
+     * first written to a temporary file, renamed when complete.
+     *
+     * @param dataset the dataset
+     * @param source the command line of the dataset
+     * @param cacheFile the cache file
+     * @throws IOException if the cache file could not be written
+     */
+    public static void writeCache(Dataset dataset, String source, File cacheFile)
+            throws IOException {
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmpFile), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeUTF(source);
+            while (dataset.next()) {
+                out.writeInt(dataset.curUserID());
+                out.writeInt(dataset.curItemID());
+                out.writeDouble(dataset.curRating());
+            }
+        } finally {
+            out.close();
+        }
+        if (cacheFile.exists() && !cacheFile.delete()) {
+            throw new IOException("Unable to replace " + cacheFile);
+        }
+        if (!tmpFile.renameTo(cacheFile)) {
+            throw new IOException("Unable to rename " + tmpFile + " to " + cacheFile);
+        }
+    }
+
+    /**
+     * Maps the ratings of a cache file.
+     *
+     * @param cacheFile the cache file
+     * @param source the command line of the dataset
+     * @return false if the cache file was written for another dataset
+     * @throws IOException if the file is not a cache of a dataset
+     */
+    protected boolean mapCache(File cacheFile, String source) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+        try {
+            if (file.length() < 4 || file.readInt() != MAGIC) {
+                throw new IOException(cacheFile + " is not a cache of a dataset");
+            }
+            try {
+                if (file.length() < 6 + file.readUnsignedShort()) {
+                    return false;
+                }
+                file.seek(4);
+                if (!file.readUTF().equals(source)) {
+                    return false;
+                }
+            } catch (UTFDataFormatException e) {
+                return false;
+            }
+            long headerSize = file.getFilePointer();
+            this.numRatings = (file.length() - headerSize) / RATING_SIZE;
+            this.segments = new ArrayList<ByteBuffer>();
+            FileChannel channel = file.getChannel();
+            for (long first = 0; first < this.numRatings; first += RATINGS_PER_SEGMENT) {
+                long size = Math.min(RATINGS_PER_SEGMENT, this.numRatings - first) * RATING_SIZE;
+                this.segments.add(channel.map(FileChannel.MapMode.READ_ONLY,
+                        headerSize + first * RATING_SIZE, size));
+            }
+        } finally {
+            file.close();
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of ratings of the dataset
+     */
+    public long numRatings() {
+        return this.numRatings;
+    }
+
+    @Override
+    public boolean next() {
+        if (this.current + 1 >= this.numRatings) {
+            this.current = this.numRatings;
+            return false;
+        }
+        this.current++;
+        this.segment = this.segments.get((int) (this.current / RATINGS_PER_SEGMENT));
+        this.position = (int) (this.current % RATINGS_PER_SEGMENT) * RATING_SIZE;
+        return true;
+    }
+
+    @Override
+    public int curUserID() {
+        return this.segment.getInt(this.position);
+    }
+
+    @Override
+    public int curItemID() {
+        return this.segment.getInt(this.position + 4);
+    }
+
+    @Override
+    public double curRating() {
+        return this.segment.getDouble(this.position + 8);
+    }
+
+    @Override
+    public void reset() {
+        this.current = -1;
+    }
+
+    public String toString() {
+        return "Cached " + this.datasetOption.getValueAsCLIString();
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        StringUtils.appendIndented(sb, indent, toString());
+        if (this.segments != null) {
+            sb.append(", ").append(this.numRatings).append(" ratings in ");
+            sb.append(this.cacheFileOption.getFile());
+        }
+    }
+}
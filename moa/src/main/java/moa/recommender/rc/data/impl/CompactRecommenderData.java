@@ -0,0 +1,648 @@
+/*
+ *    CompactRecommenderData.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package moa.recommender.rc.data.impl;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import moa.recommender.rc.data.AbstractRecommenderData;
+import moa.recommender.rc.utils.Hash;
+import moa.recommender.rc.utils.Rating;
+import moa.recommender.rc.utils.SparseVector;
+
+/**
+ * Ratings kept in primitive arrays, like in compressed sparse rows: the
+ * ratings of every user, and of every item, are stored contiguously in a
+ * shared array of keys and a shared array of ratings. A row that is full is
+ * moved to the end of the arrays with twice its capacity, and the arrays are
+ * compacted when more than a quarter of their used part is in no row.
+ * Ratings are updated in place.
+ *
+ * <p>The statistics and the ratings are the same as those of
+ * MemRecommenderData. The ratings of a user, or of an item, are kept in the
+ * order they were first set. The rating vectors are read-only views of the
+ * rows, which iterate the ratings in that order instead of the order of a
+ * hash map.</p>
+ */
+public class CompactRecommenderData extends AbstractRecommenderData {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The ratings of users, or of items, by row. Rows are numbered in the
+     * order their IDs are first seen.
+     */
+    protected static class Rows implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Open addressing table of the rows of the IDs, -1 if empty. */
+        protected int[] table = new int[16];
+
+        protected int numRows = 0;
+
+        protected int[] ids = new int[8];
+
+        /** Whether the rows are users, or items, of the data. */
+        protected boolean[] exists = new boolean[8];
+
+        protected double[] sum = new double[8];
+
+        protected int[] num = new int[8];
+
+        protected int[] offset = new int[8];
+
+        protected int[] length = new int[8];
+
+        protected int[] capacity = new int[8];
+
+        /**
+         * Whether the row was reset while holding ratings, so that rows of
+         * the other kind may still hold ratings of its ID.
+         */
+        protected boolean[] detached = new boolean[8];
+
+        /** The keys of the ratings of all the rows. */
+        protected int[] keys = new int[64];
+
+        /** The ratings of all the rows. */
+        protected double[] values = new double[64];
+
+        /** The end of the used part of the keys and ratings. */
+        protected int end = 0;
+
+        /** The number of keys and ratings before end in no row. */
+        protected int free = 0;
+
+        public Rows() {
+            Arrays.fill(this.table, -1);
+        }
+
+        /**
+         * Gets the row of an ID.
+         *
+         * @param id the ID
+         * @param create whether to add a row if the ID has none
+         * @return the row, or -1 if the ID has none and none is created
+         */
+        public int row(int id, boolean create) {
+            int mask = this.table.length - 1;
+            int slot = Hash.hashCode(id) & mask;
+            while (this.table[slot] != -1) {
+                if (this.ids[this.table[slot]] == id) {
+                    return this.table[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (!create) {
+                return -1;
+            }
+            if (this.numRows == this.ids.length) {
+                int n = 2 * this.numRows;
+                this.ids = Arrays.copyOf(this.ids, n);
+                this.exists = Arrays.copyOf(this.exists, n);
+                this.sum = Arrays.copyOf(this.sum, n);
+                this.num = Arrays.copyOf(this.num, n);
+                this.offset = Arrays.copyOf(this.offset, n);
+                this.length = Arrays.copyOf(this.length, n);
+                this.capacity = Arrays.copyOf(this.capacity, n);
+                this.detached = Arrays.copyOf(this.detached, n);
+            }
+            int row = this.numRows++;
+            this.ids[row] = id;
+            this.exists[row] = false;
+            this.sum[row] = 0;
+            this.num[row] = 0;
+            this.offset[row] = this.end;
+            this.length[row] = 0;
+            this.capacity[row] = 0;
+            this.detached[row] = false;
+            this.table[slot] = row;
+            if (2 * this.numRows > this.table.length) {
+                rehash();
+            }
+            return row;
+        }
+
+        protected void rehash() {
+            this.table = new int[2 * this.table.length];
+            Arrays.fill(this.table, -1);
+            int mask = this.table.length - 1;
+            for (int row = 0; row < this.numRows; ++row) {
+                int slot = Hash.hashCode(this.ids[row]) & mask;
+                while (this.table[slot] != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                this.table[slot] = row;
+            }
+        }
+
+        /**
+         * Makes a row hold no ratings, with empty statistics.
+         */
+        public void reset(int row, boolean exists) {
+            this.detached[row] |= this.length[row] > 0;
+            this.exists[row] = exists;
+            this.sum[row] = 0;
+            this.num[row] = 0;
+            this.length[row] = 0;
+        }
+
+        /**
+         * Gets the position of the rating of a key in a row.
+         *
+         * @return the position in keys and values, or -1 if there is none
+         */
+        public int find(int row, int key) {
+            int start = this.offset[row];
+            int stop = start + this.length[row];
+            for (int p = start; p < stop; ++p) {
+                if (this.keys[p] == key) {
+                    return p;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a rating at the end of a row.
+         */
+        public void append(int row, int key, double value) {
+            if (this.length[row] == this.capacity[row]) {
+                grow(row);
+            }
+            int p = this.offset[row] + this.length[row]++;
+            this.keys[p] = key;
+            this.values[p] = value;
+        }
+
+        /**
+         * Removes a rating from a row, keeping the order of the others.
+         */
+        public void remove(int row, int position) {
+            int stop = this.offset[row] + this.length[row] - 1;
+            System.arraycopy(this.keys, position + 1, this.keys, position, stop - position);
+            System.arraycopy(this.values, position + 1, this.values, position, stop - position);
+            this.length[row]--;
+        }
+
+        /**
+         * Moves a full row to the end of the ratings with twice its capacity.
+         */
+        protected void grow(int row) {
+            int newCapacity = Math.max(4, 2 * this.capacity[row]);
+            if (4 * this.free > this.end) {
+                compact();
+            }
+            if (this.end + newCapacity > this.keys.length) {
+                int n = Math.max(this.keys.length + this.keys.length / 2, this.end + newCapacity);
+                this.keys = Arrays.copyOf(this.keys, n);
+                this.values = Arrays.copyOf(this.values, n);
+            }
+            System.arraycopy(this.keys, this.offset[row], this.keys, this.end, this.length[row]);
+            System.arraycopy(this.values, this.offset[row], this.values, this.end, this.length[row]);
+            this.free += this.capacity[row];
+            this.offset[row] = this.end;
+            this.capacity[row] = newCapacity;
+            this.end += newCapacity;
+        }
+
+        /**
+         * Moves the rows to the start of the ratings, in the order they are
+         * stored.
+         */
+        protected void compact() {
+            Integer[] order = new Integer[this.numRows];
+            for (int row = 0; row < this.numRows; ++row) {
+                order[row] = row;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Integer.compare(offset[a], offset[b]);
+                }
+            });
+            int position = 0;
+            for (int row : order) {
+                System.arraycopy(this.keys, this.offset[row], this.keys, position, this.length[row]);
+                System.arraycopy(this.values, this.offset[row], this.values, position, this.length[row]);
+                this.offset[row] = position;
+                position += this.capacity[row];
+            }
+            this.end = position;
+            this.free = 0;
+        }
+
+        /**
+         * Gets a read-only view of the ratings of a row, which follows the
+         * changes of the row until the rows are cleared.
+         */
+        public Map<Integer, Double> view(int row) {
+            return new RowView(row);
+        }
+
+        /**
+         * The ratings of a row, iterated in the order they are stored. The
+         * rating of the key last returned by an iterator is got without
+         * searching the row, so a vector of the row is iterated in linear
+         * time.
+         */
+        protected class RowView extends AbstractMap<Integer, Double> {
+
+            protected final int row;
+
+            /** The position of the key last returned by an iterator. */
+            protected int last = -1;
+
+            public RowView(int row) {
+                this.row = row;
+            }
+
+            @Override
+            public int size() {
+                return length[this.row];
+            }
+
+            @Override
+            public Double get(Object key) {
+                if (!(key instanceof Integer)) {
+                    return null;
+                }
+                int k = (Integer) key;
+                int p = this.last;
+                if (p < offset[this.row] || p >= offset[this.row] + length[this.row]
+                        || keys[p] != k) {
+                    p = find(this.row, k);
+                }
+                return (p != -1 ? values[p] : null);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public Set<Entry<Integer, Double>> entrySet() {
+                return new AbstractSet<Entry<Integer, Double>>() {
+                    @Override
+                    public int size() {
+                        return RowView.this.size();
+                    }
+
+                    @Override
+                    public Iterator<Entry<Integer, Double>> iterator() {
+                        return new Iterator<Entry<Integer, Double>>() {
+                            private int i = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return this.i < length[row];
+                            }
+
+                            @Override
+                            public Entry<Integer, Double> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                int p = offset[row] + this.i++;
+                                last = p;
+                                return new SimpleImmutableEntry<Integer, Double>(keys[p], values[p]);
+                            }
+
+                            @Override
+                            public void remove() {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+                };
+            }
+        }
+
+        public void clear() {
+            Arrays.fill(this.table, -1);
+            this.numRows = 0;
+            this.end = 0;
+            this.free = 0;
+        }
+    }
+
+    protected Rows users = new Rows();
+    protected Rows items = new Rows();
+
+    protected int nItems = 0;
+    protected int nUsers = 0;
+    protected double sumRatings = 0;
+    protected int nRatings = 0;
+    protected double minRating = 0;
+    protected double maxRating = 0;
+
+    protected class RatingIterator implements Iterator<Rating> {
+        private int row = 0;
+        private int position = -1;
+
+        @Override
+        public boolean hasNext() {
+            while (row < users.numRows) {
+                if (users.exists[row] && position + 1 < users.length[row]) {
+                    return true;
+                }
+                ++row;
+                position = -1;
+            }
+            return false;
+        }
+
+        @Override
+        public Rating next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int p = users.offset[row] + ++position;
+            return new Rating(users.ids[row], users.keys[p], users.values[p]);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public CompactRecommenderData() {
+        super();
+    }
+
+    @Override
+    public void addUser(int userID, List<Integer> ratedItems, List<Double> ratings) {
+        super.addUser(userID, ratedItems, ratings);
+
+        users.reset(users.row(userID, true), true);
+
+        int n = ratedItems.size();
+        for (int i = 0; i < n; ++i)
+            auxSetRating(userID, ratedItems.get(i), ratings.get(i));
+    }
+
+    //as MemRecommenderData, item stats are not updated
+    @Override
+    public void removeUser(int userID) {
+        super.removeUser(userID);
+        int row = users.row(userID, false);
+        if (row != -1)
+            users.reset(row, false);
+    }
+
+    @Override
+    public void addItem(int itemID, List<Integer> ratingUsers, List<Double> ratings) {
+        super.addItem(itemID, ratingUsers, ratings);
+
+        items.reset(items.row(itemID, true), true);
+
+        int n = ratingUsers.size();
+        for (int i = 0; i < n; ++i)
+            auxSetRating(ratingUsers.get(i), itemID, ratings.get(i));
+    }
+
+    //as MemRecommenderData, user stats are not updated
+    @Override
+    public void removeItem(int itemID) {
+        super.removeItem(itemID);
+        int row = items.row(itemID, false);
+        if (row != -1)
+            items.reset(row, false);
+    }
+
+    private void auxSetRating(int userID, int itemID, double rating) {
+        if (nRatings == 0) {
+            minRating = rating;
+            maxRating = rating;
+        }
+        else {
+            minRating = Math.min(minRating, rating);
+            maxRating = Math.max(maxRating, rating);
+        }
+
+        int user = users.row(userID, true);
+        int item = items.row(itemID, true);
+        if (!users.exists[user]) {
+            ++nUsers;
+            users.reset(user, true);
+        }
+
+        if (!items.exists[item]) {
+            ++nItems;
+            items.reset(item, true);
+        }
+
+        int userPosition = users.find(user, itemID);
+        if (userPosition != -1) {
+            double rat = users.values[userPosition];
+            sumRatings -= rat;
+            users.sum[user] -= rat;
+            users.num[user]--;
+            items.sum[item] -= rat;
+            items.num[item]--;
+            --nRatings;
+        }
+
+        users.sum[user] += rating;
+        users.num[user]++;
+        items.sum[item] += rating;
+        items.num[item]++;
+        sumRatings += rating;
+        ++nRatings;
+        if (userPosition != -1)
+            users.values[userPosition] = rating;
+        else
+            users.append(user, itemID, rating);
+        //a new rating of the user can only be in the row of the item if
+        //the user was reset while the item kept its ratings
+        int itemPosition = (userPosition != -1 || users.detached[user]
+                ? items.find(item, userID) : -1);
+        if (itemPosition != -1)
+            items.values[itemPosition] = rating;
+        else
+            items.append(item, userID, rating);
+    }
+
+    @Override
+    public void setRating(int userID, int itemID, double rating) {
+        super.setRating(userID, itemID, rating);
+        auxSetRating(userID, itemID, rating);
+    }
+
+    @Override
+    public void removeRating(int userID, int itemID) {
+        super.removeRating(userID, itemID);
+
+        int user = users.row(userID, false);
+        int item = items.row(itemID, false);
+        int userPosition = (user != -1 ? users.find(user, itemID) : -1);
+        if (userPosition != -1) {
+            double rat = users.values[userPosition];
+            sumRatings -= rat;
+            --nRatings;
+            users.sum[user] -= rat;
+            users.num[user]--;
+            items.sum[item] -= rat;
+            items.num[item]--;
+            users.remove(user, userPosition);
+            int itemPosition = items.find(item, userID);
+            if (itemPosition != -1)
+                items.remove(item, itemPosition);
+        }
+    }
+
+    @Override
+    public SparseVector getRatingsUser(int userID) {
+        int row = users.row(userID, false);
+        return new SparseVector(row != -1 ? users.view(row) : null);
+    }
+
+    @Override
+    public SparseVector getRatingsItem(int itemID) {
+        int row = items.row(itemID, false);
+        return new SparseVector(row != -1 ? items.view(row) : null);
+    }
+
+    @Override
+    public double getRating(int userID, int itemID) {
+        int row = users.row(userID, false);
+        int position = (row != -1 ? users.find(row, itemID) : -1);
+        return (position != -1 ? users.values[position] : 0);
+    }
+
+    @Override
+    public int getNumItems() {
+        return nItems;
+    }
+
+    @Override
+    public int getNumUsers() {
+        return nUsers;
+    }
+
+    private double getAvgRating(Rows rows, int id) {
+        int row = rows.row(id, false);
+        boolean exists = row != -1 && rows.exists[row];
+        double sum = (exists ? rows.sum[row] : 0);
+        double num = (exists ? rows.num[row] : 0);
+        double mean = (nRatings > 0 ? sumRatings/(double)nRatings : (minRating + maxRating)/2.0);
+        return (mean*25 + sum)/(25 + num);
+    }
+
+    @Override
+    public double getAvgRatingUser(int userID) {
+        return getAvgRating(users, userID);
+    }
+
+    @Override
+    public double getAvgRatingItem(int itemID) {
+        return getAvgRating(items, itemID);
+    }
+
+    @Override
+    public double getMinRating() {
+        return minRating;
+    }
+
+    @Override
+    public double getMaxRating() {
+        return maxRating;
+    }
+
+    private static Set<Integer> getIDs(Rows rows) {
+        Set<Integer> ids = new HashSet<Integer>();
+        for (int row = 0; row < rows.numRows; ++row) {
+            if (rows.exists[row])
+                ids.add(rows.ids[row]);
+        }
+        return ids;
+    }
+
+    @Override
+    public Set<Integer> getUsers() {
+        return getIDs(users);
+    }
+
+    @Override
+    public Set<Integer> getItems() {
+        return getIDs(items);
+    }
+
+    @Override
+    public double getGlobalMean() {
+        return (nRatings > 0 ? sumRatings/(double)nRatings : (minRating + maxRating)/2.0);
+    }
+
+    private static int countRatings(Rows rows, int id) {
+        int row = rows.row(id, false);
+        return (row != -1 && rows.exists[row] ? rows.num[row] : 0);
+    }
+
+    @Override
+    public int countRatingsUser(int userID) {
+        return countRatings(users, userID);
+    }
+
+    @Override
+    public int countRatingsItem(int itemID) {
+        return countRatings(items, itemID);
+    }
+
+    @Override
+    public Iterator<Rating> ratingIterator() {
+        return new RatingIterator();
+    }
+
+    @Override
+    public int getNumRatings() {
+        return nRatings;
+    }
+
+    @Override
+    public boolean userExists(int userID) {
+        int row = users.row(userID, false);
+        return row != -1 && users.exists[row];
+    }
+
+    @Override
+    public boolean itemExists(int itemID) {
+        int row = items.row(itemID, false);
+        return row != -1 && items.exists[row];
+    }
+
+    //as MemRecommenderData, the attached updatables are kept
+    @Override
+    public void clear() {
+        users.clear();
+        items.clear();
+        minRating = maxRating = nItems = nUsers = 0;
+        sumRatings = nRatings = 0;
+    }
+}
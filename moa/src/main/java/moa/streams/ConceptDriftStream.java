@@ -22,6 +22,7 @@ package moa.streams;
 import java.util.Random;
 import moa.core.Example;
 
+import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
@@ -119,13 +120,18 @@ public class ConceptDriftStream extends AbstractOptionHandler implements
 
     @Override
     public Example nextInstance() {
+        return nextInstance(null);
+    }
+
+    @Override
+    public Example nextInstance(Example<Instance> reuse) {
         numberInstanceStream++;
         double x = -4.0 * (double) (numberInstanceStream - this.positionOption.getValue()) / (double) this.widthOption.getValue();
         double probabilityDrift = 1.0 / (1.0 + Math.exp(x));
         if (this.random.nextDouble() > probabilityDrift) {
-            return this.inputStream.nextInstance();
+            return this.inputStream.nextInstance(reuse);
         } else {
-            return this.driftStream.nextInstance();
+            return this.driftStream.nextInstance(reuse);
         }
 
     }
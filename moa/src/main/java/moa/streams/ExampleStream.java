@@ -19,6 +19,9 @@
  */
 package moa.streams;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import moa.MOAObject;
 import moa.core.Example;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
@@ -63,6 +66,36 @@ public interface ExampleStream<E extends Example> extends MOAObject {
      */
     public E nextInstance();
 
+    /**
+     * Gets up to the next n examples from this stream, stopping early if
+     * the stream runs out of instances. Streams that can hand over several
+     * examples more cheaply than one at a time should override this.
+     *
+     * @param n the maximum number of examples to return
+     * @return the next examples of this stream, in stream order
+     */
+    public default List<E> nextInstances(int n) {
+        List<E> batch = new ArrayList<E>(n);
+        while (batch.size() < n && hasMoreInstances()) {
+            batch.add(nextInstance());
+        }
+        return batch;
+    }
+
+    /**
+     * Gets the next example from this stream, filling the given example in
+     * place when possible instead of allocating a new one. The example to
+     * reuse must have been returned by this stream, and must no longer be
+     * referenced by anyone else, as its values are overwritten. Streams that
+     * cannot reuse examples return a new one.
+     *
+     * @param reuse an example previously returned by this stream, or null
+     * @return the next example of this stream, which may be the given one
+     */
+    public default E nextInstance(E reuse) {
+        return nextInstance();
+    }
+
     /**
      * Gets whether this stream can restart.
      *
@@ -25,9 +25,11 @@ import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import moa.options.ClassOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.ListOption;
 import com.github.javacliparser.Option;
 import moa.options.OptionHandler;
+import moa.streams.filters.AbstractStreamFilter;
 import moa.streams.filters.StreamFilter;
 import moa.tasks.TaskMonitor;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -57,8 +59,17 @@ public class MultiFilteredStream extends AbstractOptionHandler implements
             "Stream filter.", StreamFilter.class, "AddNoiseFilter"),
             new Option[0], ',');
 
+    public FlagOption fuseFiltersOption = new FlagOption("fuseFilters", 'u',
+            "Apply all the filters to each instance in a single pass, copying it at most once.");
+
     protected ExampleStream filterChain;
 
+    /** The stream to filter, when the filters are fused. */
+    protected ExampleStream inputStream;
+
+    /** The filters, when they are fused. */
+    protected StreamFilter[] fusedFilters;
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -81,11 +92,34 @@ public class MultiFilteredStream extends AbstractOptionHandler implements
             }
         }
         ExampleStream chain = (ExampleStream) getPreparedClassOption(this.streamOption);
+        this.inputStream = chain;
         for (int i = 0; i < filters.length; i++) {
             filters[i].setInputStream(chain);
             chain = filters[i];
         }
         this.filterChain = chain;
+        this.fusedFilters = null;
+        if (this.fuseFiltersOption.isSet() && canFuse(filters)) {
+            this.fusedFilters = filters;
+        }
+    }
+
+    /**
+     * Gets whether filters can be fused: every filter must get its instances
+     * with <code>filterInstance</code> and not its own <code>nextInstance</code>.
+     */
+    protected static boolean canFuse(StreamFilter[] filters) {
+        for (StreamFilter filter : filters) {
+            try {
+                if (filter.getClass().getMethod("nextInstance").getDeclaringClass()
+                        != AbstractStreamFilter.class) {
+                    return false;
+                }
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -110,7 +144,23 @@ public class MultiFilteredStream extends AbstractOptionHandler implements
 
     @Override
     public Example nextInstance() {
-        return this.filterChain.nextInstance();
+        if (this.fusedFilters == null) {
+            return this.filterChain.nextInstance();
+        }
+        // the filters still form a chain for the headers and restarts, but
+        // the instance only goes through them here
+        Instance inst = (Instance) this.inputStream.nextInstance().getData();
+        boolean copied = false;
+        for (StreamFilter filter : this.fusedFilters) {
+            if (!copied && filter.modifiesInstance()) {
+                inst = inst.copy();
+                copied = true;
+            }
+            Instance filtered = filter.filterInstance(inst);
+            copied |= filtered != inst;
+            inst = filtered;
+        }
+        return new InstanceExample(inst);
     }
 
     @Override
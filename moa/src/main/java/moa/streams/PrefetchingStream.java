@@ -0,0 +1,254 @@
+/*
+ *    PrefetchingStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import moa.core.Example;
+import moa.core.ObjectRepository;
+import moa.core.StringUtils;
+import moa.options.AbstractOptionHandler;
+import moa.options.ClassOption;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Stream that reads another stream ahead on a producer thread.
+ *
+ * <p>The wrapped stream is pulled on a background thread into a bounded
+ * buffer, so the cost of generating, parsing or filtering instances overlaps
+ * with whatever the consumer does with them (usually learning). The order of
+ * the instances is the same as the order of the wrapped stream. The wrapped
+ * stream must return a new example object on every call, which is the case
+ * for all the streams in MOA.</p>
+ *
+ * <p>Parameters:</p> <ul>
+ * <li>-s : Stream to prefetch</li>
+ * <li>-b : Maximum number of instances buffered ahead of the consumer</li>
+ * </ul>
+ *
+ * @version $Revision: 1 $
+ */
+public class PrefetchingStream extends AbstractOptionHandler implements
+        ExampleStream {
+
+    @Override
+    public String getPurposeString() {
+        return "A stream that is read ahead on a separate thread.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to prefetch.", ExampleStream.class,
+            "generators.RandomTreeGenerator");
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "Maximum number of instances buffered ahead of the consumer.",
+            1024, 1, Integer.MAX_VALUE);
+
+    /** Marks the end of the wrapped stream in the buffer. */
+    protected static final Object END_OF_STREAM = new Object();
+
+    protected ExampleStream stream;
+
+    protected InstancesHeader header;
+
+    protected transient BlockingQueue<Object> buffer;
+
+    protected transient Thread producer;
+
+    protected transient volatile Throwable producerFailure;
+
+    /**
+     * Number of instances read from the wrapped stream plus its estimated
+     * remaining instances, or -1 if unknown. Updated by the producer thread
+     * after each instance it reads.
+     */
+    protected transient AtomicLong estimatedNumInstances;
+
+    /** Number of instances handed out since the producer started. */
+    protected transient long numConsumed;
+
+    /** Next element taken from the buffer but not yet handed out. */
+    protected transient Object next;
+
+    @Override
+    public void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        stopProducer();
+        this.stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        this.header = this.stream.getHeader();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        if (this.producer == null) {
+            return this.stream.estimatedRemainingInstances();
+        }
+        // the wrapped stream belongs to the producer thread while it runs
+        long numInstances = this.estimatedNumInstances.get();
+        if (numInstances < 0) {
+            return -1;
+        }
+        return numInstances - this.numConsumed;
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        return peek() != END_OF_STREAM;
+    }
+
+    @Override
+    public Example nextInstance() {
+        Object element = peek();
+        if (element == END_OF_STREAM) {
+            return null;
+        }
+        this.next = null;
+        this.numConsumed++;
+        return (Example) element;
+    }
+
+    @Override
+    public List<Example> nextInstances(int n) {
+        List<Example> batch = new ArrayList<Example>(n);
+        List<Object> ready = new ArrayList<Object>();
+        while (batch.size() < n && hasMoreInstances()) {
+            batch.add((Example) this.next);
+            this.next = null;
+            // take whatever the producer already has without blocking
+            ready.clear();
+            this.buffer.drainTo(ready, n - batch.size());
+            for (Object element : ready) {
+                if (element == END_OF_STREAM) {
+                    this.next = END_OF_STREAM;
+                    this.numConsumed += batch.size();
+                    return batch;
+                }
+                batch.add((Example) element);
+            }
+        }
+        this.numConsumed += batch.size();
+        return batch;
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return this.stream.isRestartable();
+    }
+
+    @Override
+    public void restart() {
+        stopProducer();
+        this.stream.restart();
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        StringUtils.appendIndented(sb, indent, "Prefetching up to "
+                + this.bufferSizeOption.getValue() + " instances of "
+                + this.streamOption.getValueAsCLIString());
+    }
+
+    /**
+     * Returns the next buffered element without consuming it, waiting for
+     * the producer if the buffer is empty.
+     */
+    protected Object peek() {
+        if (this.next == null) {
+            if (this.producer == null) {
+                startProducer();
+            }
+            try {
+                this.next = this.buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the prefetching thread.", e);
+            }
+        }
+        if (this.next == END_OF_STREAM && this.producerFailure != null) {
+            throw new RuntimeException("Prefetching thread failed.", this.producerFailure);
+        }
+        return this.next;
+    }
+
+    protected void startProducer() {
+        final BlockingQueue<Object> queue =
+                new ArrayBlockingQueue<Object>(this.bufferSizeOption.getValue());
+        final ExampleStream source = this.stream;
+        final AtomicLong numInstances = new AtomicLong(
+                Math.max(-1, source.estimatedRemainingInstances()));
+        this.buffer = queue;
+        this.estimatedNumInstances = numInstances;
+        this.numConsumed = 0;
+        this.producerFailure = null;
+        this.producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long numRead = 0;
+                    while (!Thread.currentThread().isInterrupted()
+                            && source.hasMoreInstances()) {
+                        Example example = source.nextInstance();
+                        numRead++;
+                        long remaining = source.estimatedRemainingInstances();
+                        numInstances.set(remaining < 0 ? -1 : numRead + remaining);
+                        queue.put(example);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable t) {
+                    producerFailure = t;
+                }
+                try {
+                    queue.put(END_OF_STREAM);
+                } catch (InterruptedException e) {
+                    // stopped while the consumer is not reading: nothing to signal
+                }
+            }
+        }, "PrefetchingStream");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    protected void stopProducer() {
+        if (this.producer != null) {
+            this.producer.interrupt();
+            try {
+                this.producer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.producer = null;
+        this.buffer = null;
+        this.estimatedNumInstances = null;
+        this.next = null;
+    }
+}
@@ -80,7 +80,7 @@ public class RecurrentConceptDriftStream extends ConceptDriftStream {
     }
 
     @Override
-    public Example nextInstance() {
+    public Example nextInstance(Example<Instance> reuse) {
 
         numberInstanceStream++;
         double x = numberInstanceStream;
@@ -99,9 +99,9 @@ public class RecurrentConceptDriftStream extends ConceptDriftStream {
         }
         
         if (this.random.nextDouble() > probabilityDrift) {            
-            return this.inputStream.nextInstance();
+            return this.inputStream.nextInstance(reuse);
         } else {            
-            return this.driftStream.nextInstance();
+            return this.driftStream.nextInstance(reuse);
         }       
     }
 
@@ -81,7 +81,10 @@ public abstract class AbstractStreamFilter extends AbstractOptionHandler
     
     @Override
     public InstanceExample nextInstance() {
-         Instance inst = (Instance) ((Instance) this.inputStream.nextInstance().getData()).copy();
+         Instance inst = (Instance) this.inputStream.nextInstance().getData();
+         if (modifiesInstance()) {
+             inst = inst.copy();
+         }
          return new InstanceExample(filterInstance(inst));
     }
     
@@ -73,6 +73,11 @@ public class ReLUFilter extends AbstractStreamFilter {
 		return z;
 	}
 
+	@Override
+	public boolean modifiesInstance() {
+		return false;
+	}
+
 	@Override
 	protected void restartImpl() {
 		this.random = new Random(this.randomSeedOption.getValue());
@@ -21,7 +21,6 @@ package moa.streams.filters;
 
 import java.util.ArrayList;
 import java.util.List;
-import moa.core.InstanceExample;
 import moa.streams.InstanceStream;
 import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -59,9 +58,7 @@ public class RemoveDiscreteAttributeFilter extends AbstractStreamFilter {
     }
 
     @Override
-    public InstanceExample nextInstance() {
-        Instance inst = (Instance) this.inputStream.nextInstance().getData();
-
+    public Instance filterInstance(Instance inst) {
         if (streamHeader == null) {
             //Create a new header
             FastVector attributes = new FastVector();
@@ -92,9 +89,15 @@ public class RemoveDiscreteAttributeFilter extends AbstractStreamFilter {
         } else {
             instance = new DenseInstance(inst.weight(), vals);
         }
+        instance.setDataset(this.streamHeader);
+
 
+        return instance;
+    }
 
-        return new InstanceExample(instance);
+    @Override
+    public boolean modifiesInstance() {
+        return false;
     }
 
     @Override
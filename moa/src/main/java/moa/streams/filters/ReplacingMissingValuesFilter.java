@@ -30,7 +30,6 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import moa.core.InstanceExample;
 
 
 
@@ -92,6 +91,11 @@ public class ReplacingMissingValuesFilter extends AbstractStreamFilter {
 	
 	protected HashMap<Double, Integer> frequencies[] = null;
 	
+	/** Whether every attribute is numeric, nominal or neither, found once. */
+	protected boolean numericAttributes[] = null;
+	
+	protected boolean nominalAttributes[] = null;
+	
 	protected int numericalSelectedStrategy = 0;
 	protected int nominalSelectedStrategy = 0;
 	
@@ -106,8 +110,7 @@ public class ReplacingMissingValuesFilter extends AbstractStreamFilter {
 	}
 
     @Override
-    public InstanceExample nextInstance() {
-        Instance inst = (Instance) ((Instance) this.inputStream.nextInstance().getData()).copy();
+    public Instance filterInstance(Instance inst) {
  		
 		// Initialization
 		if (numAttributes < 0){
@@ -119,8 +122,12 @@ public class ReplacingMissingValuesFilter extends AbstractStreamFilter {
                             lastNominalValues[i]=-1;
                         }
 			frequencies = new HashMap[numAttributes];
+			numericAttributes = new boolean[numAttributes];
+			nominalAttributes = new boolean[numAttributes];
 			for(int i=0; i< inst.numAttributes(); i++){
-				if(inst.attribute(i).isNominal())
+				numericAttributes[i] = inst.attribute(i).isNumeric();
+				nominalAttributes[i] = inst.attribute(i).isNominal();
+				if(nominalAttributes[i])
 					frequencies[i] = new HashMap<Double, Integer>();
 			}
 			
@@ -128,12 +135,17 @@ public class ReplacingMissingValuesFilter extends AbstractStreamFilter {
 			nominalSelectedStrategy = this.nominalReplacementStrategyOption.getChosenIndex();
 		}
 		
+		// Nothing to replace nor to learn
+		if (numericalSelectedStrategy == 0 && nominalSelectedStrategy == 0) {
+			return inst;
+		}
+		
 		
 		
 		for (int i = 0; i < numAttributes; i++) {
 			
 			// ---- Numerical values ----
-			if (inst.attribute(i).isNumeric()) {
+			if (numericAttributes[i]) {
 				// Handle missing value
 				if (inst.isMissing(i)) {
 					switch(numericalSelectedStrategy){
@@ -172,7 +184,7 @@ public class ReplacingMissingValuesFilter extends AbstractStreamFilter {
 				}
 			}
 			// ---- Nominal values ----
-			else if(inst.attribute(i).isNominal()){
+			else if(nominalAttributes[i]){
 				// Handle missing value
 				if (inst.isMissing(i)) {
 					switch(nominalSelectedStrategy){
@@ -210,7 +222,7 @@ public class ReplacingMissingValuesFilter extends AbstractStreamFilter {
 			}
 		}
 		
-        return new InstanceExample(inst);
+        return inst;
     }
 
 	@Override
@@ -226,6 +238,8 @@ public class ReplacingMissingValuesFilter extends AbstractStreamFilter {
 		numberOfSamples = null;
 		lastNominalValues = null;
 		frequencies = null;
+		numericAttributes = null;
+		nominalAttributes = null;
 	}
 	
 	// Solution from http://stackoverflow.com/a/2581754/2022620
@@ -36,6 +36,25 @@ public interface StreamFilter extends ExampleStream {
      * @param stream the input stream to the filter
      */
     public void setInputStream(ExampleStream stream);
-    
+
+    /**
+     * Filters an instance of the input stream. The instance may be changed
+     * in place, and the filtered instance is returned.
+     *
+     * @param inst the instance to filter
+     * @return the filtered instance, the given one or a new one
+     */
     public Instance filterInstance(Instance inst);
+
+    /**
+     * Gets whether <code>filterInstance</code> changes the instance it is
+     * given, which must then be a copy of the instance of the input stream.
+     * Filters that leave it unchanged and return a new instance avoid the
+     * copy.
+     *
+     * @return true if the given instance is changed in place
+     */
+    public default boolean modifiesInstance() {
+        return true;
+    }
 }
@@ -334,6 +334,11 @@ public class AgrawalGenerator extends AbstractOptionHandler implements
 
     @Override
     public InstanceExample nextInstance() {
+        return nextInstance(null);
+    }
+
+    @Override
+    public InstanceExample nextInstance(Example<Instance> reuse) {
         double salary = 0, commission = 0, hvalue = 0, loan = 0;
         int age = 0, elevel = 0, car = 0, zipcode = 0, hyears = 0, group = 0;
         boolean desiredClassFound = false;
@@ -380,7 +385,8 @@ public class AgrawalGenerator extends AbstractOptionHandler implements
         }
         // construct instance
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
+        Instance reusable = InstanceExample.reusableInstance(reuse, header);
+        Instance inst = reusable != null ? reusable : new DenseInstance(header.numAttributes());
         inst.setValue(0, salary);
         inst.setValue(1, commission);
         inst.setValue(2, age);
@@ -390,6 +396,11 @@ public class AgrawalGenerator extends AbstractOptionHandler implements
         inst.setValue(6, hvalue);
         inst.setValue(7, hyears);
         inst.setValue(8, loan);
+        if (reusable != null) {
+            inst.setWeight(1.0);
+            inst.setClassValue(group);
+            return (InstanceExample) reuse;
+        }
         inst.setDataset(header);
         inst.setClassValue(group);
         return new InstanceExample(inst);
@@ -23,6 +23,7 @@ import java.util.Random;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import moa.core.FastVector;
+import moa.core.Example;
 import moa.core.InstanceExample;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
@@ -80,6 +81,9 @@ public class HyperplaneGenerator extends AbstractOptionHandler implements
 
     protected int[] sigma;
 
+    /** Values of the instance being generated when filling one in place. */
+    protected transient double[] attValsBuffer;
+
     public int numberInstance;
 
     @Override
@@ -128,9 +132,23 @@ public class HyperplaneGenerator extends AbstractOptionHandler implements
 
     @Override
     public InstanceExample nextInstance() {
+        return nextInstance(null);
+    }
+
+    @Override
+    public InstanceExample nextInstance(Example<Instance> reuse) {
 
         int numAtts = this.numAttsOption.getValue();
-        double[] attVals = new double[numAtts + 1];
+        Instance reusable = InstanceExample.reusableInstance(reuse, getHeader());
+        double[] attVals;
+        if (reusable != null) {
+            if (this.attValsBuffer == null || this.attValsBuffer.length != numAtts + 1) {
+                this.attValsBuffer = new double[numAtts + 1];
+            }
+            attVals = this.attValsBuffer;
+        } else {
+            attVals = new double[numAtts + 1];
+        }
         double sum = 0.0;
         double sumWeights = 0.0;
         for (int i = 0; i < numAtts; i++) {
@@ -149,6 +167,12 @@ public class HyperplaneGenerator extends AbstractOptionHandler implements
             classLabel = (classLabel == 0 ? 1 : 0);
         }
 
+        if (reusable != null) {
+            attVals[numAtts] = classLabel;
+            InstanceExample.setValues(reusable, 1.0, attVals);
+            addDrift();
+            return (InstanceExample) reuse;
+        }
         Instance inst = new DenseInstance(1.0, attVals);
         inst.setDataset(getHeader());
         inst.setClassValue(classLabel);
@@ -27,6 +27,7 @@ import com.yahoo.labs.samoa.instances.Instances;
 
 import java.io.Serializable;
 import java.util.Random;
+import moa.core.Example;
 import moa.core.InstanceExample;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
@@ -88,6 +89,9 @@ public class RandomRBFGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    /** Values of the instance being generated when filling one in place. */
+    protected transient double[] attValsBuffer;
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -124,10 +128,24 @@ public class RandomRBFGenerator extends AbstractOptionHandler implements
 
     @Override
     public InstanceExample nextInstance() {
+        return nextInstance(null);
+    }
+
+    @Override
+    public InstanceExample nextInstance(Example<Instance> reuse) {
         Centroid centroid = this.centroids[MiscUtils.chooseRandomIndexBasedOnWeights(this.centroidWeights,
                 this.instanceRandom)];
         int numAtts = this.numAttsOption.getValue();
-        double[] attVals = new double[numAtts + 1];
+        Instance reusable = InstanceExample.reusableInstance(reuse, getHeader());
+        double[] attVals;
+        if (reusable != null) {
+            if (this.attValsBuffer == null || this.attValsBuffer.length != numAtts + 1) {
+                this.attValsBuffer = new double[numAtts + 1];
+            }
+            attVals = this.attValsBuffer;
+        } else {
+            attVals = new double[numAtts + 1];
+        }
         for (int i = 0; i < numAtts; i++) {
             attVals[i] = (this.instanceRandom.nextDouble() * 2.0) - 1.0;
         }
@@ -142,6 +160,11 @@ public class RandomRBFGenerator extends AbstractOptionHandler implements
         for (int i = 0; i < numAtts; i++) {
             attVals[i] = centroid.centre[i] + attVals[i] * scale;
         }
+        if (reusable != null) {
+            attVals[numAtts] = centroid.classLabel;
+            InstanceExample.setValues(reusable, 1.0, attVals);
+            return (InstanceExample) reuse;
+        }
         Instance inst = new DenseInstance(1.0, attVals);
         inst.setDataset(getHeader());
         inst.setClassValue(centroid.classLabel);
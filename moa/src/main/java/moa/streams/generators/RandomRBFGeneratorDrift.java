@@ -20,6 +20,7 @@
 package moa.streams.generators;
 
 import java.util.Random;
+import moa.core.Example;
 import moa.core.InstanceExample;
 
 import com.github.javacliparser.IntOption;
@@ -50,7 +51,7 @@ public class RandomRBFGeneratorDrift extends RandomRBFGenerator {
     protected double[][] speedCentroids;
 
     @Override
-    public InstanceExample nextInstance() {
+    public InstanceExample nextInstance(Example<Instance> reuse) {
         //Update Centroids with drift
         int len = this.numDriftCentroidsOption.getValue();
         if (len > this.centroids.length) {
@@ -69,7 +70,7 @@ public class RandomRBFGeneratorDrift extends RandomRBFGenerator {
                 }
             }
         }
-        return super.nextInstance();
+        return super.nextInstance(reuse);
     }
 
     @Override
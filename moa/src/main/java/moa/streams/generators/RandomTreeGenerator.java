@@ -28,6 +28,7 @@ import com.yahoo.labs.samoa.instances.Instances;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Random;
+import moa.core.Example;
 import moa.core.InstanceExample;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
@@ -110,6 +111,9 @@ public class RandomTreeGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    /** Values of the instance being generated when filling one in place. */
+    protected transient double[] attValsBuffer;
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -146,18 +150,36 @@ public class RandomTreeGenerator extends AbstractOptionHandler implements
 
     @Override
     public InstanceExample nextInstance() {
-        double[] attVals = new double[this.numNominalsOption.getValue()
-                + this.numNumericsOption.getValue()];
+        return nextInstance(null);
+    }
+
+    @Override
+    public InstanceExample nextInstance(Example<Instance> reuse) {
+        int numAtts = this.numNominalsOption.getValue()
+                + this.numNumericsOption.getValue();
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
+        Instance reusable = InstanceExample.reusableInstance(reuse, header);
+        Instance inst;
+        double[] attVals;
+        if (reusable != null) {
+            if (this.attValsBuffer == null || this.attValsBuffer.length != numAtts) {
+                this.attValsBuffer = new double[numAtts];
+            }
+            attVals = this.attValsBuffer;
+            inst = reusable;
+            inst.setWeight(1.0);
+        } else {
+            attVals = new double[numAtts];
+            inst = new DenseInstance(header.numAttributes());
+            inst.setDataset(header);
+        }
         for (int i = 0; i < attVals.length; i++) {
             attVals[i] = i < this.numNominalsOption.getValue() ? this.instanceRandom.nextInt(this.numValsPerNominalOption.getValue())
                     : this.instanceRandom.nextDouble();
             inst.setValue(i, attVals[i]);
         }
-        inst.setDataset(header);
         inst.setClassValue(classifyInstance(this.treeRoot, attVals));
-        return new InstanceExample(inst);
+        return reusable != null ? (InstanceExample) reuse : new InstanceExample(inst);
     }
 
     protected int classifyInstance(Node node, double[] attVals) {
@@ -0,0 +1,228 @@
+/*
+ *    CheckpointedEvaluation.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+
+import moa.evaluation.LearningPerformanceEvaluator;
+import moa.evaluation.preview.LearningCurve;
+import moa.learners.Learner;
+import moa.streams.ExampleStream;
+
+/**
+ * Checkpoint and resume of a prequential evaluation task, together with the
+ * immediate result and prediction files it writes to.
+ *
+ * <p>When an evaluation is resumed, the result files are cut back to their
+ * length at the time of the checkpoint before rows are appended, so that the
+ * rows written between the checkpoint and the end of the previous run are
+ * not repeated. Resuming fails if a result file is shorter than it was at
+ * the checkpoint.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class CheckpointedEvaluation {
+
+    /** Checkpoint the evaluation resumes from, null for a new evaluation. */
+    protected final EvaluationCheckpoint resumedCheckpoint;
+
+    protected final File checkpointFile;
+
+    protected final int checkpointFrequency;
+
+    protected EvaluationCheckpoint.Writer checkpointWriter;
+
+    protected File dumpFile;
+
+    protected PrintStream immediateResultStream;
+
+    protected boolean dumpHeaderWritten;
+
+    protected File outputPredictionFile;
+
+    protected PrintStream outputPredictionResultStream;
+
+    /**
+     * @param resumeFile the checkpoint file to resume from, or null
+     * @param checkpointFile the file to write checkpoints to, or null
+     * @param checkpointFrequency the number of instances between checkpoints
+     * @param monitor the monitor of the task
+     */
+    public CheckpointedEvaluation(File resumeFile, File checkpointFile,
+            int checkpointFrequency, TaskMonitor monitor) {
+        if (resumeFile != null) {
+            monitor.setCurrentActivity("Reading checkpoint...", -1.0);
+            this.resumedCheckpoint = EvaluationCheckpoint.readFromFile(resumeFile);
+        } else {
+            this.resumedCheckpoint = null;
+        }
+        this.checkpointFile = checkpointFile;
+        this.checkpointFrequency = checkpointFrequency;
+    }
+
+    /**
+     * @return the checkpoint the evaluation resumes from, or null
+     */
+    public EvaluationCheckpoint getResumedCheckpoint() {
+        return this.resumedCheckpoint;
+    }
+
+    /**
+     * Advances a freshly prepared stream past the instances processed before
+     * the checkpoint, if the evaluation is resumed.
+     */
+    public void skipProcessedInstances(ExampleStream stream, TaskMonitor monitor) {
+        if (this.resumedCheckpoint != null) {
+            monitor.setCurrentActivity("Skipping instances processed before checkpoint...", -1.0);
+            this.resumedCheckpoint.skipStream(stream);
+        }
+    }
+
+    /**
+     * Opens the file to append intermediate csv results to.
+     *
+     * @param file the file, or null
+     * @return the stream to print results to, or null
+     */
+    public PrintStream openDumpFile(File file) {
+        this.dumpFile = file;
+        long length = this.resumedCheckpoint != null
+                ? this.resumedCheckpoint.dumpFileLength : -1;
+        // the header was written with the first entry of the learning curve
+        this.dumpHeaderWritten = length >= 0
+                && this.resumedCheckpoint.learningCurve.numEntries() > 0;
+        this.immediateResultStream = openFile(file, length, "immediate result");
+        return this.immediateResultStream;
+    }
+
+    /**
+     * @return true if the header of the immediate result file was written
+     * before the checkpoint the evaluation resumes from
+     */
+    public boolean isDumpHeaderWritten() {
+        return this.dumpHeaderWritten;
+    }
+
+    /**
+     * Opens the file to append output predictions to.
+     *
+     * @param file the file, or null
+     * @return the stream to print predictions to, or null
+     */
+    public PrintStream openOutputPredictionFile(File file) {
+        this.outputPredictionFile = file;
+        long length = this.resumedCheckpoint != null
+                ? this.resumedCheckpoint.outputPredictionFileLength : -1;
+        this.outputPredictionResultStream = openFile(file, length, "prediction result");
+        return this.outputPredictionResultStream;
+    }
+
+    /**
+     * Opens a result file for appending. A file that had the given length at
+     * the checkpoint is first cut back to that length.
+     */
+    protected static PrintStream openFile(File file, long checkpointLength,
+            String description) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            if (checkpointLength >= 0) {
+                long length = file.exists() ? file.length() : 0;
+                if (length < checkpointLength) {
+                    throw new RuntimeException("Unable to resume, the " + description
+                            + " file " + file + " has " + length
+                            + " bytes but had " + checkpointLength
+                            + " bytes at the checkpoint");
+                }
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(checkpointLength);
+                } finally {
+                    raf.close();
+                }
+            }
+            if (file.exists()) {
+                return new PrintStream(new FileOutputStream(file, true), true);
+            } else {
+                return new PrintStream(new FileOutputStream(file), true);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(
+                    "Unable to open " + description + " file: " + file, ex);
+        }
+    }
+
+    /**
+     * @return true if a checkpoint has to be written after the given number
+     * of instances
+     */
+    public boolean isCheckpointDue(long instancesProcessed) {
+        return this.checkpointFile != null
+                && instancesProcessed % this.checkpointFrequency == 0;
+    }
+
+    /**
+     * Writes a checkpoint of the evaluation. The learner, the evaluator and
+     * the learning curve are serialized on the calling thread, only the
+     * bytes are written on a background thread.
+     */
+    public void writeCheckpoint(Learner learner, LearningPerformanceEvaluator evaluator,
+            LearningCurve learningCurve, long instancesProcessed,
+            double evaluationTime, double ramHours) {
+        EvaluationCheckpoint checkpoint = new EvaluationCheckpoint(learner,
+                evaluator, learningCurve, instancesProcessed, evaluationTime, ramHours);
+        checkpoint.dumpFileLength = fileLength(this.dumpFile, this.immediateResultStream);
+        checkpoint.outputPredictionFileLength = fileLength(this.outputPredictionFile,
+                this.outputPredictionResultStream);
+        if (this.checkpointWriter == null) {
+            this.checkpointWriter = new EvaluationCheckpoint.Writer(this.checkpointFile);
+        }
+        this.checkpointWriter.write(checkpoint.toByteArray());
+    }
+
+    protected static long fileLength(File file, PrintStream stream) {
+        if (stream == null) {
+            return -1;
+        }
+        stream.flush();
+        return file.length();
+    }
+
+    /**
+     * Waits for the pending checkpoint, if any, and closes the result files.
+     */
+    public void close() {
+        try {
+            if (this.checkpointWriter != null) {
+                this.checkpointWriter.close();
+            }
+        } finally {
+            if (this.immediateResultStream != null) {
+                this.immediateResultStream.close();
+            }
+            if (this.outputPredictionResultStream != null) {
+                this.outputPredictionResultStream.close();
+            }
+        }
+    }
+}
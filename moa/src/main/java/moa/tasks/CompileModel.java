@@ -0,0 +1,56 @@
+/*
+ *    CompileModel.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.trees.CompiledModel;
+import moa.core.ObjectRepository;
+import moa.options.ClassOption;
+
+/**
+ * Task for compiling a trained tree model for fast prediction. The compiled
+ * model is usually written to a file with the <code>-O</code> option, to be
+ * used by <code>ScoreCompiledModel</code>.
+ *
+ * @version $Revision: 1 $
+ */
+public class CompileModel extends ClassificationMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Compiles a trained tree model for fast prediction.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption modelOption = new ClassOption("model", 'm',
+            "Trained tree or forest to compile.", MultiClassClassifier.class, "LearnModel");
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return CompiledModel.class;
+    }
+
+    @Override
+    public Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        Classifier model = (Classifier) getPreparedClassOption(this.modelOption);
+        monitor.setCurrentActivity("Compiling model...", -1.0);
+        return CompiledModel.compile(model);
+    }
+}
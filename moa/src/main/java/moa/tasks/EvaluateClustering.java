@@ -62,6 +62,14 @@ public class EvaluateClustering extends AuxiliarMainTask {
     public FlagOption silhouetteOption = new FlagOption("Silhouette", 'h', "SilhCoeff.");
     
     public FlagOption statisticalOption = new FlagOption("Statistical", 't', "van Dongen, Rand statistic.");
+
+    public IntOption numThreadsOption = new IntOption("numThreads", 'w',
+            "Number of threads over which the measures split their work on the points.", 1, 1,
+            Integer.MAX_VALUE);
+
+    public IntOption silhouetteSampleSizeOption = new IntOption("silhouetteSampleSize", 'm',
+            "Number of points sampled to estimate SilhCoeff, with a confidence interval (0 = all points).", 0, 0,
+            Integer.MAX_VALUE);
        
     /*public ClassOption evaluatorOption = new ClassOption("evaluator", 'e',
     "Performance evaluation method.",
@@ -124,7 +132,9 @@ public class EvaluateClustering extends AuxiliarMainTask {
                 (AbstractClusterer) getPreparedClassOption(this.learnerOption),
                 measureCollection,
                 (int) this.instanceLimitOption.getValue(),
-                (String) dumpFileOption.getValue());
+                (String) dumpFileOption.getValue(),
+                this.numThreadsOption.getValue(),
+                this.silhouetteSampleSizeOption.getValue());
 
         LearningCurve learningCurve = new LearningCurve("EvaluateClustering does not support custom output file (> [filename]).\n" +
         												"Check out the dump file to see the results (if you haven't specified, dumpClustering.csv by default).");
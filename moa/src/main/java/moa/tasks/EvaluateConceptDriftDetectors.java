@@ -0,0 +1,340 @@
+/*
+ *    EvaluateConceptDriftDetectors.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.ListOption;
+import com.github.javacliparser.Option;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import moa.classifiers.core.driftdetection.ChangeDetector;
+import moa.core.Example;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.core.TimingUtils;
+import moa.evaluation.BasicConceptDriftPerformanceEvaluator;
+import moa.evaluation.LearningEvaluation;
+import moa.evaluation.preview.LearningCurve;
+import moa.learners.ChangeDetectorLearner;
+import moa.options.ClassOption;
+import moa.streams.clustering.ClusterEvent;
+import moa.streams.generators.cd.ConceptDriftGenerator;
+
+/**
+ * Task for evaluating several change detectors on a single pass over a
+ * stream. The detectors process the stream concurrently, each one with its
+ * own evaluator, in blocks of instances that end where the performance is
+ * sampled. Every detector gets the same results as with EvaluateConceptDrift.
+ *
+ * @see EvaluateConceptDrift
+ */
+public class EvaluateConceptDriftDetectors extends ConceptDriftMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Evaluates several change detectors concurrently on a single pass over a stream.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    /** Maximum number of instances that the detectors process at once. */
+    protected static final int MAX_BLOCK_SIZE = 1000;
+
+    public ListOption detectorsOption = new ListOption("detectors", 'l',
+            "Change detectors to evaluate.", new ClassOption("driftDetectionMethod", 'd',
+            "Drift detection method to use.", ChangeDetector.class, "DDM"),
+            new Option[] {
+                    new ClassOption("", ' ', "", ChangeDetector.class, "DDM"),
+                    new ClassOption("", ' ', "", ChangeDetector.class, "EDDM"),
+                    new ClassOption("", ' ', "", ChangeDetector.class, "ADWINChangeDetector"),
+                    new ClassOption("", ' ', "", ChangeDetector.class, "PageHinkleyDM"),
+                    new ClassOption("", ' ', "", ChangeDetector.class, "HDDM_A_Test"),
+                    new ClassOption("", ' ', "", ChangeDetector.class, "HDDM_W_Test")},
+            ',');
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to learn from.", ConceptDriftGenerator.class,
+            "GradualChangeGenerator");
+
+    public IntOption instanceLimitOption = new IntOption("instanceLimit", 'i',
+            "Maximum number of instances to test/train on  (-1 = no limit).",
+            100000, -1, Integer.MAX_VALUE);
+
+    public IntOption timeLimitOption = new IntOption("timeLimit", 't',
+            "Maximum number of seconds to test/train for (-1 = no limit).", -1,
+            -1, Integer.MAX_VALUE);
+
+    public IntOption sampleFrequencyOption = new IntOption("sampleFrequency",
+            'f',
+            "How many instances between samples of the learning performance.",
+            1000, 1, Integer.MAX_VALUE);
+
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)",
+            -1, -1, Integer.MAX_VALUE);
+
+    public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
+            "File to append intermediate csv results to.", null, "csv", true);
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningCurve.class;
+    }
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        ConceptDriftGenerator stream = (ConceptDriftGenerator) getPreparedClassOption(this.streamOption);
+        this.setEventsList(stream.getEventsList());
+        Option[] detectorOptions = this.detectorsOption.getList();
+        List<DetectorRun> runs = new ArrayList<DetectorRun>(detectorOptions.length);
+        for (Option detectorOption : detectorOptions) {
+            ChangeDetectorLearner learner = new ChangeDetectorLearner();
+            learner.driftDetectionMethodOption.setCurrentObject(
+                    ((ClassOption) detectorOption).materializeObject(monitor, repository));
+            learner.prepareForUse();
+            learner.setModelContext(stream.getHeader());
+            runs.add(new DetectorRun(detectorOption.getValueAsCLIString(), learner));
+        }
+        int numberOfJobs = this.numberOfJobsOption.getValue();
+        if (numberOfJobs == -1) {
+            numberOfJobs = Runtime.getRuntime().availableProcessors();
+        }
+        numberOfJobs = Math.min(numberOfJobs, runs.size());
+        ExecutorService executor = numberOfJobs > 1 ? Executors.newFixedThreadPool(numberOfJobs) : null;
+        try {
+            return evaluate(stream, runs, executor, monitor);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    protected Object evaluate(ConceptDriftGenerator stream, List<DetectorRun> runs,
+            ExecutorService executor, TaskMonitor monitor) {
+        LearningCurve learningCurve = new LearningCurve(
+                "learning evaluation instances");
+        int maxInstances = this.instanceLimitOption.getValue();
+        long instancesProcessed = 0;
+        int maxSeconds = this.timeLimitOption.getValue();
+        int secondsElapsed = 0;
+        int sampleFrequency = this.sampleFrequencyOption.getValue();
+        monitor.setCurrentActivity("Evaluating detectors...", -1.0);
+
+        File dumpFile = this.dumpFileOption.getFile();
+        PrintStream immediateResultStream = null;
+        if (dumpFile != null) {
+            try {
+                if (dumpFile.exists()) {
+                    immediateResultStream = new PrintStream(
+                            new FileOutputStream(dumpFile, true), true);
+                } else {
+                    immediateResultStream = new PrintStream(
+                            new FileOutputStream(dumpFile), true);
+                }
+            } catch (Exception ex) {
+                throw new RuntimeException(
+                        "Unable to open immediate result file: " + dumpFile, ex);
+            }
+        }
+        boolean firstDump = true;
+        TimingUtils.enablePreciseTiming();
+        long evaluateStartTime = System.nanoTime();
+        List<Example> block = new ArrayList<Example>();
+        while (stream.hasMoreInstances()
+                && ((maxInstances < 0) || (instancesProcessed < maxInstances))
+                && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
+            // read the instances up to the next sample of the performance
+            long blockEnd = Math.min((instancesProcessed / sampleFrequency + 1) * sampleFrequency,
+                    instancesProcessed + MAX_BLOCK_SIZE);
+            if (maxInstances >= 0) {
+                blockEnd = Math.min(blockEnd, maxInstances);
+            }
+            block.clear();
+            while (instancesProcessed + block.size() < blockEnd && stream.hasMoreInstances()) {
+                block.add((Example) stream.nextInstance());
+            }
+            for (DetectorRun run : runs) {
+                run.setBlock(block, instancesProcessed);
+            }
+            runBlock(runs, executor);
+            for (DetectorRun run : runs) {
+                for (long detection : run.detections) {
+                    this.getEventsList().add(new ClusterEvent(this, detection, "Detected Change", run.name));
+                }
+            }
+            long previousInstancesProcessed = instancesProcessed;
+            instancesProcessed += block.size();
+
+            if (instancesProcessed % sampleFrequency == 0
+                    || stream.hasMoreInstances() == false) {
+                double time = TimingUtils.nanoTimeToSeconds(System.nanoTime() - evaluateStartTime);
+                List<Measurement> measurements = new ArrayList<Measurement>();
+                measurements.add(new Measurement("learning evaluation instances", instancesProcessed));
+                measurements.add(new Measurement("evaluation time (seconds)", time));
+                for (DetectorRun run : runs) {
+                    run.addMeasurements(measurements);
+                }
+                learningCurve.insertEntry(new LearningEvaluation(
+                        measurements.toArray(new Measurement[measurements.size()])));
+
+                if (immediateResultStream != null) {
+                    if (firstDump) {
+                        immediateResultStream.println(learningCurve.headerToString());
+                        firstDump = false;
+                    }
+                    immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
+                    immediateResultStream.flush();
+                }
+            }
+            if (instancesProcessed / INSTANCES_BETWEEN_MONITOR_UPDATES
+                    > previousInstancesProcessed / INSTANCES_BETWEEN_MONITOR_UPDATES) {
+                if (monitor.taskShouldAbort()) {
+                    return null;
+                }
+                long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                if (maxInstances > 0) {
+                    long maxRemaining = maxInstances - instancesProcessed;
+                    if ((estimatedRemainingInstances < 0)
+                            || (maxRemaining < estimatedRemainingInstances)) {
+                        estimatedRemainingInstances = maxRemaining;
+                    }
+                }
+                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                        : (double) instancesProcessed
+                        / (double) (instancesProcessed + estimatedRemainingInstances));
+                if (monitor.resultPreviewRequested()) {
+                    monitor.setLatestResultPreview(learningCurve.copy());
+                }
+                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(System.nanoTime()
+                        - evaluateStartTime);
+            }
+        }
+        if (immediateResultStream != null) {
+            immediateResultStream.close();
+        }
+        return learningCurve;
+    }
+
+    /**
+     * Runs every detector on the current block, on the executor if there is
+     * one.
+     */
+    protected void runBlock(List<DetectorRun> runs, ExecutorService executor) {
+        if (executor == null) {
+            for (DetectorRun run : runs) {
+                run.call();
+            }
+            return;
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(runs)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while evaluating the detectors", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Could not evaluate a detector", e.getCause());
+        }
+    }
+
+    /**
+     * A detector with its evaluator, and the block of instances it has to
+     * process next.
+     */
+    protected static class DetectorRun implements Callable<Void> {
+
+        protected final String name;
+
+        protected final ChangeDetectorLearner learner;
+
+        protected final BasicConceptDriftPerformanceEvaluator evaluator = new BasicConceptDriftPerformanceEvaluator();
+
+        protected List<Example> block;
+
+        /** Number of instances processed before the block. */
+        protected long blockStart;
+
+        /** Instances of the block at which a change was detected. */
+        protected List<Long> detections = new ArrayList<Long>();
+
+        /** CPU time spent in the detector, in nanoseconds. */
+        protected long detectorTime;
+
+        protected long numInputs;
+
+        public DetectorRun(String name, ChangeDetectorLearner learner) {
+            this.name = name;
+            this.learner = learner;
+            this.evaluator.reset();
+        }
+
+        public void setBlock(List<Example> block, long blockStart) {
+            this.block = block;
+            this.blockStart = blockStart;
+            this.detections.clear();
+        }
+
+        /**
+         * Tests then trains the detector with each instance of the block,
+         * timing the detector alone, then gives the results to the evaluator.
+         */
+        @Override
+        public Void call() {
+            double[][] predictions = new double[this.block.size()][];
+            long start = TimingUtils.getNanoCPUTimeOfCurrentThread();
+            for (int i = 0; i < predictions.length; i++) {
+                predictions[i] = this.learner.getVotesForInstance(this.block.get(i));
+                this.learner.trainOnInstance(this.block.get(i));
+            }
+            this.detectorTime += TimingUtils.getNanoCPUTimeOfCurrentThread() - start;
+            this.numInputs += predictions.length;
+            for (int i = 0; i < predictions.length; i++) {
+                if (predictions[i][0] == 1) { //Change detected
+                    this.detections.add(this.blockStart + i);
+                }
+                this.evaluator.addResult(this.block.get(i), predictions[i]);
+            }
+            return null;
+        }
+
+        public void addMeasurements(List<Measurement> measurements) {
+            BasicConceptDriftPerformanceEvaluator e = this.evaluator;
+            String prefix = "[" + this.name + "] ";
+            measurements.add(new Measurement(prefix + "detected changes", e.getNumberDetections()));
+            measurements.add(new Measurement(prefix + "true changes", e.getNumberChanges()));
+            measurements.add(new Measurement(prefix + "true changes detected", e.getNumberChangesOccurred()));
+            measurements.add(new Measurement(prefix + "delay detection (average)",
+                    e.getTotalDelay() / e.getNumberChanges()));
+            measurements.add(new Measurement(prefix + "false alarm rate",
+                    (e.getNumberDetections() - e.getNumberChangesOccurred()) / e.getTotalWeightObserved()));
+            measurements.add(new Measurement(prefix + "cost per input (ns)",
+                    this.numInputs > 0 ? this.detectorTime / (double) this.numInputs : 0.0));
+        }
+    }
+}
@@ -192,9 +192,26 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 				}
 			}		
 			
+			Instance[] chunk = null;
+			if (learner instanceof Classifier) {
+				// classifiers test and train on the whole chunk at once
+				chunk = new Instance[chunkInstances.numInstances()];
+				for (int i=0; i< chunk.length; i++) {
+					chunk[i] = chunkInstances.instance(i);
+				}
+			}
+			
 			////Testing
 			long testStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-			if(!firstChunk)
+			if(!firstChunk && chunk != null)
+			{
+				double[][] predictions = new double[chunk.length][];
+				((Classifier) learner).getVotesForInstances(chunk, predictions);
+				for (int i=0; i< chunk.length; i++) {
+					evaluator.addResult(new InstanceExample(chunk[i]), predictions[i]);
+				}
+			}
+			else if(!firstChunk)
 			{
 				for (int i=0; i< chunkInstances.numInstances(); i++) {
 					Example testInst = new InstanceExample((Instance) chunkInstances.instance(i));
@@ -213,10 +230,15 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 			////Training
 			long trainStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
 			
-			for (int i=0; i< chunkInstances.numInstances(); i++) {
-				learner.trainOnInstance(new InstanceExample(chunkInstances.instance(i)));
-				instancesProcessed++;
-		    }
+			if (chunk != null) {
+				((Classifier) learner).trainOnInstances(chunk);
+				instancesProcessed += chunk.length;
+			} else {
+				for (int i=0; i< chunkInstances.numInstances(); i++) {
+					learner.trainOnInstance(new InstanceExample(chunkInstances.instance(i)));
+					instancesProcessed++;
+				}
+			}
 			
 			sampleTrainTime += TimingUtils.getNanoCPUTimeOfCurrentThread() - trainStartTime;
 			
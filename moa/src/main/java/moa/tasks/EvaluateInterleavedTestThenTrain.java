@@ -35,6 +35,7 @@ import moa.evaluation.preview.LearningCurve;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
 import moa.streams.InstanceStream;
@@ -92,6 +93,9 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv reslts to.", null, "csv", true);
 
+    public FlagOption reuseInstancesOption = new FlagOption("reuseInstances", 'u',
+            "Fill the same instance with every example of the stream, unless the learner retains its instances.");
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
@@ -142,10 +146,14 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
         long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
         long lastEvaluateStartTime = evaluateStartTime;
         double RAMHours = 0.0;
+        boolean reuseInstances = this.reuseInstancesOption.isSet()
+                && !learner.retainsInstances();
+        Example trainInst = null;
         while (stream.hasMoreInstances()
                 && ((maxInstances < 0) || (instancesProcessed < maxInstances))
                 && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
+            trainInst = reuseInstances ? stream.nextInstance(trainInst)
+                    : stream.nextInstance();
             Example testInst = trainInst; //.copy();
             //int trueClass = (int) trainInst.classValue();
             //testInst.setClassMissing();
@@ -82,6 +82,14 @@ public class EvaluateMultipleClusterings extends AuxiliarMainTask {
     
     public FlagOption statisticalOption = new FlagOption("Statistical", 't', "van Dongen, Rand statistic.");
 
+    public IntOption numThreadsOption = new IntOption("numThreads", 'w',
+            "Number of threads over which the measures split their work on the points.", 1, 1,
+            Integer.MAX_VALUE);
+
+    public IntOption silhouetteSampleSizeOption = new IntOption("silhouetteSampleSize", 'm',
+            "Number of points sampled to estimate SilhCoeff, with a confidence interval (0 = all points).", 0, 0,
+            Integer.MAX_VALUE);
+
 	
 	public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
 			"File to append intermediate csv reslts to.", "dumpClustering.csv", "csv", true);
@@ -141,6 +149,8 @@ public class EvaluateMultipleClusterings extends AuxiliarMainTask {
         	measureCollection[7] = this.statisticalOption.isSet();
             
             this.task.setMeasures(measureCollection);
+            this.task.numThreadsOption.setValue(this.numThreadsOption.getValue());
+            this.task.silhouetteSampleSizeOption.setValue(this.silhouetteSampleSizeOption.getValue());
             
             System.out.println("Evaluation #"+(i+1)+" of "+this.numStreamsOption.getValue()+
             		": "+this.task.getCLICreationString(this.task.getClass()));
@@ -32,7 +32,9 @@ import moa.recommender.rc.data.RecommenderData;
 /**
  * Test for evaluating a recommender by training and periodically testing 
  * on samples from a rating dataset. When finished, it will show the learning
- * curve of the recommender rating predictor.
+ * curve of the recommender rating predictor, with the RMSE, the average
+ * latency of updating the ratings and the number of ratings processed per
+ * second.
  *
  * <p>Parameters:</p>
  * <ul>  
@@ -81,8 +83,9 @@ public class EvaluateOnlineRecommender extends AuxiliarMainTask {
         RecommenderData data = rp.getData();
         data.clear();
         data.disableUpdates(false);
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         long evalTime = 0;
+        long updateTime = 0;
         double sum = 0;
         int n = 0;
         //ArrayList<TestMetric> metrics = new ArrayList<TestMetric>();
@@ -95,11 +98,13 @@ public class EvaluateOnlineRecommender extends AuxiliarMainTask {
             Integer user = d.curUserID();
             Integer item = d.curItemID();
             Double rating = d.curRating();
-            long startPredTime = System.currentTimeMillis();
+            long startPredTime = System.nanoTime();
             double pred = rp.predictRating(user, item);
             sum += Math.pow(pred - rating, 2);
-            evalTime += System.currentTimeMillis() - startPredTime;
+            evalTime += System.nanoTime() - startPredTime;
+            long startUpdateTime = System.nanoTime();
             data.setRating(user, item, rating);
+            updateTime += System.nanoTime() - startUpdateTime;
             //System.out.println(data.countRatingsItem(item) + " " + data.countRatingsUser(user));
             //if (n++%100 == 99) metrics.add(new TestMetric("RMSE (" + n +")", Math.sqrt(sum/(double)n)));
             n++;
@@ -108,6 +113,7 @@ public class EvaluateOnlineRecommender extends AuxiliarMainTask {
                     return null;
                 }
                 monitor.setCurrentActivityFractionComplete((double)n/(double)count);
+                long time = System.nanoTime() - start;
                 learningCurve.insertEntry(new LearningEvaluation(
                         new Measurement[]{
                             new Measurement(
@@ -118,10 +124,16 @@ public class EvaluateOnlineRecommender extends AuxiliarMainTask {
                             Math.sqrt(sum/(double)n)),
                             new Measurement(
                             "trainingTime",
-                            (int)((System.currentTimeMillis() - start - evalTime)/1000)),
+                            (int)((time - evalTime)/1000000000L)),
                             new Measurement(
                             "evalTime",
-                            (int)(evalTime/1000))
+                            (int)(evalTime/1000000000L)),
+                            new Measurement(
+                            "update latency (microseconds)",
+                            updateTime/1000.0/n),
+                            new Measurement(
+                            "throughput (ratings per second)",
+                            n/(time/1.0e9))
                         }
                          ));
                 if (monitor.resultPreviewRequested()) {
@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FlagOption;
@@ -94,6 +95,10 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
     public FlagOption cacheTestOption = new FlagOption("cacheTest", 'c',
             "Cache test instances in memory.");
 
+    public IntOption testBatchSizeOption = new IntOption("testBatchSize", 'b',
+            "Number of testing examples predicted at a time.", 1000, 1,
+            Integer.MAX_VALUE);
+
     @Override
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
@@ -184,24 +189,42 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
                     + "% training)...");
             long testStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
             int instCount = 0 ;
-            for (instCount = 0; instCount < testSize; instCount++) {
-				if (stream.hasMoreInstances() == false) {
-					break;
-				}
-                Example testInst = (Example) testStream.nextInstance(); //.copy();
-                double trueClass = ((Instance) testInst.getData()).classValue();
-                //testInst.setClassMissing();
-                double[] prediction = learner.getVotesForInstance(testInst);
-                //testInst.setClassValue(trueClass);
-                evaluator.addResult(testInst, prediction);
-                testInstancesProcessed++;
-                if (testInstancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
-                    if (monitor.taskShouldAbort()) {
-                        return null;
+            Example[] testBatch = new Example[Math.max(1, Math.min(testSize,
+                    this.testBatchSizeOption.getValue()))];
+            Instance[] testInstances = new Instance[testBatch.length];
+            double[][] predictions = new double[testBatch.length][];
+            boolean streamEnded = false;
+            while (instCount < testSize && !streamEnded) {
+                int batchSize = 0;
+                while (batchSize < testBatch.length && instCount < testSize) {
+                    if (stream.hasMoreInstances() == false) {
+                        streamEnded = true;
+                        break;
                     }
-                    monitor.setCurrentActivityFractionComplete((double) testInstancesProcessed
-                            / (double) (testSize));
+                    testBatch[batchSize] = (Example) testStream.nextInstance(); //.copy();
+                    testInstances[batchSize] = (Instance) testBatch[batchSize].getData();
+                    batchSize++;
+                    instCount++;
+                }
+                if (learner instanceof Classifier) {
+                    // the learner does not change while testing, so the batch is predicted at once
+                    Instance[] batch = batchSize == testInstances.length ? testInstances
+                            : Arrays.copyOf(testInstances, batchSize);
+                    ((Classifier) learner).getVotesForInstances(batch, predictions);
+                } else {
+                    for (int i = 0; i < batchSize; i++) {
+                        predictions[i] = learner.getVotesForInstance(testBatch[i]);
+                    }
+                }
+                for (int i = 0; i < batchSize; i++) {
+                    evaluator.addResult(testBatch[i], predictions[i]);
+                }
+                testInstancesProcessed += batchSize;
+                if (monitor.taskShouldAbort()) {
+                    return null;
                 }
+                monitor.setCurrentActivityFractionComplete((double) testInstancesProcessed
+                        / (double) (testSize));
             }
         	if ( instCount != testSize) {
 				break;
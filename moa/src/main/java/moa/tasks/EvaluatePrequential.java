@@ -20,8 +20,6 @@
  */
 package moa.tasks;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.PrintStream;
 
 import moa.classifiers.Classifier;
@@ -40,6 +38,7 @@ import moa.learners.Learner;
 import moa.options.ClassOption;
 
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
@@ -99,6 +98,19 @@ public class EvaluatePrequential extends ClassificationMainTask {
     public FileOption outputPredictionFileOption = new FileOption("outputPredictionFile", 'o',
             "File to append output predictions to.", null, "pred", true);
 
+    public FileOption checkpointFileOption = new FileOption("checkpointFile", 'c',
+            "File to periodically save the state of the evaluation to.", null, "ckpt", true);
+
+    public IntOption checkpointFrequencyOption = new IntOption("checkpointFrequency",
+            'C', "How many instances between checkpoints. The evaluation pauses while the learner and evaluator are serialized for each checkpoint.",
+            1000000, 1, Integer.MAX_VALUE);
+
+    public FileOption resumeFromOption = new FileOption("resumeFrom", 'r',
+            "Checkpoint file to resume the evaluation from, with the same dump and prediction files.", null, "ckpt", false);
+
+    public FlagOption reuseInstancesOption = new FlagOption("reuseInstances", 'u',
+            "Fill the same instance with every example of the stream, unless the learner retains its instances.");
+
     //New for prequential method DEPRECATED
     public IntOption widthOption = new IntOption("width",
             'w', "Size of Window", 1000);
@@ -114,11 +126,25 @@ public class EvaluatePrequential extends ClassificationMainTask {
 
     @Override
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
-        Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
+        CheckpointedEvaluation checkpoints = new CheckpointedEvaluation(
+                this.resumeFromOption.getFile(), this.checkpointFileOption.getFile(),
+                this.checkpointFrequencyOption.getValue(), monitor);
+        try {
+            return evaluate(checkpoints, monitor);
+        } finally {
+            checkpoints.close();
+        }
+    }
+
+    protected Object evaluate(CheckpointedEvaluation checkpoints, TaskMonitor monitor) {
+        EvaluationCheckpoint checkpoint = checkpoints.getResumedCheckpoint();
+        Learner learner = checkpoint != null ? checkpoint.learner
+                : (Learner) getPreparedClassOption(this.learnerOption);
         ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
-        LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
-        LearningCurve learningCurve = new LearningCurve(
-                "learning evaluation instances");
+        LearningPerformanceEvaluator evaluator = checkpoint != null ? checkpoint.evaluator
+                : (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
+        LearningCurve learningCurve = checkpoint != null ? checkpoint.learningCurve
+                : new LearningCurve("learning evaluation instances");
 
         //New for prequential methods
         if (evaluator instanceof WindowClassificationPerformanceEvaluator) {
@@ -148,56 +174,39 @@ public class EvaluatePrequential extends ClassificationMainTask {
         int maxInstances = this.instanceLimitOption.getValue();
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
-        int secondsElapsed = 0;
+        double previousTime = 0.0;
+        double RAMHours = 0.0;
+        if (checkpoint != null) {
+            checkpoints.skipProcessedInstances(stream, monitor);
+            instancesProcessed = checkpoint.instancesProcessed;
+            previousTime = checkpoint.evaluationTime;
+            RAMHours = checkpoint.ramHours;
+        }
+        int secondsElapsed = (int) previousTime;
         monitor.setCurrentActivity("Evaluating learner...", -1.0);
 
-        File dumpFile = this.dumpFileOption.getFile();
-        PrintStream immediateResultStream = null;
-        if (dumpFile != null) {
-            try {
-                if (dumpFile.exists()) {
-                    immediateResultStream = new PrintStream(
-                            new FileOutputStream(dumpFile, true), true);
-                } else {
-                    immediateResultStream = new PrintStream(
-                            new FileOutputStream(dumpFile), true);
-                }
-            } catch (Exception ex) {
-                throw new RuntimeException(
-                        "Unable to open immediate result file: " + dumpFile, ex);
-            }
-        }
+        PrintStream immediateResultStream = checkpoints.openDumpFile(
+                this.dumpFileOption.getFile());
+        boolean firstDump = !checkpoints.isDumpHeaderWritten();
         //File for output predictions
-        File outputPredictionFile = this.outputPredictionFileOption.getFile();
-        PrintStream outputPredictionResultStream = null;
-        if (outputPredictionFile != null) {
-            try {
-                if (outputPredictionFile.exists()) {
-                    outputPredictionResultStream = new PrintStream(
-                            new FileOutputStream(outputPredictionFile, true), true);
-                } else {
-                    outputPredictionResultStream = new PrintStream(
-                            new FileOutputStream(outputPredictionFile), true);
-                }
-            } catch (Exception ex) {
-                throw new RuntimeException(
-                        "Unable to open prediction result file: " + outputPredictionFile, ex);
-            }
-        }
-        boolean firstDump = true;
+        PrintStream outputPredictionResultStream = checkpoints.openOutputPredictionFile(
+                this.outputPredictionFileOption.getFile());
         boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
         long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
         long lastEvaluateStartTime = evaluateStartTime;
-        double RAMHours = 0.0;
+        boolean reuseInstances = this.reuseInstancesOption.isSet()
+                && !learner.retainsInstances();
+        Example trainInst = null;
         while (stream.hasMoreInstances()
                 && ((maxInstances < 0) || (instancesProcessed < maxInstances))
                 && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
+            trainInst = reuseInstances ? stream.nextInstance(trainInst)
+                    : stream.nextInstance();
             Example testInst = (Example) trainInst; //.copy();
             //testInst.setClassMissing();
             double[] prediction = learner.getVotesForInstance(testInst);
             // Output prediction
-            if (outputPredictionFile != null) {
+            if (outputPredictionResultStream != null) {
                 int trueClass = (int) ((Instance) trainInst.getData()).classValue();
                 outputPredictionResultStream.println(Utils.maxIndex(prediction) + "," + (
                  ((Instance) testInst.getData()).classIsMissing() == true ? " ? " : trueClass));
@@ -210,7 +219,7 @@ public class EvaluatePrequential extends ClassificationMainTask {
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                     || stream.hasMoreInstances() == false) {
                 long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-                double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
+                double time = previousTime + TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
                 double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
                 RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
@@ -241,6 +250,12 @@ public class EvaluatePrequential extends ClassificationMainTask {
                     immediateResultStream.flush();
                 }
             }
+            if (checkpoints.isCheckpointDue(instancesProcessed)) {
+                double time = previousTime + TimingUtils.nanoTimeToSeconds(
+                        TimingUtils.getNanoCPUTimeOfCurrentThread() - evaluateStartTime);
+                checkpoints.writeCheckpoint(learner, evaluator, learningCurve,
+                        instancesProcessed, time, RAMHours);
+            }
             if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
                 if (monitor.taskShouldAbort()) {
                     return null;
@@ -259,16 +274,10 @@ public class EvaluatePrequential extends ClassificationMainTask {
                 if (monitor.resultPreviewRequested()) {
                     monitor.setLatestResultPreview(learningCurve.copy());
                 }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                        - evaluateStartTime);
+                secondsElapsed = (int) (previousTime + TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                        - evaluateStartTime));
             }
         }
-        if (immediateResultStream != null) {
-            immediateResultStream.close();
-        }
-        if (outputPredictionResultStream != null) {
-            outputPredictionResultStream.close();
-        }
         return learningCurve;
     }
 }
@@ -23,10 +23,12 @@ package moa.tasks;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
+import moa.core.DelayedInstanceBuffer;
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
@@ -46,7 +48,7 @@ import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
 import com.yahoo.labs.samoa.instances.Instance;
-import java.util.LinkedList;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.InstanceExample;
 import moa.core.Utils;
 
@@ -130,8 +132,12 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
     public FloatOption alphaOption = new FloatOption("alpha",
             'a', "Fading factor or exponential smoothing factor", .01);
 
+    public FileOption bufferFileOption = new FileOption("bufferFile", 'x',
+            "File to memory map the instances waiting for their labels to, instead of keeping them on the heap.",
+            null, "buf", true);
+
     // Buffer of instances to use for training. 
-    protected LinkedList<Example> trainInstances;
+    protected transient DelayedInstanceBuffer trainInstances;
     
     @Override
     public Class<?> getTaskResultType() {
@@ -146,8 +152,42 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
 
-        this.trainInstances = new LinkedList<Example>();
-        
+        this.trainInstances = createBuffer(stream.getHeader(), this.delayLengthOption.getValue() + 1);
+        try {
+            return evaluate(learner, stream, evaluator, learningCurve, monitor);
+        } finally {
+            try {
+                this.trainInstances.close();
+            } catch (IOException ex) {
+                // nothing was written that has to be kept
+            }
+        }
+    }
+
+    /**
+     * Creates the buffer of the instances waiting for their labels.
+     */
+    protected DelayedInstanceBuffer createBuffer(InstancesHeader header, int capacity) {
+        return createBuffer(header, capacity, this.bufferFileOption.getFile());
+    }
+
+    /**
+     * Creates a buffer on the heap, or in a file if one is given.
+     */
+    protected static DelayedInstanceBuffer createBuffer(InstancesHeader header, int capacity, File file) {
+        if (file == null) {
+            return new DelayedInstanceBuffer(header, capacity);
+        }
+        try {
+            return new DelayedInstanceBuffer(header, capacity, file);
+        } catch (IOException ex) {
+            throw new RuntimeException(
+                    "Unable to open instance buffer file: " + file, ex);
+        }
+    }
+
+    protected Object evaluate(Learner learner, ExampleStream stream, LearningPerformanceEvaluator evaluator,
+            LearningCurve learningCurve, TaskMonitor monitor) {
         //New for prequential methods
         if (evaluator instanceof WindowClassificationPerformanceEvaluator) {
             //((WindowClassificationPerformanceEvaluator) evaluator).setWindowWidth(widthOption.getValue());
@@ -229,11 +269,11 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
                     learner.trainOnInstance(currentInst);
                 }
                 else if((this.initialWindowSizeOption.getValue() - instancesProcessed) < this.delayLengthOption.getValue()) {
-                    this.trainInstances.addLast(currentInst);
+                    this.trainInstances.add((Instance) currentInst.getData());
                 }
             }
             else {
-                this.trainInstances.addLast(currentInst);
+                this.trainInstances.add((Instance) currentInst.getData());
 
                 if(this.delayLengthOption.getValue() < this.trainInstances.size()) {
                     if(this.trainInBatches.isSet()) {
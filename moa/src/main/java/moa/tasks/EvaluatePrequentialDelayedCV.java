@@ -33,8 +33,12 @@ import moa.learners.Learner;
 import moa.options.ClassOption;
 import moa.streams.ExampleStream;
 
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -120,10 +124,21 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
     public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
             "Seed for random behaviour of the task.", 1);
 
-    // Buffer of instances to use for training. 
-    // Note: It is a list of lists because it stores instances per learner, e.g.
-    // CV of 10, would be 10 lists of buffered instances for delayed training. 
-    protected LinkedList<LinkedList<Example>> trainInstances;
+    public FileOption bufferFileOption = new FileOption("bufferFile", 'x',
+            "File to memory map the instances waiting for their labels to, instead of keeping them on the heap.",
+            null, "buf", true);
+
+    // Buffer of instances to use for training, shared by the learners.
+    protected transient DelayedInstanceBuffer trainInstances;
+
+    // Indices in the buffer of the instances to use for training.
+    // Note: It is an array of rings because it stores indices per learner, e.g.
+    // CV of 10, would be 10 rings of buffered indices for delayed training. 
+    protected long[][] trainIndices;
+
+    protected int[] trainIndicesFirst;
+
+    protected int[] trainIndicesSize;
     
     @Override
     public Class<?> getTaskResultType() {
@@ -148,6 +163,32 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
             evaluators[i] = (LearningPerformanceEvaluator) baseEvaluator.copy();
         }
 
+        int delay = this.delayLengthOption.getValue();
+        this.trainInstances = createBuffer(stream.getHeader(), delay + 1);
+        this.trainIndices = new long[learners.length][delay + 1];
+        this.trainIndicesFirst = new int[learners.length];
+        this.trainIndicesSize = new int[learners.length];
+        try {
+            return evaluate(random, stream, learners, evaluators, monitor);
+        } finally {
+            try {
+                this.trainInstances.close();
+            } catch (IOException ex) {
+                // nothing was written that has to be kept
+            }
+        }
+    }
+
+    /**
+     * Creates the buffer of the instances waiting for their labels.
+     */
+    protected DelayedInstanceBuffer createBuffer(InstancesHeader header, int capacity) {
+        return EvaluatePrequentialDelayed.createBuffer(header, capacity,
+                this.bufferFileOption.getFile());
+    }
+
+    protected Object evaluate(Random random, ExampleStream stream, Learner[] learners,
+            LearningPerformanceEvaluator[] evaluators, TaskMonitor monitor) {
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
         int maxInstances = this.instanceLimitOption.getValue();
@@ -156,11 +197,6 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
         int secondsElapsed = 0;
         monitor.setCurrentActivity("Evaluating learner...", -1.0);
 
-        this.trainInstances = new LinkedList<LinkedList<Example>>();
-        
-        for(int i = 0; i < learners.length; i++) {
-            this.trainInstances.add(new LinkedList<Example>());
-        }
         File dumpFile = this.dumpFileOption.getFile();
         PrintStream immediateResultStream = null;
         if (dumpFile != null) {
@@ -193,6 +229,7 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
             Example testInst = (Example) trainInst;
             
             instancesProcessed++;
+            long index = -1;
             for (int i = 0; i < learners.length; i++) {
                 
                 double[] prediction = learners[i].getVotesForInstance(testInst);
@@ -211,13 +248,24 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
                         break;
                 }
                 if (k > 0) {
-                    this.trainInstances.get(i).addLast(trainInst);
+                    if (index < 0) {
+                        index = this.trainInstances.add((Instance) trainInst.getData());
+                    }
+                    addTrainIndex(i, index);
                 }
-                if(this.delayLengthOption.getValue() < this.trainInstances.get(i).size()) {
-                    Example trainInstI = this.trainInstances.get(i).removeFirst();
+                if(this.delayLengthOption.getValue() < this.trainIndicesSize[i]) {
+                    Example trainInstI = this.trainInstances.get(removeTrainIndex(i));
                     learners[i].trainOnInstance(trainInstI);
                 }
             }
+            // Forget the instances that no learner waits for anymore
+            long firstIndex = this.trainInstances.firstIndex() + this.trainInstances.size();
+            for (int i = 0; i < learners.length; i++) {
+                if (this.trainIndicesSize[i] > 0) {
+                    firstIndex = Math.min(firstIndex, this.trainIndices[i][this.trainIndicesFirst[i]]);
+                }
+            }
+            this.trainInstances.removeBefore(firstIndex);
             
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                     || stream.hasMoreInstances() == false) {
@@ -286,6 +334,20 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
     }
 
 
+    protected void addTrainIndex(int learner, long index) {
+        long[] indices = this.trainIndices[learner];
+        indices[(this.trainIndicesFirst[learner] + this.trainIndicesSize[learner]) % indices.length] = index;
+        this.trainIndicesSize[learner]++;
+    }
+
+    protected long removeTrainIndex(int learner) {
+        long[] indices = this.trainIndices[learner];
+        long index = indices[this.trainIndicesFirst[learner]];
+        this.trainIndicesFirst[learner] = (this.trainIndicesFirst[learner] + 1) % indices.length;
+        this.trainIndicesSize[learner]--;
+        return index;
+    }
+
     public Measurement[] getEvaluationMeasurements(Measurement[] modelMeasurements, LearningPerformanceEvaluator[] subEvaluators) {
         List<Measurement> measurementList = new LinkedList<>();
         if (modelMeasurements != null) {
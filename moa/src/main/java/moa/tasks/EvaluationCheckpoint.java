@@ -0,0 +1,239 @@
+/*
+ *    EvaluationCheckpoint.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import moa.evaluation.LearningPerformanceEvaluator;
+import moa.evaluation.preview.LearningCurve;
+import moa.learners.Learner;
+import moa.streams.ExampleStream;
+
+/**
+ * Snapshot of the state of a prequential evaluation, used to resume a long
+ * running evaluation after the JVM stops.
+ *
+ * <p>A checkpoint holds the learner, the evaluator and the learning curve
+ * together with the number of instances processed so far. The stream
+ * itself is not stored: on resume the stream is prepared again from its
+ * options and the instances already processed are skipped, which gives the
+ * same sequence of instances for files and seeded generators.</p>
+ *
+ * <p>The checkpoint also records the length of the immediate result and
+ * prediction files, which are cut back to that length on resume.</p>
+ *
+ * <p>Checkpoints are stored with plain Java serialization, without the
+ * compression used by <code>SerializeUtils.writeToFile</code>. A checkpoint
+ * is serialized once to bytes on the evaluation thread, which pauses the
+ * evaluation, and the bytes are written by a <code>Writer</code> on a
+ * background thread.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class EvaluationCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public Learner learner;
+
+    public LearningPerformanceEvaluator evaluator;
+
+    public LearningCurve learningCurve;
+
+    public long instancesProcessed;
+
+    /** Evaluation time in seconds used before the checkpoint. */
+    public double evaluationTime;
+
+    public double ramHours;
+
+    /** Length in bytes of the immediate result file, -1 if there is none. */
+    public long dumpFileLength = -1;
+
+    /** Length in bytes of the prediction file, -1 if there is none. */
+    public long outputPredictionFileLength = -1;
+
+    /**
+     * Creates a checkpoint of the current evaluation state. The checkpoint
+     * refers to the state itself, so it has to be serialized with
+     * <code>toByteArray</code> before the evaluation goes on.
+     */
+    public EvaluationCheckpoint(Learner learner,
+            LearningPerformanceEvaluator evaluator, LearningCurve learningCurve,
+            long instancesProcessed, double evaluationTime, double ramHours) {
+        this.learner = learner;
+        this.evaluator = evaluator;
+        this.learningCurve = learningCurve;
+        this.instancesProcessed = instancesProcessed;
+        this.evaluationTime = evaluationTime;
+        this.ramHours = ramHours;
+    }
+
+    /**
+     * @return this checkpoint serialized, as it is stored in a file
+     */
+    public byte[] toByteArray() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(this);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new RuntimeException("Unable to serialize checkpoint", ex);
+        }
+    }
+
+    public static EvaluationCheckpoint readFromFile(File file) {
+        try {
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+            try {
+                return (EvaluationCheckpoint) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException(
+                    "Unable to read checkpoint file: " + file, ex);
+        }
+    }
+
+    /**
+     * Writes a serialized checkpoint to a temporary file that then replaces
+     * the given file, so that an interrupted write never destroys the
+     * previous checkpoint.
+     */
+    public static void writeToFile(byte[] checkpoint, File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmpFile);
+        try {
+            out.write(checkpoint);
+        } finally {
+            out.close();
+        }
+        try {
+            Files.move(tmpFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmpFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Advances a freshly prepared stream past the instances already
+     * processed before this checkpoint.
+     */
+    public void skipStream(ExampleStream stream) {
+        for (long i = 0; i < this.instancesProcessed; i++) {
+            if (!stream.hasMoreInstances()) {
+                throw new RuntimeException("Stream has only " + i
+                        + " instances, checkpoint was taken after "
+                        + this.instancesProcessed);
+            }
+            stream.nextInstance();
+        }
+    }
+
+    /**
+     * Writes serialized checkpoints on a background thread. At most one
+     * checkpoint is pending at any time: a new checkpoint waits for the
+     * previous one to be written.
+     */
+    public static class Writer {
+
+        protected final File file;
+
+        protected final ExecutorService executor;
+
+        protected Future<?> pending;
+
+        public Writer(File file) {
+            this.file = file;
+            this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "EvaluationCheckpoint");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        public void write(final byte[] checkpoint) {
+            waitForPending();
+            this.pending = this.executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writeToFile(checkpoint, file);
+                    } catch (IOException ex) {
+                        throw new RuntimeException(
+                                "Unable to write checkpoint file: " + file, ex);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Waits for the pending checkpoint, if any, and stops the writer.
+         */
+        public void close() {
+            try {
+                waitForPending();
+            } finally {
+                this.executor.shutdown();
+            }
+        }
+
+        protected void waitForPending() {
+            if (this.pending != null) {
+                try {
+                    this.pending.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(
+                            "Interrupted while writing checkpoint file: " + this.file, ex);
+                } catch (ExecutionException ex) {
+                    throw new RuntimeException(
+                            "Unable to write checkpoint file: " + this.file, ex.getCause());
+                } finally {
+                    this.pending = null;
+                }
+            }
+        }
+    }
+}
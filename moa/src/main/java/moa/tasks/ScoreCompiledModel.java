@@ -0,0 +1,233 @@
+/*
+ *    ScoreCompiledModel.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.IntOption;
+import moa.classifiers.trees.CompiledModel;
+import moa.core.Example;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+import moa.evaluation.LearningPerformanceEvaluator;
+import moa.options.ClassOption;
+import moa.streams.ExampleStream;
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Task for scoring a stream with a compiled model on several threads.
+ *
+ * <p>Instances are read in batches. Every batch is split among the threads,
+ * which write the votes and predictions into arrays reused for all the
+ * batches; the predictions are then evaluated and written in the order of
+ * the stream.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class ScoreCompiledModel extends ClassificationMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Scores a stream with a compiled model on several threads.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption modelOption = new ClassOption("model", 'm',
+            "Compiled model to score with.", CompiledModel.class, "CompileModel");
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to score.", ExampleStream.class,
+            "ArffFileStream");
+
+    public ClassOption evaluatorOption = new ClassOption("evaluator", 'e',
+            "Classification performance evaluation method.",
+            LearningPerformanceEvaluator.class,
+            "BasicClassificationPerformanceEvaluator");
+
+    public IntOption maxInstancesOption = new IntOption("maxInstances", 'i',
+            "Maximum number of instances to score.", 1000000, 0,
+            Integer.MAX_VALUE);
+
+    public IntOption numThreadsOption = new IntOption("numThreads", 't',
+            "Number of scoring threads (0 = as many as available processors).",
+            0, 0, Integer.MAX_VALUE);
+
+    public IntOption batchSizeOption = new IntOption("batchSize", 'b',
+            "Number of instances read and scored at a time.", 10000, 1,
+            Integer.MAX_VALUE);
+
+    public FileOption outputPredictionFileOption = new FileOption("outputPredictionFile", 'o',
+            "File to append output predictions to.", null, "pred", true);
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+
+    @Override
+    public Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        CompiledModel model = (CompiledModel) getPreparedClassOption(this.modelOption);
+        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
+        int maxInstances = this.maxInstancesOption.getValue();
+        int numThreads = this.numThreadsOption.getValue() > 0 ? this.numThreadsOption.getValue()
+                : Runtime.getRuntime().availableProcessors();
+        int batchSize = this.batchSizeOption.getValue();
+        int numClasses = Math.max(model.getNumClasses(), stream.getHeader().numClasses());
+        long instancesProcessed = 0;
+        long scoringNanoTime = 0;
+        monitor.setCurrentActivity("Scoring stream...", -1.0);
+
+        //File for output predictions
+        File outputPredictionFile = this.outputPredictionFileOption.getFile();
+        PrintStream outputPredictionResultStream = null;
+        if (outputPredictionFile != null) {
+            try {
+                outputPredictionResultStream = new PrintStream(
+                        new FileOutputStream(outputPredictionFile, outputPredictionFile.exists()), false);
+            } catch (Exception ex) {
+                throw new RuntimeException(
+                        "Unable to open prediction result file: " + outputPredictionFile, ex);
+            }
+        }
+        ExecutorService executor = null;
+        if (numThreads > 1) {
+            executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ScoreCompiledModel");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        Example[] examples = new Example[batchSize];
+        Instance[] instances = new Instance[batchSize];
+        double[][] votes = new double[batchSize][numClasses];
+        int[] predictions = new int[batchSize];
+        try {
+            while (stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed < maxInstances))) {
+                int size = 0;
+                while (size < batchSize && stream.hasMoreInstances()
+                        && ((maxInstances < 0) || (instancesProcessed + size < maxInstances))) {
+                    examples[size] = stream.nextInstance();
+                    instances[size] = (Instance) examples[size].getData();
+                    size++;
+                }
+                long start = System.nanoTime();
+                score(model, instances, size, votes, predictions, executor, numThreads);
+                scoringNanoTime += System.nanoTime() - start;
+                for (int i = 0; i < size; i++) {
+                    if (outputPredictionResultStream != null) {
+                        outputPredictionResultStream.println(predictions[i] + "," + (
+                                instances[i].classIsMissing() == true ? " ? " : (int) instances[i].classValue()));
+                    }
+                    evaluator.addResult(examples[i], votes[i]);
+                }
+                Arrays.fill(examples, 0, size, null);
+                Arrays.fill(instances, 0, size, null);
+                instancesProcessed += size;
+                if (monitor.taskShouldAbort()) {
+                    return null;
+                }
+                long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                if (maxInstances > 0) {
+                    long maxRemaining = maxInstances - instancesProcessed;
+                    if ((estimatedRemainingInstances < 0)
+                            || (maxRemaining < estimatedRemainingInstances)) {
+                        estimatedRemainingInstances = maxRemaining;
+                    }
+                }
+                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                        : (double) instancesProcessed
+                        / (double) (instancesProcessed + estimatedRemainingInstances));
+                if (monitor.resultPreviewRequested()) {
+                    monitor.setLatestResultPreview(getEvaluation(evaluator,
+                            instancesProcessed, scoringNanoTime));
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (outputPredictionResultStream != null) {
+                outputPredictionResultStream.close();
+            }
+        }
+        return getEvaluation(evaluator, instancesProcessed, scoringNanoTime);
+    }
+
+    /**
+     * Scores a batch, split in as many consecutive ranges as threads.
+     */
+    protected static void score(final CompiledModel model, final Instance[] instances,
+            int size, final double[][] votes, final int[] predictions,
+            ExecutorService executor, int numThreads) {
+        if (executor == null || size < 2 * numThreads) {
+            model.score(instances, 0, size, votes, predictions);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            final int from = (int) ((long) size * t / numThreads);
+            final int to = (int) ((long) size * (t + 1) / numThreads);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    model.score(instances, from, to, votes, predictions);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while scoring.", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Scoring thread failed.", ex.getCause());
+        }
+    }
+
+    protected static LearningEvaluation getEvaluation(LearningPerformanceEvaluator evaluator,
+            long instancesProcessed, long scoringNanoTime) {
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        measurements.add(new Measurement("scored instances", instancesProcessed));
+        measurements.add(new Measurement("scoring time (seconds)", scoringNanoTime / 1.0e9));
+        measurements.add(new Measurement("scored instances per second",
+                scoringNanoTime > 0 ? instancesProcessed / (scoringNanoTime / 1.0e9) : 0.0));
+        measurements.addAll(Arrays.asList(evaluator.getPerformanceMeasurements()));
+        return new LearningEvaluation(measurements.toArray(new Measurement[measurements.size()]));
+    }
+}
@@ -113,7 +113,7 @@ public class StandardTaskMonitor implements TaskMonitor {
     }
 
     @Override
-    public Object getLatestResultPreview() {
+    public synchronized Object getLatestResultPreview() {
         return this.latestResultPreview;
     }
 
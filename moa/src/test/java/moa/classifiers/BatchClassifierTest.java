@@ -0,0 +1,129 @@
+package moa.classifiers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.meta.AdaptiveRandomForest;
+import moa.classifiers.meta.LeveragingBag;
+import moa.classifiers.meta.OzaBag;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test that batch training and prediction give the same models and votes
+ * as training and predicting one instance at a time.
+ */
+public class BatchClassifierTest {
+
+	private static final int NUM_TRAINING = 3000;
+
+	private static final int NUM_TESTING = 500;
+
+	private static final int BATCH_SIZE = 250;
+
+	private static Instance[] instances(InstanceStream stream, int num) {
+		Instance[] result = new Instance[num];
+		for (int i = 0; i < num; i++) {
+			result[i] = stream.nextInstance().getData();
+			if (i % 7 == 0) {
+				// instances without weight are not used for training
+				result[i] = result[i].copy();
+				result[i].setWeight(0.0);
+			}
+		}
+		return result;
+	}
+
+	private static InstanceStream rbf() {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.01);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static InstanceStream randomTree() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static void checkBatch(Classifier sequential, InstanceStream stream) {
+		Classifier batched = sequential.copy();
+		for (Classifier classifier : new Classifier[]{sequential, batched}) {
+			classifier.prepareForUse();
+			classifier.setModelContext(stream.getHeader());
+			classifier.resetLearning();
+		}
+		Instance[] training = instances(stream, NUM_TRAINING);
+		for (Instance inst : training) {
+			sequential.trainOnInstance(inst);
+		}
+		for (int from = 0; from < training.length; from += BATCH_SIZE) {
+			batched.trainOnInstances(Arrays.copyOfRange(training, from,
+					Math.min(training.length, from + BATCH_SIZE)));
+		}
+		assertEquals(sequential.trainingWeightSeenByModel(), batched.trainingWeightSeenByModel(), 0.0);
+
+		Instance[] testing = instances(stream, NUM_TESTING);
+		double[][] votes = new double[testing.length][];
+		batched.getVotesForInstances(testing, votes);
+		double[][] sequentialVotes = new double[testing.length][];
+		sequential.getVotesForInstances(testing, sequentialVotes);
+		for (int i = 0; i < testing.length; i++) {
+			double[] expected = sequential.getVotesForInstance(testing[i]);
+			assertArrayEquals(expected, votes[i], 0.0);
+			assertArrayEquals(expected, sequentialVotes[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testNaiveBayes() {
+		checkBatch(new NaiveBayes(), rbf());
+		checkBatch(new NaiveBayes(), randomTree());
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		checkBatch(tree, rbf());
+		tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		checkBatch(tree, randomTree());
+	}
+
+	@Test
+	public void testOzaBag() {
+		OzaBag bag = new OzaBag();
+		bag.baseLearnerOption.setValueViaCLIString("trees.HoeffdingTree -g 50");
+		bag.ensembleSizeOption.setValue(5);
+		checkBatch(bag, rbf());
+	}
+
+	@Test
+	public void testLeveragingBag() {
+		LeveragingBag bag = new LeveragingBag();
+		bag.ensembleSizeOption.setValue(5);
+		checkBatch(bag, rbf());
+	}
+
+	@Test
+	public void testAdaptiveRandomForest() {
+		AdaptiveRandomForest forest = new AdaptiveRandomForest();
+		forest.ensembleSizeOption.setValue(5);
+		checkBatch(forest, rbf());
+		forest = new AdaptiveRandomForest();
+		forest.ensembleSizeOption.setValue(5);
+		forest.numberOfJobsOption.setValue(2);
+		checkBatch(forest, randomTree());
+	}
+}
@@ -0,0 +1,81 @@
+package moa.classifiers.core.attributeclassobservers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.core.GreenwaldKhannaQuantileSummary;
+
+import org.junit.Test;
+
+/**
+ * Test the Greenwald-Khanna quantile summaries of numeric attributes.
+ */
+public class GreenwaldKhannaNumericAttributeClassObserverTest {
+
+	@Test
+	public void testCountsBelow() {
+		Random random = new Random(1);
+		GreenwaldKhannaQuantileSummary summary = new GreenwaldKhannaQuantileSummary(20);
+		for (int i = 0; i < 5000; i++) {
+			summary.insert(Math.round(random.nextGaussian() * 100) / 10.0);
+		}
+		double[] cutpoints = new double[200];
+		for (int c = 0; c < cutpoints.length; c++) {
+			cutpoints[c] = c < 20 ? summary.getValue(c % summary.getNumTuples())
+					: Math.round(random.nextGaussian() * 150) / 10.0;
+		}
+		Arrays.sort(cutpoints);
+		long[] counts = new long[cutpoints.length];
+		summary.getCountsBelow(cutpoints, counts);
+		for (int c = 0; c < cutpoints.length; c++) {
+			assertEquals(summary.getCountBelow(cutpoints[c]), counts[c]);
+		}
+	}
+
+	@Test
+	public void testBestSplitSuggestion() {
+		Random random = new Random(2);
+		GreenwaldKhannaNumericAttributeClassObserver observer = new GreenwaldKhannaNumericAttributeClassObserver();
+		observer.numTuplesOption.setValue(15);
+		observer.prepareForUse();
+		double[] preSplitDist = new double[4];
+		for (int i = 0; i < 3000; i++) {
+			// class 2 is never observed
+			int classVal = random.nextInt(3);
+			classVal = classVal == 2 ? 3 : classVal;
+			observer.observeAttributeClass(Math.round((random.nextGaussian() + classVal) * 10) / 10.0, classVal, 1.0);
+			preSplitDist[classVal]++;
+		}
+		InfoGainSplitCriterion criterion = new InfoGainSplitCriterion();
+		AttributeSplitSuggestion best = observer.getBestEvaluatedSplitSuggestion(criterion, preSplitDist, 0, true);
+
+		// evaluates every cut point on its own
+		double bestMerit = Double.NEGATIVE_INFINITY;
+		double bestCutpoint = Double.NaN;
+		double[][] bestDists = null;
+		for (int i = 0; i < observer.attValDistPerClass.size(); i++) {
+			GreenwaldKhannaQuantileSummary summary = observer.attValDistPerClass.get(i);
+			if (summary != null) {
+				for (double cutpoint : summary.getSuggestedCutpoints()) {
+					double[][] dists = observer.getClassDistsResultingFromBinarySplit(cutpoint);
+					double merit = criterion.getMeritOfSplit(preSplitDist, dists);
+					if (merit > bestMerit) {
+						bestMerit = merit;
+						bestCutpoint = cutpoint;
+						bestDists = dists;
+					}
+				}
+			}
+		}
+		assertEquals(bestMerit, best.merit, 0.0);
+		assertEquals(bestCutpoint, ((NumericAttributeBinaryTest) best.splitTest).getSplitValue(), 0.0);
+		assertArrayEquals(bestDists[0], best.resultingClassDistributions[0], 0.0);
+		assertArrayEquals(bestDists[1], best.resultingClassDistributions[1], 0.0);
+	}
+}
@@ -0,0 +1,136 @@
+package moa.classifiers.core.driftdetection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test AdwinBank
+ */
+public class AdwinBankTest {
+
+	private static double value(Random random, int detector, int i) {
+		double p = ((i / (5000 + 1000 * detector)) % 2 == 0) ? 0.2 : 0.7;
+		return random.nextDouble() < p ? 1.0 : 0.0;
+	}
+
+	@Test
+	public void testBankMatchesSingleDetectors() {
+		int size = 5;
+		AdwinBank bank = new AdwinBank(size, 0.01);
+		ADWIN[] detectors = new ADWIN[size];
+		for (int d = 0; d < size; d++) {
+			detectors[d] = new ADWIN(0.01);
+		}
+		Random random = new Random(1);
+		double[] values = new double[size];
+		boolean[] changes = new boolean[size];
+		int totalChanges = 0;
+		for (int i = 0; i < 50000; i++) {
+			for (int d = 0; d < size; d++) {
+				values[d] = value(random, d, i);
+			}
+			int numChanges = bank.setInputs(values, changes);
+			int expectedChanges = 0;
+			for (int d = 0; d < size; d++) {
+				boolean change = detectors[d].setInput(values[d]);
+				assertEquals(change, changes[d]);
+				if (change) {
+					expectedChanges++;
+				}
+				assertEquals(detectors[d].getWidth(), bank.getWidth(d));
+				assertEquals(detectors[d].getEstimation(), bank.getEstimation(d), 0.0);
+				assertEquals(detectors[d].getVariance(), bank.getVariance(d), 0.0);
+			}
+			assertEquals(expectedChanges, numChanges);
+			totalChanges += numChanges;
+			if (i == 25000) {
+				bank.reset(2);
+				detectors[2] = new ADWIN(0.01);
+			}
+		}
+		assertTrue(totalChanges > 0);
+	}
+
+	private static void assertSameAsLinkedList(double delta, double[] values) {
+		LinkedListADWIN expected = new LinkedListADWIN(delta);
+		ADWIN adwin = new ADWIN(delta);
+		AdwinBank bank = new AdwinBank(1, delta);
+		int numChanges = 0;
+		for (int i = 0; i < values.length; i++) {
+			boolean change = expected.setInput(values[i]);
+			assertEquals("change at " + i, change, adwin.setInput(values[i]));
+			assertEquals("change at " + i, change, bank.setInput(0, values[i], delta));
+			assertEquals("width at " + i, expected.getWidth(), adwin.getWidth());
+			assertEquals("width at " + i, expected.getWidth(), bank.getWidth(0));
+			assertEquals(expected.getBucketsUsed(), adwin.getBucketsUsed());
+			assertEquals(expected.getEstimation(), adwin.getEstimation(), 0.0);
+			assertEquals(expected.getVariance(), adwin.getVariance(), 0.0);
+			assertEquals(expected.getEstimation(), bank.getEstimation(0), 0.0);
+			if (change) {
+				numChanges++;
+			}
+		}
+		assertEquals(expected.getNumberDetections(), adwin.getNumberDetections());
+		assertEquals(expected.getWidthT(), adwin.getWidthT(), 0.0);
+		assertTrue(numChanges > 0);
+	}
+
+	@Test
+	public void testMatchesLinkedListOnBinaryValues() {
+		Random random = new Random(1);
+		double[] values = new double[60000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = value(random, 0, i);
+		}
+		assertSameAsLinkedList(ADWIN.DELTA, values);
+		assertSameAsLinkedList(0.1, values);
+	}
+
+	@Test
+	public void testMatchesLinkedListOnRealValues() {
+		Random random = new Random(2);
+		double[] values = new double[60000];
+		for (int i = 0; i < values.length; i++) {
+			double mean = (i / 7000) % 3;
+			values[i] = mean + random.nextGaussian() * (1 + (i / 11000) % 2);
+		}
+		assertSameAsLinkedList(ADWIN.DELTA, values);
+		assertSameAsLinkedList(0.01, values);
+	}
+
+	@Test
+	public void testDetectsAbruptChange() {
+		ADWIN adwin = new ADWIN();
+		Random random = new Random(1);
+		int detectedAt = -1;
+		for (int i = 0; i < 4000 && detectedAt < 0; i++) {
+			if (adwin.setInput(random.nextDouble() < (i < 2000 ? 0.1 : 0.9) ? 1.0 : 0.0) && i >= 2000) {
+				detectedAt = i;
+			}
+		}
+		assertTrue(detectedAt >= 2000 && detectedAt < 2200);
+		assertTrue(adwin.getEstimation() > 0.5);
+		assertTrue(adwin.getWidth() < 300);
+	}
+
+	@Test
+	public void testCopy() {
+		ADWIN adwin = new ADWIN();
+		Random random = new Random(1);
+		for (int i = 0; i < 3000; i++) {
+			adwin.setInput(random.nextDouble());
+		}
+		ADWIN copy = adwin.copy();
+		for (int i = 0; i < 3000; i++) {
+			double value = random.nextDouble() < (i < 1000 ? 0.2 : 0.8) ? 1.0 : 0.0;
+			assertEquals(adwin.setInput(value), copy.setInput(value));
+		}
+		assertEquals(adwin.getWidth(), copy.getWidth());
+		assertEquals(adwin.getEstimation(), copy.getEstimation(), 0.0);
+		assertEquals(adwin.getNumberDetections(), copy.getNumberDetections());
+	}
+}
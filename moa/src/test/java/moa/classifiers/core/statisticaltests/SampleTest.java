@@ -0,0 +1,67 @@
+package moa.classifiers.core.statisticaltests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test Sample
+ */
+public class SampleTest {
+
+	private static List<Instance> instances(Random random, int n, double shift) {
+		List<Instance> instances = new ArrayList<Instance>();
+		for (int i = 0; i < n; i++) {
+			// the last value plays the role of the class
+			double[] values = new double[4];
+			for (int j = 0; j < 3; j++) {
+				values[j] = random.nextGaussian() + shift;
+			}
+			instances.add(new DenseInstance(1.0, values));
+		}
+		return instances;
+	}
+
+	@Test
+	public void testPairwiseDistances() {
+		Random random = new Random(1);
+		List<Instance> x = instances(random, 20, 0.0);
+		List<Instance> y = instances(random, 30, 1.0);
+		double[][] lookup = Sample.pairwiseDistances(new Sample(x), new Sample(y));
+		List<Instance> all = new ArrayList<Instance>(x);
+		all.addAll(y);
+		for (int i = 0; i < all.size(); i++) {
+			for (int j = 0; j < all.size(); j++) {
+				double expected = 0;
+				for (int k = 0; k < 3; k++) {
+					double diff = all.get(i).value(k) - all.get(j).value(k);
+					expected += diff * diff;
+				}
+				assertEquals(expected, lookup[i][j], 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testKNNOnSamples() {
+		Random random = new Random(1);
+		KNN knn = new KNN();
+		knn.prepareForUse();
+		for (int t = 0; t < 5; t++) {
+			List<Instance> x = instances(random, 40, 0.0);
+			List<Instance> y = instances(random, 50, 0.3 * t);
+			Sample sx = new Sample(x);
+			Sample sy = new Sample(y);
+			assertEquals(knn.test(x, y), knn.test(sx, sy), 0.0);
+			// the distances kept by the samples give the same result again
+			assertEquals(knn.test(x, y), knn.test(sx, sy), 0.0);
+		}
+	}
+}
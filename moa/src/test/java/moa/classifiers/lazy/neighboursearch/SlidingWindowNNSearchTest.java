@@ -0,0 +1,86 @@
+package moa.classifiers.lazy.neighboursearch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Test the nearest neighbour search over a sliding window.
+ */
+public class SlidingWindowNNSearchTest {
+
+	@Test
+	public void testSameAsLinearSearch() throws Exception {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.numNumericsOption.setValue(4);
+		stream.numNominalsOption.setValue(3);
+		stream.prepareForUse();
+		Random random = new Random(1);
+		SlidingWindowNNSearch search = new SlidingWindowNNSearch(stream.getHeader());
+		List<Instance> window = new ArrayList<Instance>();
+		for (int n = 0; n < 2000; n++) {
+			Instance inst = stream.nextInstance().getData();
+			if (random.nextInt(10) == 0) {
+				inst.setMissing(random.nextInt(inst.numAttributes() - 1));
+			}
+			search.add(inst);
+			window.add(inst);
+			// removes instances anywhere in the window, sometimes most of them
+			double prob = n % 500 == 499 ? 0.9 : 0.02;
+			int position = 0;
+			for (int i = search.firstSlot(); i < search.endSlot(); i++) {
+				if (search.contains(i)) {
+					assertArrayEquals(window.get(position).toDoubleArray(), search.instance(i).toDoubleArray(), 0.0);
+					if (random.nextDouble() < prob) {
+						search.remove(i);
+						window.remove(position);
+					} else {
+						position++;
+					}
+				}
+			}
+			assertEquals(window.size(), search.numInstances());
+
+			Instance target = stream.nextInstance().getData();
+			Instances insts = new Instances(stream.getHeader(), window.size());
+			for (Instance instance : window) {
+				insts.add(instance);
+			}
+			// searches twice, the second time with the cached distances
+			for (int t = 0; t < 2 && window.size() > 0; t++) {
+				int k = Math.min(5, window.size());
+				LinearNNSearch linear = new LinearNNSearch(insts);
+				Instances expected = linear.kNearestNeighbours(target, k);
+				Instances actual = search.kNearestNeighbours(target, k);
+				assertEquals(expected.numInstances(), actual.numInstances());
+				for (int i = 0; i < expected.numInstances(); i++) {
+					assertArrayEquals(expected.instance(i).toDoubleArray(), actual.instance(i).toDoubleArray(), 0.0);
+				}
+				assertArrayEquals(linear.getDistances(), search.getDistances(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testKeepsCopies() throws Exception {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		SlidingWindowNNSearch search = new SlidingWindowNNSearch(stream.getHeader());
+		Instance inst = stream.nextInstance().getData();
+		double[] values = inst.toDoubleArray();
+		search.add(inst);
+		inst.setValue(0, values[0] + 1);
+		assertArrayEquals(values, search.instance(search.firstSlot()).toDoubleArray(), 0.0);
+		assertArrayEquals(values, search.kNearestNeighbours(inst, 1).instance(0).toDoubleArray(), 0.0);
+	}
+}
@@ -0,0 +1,127 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.trees.HoeffdingAdaptiveTree;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test SnapshotClassifier.
+ */
+public class SnapshotClassifierTest {
+
+	private static InstanceStream rbf() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static SnapshotClassifier snapshotClassifier(String baseLearner, int frequency) {
+		SnapshotClassifier classifier = new SnapshotClassifier();
+		classifier.baseLearnerOption.setValueViaCLIString(baseLearner);
+		classifier.snapshotFrequencyOption.setValue(frequency);
+		classifier.prepareForUse();
+		return classifier;
+	}
+
+	private static void checkStaleness(String baseLearner, Classifier reference) {
+		InstanceStream stream = rbf();
+		SnapshotClassifier classifier = snapshotClassifier(baseLearner, 100);
+		reference.prepareForUse();
+		reference.resetLearning();
+		Classifier referenceSnapshot = reference.copy();
+		for (int i = 1; i <= 2000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			classifier.trainOnInstance(inst);
+			reference.trainOnInstance(inst);
+			if (i % 100 == 0) {
+				referenceSnapshot = reference.copy();
+				assertEquals(i, classifier.getSnapshotTrainingInstances());
+			}
+			// predictions come from the model trained on the last multiple of 100 instances
+			Instance test = stream.nextInstance().getData();
+			assertArrayEquals(referenceSnapshot.getVotesForInstance(test),
+					classifier.getVotesForInstance(test), 0.0);
+		}
+	}
+
+	@Test
+	public void testCompiledSnapshots() {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		checkStaleness("trees.HoeffdingTree -g 50", tree);
+	}
+
+	@Test
+	public void testCopiedSnapshots() {
+		checkStaleness("trees.HoeffdingAdaptiveTree", new HoeffdingAdaptiveTree());
+	}
+
+	@Test
+	public void testModelDescription() {
+		InstanceStream stream = rbf();
+		SnapshotClassifier classifier = snapshotClassifier("trees.HoeffdingTree -g 50", 100);
+		classifier.setModelContext(stream.getHeader());
+		for (int i = 0; i < 1050; i++) {
+			classifier.trainOnInstance(stream.nextInstance().getData());
+		}
+		StringBuilder out = new StringBuilder();
+		classifier.getModelDescription(out, 0);
+		String description = out.toString();
+		assertTrue(description.contains("Snapshots published = 11"));
+		assertTrue(description.contains("taken after 1000 of 1050 training instances"));
+		assertTrue(description.contains("Leaf"));
+	}
+
+	@Test
+	public void testConcurrentPredictions() throws Exception {
+		final InstanceStream stream = rbf();
+		final SnapshotClassifier classifier = snapshotClassifier("meta.AdaptiveRandomForest -s 5", 50);
+		final Instance[] test = new Instance[100];
+		for (int i = 0; i < test.length; i++) {
+			test[i] = stream.nextInstance().getData();
+		}
+		final AtomicBoolean training = new AtomicBoolean(true);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] readers = new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						while (training.get()) {
+							for (Instance inst : test) {
+								classifier.getVotesForInstance(inst);
+							}
+						}
+					} catch (Throwable ex) {
+						failure.set(ex);
+					}
+				}
+			};
+			readers[t].start();
+		}
+		for (int i = 0; i < 3000; i++) {
+			classifier.trainOnInstance(stream.nextInstance().getData());
+		}
+		training.set(false);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		assertNull(failure.get());
+		assertEquals(3000, classifier.getSnapshotTrainingInstances());
+	}
+}
@@ -0,0 +1,94 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test the background builds of WEKAClassifier.
+ */
+public class WEKAClassifierBackgroundBuildTest {
+
+	private static WEKAClassifier classifier(boolean background, String overlap) {
+		WEKAClassifier classifier = new WEKAClassifier();
+		classifier.baseLearnerOption.setValueViaCLIString("weka.classifiers.trees.J48");
+		classifier.widthOption.setValue(300);
+		classifier.widthInitOption.setValue(300);
+		classifier.sampleFrequencyOption.setValue(1000);
+		if (background) {
+			classifier.backgroundBuildOption.set();
+			classifier.overlappingBuildsOption.setChosenLabel(overlap);
+		}
+		classifier.prepareForUse();
+		return classifier;
+	}
+
+	private static RandomTreeGenerator stream() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	@Test
+	public void testSameModelsAfterWaiting() {
+		WEKAClassifier foreground = classifier(false, null);
+		WEKAClassifier background = classifier(true, "Wait");
+		foreground.setModelContext(stream().getHeader());
+		background.setModelContext(stream().getHeader());
+		RandomTreeGenerator stream = stream();
+		for (int i = 1; i <= 3000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			foreground.trainOnInstance(inst);
+			background.trainOnInstance(inst);
+			if (i % 1000 == 500) {
+				background.waitForBuild();
+				for (int j = 0; j < 50; j++) {
+					Instance test = stream.nextInstance().getData();
+					assertArrayEquals(foreground.getVotesForInstance(test),
+							background.getVotesForInstance(test), 0.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOverlappingBuilds() {
+		for (String overlap : new String[]{"Skip", "Latest"}) {
+			WEKAClassifier background = classifier(true, overlap);
+			background.setModelContext(stream().getHeader());
+			RandomTreeGenerator stream = stream();
+			for (int i = 0; i < 3000; i++) {
+				Instance inst = stream.nextInstance().getData();
+				background.getVotesForInstance(inst);
+				background.trainOnInstance(inst);
+			}
+			background.waitForBuild();
+			assertTrue(background.isClassificationEnabled);
+			assertFalse(background.isBuilding);
+		}
+	}
+
+	@Test
+	public void testReset() {
+		WEKAClassifier background = classifier(true, "Latest");
+		background.setModelContext(stream().getHeader());
+		RandomTreeGenerator stream = stream();
+		for (int i = 0; i < 300; i++) {
+			background.trainOnInstance(stream.nextInstance().getData());
+		}
+		background.resetLearning();
+		background.waitForBuild();
+		assertFalse(background.isClassificationEnabled);
+		for (int i = 0; i < 300; i++) {
+			background.trainOnInstance(stream.nextInstance().getData());
+		}
+		background.waitForBuild();
+		assertTrue(background.isClassificationEnabled);
+	}
+}
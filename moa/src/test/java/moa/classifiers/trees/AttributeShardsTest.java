@@ -0,0 +1,116 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import moa.classifiers.Classifier;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGenerator;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test that Hoeffding trees with sharded attribute observers grow the same
+ * trees as with a single thread.
+ */
+public class AttributeShardsTest {
+
+	private static InstanceStream wideRbf() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.numAttsOption.setValue(100);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static InstanceStream randomTree() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static Instance[] instances(InstanceStream stream, int num) {
+		Instance[] result = new Instance[num];
+		for (int i = 0; i < num; i++) {
+			result[i] = stream.nextInstance().getData();
+		}
+		return result;
+	}
+
+	private static List<Double> leafCorrectWeights(HoeffdingTreeReg tree) {
+		List<Double> weights = new ArrayList<Double>();
+		for (HoeffdingTreeReg.FoundNodeReg found : tree.findLearningNodesReg()) {
+			if (found.node instanceof HoeffdingTreeReg.LearningNodeNBAdaptiveReg) {
+				HoeffdingTreeReg.LearningNodeNBAdaptiveReg leaf =
+						(HoeffdingTreeReg.LearningNodeNBAdaptiveReg) found.node;
+				weights.add(leaf.mcCorrectWeight);
+				weights.add(leaf.nbCorrectWeight);
+			}
+		}
+		return weights;
+	}
+
+	private static void checkShards(HoeffdingTree single, InstanceStream stream) {
+		single.gracePeriodOption.setValue(50);
+		single.prepareForUse();
+		HoeffdingTree sharded = (HoeffdingTree) single.copy();
+		sharded.numAttributeShardsOption.setValue(4);
+		HoeffdingTree batched = (HoeffdingTree) sharded.copy();
+		Classifier[] trees = new Classifier[]{single, sharded, batched};
+		for (Classifier tree : trees) {
+			tree.resetLearning();
+		}
+		Instance[] training = instances(stream, 5000);
+		for (Instance inst : training) {
+			single.trainOnInstance(inst);
+			sharded.trainOnInstance(inst);
+		}
+		for (int from = 0; from < training.length; from += 700) {
+			batched.trainOnInstances(Arrays.copyOfRange(training, from,
+					Math.min(training.length, from + 700)));
+		}
+		assertEquals(single.measureTreeDepth(), batched.measureTreeDepth());
+		assertEquals(single.decisionNodeCount, sharded.decisionNodeCount);
+		assertEquals(single.decisionNodeCount, batched.decisionNodeCount);
+		if (single instanceof HoeffdingTreeReg) {
+			List<Double> expected = leafCorrectWeights((HoeffdingTreeReg) single);
+			assertFalse(expected.isEmpty());
+			assertEquals(expected, leafCorrectWeights((HoeffdingTreeReg) sharded));
+			assertEquals(expected, leafCorrectWeights((HoeffdingTreeReg) batched));
+		}
+		for (Instance inst : instances(stream, 500)) {
+			double[] expected = single.getVotesForInstance(inst);
+			assertArrayEquals(expected, sharded.getVotesForInstance(inst), 0.0);
+			assertArrayEquals(expected, batched.getVotesForInstance(inst), 0.0);
+		}
+	}
+
+	@Test
+	public void testLeafPredictions() {
+		for (int leafPrediction = 0; leafPrediction < 3; leafPrediction++) {
+			HoeffdingTree tree = new HoeffdingTree();
+			tree.leafpredictionOption.setChosenIndex(leafPrediction);
+			checkShards(tree, wideRbf());
+		}
+	}
+
+	@Test
+	public void testNominalAttributes() {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.leafpredictionOption.setChosenIndex(0);
+		tree.removePoorAttsOption.set();
+		checkShards(tree, randomTree());
+	}
+
+	@Test
+	public void testHoeffdingTreeReg() {
+		checkShards(new HoeffdingTreeReg(), wideRbf());
+	}
+}
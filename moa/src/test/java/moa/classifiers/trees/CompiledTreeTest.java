@@ -0,0 +1,141 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.meta.AdaptiveRandomForest;
+import moa.core.SerializeUtils;
+import moa.core.Utils;
+import moa.streams.InstanceStream;
+import moa.streams.generators.HyperplaneGeneratorReg;
+import moa.streams.generators.RandomRBFGenerator;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test CompiledTree and CompiledForest against the votes of the trained
+ * models.
+ */
+public class CompiledTreeTest {
+
+	private static InstanceStream rbf() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static InstanceStream randomTree() {
+		// nominal and numeric attributes
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static InstanceStream hyperplaneReg() {
+		HyperplaneGeneratorReg stream = new HyperplaneGeneratorReg();
+		stream.magChangeOption.setValue(0.001);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static List<Instance> instances(InstanceStream stream, int num) {
+		List<Instance> result = new ArrayList<Instance>();
+		for (int i = 0; i < num; i++) {
+			result.add(stream.nextInstance().getData());
+		}
+		return result;
+	}
+
+	private static void checkCompiled(Classifier model, InstanceStream stream) throws Exception {
+		List<Instance> instances = instances(stream, 6000);
+		model.prepareForUse();
+		model.setModelContext(stream.getHeader());
+		model.resetLearning();
+		for (Instance inst : instances.subList(0, 5000)) {
+			model.trainOnInstance(inst);
+		}
+		CompiledModel compiled = CompiledModel.compile(model);
+		CompiledModel deserialized = (CompiledModel) SerializeUtils.copyObject(compiled);
+		List<Instance> test = instances.subList(5000, 6000);
+		Instance[] batch = test.toArray(new Instance[test.size()]);
+		double[][] votes = new double[batch.length][compiled.getNumClasses()];
+		int[] predictions = new int[batch.length];
+		compiled.score(batch, 0, batch.length, votes, predictions);
+		for (int i = 0; i < batch.length; i++) {
+			double[] expected = model.getVotesForInstance(batch[i]);
+			assertArrayEquals(expected, compiled.getVotesForInstance(batch[i]), 0.0);
+			assertArrayEquals(expected, deserialized.getVotesForInstance(batch[i]), 0.0);
+			assertEquals(Utils.maxIndex(expected), predictions[i]);
+		}
+	}
+
+	@Test
+	public void testHoeffdingTree() throws Exception {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		checkCompiled(tree, rbf());
+		assertTrue(((CompiledTree) CompiledModel.compile(tree)).getNumNodes() > 1);
+	}
+
+	@Test
+	public void testHoeffdingTreeNominal() throws Exception {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		checkCompiled(tree, randomTree());
+		HoeffdingTree binary = new HoeffdingTree();
+		binary.gracePeriodOption.setValue(50);
+		binary.binarySplitsOption.setValue(true);
+		checkCompiled(binary, randomTree());
+	}
+
+	@Test
+	public void testHoeffdingTreeLeafPredictions() throws Exception {
+		for (int leafPrediction = 0; leafPrediction < 3; leafPrediction++) {
+			HoeffdingTree tree = new HoeffdingTree();
+			tree.gracePeriodOption.setValue(50);
+			tree.leafpredictionOption.setChosenIndex(leafPrediction);
+			tree.nbThresholdOption.setValue(100);
+			checkCompiled(tree, rbf());
+		}
+	}
+
+	@Test
+	public void testHoeffdingTreeReg() throws Exception {
+		HoeffdingTreeReg tree = new HoeffdingTreeReg();
+		tree.gracePeriodOption.setValue(50);
+		checkCompiled(tree, hyperplaneReg());
+	}
+
+	@Test
+	public void testVFDT() throws Exception {
+		VFDT vfdt = new VFDT();
+		vfdt.gracePeriodOption.setValue(50);
+		checkCompiled(vfdt, randomTree());
+		EFDT efdt = new EFDT();
+		efdt.gracePeriodOption.setValue(50);
+		checkCompiled(efdt, rbf());
+		EFDTReg efdtReg = new EFDTReg();
+		efdtReg.gracePeriodOption.setValue(50);
+		checkCompiled(efdtReg, hyperplaneReg());
+	}
+
+	@Test
+	public void testAdaptiveRandomForest() throws Exception {
+		AdaptiveRandomForest forest = new AdaptiveRandomForest();
+		forest.ensembleSizeOption.setValue(5);
+		checkCompiled(forest, rbf());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedTree() {
+		CompiledModel.compile(new HoeffdingAdaptiveTree());
+	}
+}
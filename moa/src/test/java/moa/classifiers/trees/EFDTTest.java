@@ -0,0 +1,196 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
+import moa.core.AutoExpandVector;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+/**
+ * Test the memory management of EFDT and EFDTReg.
+ */
+public class EFDTTest {
+
+	/**
+	 * Measures its size from the number of leaves and of attribute
+	 * observers of the split nodes, as the SizeOf agent is not attached to
+	 * the tests.
+	 */
+	private static class MeasuredEFDT extends EFDT {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int measureByteSize() {
+			return modelSize(this);
+		}
+	}
+
+	/** Measures its size like MeasuredEFDT. */
+	private static class MeasuredEFDTReg extends EFDTReg {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int measureByteSize() {
+			return modelSize(this);
+		}
+	}
+
+	private static InstanceStream driftingRbf() {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.001);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static void train(VFDT tree, InstanceStream stream, int num) {
+		for (int i = 0; i < num; i++) {
+			tree.trainOnInstance(stream.nextInstance().getData());
+		}
+	}
+
+	private static int countSplitNodes(VFDT.Node node) {
+		int count = 0;
+		if (node instanceof VFDT.SplitNode) {
+			count++;
+			for (VFDT.Node child : ((VFDT.SplitNode) node).children) {
+				count += countSplitNodes(child);
+			}
+		}
+		return count;
+	}
+
+	private static int modelSize(VFDT tree) {
+		return 1000 * tree.activeLeafNodeCount + 100 * tree.inactiveLeafNodeCount
+				+ 50 * countObservers(tree.treeRoot, false);
+	}
+
+	/** Counts the null, or the other, attribute observers of the split nodes. */
+	private static int countObservers(VFDT.Node node, boolean nullObservers) {
+		int count = 0;
+		if (node instanceof VFDT.SplitNode) {
+			AutoExpandVector<AttributeClassObserver> observers = node instanceof EFDT.EFDTSplitNode
+					? ((EFDT.EFDTSplitNode) node).attributeObservers
+					: ((EFDTReg.EFDTSplitNode) node).attributeObservers;
+			if (observers != null) {
+				for (AttributeClassObserver obs : observers) {
+					if (obs != null && obs instanceof NullAttributeClassObserver == nullObservers) {
+						count++;
+					}
+				}
+			}
+			for (VFDT.Node child : ((VFDT.SplitNode) node).children) {
+				count += countObservers(child, nullObservers);
+			}
+		}
+		return count;
+	}
+
+	private static void checkCounts(VFDT tree) {
+		int leaves = tree.findLearningNodes().length;
+		assertEquals(leaves, tree.activeLeafNodeCount + tree.inactiveLeafNodeCount);
+		assertEquals(countSplitNodes(tree.treeRoot), tree.decisionNodeCount);
+	}
+
+	private static void checkDeactivation(VFDT tree) {
+		tree.gracePeriodOption.setValue(50);
+		tree.prepareForUse();
+		tree.resetLearning();
+		InstanceStream stream = driftingRbf();
+		train(tree, stream, 20000);
+		checkCounts(tree);
+		assertTrue(tree.decisionNodeCount > 0);
+		// inactive leaves keep learning their class distribution
+		tree.deactivateAllLeaves();
+		assertEquals(0, tree.activeLeafNodeCount);
+		train(tree, stream, 1000);
+		checkCounts(tree);
+		for (VFDT.FoundNode foundNode : tree.findLearningNodes()) {
+			tree.activateLearningNode((VFDT.InactiveLearningNode) foundNode.node,
+					foundNode.parent, foundNode.parentBranch);
+		}
+		assertEquals(0, tree.inactiveLeafNodeCount);
+		train(tree, stream, 5000);
+		checkCounts(tree);
+	}
+
+	@Test
+	public void testEFDTDeactivation() {
+		EFDT tree = new EFDT();
+		tree.reEvalPeriodOption.setValue(500);
+		checkDeactivation(tree);
+	}
+
+	@Test
+	public void testEFDTRegDeactivation() {
+		EFDTReg tree = new EFDTReg();
+		tree.reEvalPeriodOption.setValue(500);
+		checkDeactivation(tree);
+	}
+
+	@Test
+	public void testScheduledReEvaluation() {
+		EFDT tree = new EFDT();
+		tree.reEvalPeriodOption.setValue(500);
+		tree.scheduleReEvaluationOption.set();
+		checkDeactivation(tree);
+	}
+
+	@Test
+	public void testCompactAttributeObservers() {
+		EFDT tree = new EFDT();
+		tree.gracePeriodOption.setValue(50);
+		tree.reEvalPeriodOption.setValue(200);
+		tree.prepareForUse();
+		tree.resetLearning();
+		train(tree, driftingRbf(), 20000);
+		tree.compactSplitNodeObservers(tree.treeRoot);
+		EFDT.EFDTSplitNode root = (EFDT.EFDTSplitNode) tree.treeRoot;
+		int currentSplit = root.splitTest.getAttsTestDependsOn()[0];
+		// the observer of the current split is always kept
+		assertTrue(!(root.attributeObservers.get(currentSplit) instanceof NullAttributeClassObserver));
+		train(tree, driftingRbf(), 5000);
+		checkCounts(tree);
+	}
+
+	private static void checkBoundMemory(VFDT tree) {
+		tree.gracePeriodOption.setValue(50);
+		tree.maxByteSizeOption.setValue(200000);
+		tree.memoryEstimatePeriodOption.setValue(1000);
+		tree.prepareForUse();
+		tree.resetLearning();
+		// kept, as the leaves are not measured without the SizeOf agent
+		tree.activeLeafByteSizeEstimate = 1000;
+		tree.inactiveLeafByteSizeEstimate = 100;
+		InstanceStream stream = driftingRbf();
+		train(tree, stream, 30000);
+		// the observers are compacted first, but the tree still has to
+		// deactivate leaves to stay within maxByteSize
+		assertTrue(countObservers(tree.treeRoot, true) > 0);
+		assertTrue(tree.inactiveLeafNodeCount > 0);
+		assertTrue(tree.activeLeafNodeCount > 0);
+		checkCounts(tree);
+	}
+
+	@Test
+	public void testEFDTBoundMemory() {
+		EFDT tree = new MeasuredEFDT();
+		tree.reEvalPeriodOption.setValue(200);
+		tree.boundMemoryOption.set();
+		checkBoundMemory(tree);
+	}
+
+	@Test
+	public void testEFDTRegBoundMemory() {
+		EFDTReg tree = new MeasuredEFDTReg();
+		tree.reEvalPeriodOption.setValue(200);
+		tree.boundMemoryOption.set();
+		checkBoundMemory(tree);
+	}
+}
@@ -0,0 +1,111 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import moa.classifiers.Classifier;
+import moa.core.SerializeUtils;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tests the structural copy of Hoeffding trees against the serialization
+ * based copy.
+ */
+public class HoeffdingTreeCopyTest {
+
+	private static RandomRBFGenerator stream() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static List<Instance> instances(int num) {
+		RandomRBFGenerator stream = stream();
+		List<Instance> result = new ArrayList<Instance>();
+		for (int i = 0; i < num; i++) {
+			result.add(stream.nextInstance().getData());
+		}
+		return result;
+	}
+
+	private static void checkCopy(HoeffdingTree tree) throws Exception {
+		List<Instance> train = instances(3000);
+		tree.prepareForUse();
+		tree.setModelContext(stream().getHeader());
+		tree.resetLearning();
+		for (Instance inst : train.subList(0, 2000)) {
+			tree.trainOnInstance(inst);
+		}
+		assertFalse(tree.treeRoot.isLeaf());
+
+		Classifier fast = tree.copy();
+		Classifier serialized = (Classifier) SerializeUtils.copyObject(tree);
+		assertNotSame(tree.treeRoot, ((HoeffdingTree) fast).treeRoot);
+
+		// the copies must evolve exactly like the serialized copy, without touching the original
+		double[] originalVotes = tree.getVotesForInstance(train.get(2999));
+		for (Instance inst : train.subList(2000, 2999)) {
+			fast.trainOnInstance(inst);
+			serialized.trainOnInstance(inst);
+		}
+		for (Instance inst : train) {
+			assertArrayEquals(serialized.getVotesForInstance(inst), fast.getVotesForInstance(inst), 0.0);
+		}
+		assertEquals(((HoeffdingTree) serialized).getNodeCount(), ((HoeffdingTree) fast).getNodeCount());
+		assertArrayEquals(originalVotes, tree.getVotesForInstance(train.get(2999)), 0.0);
+	}
+
+	@Test
+	public void testHoeffdingTreeCopy() throws Exception {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		tree.splitConfidenceOption.setValue(0.01);
+		checkCopy(tree);
+	}
+
+	@Test
+	public void testARFHoeffdingTreeCopy() throws Exception {
+		ARFHoeffdingTree tree = new ARFHoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		tree.splitConfidenceOption.setValue(0.01);
+		tree.subspaceSizeOption.setValue(5);
+		checkCopy(tree);
+	}
+
+	@Test
+	public void testCopyLeavesTreeUntouched() throws Exception {
+		final HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		tree.prepareForUse();
+		tree.setModelContext(stream().getHeader());
+		List<Instance> train = instances(2000);
+		for (Instance inst : train) {
+			tree.trainOnInstance(inst);
+		}
+		final HoeffdingTree.Node root = tree.treeRoot;
+		Thread copier = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 200; i++) {
+					tree.copy();
+				}
+			}
+		};
+		copier.start();
+		while (copier.isAlive()) {
+			assertSame(root, tree.treeRoot);
+		}
+		copier.join();
+		assertSame(root, tree.treeRoot);
+	}
+}
@@ -0,0 +1,112 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGenerator;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test that Hoeffding trees managing their memory with a LeafRegistry
+ * activate and deactivate the same leaves as when searching the tree.
+ */
+public class LeafRegistryTest {
+
+	/** Searches the tree for the learning leaves. */
+	private static class SearchingHoeffdingTree extends HoeffdingTree {
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	/** Searches the tree for the learning leaves. */
+	private static class SearchingHoeffdingTreeReg extends HoeffdingTreeReg {
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static void configure(HoeffdingTree tree, int maxByteSize) {
+		tree.gracePeriodOption.setValue(50);
+		tree.maxByteSizeOption.setValue(maxByteSize);
+		tree.prepareForUse();
+		tree.resetLearning();
+	}
+
+	/** Enforces the memory limit with fixed estimates of the size of the leaves. */
+	private static void enforceTrackerLimit(HoeffdingTree tree) {
+		if (tree instanceof HoeffdingTreeReg) {
+			HoeffdingTreeReg treeReg = (HoeffdingTreeReg) tree;
+			treeReg.activeLeafByteSizeEstimate = 1000;
+			treeReg.inactiveLeafByteSizeEstimate = 100;
+			treeReg.byteSizeEstimateOverheadFraction = 1.0;
+		} else {
+			tree.activeLeafByteSizeEstimate = 1000;
+			tree.inactiveLeafByteSizeEstimate = 100;
+			tree.byteSizeEstimateOverheadFraction = 1.0;
+		}
+		tree.enforceTrackerLimit();
+	}
+
+	/** Gets the number of decision nodes, active leaves and inactive leaves. */
+	private static int[] nodeCounts(HoeffdingTree tree) {
+		if (tree instanceof HoeffdingTreeReg) {
+			HoeffdingTreeReg treeReg = (HoeffdingTreeReg) tree;
+			return new int[]{treeReg.decisionNodeCount, treeReg.activeLeafNodeCount,
+					treeReg.inactiveLeafNodeCount};
+		}
+		return new int[]{tree.decisionNodeCount, tree.activeLeafNodeCount,
+				tree.inactiveLeafNodeCount};
+	}
+
+	private static void checkRegistry(HoeffdingTree registered, HoeffdingTree searching,
+			InstanceStream stream, int maxByteSize) {
+		configure(registered, maxByteSize);
+		configure(searching, maxByteSize);
+		for (int i = 0; i < 20000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			registered.trainOnInstance(inst);
+			searching.trainOnInstance(inst);
+			if (i % 1000 == 999) {
+				enforceTrackerLimit(registered);
+				enforceTrackerLimit(searching);
+			}
+		}
+		assertTrue(registered.leafRegistry != null);
+		assertTrue(searching.leafRegistry == null);
+		int[] counts = nodeCounts(searching);
+		assertTrue(counts[2] > 0);
+		assertArrayEquals(counts, nodeCounts(registered));
+		assertEquals(counts[1] + counts[2], registered.leafRegistry.getNumLeaves());
+		for (int i = 0; i < 500; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(searching.getVotesForInstance(inst),
+					registered.getVotesForInstance(inst), 0.0);
+		}
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		checkRegistry(new HoeffdingTree(), new SearchingHoeffdingTree(), stream, 5000);
+	}
+
+	@Test
+	public void testNominalAttributes() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		checkRegistry(new HoeffdingTree(), new SearchingHoeffdingTree(), stream, 20000);
+	}
+
+	@Test
+	public void testHoeffdingTreeReg() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		checkRegistry(new HoeffdingTreeReg(), new SearchingHoeffdingTreeReg(), stream, 5000);
+	}
+}
@@ -0,0 +1,56 @@
+package moa.clusterers.streamkm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import moa.cluster.Clustering;
+import moa.cluster.SphereCluster;
+import moa.streams.clustering.RandomRBFGeneratorEvents;
+
+import org.junit.Test;
+
+/**
+ * Test the background reductions and parallel restarts of StreamKM.
+ */
+public class StreamKMTest {
+
+	private static Clustering[] clusterings(String options) throws Exception {
+		StreamKM clusterer = new StreamKM();
+		clusterer.getOptions().setViaCLIString("-s 200 -l 10000 " + options);
+		clusterer.prepareForUse();
+		RandomRBFGeneratorEvents stream = new RandomRBFGeneratorEvents();
+		stream.prepareForUse();
+		Clustering[] clusterings = new Clustering[4];
+		for (int i = 1; i <= 10000; i++) {
+			clusterer.trainOnInstance(stream.nextInstance().getData());
+			if (i % 2500 == 0) {
+				clusterings[i / 2500 - 1] = clusterer.getClusteringResult();
+			}
+		}
+		return clusterings;
+	}
+
+	private static void assertSameClusterings(Clustering[] expected, Clustering[] actual) {
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].size(), actual[i].size());
+			for (int j = 0; j < expected[i].size(); j++) {
+				SphereCluster e = (SphereCluster) expected[i].get(j);
+				SphereCluster a = (SphereCluster) actual[i].get(j);
+				assertArrayEquals(e.getCenter(), a.getCenter(), 0.0);
+				assertEquals(e.getRadius(), a.getRadius(), 0.0);
+				assertEquals(e.getWeight(), a.getWeight(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testBackgroundReduction() throws Exception {
+		assertSameClusterings(clusterings(""), clusterings("-b"));
+	}
+
+	@Test
+	public void testParallelRestarts() throws Exception {
+		assertSameClusterings(clusterings("-p"), clusterings("-p"));
+		assertSameClusterings(clusterings("-p"), clusterings("-b -p"));
+	}
+}
@@ -0,0 +1,57 @@
+package moa.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.meta.OzaBag;
+import moa.options.OptionHandler;
+import moa.streams.InstanceStream;
+import moa.streams.filters.StreamFilter;
+
+import org.junit.Test;
+
+/**
+ * Test the component index of AutoClassDiscovery.
+ */
+public class AutoClassDiscoveryTest {
+
+	private static Class<?>[] scan(String packageName, Class<?> type) throws Exception {
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (String className : AutoClassDiscovery.findClassNames(packageName)) {
+			if (AutoClassDiscovery.isPublicConcreteClassOfType(className, type)) {
+				classes.add(Class.forName(className));
+			}
+		}
+		return classes.toArray(new Class<?>[classes.size()]);
+	}
+
+	@Test
+	public void testIndex() {
+		Set<String> indexed = AutoClassDiscovery.getIndexedClassNames();
+		assertTrue(indexed.contains(OzaBag.class.getName()));
+		assertTrue(AutoClassDiscovery.getIndexedClassNames(Classifier.class.getName())
+				.contains(OzaBag.class.getName()));
+		assertTrue(AutoClassDiscovery.isIndexedClass(OzaBag.class.getName() + "$1", indexed));
+		assertFalse(AutoClassDiscovery.isIndexedClass("weka.classifiers.trees.J48", indexed));
+		assertFalse(AutoClassDiscovery.isIndexedType("java.io.Serializable"));
+	}
+
+	@Test
+	public void testSameClassesAsScanning() throws Exception {
+		String[] packageNames = {"moa.streams", "moa.classifiers.meta"};
+		Class<?>[] types = {InstanceStream.class, StreamFilter.class, Classifier.class,
+				OptionHandler.class, OzaBag.class, java.io.Serializable.class};
+		for (String packageName : packageNames) {
+			for (Class<?> type : types) {
+				assertArrayEquals(scan(packageName, type),
+						AutoClassDiscovery.findClassesOfType(packageName, type));
+			}
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package moa.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test the ring buffer of the instances waiting for their labels.
+ */
+public class DelayedInstanceBufferTest {
+
+	private static void assertSameInstance(Instance expected, Instance actual) {
+		assertEquals(expected.numAttributes(), actual.numAttributes());
+		for (int i = 0; i < expected.numAttributes(); i++) {
+			assertEquals(expected.value(i), actual.value(i), 0.0);
+		}
+		assertEquals(expected.weight(), actual.weight(), 0.0);
+		assertEquals(expected.classValue(), actual.classValue(), 0.0);
+	}
+
+	private static RandomTreeGenerator stream() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static void checkBuffer(RandomTreeGenerator stream, DelayedInstanceBuffer buffer) throws Exception {
+		List<Instance> added = new ArrayList<Instance>();
+		for (int i = 0; i < 3000; i++) {
+			Instance instance = stream.nextInstance().getData();
+			instance.setWeight(i % 3 + 1);
+			assertEquals(i, buffer.add(instance));
+			added.add(instance);
+			// keeps a varying number of instances, so that the buffer grows
+			// when instances wrap around the end of the ring
+			int toKeep = i < 1000 ? 7 : i < 2000 ? 250 : 3;
+			while (buffer.size() > toKeep) {
+				long first = buffer.firstIndex();
+				assertSameInstance(added.get((int) first), buffer.removeFirst().getData());
+			}
+			long middle = buffer.firstIndex() + buffer.size() / 2;
+			assertSameInstance(added.get((int) middle), buffer.get(middle).getData());
+		}
+		buffer.removeBefore(2998);
+		assertEquals(2, buffer.size());
+		assertSameInstance(added.get(2999), buffer.get(2999).getData());
+		assertSame(stream.getHeader(), buffer.get(2999).getData().dataset());
+		buffer.removeBefore(5000);
+		assertTrue(buffer.isEmpty());
+		assertEquals(3000, buffer.firstIndex());
+		buffer.close();
+	}
+
+	@Test
+	public void testHeap() throws Exception {
+		RandomTreeGenerator stream = stream();
+		checkBuffer(stream, new DelayedInstanceBuffer(stream.getHeader(), 5));
+	}
+
+	@Test
+	public void testMemoryMapped() throws Exception {
+		File file = File.createTempFile("moa-delayed", ".buf");
+		try {
+			RandomTreeGenerator stream = stream();
+			checkBuffer(stream, new DelayedInstanceBuffer(stream.getHeader(), 5, file));
+		} finally {
+			file.delete();
+		}
+	}
+}
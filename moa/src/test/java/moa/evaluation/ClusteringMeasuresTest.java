@@ -0,0 +1,72 @@
+package moa.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import moa.cluster.Clustering;
+import moa.gui.visualization.DataPoint;
+import moa.streams.clustering.RandomRBFGeneratorEvents;
+
+import org.junit.Test;
+
+/**
+ * Test the clustering measures split over threads, and the sampled
+ * silhouette coefficient.
+ */
+public class ClusteringMeasuresTest {
+
+	private static RandomRBFGeneratorEvents stream;
+
+	private static ArrayList<DataPoint> points(int numPoints) {
+		stream = new RandomRBFGeneratorEvents();
+		stream.noiseLevelOption.setValue(0.1);
+		stream.prepareForUse();
+		ArrayList<DataPoint> points = new ArrayList<DataPoint>();
+		for (int i = 1; i <= numPoints; i++) {
+			points.add(new DataPoint(stream.nextInstance().getData(), i));
+		}
+		return points;
+	}
+
+	private static MeasureCollection evaluate(MeasureCollection measure, int numThreads,
+			ArrayList<DataPoint> points) throws Exception {
+		for (int i = 0; i < measure.getNumMeasures(); i++) {
+			measure.setEnabled(i, true);
+		}
+		measure.setNumThreads(numThreads);
+		measure.evaluateClusteringPerformance(stream.getGeneratingClusters(),
+				new Clustering(points), points);
+		return measure;
+	}
+
+	private static void checkThreads(MeasureCollection serial, MeasureCollection parallel) throws Exception {
+		ArrayList<DataPoint> points = points(1500);
+		evaluate(serial, 1, points);
+		evaluate(parallel, 4, points);
+		for (int i = 0; i < serial.getNumMeasures(); i++) {
+			assertEquals(serial.getName(i), serial.getLastValue(i), parallel.getLastValue(i), 0.0);
+		}
+	}
+
+	@Test
+	public void testThreads() throws Exception {
+		checkThreads(new SilhouetteCoefficient(), new SilhouetteCoefficient());
+		checkThreads(new SSQ(), new SSQ());
+		checkThreads(new CMM(), new CMM());
+	}
+
+	@Test
+	public void testSampledSilhouette() throws Exception {
+		ArrayList<DataPoint> points = points(3000);
+		MeasureCollection exact = evaluate(new SilhouetteCoefficient(), 1, points);
+		assertEquals(0.0, exact.getLastValue(1), 0.0);
+		SilhouetteCoefficient sampled = new SilhouetteCoefficient();
+		sampled.setSampleSize(500);
+		evaluate(sampled, 2, points);
+		double halfWidth = sampled.getLastValue(1);
+		assertTrue(halfWidth > 0.0 && halfWidth < 0.05);
+		assertEquals(exact.getLastValue(0), sampled.getLastValue(0), 3 * halfWidth);
+	}
+}
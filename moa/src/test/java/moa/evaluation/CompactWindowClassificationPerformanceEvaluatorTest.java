@@ -0,0 +1,88 @@
+package moa.evaluation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import moa.core.InstanceExample;
+import moa.core.Measurement;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test CompactWindowClassificationPerformanceEvaluator against
+ * WindowClassificationPerformanceEvaluator.
+ */
+public class CompactWindowClassificationPerformanceEvaluatorTest {
+
+	private static final double EPS = 1e-9;
+
+	@Test
+	public void testSameMeasurementsAsWindowEvaluator() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.numClassesOption.setValue(7);
+		stream.prepareForUse();
+
+		WindowClassificationPerformanceEvaluator expected = new WindowClassificationPerformanceEvaluator();
+		CompactWindowClassificationPerformanceEvaluator actual = new CompactWindowClassificationPerformanceEvaluator();
+		expected.widthOption.setValue(250);
+		actual.widthOption.setValue(250);
+		for (BasicClassificationPerformanceEvaluator evaluator : new BasicClassificationPerformanceEvaluator[]{expected, actual}) {
+			evaluator.precisionRecallOutputOption.set();
+			evaluator.precisionPerClassOption.set();
+			evaluator.recallPerClassOption.set();
+			evaluator.prepareForUse();
+		}
+
+		Random random = new Random(1);
+		for (int i = 0; i < 5000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			inst.setWeight(1 + random.nextInt(3));
+			double[] votes = new double[7];
+			// mostly right, sometimes a random class
+			votes[random.nextDouble() < 0.7 ? (int) inst.classValue() : random.nextInt(7)] = 1.0;
+			expected.addResult(new InstanceExample(inst), votes);
+			actual.addResult(new InstanceExample(inst), votes);
+			if (i % 97 == 0) {
+				assertSameMeasurements(expected.getPerformanceMeasurements(), actual.getPerformanceMeasurements());
+			}
+		}
+		assertSameMeasurements(expected.getPerformanceMeasurements(), actual.getPerformanceMeasurements());
+	}
+
+	@Test
+	public void testMajorityClass() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.numClassesOption.setValue(3);
+		stream.prepareForUse();
+		CompactWindowClassificationPerformanceEvaluator evaluator = new CompactWindowClassificationPerformanceEvaluator();
+		evaluator.widthOption.setValue(10);
+		evaluator.prepareForUse();
+
+		Random random = new Random(1);
+		for (int i = 0; i < 5000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			// few weights and a short window, so that classes often tie
+			inst.setWeight(1 + random.nextInt(2));
+			evaluator.addResult(new InstanceExample(inst), new double[3]);
+			int majority = 0;
+			for (int c = 1; c < 3; c++) {
+				if (evaluator.trueClassWeight[c] > evaluator.trueClassWeight[majority]) {
+					majority = c;
+				}
+			}
+			assertEquals(majority, evaluator.majorityClass);
+		}
+	}
+
+	private static void assertSameMeasurements(Measurement[] expected, Measurement[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getName(), actual[i].getName());
+			assertEquals(expected[i].getName(), expected[i].getValue(), actual[i].getValue(), EPS);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package moa.evaluation.preview;
+
+import static org.junit.Assert.assertEquals;
+
+import moa.AbstractMOAObject;
+import moa.core.Measurement;
+import moa.evaluation.LearningEvaluation;
+
+import org.junit.Test;
+
+/**
+ * Test the snapshots of LearningCurve.
+ */
+public class LearningCurveTest {
+
+	private static LearningEvaluation evaluation(double instances, double accuracy) {
+		return new LearningEvaluation(new Measurement[]{
+				new Measurement("instances", instances),
+				new Measurement("accuracy", accuracy)});
+	}
+
+	private static LearningCurve curve(int numEntries) {
+		LearningCurve curve = new LearningCurve("instances");
+		for (int i = 1; i <= numEntries; i++) {
+			curve.insertEntry(evaluation(i * 10, i % 7));
+		}
+		return curve;
+	}
+
+	@Test
+	public void testSnapshotIsNotChanged() {
+		LearningCurve curve = curve(1000);
+		String expected = curve.toString();
+		LearningCurve snapshot = (LearningCurve) curve.copy();
+		for (int i = 1001; i <= 2000; i++) {
+			curve.insertEntry(evaluation(i * 10, 1.0));
+		}
+		// not inserted last
+		curve.insertEntry(evaluation(15, 2.0));
+		curve.insertEntry(new LearningEvaluation(new Measurement[]{
+				new Measurement("instances", 20005), new Measurement("kappa", 0.5)}));
+		assertEquals(1000, snapshot.numEntries());
+		assertEquals(2, snapshot.getMeasurementNameCount());
+		assertEquals(expected, snapshot.toString());
+		assertEquals(2002, curve.numEntries());
+		assertEquals(15, curve.getMeasurement(1, 0), 0.0);
+		assertEquals(20, curve.getMeasurement(2, 0), 0.0);
+		assertEquals(20005, curve.getMeasurement(2001, 0), 0.0);
+	}
+
+	@Test
+	public void testChangedSnapshot() {
+		LearningCurve curve = curve(300);
+		LearningCurve snapshot = (LearningCurve) curve.copy();
+		curve.insertEntry(evaluation(5000, 1.0));
+		String expected = curve.toString();
+		snapshot.insertEntry(evaluation(4000, 2.0));
+		assertEquals(expected, curve.toString());
+		assertEquals(301, snapshot.numEntries());
+		assertEquals(4000, snapshot.getMeasurement(300, 0), 0.0);
+		assertEquals(5000, curve.getMeasurement(300, 0), 0.0);
+	}
+
+	@Test
+	public void testSerialization() {
+		LearningCurve curve = curve(600);
+		LearningCurve copy = (LearningCurve) AbstractMOAObject.copy(curve);
+		assertEquals(curve.toString(), copy.toString());
+		copy.insertEntry(evaluation(10000, 3.0));
+		assertEquals(600, curve.numEntries());
+		assertEquals(601, copy.numEntries());
+	}
+}
@@ -0,0 +1,87 @@
+package moa.recommender.dataset.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import org.junit.Test;
+
+/**
+ * Test the datasets read from a binary cache.
+ */
+public class CachedDatasetTest {
+
+	private static File ratingsFile(int numRatings) throws Exception {
+		File ratingsFile = File.createTempFile("moa-ratings", ".dat");
+		PrintWriter writer = new PrintWriter(ratingsFile);
+		for (int i = 0; i < numRatings; i++) {
+			writer.println((i % 37) + "::" + (i * 13 % 101) + "::" + (i % 5 + 1) + "::978300760");
+		}
+		writer.close();
+		return ratingsFile;
+	}
+
+	private static CachedDataset cachedDataset(File ratingsFile, File cacheFile) {
+		CachedDataset dataset = new CachedDataset();
+		dataset.datasetOption.setValueViaCLIString("moa.recommender.dataset.impl.MovielensDataset -f " + ratingsFile.getPath());
+		dataset.cacheFileOption.setValue(cacheFile.getPath());
+		dataset.prepareForUse();
+		return dataset;
+	}
+
+	@Test
+	public void testSameRatings() throws Exception {
+		File ratingsFile = ratingsFile(1000);
+		File cacheFile = new File(ratingsFile.getPath() + ".bin");
+		try {
+
+			for (int run = 0; run < 2; run++) {
+				// writes the cache the first time, then only reads it
+				assertEquals(run > 0, cacheFile.exists());
+				MovielensDataset expected = new MovielensDataset();
+				expected.fileOption.setValue(ratingsFile.getPath());
+				expected.prepareForUse();
+				CachedDataset actual = cachedDataset(ratingsFile, cacheFile);
+				assertEquals(1000, actual.numRatings());
+				for (int pass = 0; pass < 2; pass++) {
+					while (expected.next()) {
+						assertTrue(actual.next());
+						assertEquals(expected.curUserID(), actual.curUserID());
+						assertEquals(expected.curItemID(), actual.curItemID());
+						assertEquals(expected.curRating(), actual.curRating(), 0.0);
+					}
+					assertFalse(actual.next());
+					expected.reset();
+					actual.reset();
+				}
+			}
+		} finally {
+			ratingsFile.delete();
+			cacheFile.delete();
+		}
+	}
+
+	@Test
+	public void testRewrittenForAnotherDataset() throws Exception {
+		File ratingsFile = ratingsFile(1000);
+		File otherRatingsFile = ratingsFile(300);
+		File cacheFile = new File(ratingsFile.getPath() + ".bin");
+		try {
+			assertEquals(1000, cachedDataset(ratingsFile, cacheFile).numRatings());
+			CachedDataset other = cachedDataset(otherRatingsFile, cacheFile);
+			assertEquals(300, other.numRatings());
+			StringBuilder description = new StringBuilder();
+			other.getDescription(description, 0);
+			assertTrue(description.toString().contains(otherRatingsFile.getPath()));
+			assertTrue(description.toString().contains("300 ratings"));
+			assertEquals(1000, cachedDataset(ratingsFile, cacheFile).numRatings());
+		} finally {
+			ratingsFile.delete();
+			otherRatingsFile.delete();
+			cacheFile.delete();
+		}
+	}
+}
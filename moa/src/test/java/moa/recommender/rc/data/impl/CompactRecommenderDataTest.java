@@ -0,0 +1,132 @@
+package moa.recommender.rc.data.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import moa.recommender.rc.data.RecommenderData;
+import moa.recommender.rc.utils.Pair;
+import moa.recommender.rc.utils.Rating;
+import moa.recommender.rc.utils.SparseVector;
+
+import org.junit.Test;
+
+/**
+ * Test the ratings kept in primitive arrays against those kept in maps.
+ */
+public class CompactRecommenderDataTest {
+
+	private static List<String> toList(SparseVector vector) {
+		List<String> list = new ArrayList<String>();
+		Iterator<Pair<Integer, Double>> it = vector.iterator();
+		while (it.hasNext()) {
+			Pair<Integer, Double> pair = it.next();
+			list.add(pair.getFirst() + "=" + pair.getSecond());
+		}
+		return list;
+	}
+
+	private static Map<Integer, Double> toMap(SparseVector vector) {
+		Map<Integer, Double> map = new HashMap<Integer, Double>();
+		Iterator<Pair<Integer, Double>> it = vector.iterator();
+		while (it.hasNext()) {
+			Pair<Integer, Double> pair = it.next();
+			assertEquals(null, map.put(pair.getFirst(), pair.getSecond()));
+		}
+		assertEquals(vector.size(), map.size());
+		return map;
+	}
+
+	private static void assertSameData(RecommenderData expected, RecommenderData actual) {
+		assertEquals(expected.getNumRatings(), actual.getNumRatings());
+		assertEquals(expected.getNumUsers(), actual.getNumUsers());
+		assertEquals(expected.getNumItems(), actual.getNumItems());
+		assertEquals(expected.getGlobalMean(), actual.getGlobalMean(), 0.0);
+		assertEquals(expected.getMinRating(), actual.getMinRating(), 0.0);
+		assertEquals(expected.getMaxRating(), actual.getMaxRating(), 0.0);
+		assertEquals(expected.getUsers(), actual.getUsers());
+		assertEquals(expected.getItems(), actual.getItems());
+		for (int user : expected.getUsers()) {
+			assertEquals(expected.countRatingsUser(user), actual.countRatingsUser(user));
+			assertEquals(expected.getAvgRatingUser(user), actual.getAvgRatingUser(user), 0.0);
+			assertEquals(toMap(expected.getRatingsUser(user)), toMap(actual.getRatingsUser(user)));
+		}
+		for (int item : expected.getItems()) {
+			assertEquals(expected.countRatingsItem(item), actual.countRatingsItem(item));
+			assertEquals(expected.getAvgRatingItem(item), actual.getAvgRatingItem(item), 0.0);
+			assertEquals(toMap(expected.getRatingsItem(item)), toMap(actual.getRatingsItem(item)));
+		}
+	}
+
+	@Test
+	public void testSameAsMemRecommenderData() {
+		Random random = new Random(1);
+		RecommenderData expected = new MemRecommenderData();
+		RecommenderData actual = new CompactRecommenderData();
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 20000; i++) {
+				int user = random.nextInt(300) * 7919;
+				int item = random.nextInt(100) - 50;
+				// MemRecommenderData only removes ratings of known users
+				if (random.nextInt(500) == 0) {
+					expected.removeUser(user);
+					actual.removeUser(user);
+				} else if (random.nextInt(20) == 0 && expected.userExists(user)) {
+					expected.removeRating(user, item);
+					actual.removeRating(user, item);
+				} else {
+					double rating = 1 + random.nextInt(5);
+					expected.setRating(user, item, rating);
+					actual.setRating(user, item, rating);
+				}
+				if (expected.userExists(user)) {
+					assertEquals(expected.getRating(user, item), actual.getRating(user, item), 0.0);
+				}
+			}
+			assertSameData(expected, actual);
+			expected.clear();
+			actual.clear();
+		}
+	}
+
+	@Test
+	public void testRatingsView() {
+		RecommenderData data = new CompactRecommenderData();
+		data.setRating(1, 30, 2);
+		data.setRating(1, 10, 3);
+		SparseVector ratings = data.getRatingsUser(1);
+		data.setRating(1, 20, 4);
+		data.setRating(1, 30, 5);
+		// the ratings are iterated in the order they were first set
+		assertEquals(Arrays.asList("30=5.0", "10=3.0", "20=4.0"), toList(ratings));
+		data.removeRating(1, 10);
+		assertEquals(Arrays.asList("30=5.0", "20=4.0"), toList(ratings));
+		assertEquals(Arrays.asList("1=4.0"), toList(data.getRatingsItem(20)));
+	}
+
+	@Test
+	public void testRatingIterator() {
+		RecommenderData data = new CompactRecommenderData();
+		data.setRating(1, 10, 2);
+		data.setRating(2, 10, 3);
+		data.setRating(1, 20, 4);
+		data.setRating(1, 10, 5);
+		int n = 0;
+		double sum = 0;
+		Iterator<Rating> it = data.ratingIterator();
+		while (it.hasNext()) {
+			Rating rating = it.next();
+			assertEquals(data.getRating(rating.userID, rating.itemID), rating.rating, 0.0);
+			sum += rating.rating;
+			n++;
+		}
+		assertEquals(3, n);
+		assertEquals(12, sum, 0.0);
+	}
+}
@@ -0,0 +1,93 @@
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Test MultiFilteredStream
+ */
+public class MultiFilteredStreamTest {
+
+	private static MultiFilteredStream filtered(String filters, boolean fused) {
+		MultiFilteredStream stream = new MultiFilteredStream();
+		stream.streamOption.setCurrentObject(new RandomTreeGenerator());
+		stream.filtersOption.setValueViaCLIString(filters);
+		if (fused) {
+			stream.fuseFiltersOption.set();
+		}
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static void assertSameInstance(Instance expected, Instance actual) {
+		assertEquals(expected.numAttributes(), actual.numAttributes());
+		for (int i = 0; i < expected.numAttributes(); i++) {
+			assertEquals(expected.value(i), actual.value(i), 0.0);
+		}
+		assertEquals(expected.weight(), actual.weight(), 0.0);
+	}
+
+	private static void checkFused(String filters) {
+		MultiFilteredStream chained = filtered(filters, false);
+		MultiFilteredStream fused = filtered(filters, true);
+		assertNotNull(fused.fusedFilters);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(fused.hasMoreInstances());
+			assertSameInstance((Instance) chained.nextInstance().getData(),
+					(Instance) fused.nextInstance().getData());
+		}
+		assertEquals(chained.getHeader().numAttributes(), fused.getHeader().numAttributes());
+		chained.restart();
+		fused.restart();
+		for (int i = 0; i < 100; i++) {
+			assertSameInstance((Instance) chained.nextInstance().getData(),
+					(Instance) fused.nextInstance().getData());
+		}
+	}
+
+	@Test
+	public void testInPlaceFilters() {
+		checkFused("AddNoiseFilter -a 0.3,ReplacingMissingValuesFilter,AddNoiseFilter -r 2");
+	}
+
+	@Test
+	public void testProjectingFilters() {
+		checkFused("AddNoiseFilter,ReLUFilter -h 50,AddNoiseFilter -r 2");
+		checkFused("RemoveDiscreteAttributeFilter,AddNoiseFilter -c 0.0");
+	}
+
+	@Test
+	public void testSourceIsNotChanged() {
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		Instances cached = new Instances(generator.getHeader(), 100);
+		for (int i = 0; i < 100; i++) {
+			cached.add(generator.nextInstance().getData());
+		}
+		Instances original = new Instances(cached);
+		MultiFilteredStream stream = new MultiFilteredStream();
+		stream.streamOption.setCurrentObject(new CachedInstancesStream(cached));
+		stream.filtersOption.setValueViaCLIString("ReLUFilter -h 50,AddNoiseFilter -a 0.5");
+		stream.fuseFiltersOption.set();
+		stream.prepareForUse();
+		for (int i = 0; i < 100; i++) {
+			stream.nextInstance();
+			assertSameInstance(original.instance(i), cached.instance(i));
+		}
+		stream.restart();
+		stream.filtersOption.setValueViaCLIString("AddNoiseFilter -a 0.5,ReLUFilter -h 50");
+		stream.prepareForUse();
+		for (int i = 0; i < 100; i++) {
+			stream.nextInstance();
+			assertSameInstance(original.instance(i), cached.instance(i));
+		}
+	}
+}
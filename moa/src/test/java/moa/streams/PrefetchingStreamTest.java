@@ -0,0 +1,111 @@
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import moa.core.Example;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Test PrefetchingStream
+ */
+public class PrefetchingStreamTest {
+
+	private static PrefetchingStream prefetch(ExampleStream stream, int bufferSize) {
+		PrefetchingStream prefetching = new PrefetchingStream();
+		prefetching.streamOption.setCurrentObject(stream);
+		prefetching.bufferSizeOption.setValue(bufferSize);
+		prefetching.prepareForUse();
+		return prefetching;
+	}
+
+	private static RandomRBFGenerator generator() {
+		RandomRBFGenerator generator = new RandomRBFGenerator();
+		generator.prepareForUse();
+		return generator;
+	}
+
+	private static void assertSameInstance(Instance expected, Instance actual) {
+		assertEquals(expected.numAttributes(), actual.numAttributes());
+		for (int i = 0; i < expected.numAttributes(); i++) {
+			assertEquals(expected.value(i), actual.value(i), 0.0);
+		}
+	}
+
+	@Test
+	public void testOrderIsPreserved() {
+		RandomRBFGenerator reference = generator();
+		PrefetchingStream stream = prefetch(generator(), 7);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(stream.hasMoreInstances());
+			assertSameInstance((Instance) reference.nextInstance().getData(),
+					(Instance) stream.nextInstance().getData());
+		}
+	}
+
+	@Test
+	public void testBatchesAndEndOfStream() {
+		RandomRBFGenerator generator = generator();
+		Instance[] expected = new Instance[100];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = generator.nextInstance().getData();
+		}
+		PrefetchingStream stream = prefetch(new CachedInstancesStream(
+				toInstances(generator, expected)), 16);
+		int seen = 0;
+		while (stream.hasMoreInstances()) {
+			List<Example> batch = stream.nextInstances(30);
+			assertTrue(batch.size() > 0 && batch.size() <= 30);
+			for (Example example : batch) {
+				assertSameInstance(expected[seen++], (Instance) example.getData());
+			}
+		}
+		assertEquals(expected.length, seen);
+		assertFalse(stream.hasMoreInstances());
+		assertEquals(0, stream.nextInstances(10).size());
+
+		stream.restart();
+		assertTrue(stream.hasMoreInstances());
+		assertSameInstance(expected[0], (Instance) stream.nextInstance().getData());
+	}
+
+	@Test
+	public void testEstimatedRemainingInstances() {
+		RandomRBFGenerator generator = generator();
+		Instance[] rows = new Instance[100];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = generator.nextInstance().getData();
+		}
+		PrefetchingStream stream = prefetch(new CachedInstancesStream(
+				toInstances(generator, rows)), 8);
+		assertEquals(100, stream.estimatedRemainingInstances());
+		for (int i = 0; i < 40; i++) {
+			stream.nextInstance();
+			assertEquals(100 - i - 1, stream.estimatedRemainingInstances());
+		}
+		stream.nextInstances(25);
+		assertEquals(35, stream.estimatedRemainingInstances());
+		while (stream.hasMoreInstances()) {
+			stream.nextInstance();
+		}
+		assertEquals(0, stream.estimatedRemainingInstances());
+	}
+
+	private static Instances toInstances(
+			RandomRBFGenerator generator, Instance[] rows) {
+		Instances instances =
+				new Instances(generator.getHeader(), rows.length);
+		for (Instance row : rows) {
+			instances.add(row);
+		}
+		return instances;
+	}
+}
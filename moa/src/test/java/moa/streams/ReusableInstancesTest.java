@@ -0,0 +1,100 @@
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.lazy.kNN;
+import moa.classifiers.meta.OzaBag;
+import moa.core.Example;
+import moa.options.OptionHandler;
+import moa.streams.generators.AgrawalGenerator;
+import moa.streams.generators.HyperplaneGenerator;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test filling reused instances with the examples of a stream.
+ */
+public class ReusableInstancesTest {
+
+	private static void assertSameInstance(Instance expected, Instance actual) {
+		assertEquals(expected.numAttributes(), actual.numAttributes());
+		for (int i = 0; i < expected.numAttributes(); i++) {
+			assertEquals(expected.value(i), actual.value(i), 0.0);
+		}
+		assertEquals(expected.weight(), actual.weight(), 0.0);
+		assertEquals(expected.classValue(), actual.classValue(), 0.0);
+	}
+
+	private static void checkReuse(InstanceStream reference, InstanceStream reusing) {
+		((OptionHandler) reference).prepareForUse();
+		((OptionHandler) reusing).prepareForUse();
+		Example<Instance> reused = null;
+		int numReused = 0;
+		for (int i = 0; i < 2000; i++) {
+			Example<Instance> expected = reference.nextInstance();
+			Example<Instance> next = reusing.nextInstance(reused);
+			if (next == reused) {
+				numReused++;
+			}
+			assertSameInstance(expected.getData(), next.getData());
+			// a reused instance gets the weight of the stream back
+			next.setWeight(5.0);
+			reused = next;
+		}
+		assertTrue(numReused > 1000);
+	}
+
+	@Test
+	public void testGenerators() {
+		checkReuse(new RandomTreeGenerator(), new RandomTreeGenerator());
+		checkReuse(new AgrawalGenerator(), new AgrawalGenerator());
+		HyperplaneGenerator hyperplane = new HyperplaneGenerator();
+		hyperplane.numDriftAttsOption.setValue(5);
+		checkReuse(hyperplane, (InstanceStream) hyperplane.copy());
+		RandomRBFGeneratorDrift rbf = new RandomRBFGeneratorDrift();
+		rbf.speedChangeOption.setValue(0.01);
+		checkReuse(rbf, (InstanceStream) rbf.copy());
+	}
+
+	@Test
+	public void testConceptDriftStream() {
+		ConceptDriftStream stream = new ConceptDriftStream();
+		stream.positionOption.setValue(1000);
+		stream.widthOption.setValue(100);
+		checkReuse(stream, (InstanceStream) stream.copy());
+	}
+
+	@Test
+	public void testNewExampleForOtherStream() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		AgrawalGenerator otherStream = new AgrawalGenerator();
+		otherStream.prepareForUse();
+		Example<Instance> other = otherStream.nextInstance();
+		Example<Instance> next = stream.nextInstance(other);
+		assertFalse(next == other);
+		assertSame(stream.getHeader(), next.getData().dataset());
+	}
+
+	@Test
+	public void testRetainsInstances() {
+		assertFalse(new NaiveBayes().retainsInstances());
+		// kNN copies the instances into its window
+		assertFalse(new kNN().retainsInstances());
+		OzaBag bagging = new OzaBag();
+		bagging.prepareForUse();
+		assertFalse(bagging.retainsInstances());
+		bagging = new OzaBag();
+		bagging.baseLearnerOption.setValueViaCLIString("meta.PairedLearners");
+		bagging.prepareForUse();
+		assertTrue(bagging.retainsInstances());
+	}
+}
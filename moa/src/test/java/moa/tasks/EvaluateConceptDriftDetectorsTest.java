@@ -0,0 +1,79 @@
+package moa.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import moa.evaluation.preview.LearningCurve;
+
+import org.junit.Test;
+
+/**
+ * Test the evaluation of several change detectors on a single stream pass.
+ */
+public class EvaluateConceptDriftDetectorsTest {
+
+	private static final String[] DETECTORS = {"DDM", "ADWINChangeDetector", "PageHinkleyDM"};
+
+	private static LearningCurve evaluateDetectors(int numberOfJobs) {
+		EvaluateConceptDriftDetectors task = new EvaluateConceptDriftDetectors();
+		task.detectorsOption.setValueViaCLIString("DDM,ADWINChangeDetector,PageHinkleyDM");
+		task.instanceLimitOption.setValue(20000);
+		task.sampleFrequencyOption.setValue(5000);
+		task.numberOfJobsOption.setValue(numberOfJobs);
+		task.prepareForUse();
+		return (LearningCurve) task.doTask();
+	}
+
+	private static LearningCurve evaluateDetector(String detector) {
+		EvaluateConceptDrift task = new EvaluateConceptDrift();
+		task.learnerOption.setValueViaCLIString("ChangeDetectorLearner -d " + detector);
+		task.instanceLimitOption.setValue(20000);
+		task.sampleFrequencyOption.setValue(5000);
+		task.prepareForUse();
+		return (LearningCurve) task.doTask();
+	}
+
+	private static int index(LearningCurve curve, String name) {
+		for (int m = 0; m < curve.getMeasurementNameCount(); m++) {
+			if (curve.getMeasurementName(m).equals(name)) {
+				return m;
+			}
+		}
+		throw new AssertionError("No measurement " + name);
+	}
+
+	@Test
+	public void testSameAsSingleDetector() {
+		LearningCurve curve = evaluateDetectors(2);
+		assertEquals(4, curve.numEntries());
+		for (String detector : DETECTORS) {
+			LearningCurve single = evaluateDetector(detector);
+			assertEquals(single.numEntries(), curve.numEntries());
+			for (String name : new String[]{"detected changes", "true changes",
+					"true changes detected", "delay detection (average)"}) {
+				for (int i = 0; i < curve.numEntries(); i++) {
+					assertEquals(detector + " " + name,
+							single.getMeasurement(i, index(single, name)),
+							curve.getMeasurement(i, index(curve, "[" + detector + "] " + name)), 0.0);
+				}
+			}
+			assertTrue(curve.getMeasurement(3, index(curve, "[" + detector + "] cost per input (ns)")) > 0.0);
+		}
+	}
+
+	@Test
+	public void testThreadsGiveSameResults() {
+		LearningCurve serial = evaluateDetectors(0);
+		LearningCurve parallel = evaluateDetectors(3);
+		assertEquals(serial.getMeasurementNameCount(), parallel.getMeasurementNameCount());
+		for (int m = 0; m < serial.getMeasurementNameCount(); m++) {
+			String name = serial.getMeasurementName(m);
+			if (name.contains("time") || name.contains("cost")) {
+				continue;
+			}
+			for (int i = 0; i < serial.numEntries(); i++) {
+				assertEquals(name, serial.getMeasurement(i, m), parallel.getMeasurement(i, m), 0.0);
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package moa.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import moa.evaluation.preview.LearningCurve;
+
+import org.junit.Test;
+
+/**
+ * Test checkpoint and resume of EvaluatePrequential
+ */
+public class EvaluatePrequentialCheckpointTest {
+
+	private static EvaluatePrequential task(int instanceLimit) {
+		EvaluatePrequential task = new EvaluatePrequential();
+		task.learnerOption.setValueViaCLIString("trees.HoeffdingTree -g 50");
+		task.instanceLimitOption.setValue(instanceLimit);
+		task.sampleFrequencyOption.setValue(1000);
+		task.prepareForUse();
+		return task;
+	}
+
+	@Test
+	public void testResumeGivesSameCurve() throws Exception {
+		File checkpointFile = File.createTempFile("moa", ".ckpt");
+		try {
+			LearningCurve expected = (LearningCurve) task(5000).doTask();
+
+			// stops after the checkpoint taken at 2000 instances
+			EvaluatePrequential interrupted = task(3000);
+			interrupted.checkpointFileOption.setValue(checkpointFile.getPath());
+			interrupted.checkpointFrequencyOption.setValue(2000);
+			interrupted.doTask();
+
+			EvaluatePrequential resumed = task(5000);
+			resumed.resumeFromOption.setValue(checkpointFile.getPath());
+			LearningCurve actual = (LearningCurve) resumed.doTask();
+
+			assertEquals(expected.numEntries(), actual.numEntries());
+			assertEquals(expected.getMeasurementNameCount(), actual.getMeasurementNameCount());
+			for (int m = 0; m < expected.getMeasurementNameCount(); m++) {
+				String name = expected.getMeasurementName(m);
+				assertEquals(name, actual.getMeasurementName(m));
+				if (name.contains("time") || name.contains("RAM-Hours")) {
+					continue;
+				}
+				for (int i = 0; i < expected.numEntries(); i++) {
+					assertEquals(name, expected.getMeasurement(i, m), actual.getMeasurement(i, m), 1e-9);
+				}
+			}
+			assertTrue(!new File(checkpointFile.getPath() + ".tmp").exists());
+		} finally {
+			checkpointFile.delete();
+		}
+	}
+
+	private static EvaluatePrequential task(int instanceLimit, File dumpFile, File predictionFile) {
+		EvaluatePrequential task = task(instanceLimit);
+		task.dumpFileOption.setValue(dumpFile.getPath());
+		task.outputPredictionFileOption.setValue(predictionFile.getPath());
+		return task;
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		return Files.readAllLines(file.toPath());
+	}
+
+	/** Drops the time and RAM-Hours columns, which differ between runs. */
+	private static String withoutTimes(String line) {
+		String[] values = line.split(",");
+		StringBuilder sb = new StringBuilder(values[0]);
+		for (int i = 3; i < values.length; i++) {
+			sb.append(',').append(values[i]);
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testResumeDoesNotRepeatRows() throws Exception {
+		File dir = Files.createTempDirectory("moa").toFile();
+		File checkpointFile = new File(dir, "eval.ckpt");
+		File expectedDump = new File(dir, "expected.csv");
+		File expectedPredictions = new File(dir, "expected.pred");
+		File dump = new File(dir, "resumed.csv");
+		File predictions = new File(dir, "resumed.pred");
+		try {
+			task(5000, expectedDump, expectedPredictions).doTask();
+
+			// writes rows up to 3000 instances, after the checkpoint at 2000
+			EvaluatePrequential interrupted = task(3000, dump, predictions);
+			interrupted.checkpointFileOption.setValue(checkpointFile.getPath());
+			interrupted.checkpointFrequencyOption.setValue(2000);
+			interrupted.doTask();
+
+			EvaluatePrequential resumed = task(5000, dump, predictions);
+			resumed.resumeFromOption.setValue(checkpointFile.getPath());
+			resumed.doTask();
+
+			assertEquals(readLines(expectedPredictions), readLines(predictions));
+			List<String> expectedLines = readLines(expectedDump);
+			List<String> actualLines = readLines(dump);
+			assertEquals(expectedLines.size(), actualLines.size());
+			assertEquals(expectedLines.get(0), actualLines.get(0));
+			for (int i = 1; i < expectedLines.size(); i++) {
+				assertEquals(withoutTimes(expectedLines.get(i)), withoutTimes(actualLines.get(i)));
+			}
+
+			// a result file shorter than at the checkpoint cannot be resumed
+			new FileWriter(predictions).close();
+			EvaluatePrequential truncated = task(5000, dump, predictions);
+			truncated.resumeFromOption.setValue(checkpointFile.getPath());
+			try {
+				truncated.doTask();
+				fail("resumed with a truncated prediction file");
+			} catch (RuntimeException ex) {
+				// expected
+			}
+		} finally {
+			for (File file : dir.listFiles()) {
+				file.delete();
+			}
+			dir.delete();
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package moa.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.LinkedList;
+
+import moa.core.DelayedInstanceBuffer;
+import moa.core.Example;
+import moa.core.InstanceExample;
+import moa.evaluation.preview.LearningCurve;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Test that the delayed prequential evaluations give the same learning
+ * curves as when the instances waiting for their labels are kept themselves.
+ */
+public class EvaluatePrequentialDelayedTest {
+
+	/**
+	 * Keeps the instances themselves in a list, as the tasks did before the
+	 * instances were stored in rows of doubles.
+	 */
+	private static class ListBuffer extends DelayedInstanceBuffer {
+
+		private final LinkedList<Instance> instances = new LinkedList<Instance>();
+
+		private long first = 0;
+
+		public ListBuffer(InstancesHeader header) {
+			super(header, 1);
+		}
+
+		@Override
+		public long add(Instance instance) {
+			this.instances.addLast(instance);
+			return this.first + this.instances.size() - 1;
+		}
+
+		@Override
+		public Example<Instance> get(long index) {
+			return new InstanceExample(this.instances.get((int) (index - this.first)));
+		}
+
+		@Override
+		public Example<Instance> removeFirst() {
+			this.first++;
+			return new InstanceExample(this.instances.removeFirst());
+		}
+
+		@Override
+		public void removeBefore(long index) {
+			while (this.first < index && !this.instances.isEmpty()) {
+				this.instances.removeFirst();
+				this.first++;
+			}
+		}
+
+		@Override
+		public long firstIndex() {
+			return this.first;
+		}
+
+		@Override
+		public int size() {
+			return this.instances.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.instances.isEmpty();
+		}
+	}
+
+	private static class ListEvaluatePrequentialDelayed extends EvaluatePrequentialDelayed {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected DelayedInstanceBuffer createBuffer(InstancesHeader header, int capacity) {
+			return new ListBuffer(header);
+		}
+	}
+
+	private static class ListEvaluatePrequentialDelayedCV extends EvaluatePrequentialDelayedCV {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected DelayedInstanceBuffer createBuffer(InstancesHeader header, int capacity) {
+			return new ListBuffer(header);
+		}
+	}
+
+	private static void assertSameCurve(LearningCurve expected, LearningCurve actual) {
+		assertTrue(expected.numEntries() > 0);
+		assertEquals(expected.numEntries(), actual.numEntries());
+		assertEquals(expected.getMeasurementNameCount(), actual.getMeasurementNameCount());
+		for (int m = 0; m < expected.getMeasurementNameCount(); m++) {
+			String name = expected.getMeasurementName(m);
+			assertEquals(name, actual.getMeasurementName(m));
+			if (name.contains("time") || name.contains("RAM-Hours")) {
+				continue;
+			}
+			for (int i = 0; i < expected.numEntries(); i++) {
+				assertEquals(name, expected.getMeasurement(i, m), actual.getMeasurement(i, m), 0.0);
+			}
+		}
+	}
+
+	private static LearningCurve run(EvaluatePrequentialDelayed task, boolean trainInBatches, File bufferFile) {
+		task.learnerOption.setValueViaCLIString("trees.HoeffdingTree -g 50");
+		task.delayLengthOption.setValue(100);
+		task.instanceLimitOption.setValue(5000);
+		task.sampleFrequencyOption.setValue(500);
+		if (trainInBatches) {
+			task.trainInBatches.set();
+		}
+		if (bufferFile != null) {
+			task.bufferFileOption.setValue(bufferFile.getPath());
+		}
+		task.prepareForUse();
+		return (LearningCurve) task.doTask();
+	}
+
+	private static LearningCurve run(EvaluatePrequentialDelayedCV task, int validationMethodology, File bufferFile) {
+		task.learnerOption.setValueViaCLIString("trees.HoeffdingTree -g 50");
+		task.delayLengthOption.setValue(100);
+		task.numFoldsOption.setValue(3);
+		task.validationMethodologyOption.setChosenIndex(validationMethodology);
+		task.instanceLimitOption.setValue(5000);
+		task.sampleFrequencyOption.setValue(500);
+		if (bufferFile != null) {
+			task.bufferFileOption.setValue(bufferFile.getPath());
+		}
+		task.prepareForUse();
+		return (LearningCurve) task.doTask();
+	}
+
+	@Test
+	public void testEvaluatePrequentialDelayed() throws Exception {
+		File bufferFile = File.createTempFile("moa", ".buf");
+		try {
+			for (boolean trainInBatches : new boolean[]{false, true}) {
+				LearningCurve expected = run(new ListEvaluatePrequentialDelayed(), trainInBatches, null);
+				assertSameCurve(expected, run(new EvaluatePrequentialDelayed(), trainInBatches, null));
+				assertSameCurve(expected, run(new EvaluatePrequentialDelayed(), trainInBatches, bufferFile));
+			}
+		} finally {
+			bufferFile.delete();
+		}
+	}
+
+	@Test
+	public void testEvaluatePrequentialDelayedCV() throws Exception {
+		File bufferFile = File.createTempFile("moa", ".buf");
+		try {
+			for (int validationMethodology = 0; validationMethodology < 3; validationMethodology++) {
+				LearningCurve expected = run(new ListEvaluatePrequentialDelayedCV(), validationMethodology, null);
+				assertSameCurve(expected, run(new EvaluatePrequentialDelayedCV(), validationMethodology, null));
+				assertSameCurve(expected, run(new EvaluatePrequentialDelayedCV(), validationMethodology, bufferFile));
+			}
+		} finally {
+			bufferFile.delete();
+		}
+	}
+}